@@ -2,6 +2,7 @@ plugins {
     id("java")
     id("application")
     id("com.github.johnrengelman.shadow") version "8.1.1"
+    id("me.champeau.jmh") version "0.7.2"
 }
 
 group = "com.domu"
@@ -62,6 +63,15 @@ tasks.test {
     systemProperty("javalin.port", "0")
 }
 
+// Benchmarks en src/jmh/java: ./gradlew jmh (resultados en build/results/jmh)
+jmh {
+    jmhVersion.set("1.37")
+    fork.set(1)
+    warmupIterations.set(3)
+    iterations.set(5)
+    resultFormat.set("JSON")
+}
+
 tasks.withType<JavaCompile>().configureEach {
     options.encoding = "UTF-8"
     options.release.set(javaVersion.asInt())
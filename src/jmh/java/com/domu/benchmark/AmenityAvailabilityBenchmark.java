@@ -0,0 +1,136 @@
+package com.domu.benchmark;
+
+import com.domu.database.AmenityRepository;
+import com.domu.database.AmenityRepository.AmenityRow;
+import com.domu.database.AmenityRepository.ReservationRow;
+import com.domu.database.AmenityRepository.ReservedSlotRow;
+import com.domu.database.AmenityRepository.TimeSlotRow;
+import com.domu.domain.core.User;
+import com.domu.dto.AvailabilityCalendarResponse;
+import com.domu.dto.AvailabilityResponse;
+import com.domu.service.AmenityService;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cruce de bloques horarios con reservas en AmenityService: disponibilidad de un
+ * día y calendario de un mes.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class AmenityAvailabilityBenchmark {
+
+    private static final Long AMENITY_ID = 5L;
+
+    @Param({"8", "48"})
+    public int slotsPerDay;
+
+    private AmenityService service;
+    private User user;
+    private String date;
+    private String monthEnd;
+
+    @Setup
+    public void setUp() {
+        List<TimeSlotRow> slots = new ArrayList<>();
+        long slotId = 1;
+        for (int day = 1; day <= 7; day++) {
+            for (int i = 0; i < slotsPerDay; i++) {
+                LocalTime start = LocalTime.of(0, 0).plusMinutes(30L * i);
+                slots.add(new TimeSlotRow(slotId++, AMENITY_ID, day, start, start.plusMinutes(30), true,
+                        LocalDateTime.of(2024, 1, 1, 0, 0)));
+            }
+        }
+
+        LocalDate start = LocalDate.now().plusDays(1);
+        List<ReservationRow> reservations = new ArrayList<>();
+        for (TimeSlotRow slot : slots) {
+            if (slot.id() % 2 == 0) {
+                for (int offset = 0; offset < 31; offset++) {
+                    LocalDate day = start.plusDays(offset);
+                    if (day.getDayOfWeek().getValue() == slot.dayOfWeek()) {
+                        reservations.add(new ReservationRow(slot.id() * 100 + offset, AMENITY_ID, 2L, slot.id(), day,
+                                "CONFIRMED", null, LocalDateTime.now(), null, "Quincho", slot.startTime(),
+                                slot.endTime(), "Nombre", "Apellido", "residente@domu.app"));
+                    }
+                }
+            }
+        }
+
+        service = new AmenityService(new InMemoryAmenityRepository(slots, reservations),
+                BenchmarkFixtures.sameBuildingAccess());
+        user = BenchmarkFixtures.user(2L, 2L);
+        date = start.toString();
+        monthEnd = start.plusDays(30).toString();
+    }
+
+    @Benchmark
+    public AvailabilityResponse dayAvailability() {
+        return service.getAvailability(user, AMENITY_ID, date);
+    }
+
+    @Benchmark
+    public AvailabilityCalendarResponse monthCalendar() {
+        return service.getAvailabilityCalendar(user, AMENITY_ID, date, monthEnd);
+    }
+
+    static final class InMemoryAmenityRepository extends AmenityRepository {
+
+        private final AmenityRow amenity = new AmenityRow(AMENITY_ID, BenchmarkFixtures.BUILDING_ID, "Quincho", null,
+                20, BigDecimal.ZERO, null, null, "ACTIVE", LocalDateTime.of(2024, 1, 1, 0, 0), null);
+        private final List<TimeSlotRow> slots;
+        private final List<ReservationRow> reservations;
+
+        InMemoryAmenityRepository(List<TimeSlotRow> slots, List<ReservationRow> reservations) {
+            super(null);
+            this.slots = slots;
+            this.reservations = reservations;
+        }
+
+        @Override
+        public Optional<AmenityRow> findAmenityById(Long id) {
+            return Optional.of(amenity);
+        }
+
+        @Override
+        public List<TimeSlotRow> findTimeSlotsByAmenity(Long amenityId) {
+            return slots;
+        }
+
+        @Override
+        public List<TimeSlotRow> findActiveTimeSlotsByAmenityAndDay(Long amenityId, int dayOfWeek) {
+            return slots.stream().filter(slot -> slot.dayOfWeek() == dayOfWeek).toList();
+        }
+
+        @Override
+        public List<ReservationRow> findReservationsByAmenityAndDate(Long amenityId, LocalDate date) {
+            return reservations.stream().filter(r -> r.reservationDate().equals(date)).toList();
+        }
+
+        @Override
+        public List<ReservedSlotRow> findReservedSlotsByAmenityAndRange(Long amenityId, LocalDate from,
+                LocalDate to) {
+            return reservations.stream()
+                    .filter(r -> !r.reservationDate().isBefore(from) && !r.reservationDate().isAfter(to))
+                    .map(r -> new ReservedSlotRow(r.timeSlotId(), r.reservationDate()))
+                    .toList();
+        }
+    }
+}
@@ -0,0 +1,116 @@
+package com.domu.benchmark;
+
+import com.domu.database.AmenityRepository;
+import com.domu.database.AmenityRepository.AmenityRow;
+import com.domu.database.AmenityRepository.ReservationRow;
+import com.domu.database.AmenityRepository.TimeSlotRow;
+import com.domu.domain.core.User;
+import com.domu.dto.ReservationRequest;
+import com.domu.service.AmenityService;
+import com.domu.service.ValidationException;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+
+import java.math.BigDecimal;
+import java.time.DayOfWeek;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Reservas concurrentes sobre un mismo bloque horario en AmenityService: los
+ * hilos compiten por cada fecha y solo el primero la obtiene, el resto recibe el
+ * rechazo. Cada fecha recibe attemptsPerDate intentos antes de pasar a la semana
+ * siguiente. El repositorio en memoria responde como el índice único de
+ * reservas activas.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Threads(8)
+public class AmenityReservationContentionBenchmark {
+
+    private static final Long AMENITY_ID = 5L;
+    private static final Long SLOT_ID = 50L;
+
+    @Param({"8", "64"})
+    public int attemptsPerDate;
+
+    private final AtomicLong attempts = new AtomicLong();
+    private AmenityService service;
+    private User user;
+    private LocalDate firstDate;
+
+    @Setup(Level.Iteration)
+    public void setUp() {
+        firstDate = LocalDate.now().plusWeeks(1).with(DayOfWeek.SATURDAY);
+        service = new AmenityService(new InMemoryReservationRepository(firstDate.getDayOfWeek().getValue()),
+                BenchmarkFixtures.sameBuildingAccess());
+        user = BenchmarkFixtures.user(2L, 2L);
+        attempts.set(0);
+    }
+
+    @Benchmark
+    public boolean book() {
+        long attempt = attempts.getAndIncrement();
+        ReservationRequest request = new ReservationRequest();
+        request.setTimeSlotId(SLOT_ID);
+        request.setReservationDate(firstDate.plusWeeks(attempt / attemptsPerDate).toString());
+        try {
+            service.createReservation(user, AMENITY_ID, request);
+            return true;
+        } catch (ValidationException e) {
+            return false;
+        }
+    }
+
+    static final class InMemoryReservationRepository extends AmenityRepository {
+
+        private final AmenityRow amenity = new AmenityRow(AMENITY_ID, BenchmarkFixtures.BUILDING_ID, "Quincho", null,
+                20, BigDecimal.ZERO, null, null, "ACTIVE", LocalDateTime.of(2024, 1, 1, 0, 0), null);
+        private final TimeSlotRow slot;
+        private final Map<LocalDate, ReservationRow> activeByDate = new ConcurrentHashMap<>();
+        private final AtomicLong ids = new AtomicLong();
+
+        InMemoryReservationRepository(int dayOfWeek) {
+            super(null);
+            this.slot = new TimeSlotRow(SLOT_ID, AMENITY_ID, dayOfWeek, LocalTime.of(12, 0), LocalTime.of(16, 0),
+                    true, LocalDateTime.of(2024, 1, 1, 0, 0));
+        }
+
+        @Override
+        public Optional<AmenityRow> findAmenityById(Long id) {
+            return Optional.of(amenity);
+        }
+
+        @Override
+        public Optional<TimeSlotRow> findTimeSlotById(Long id) {
+            return Optional.of(slot);
+        }
+
+        @Override
+        public Optional<ReservationRow> tryInsertReservation(ReservationRow reservation) {
+            ReservationRow saved = new ReservationRow(ids.incrementAndGet(), reservation.amenityId(),
+                    reservation.userId(), reservation.timeSlotId(), reservation.reservationDate(),
+                    reservation.status(), reservation.notes(), LocalDateTime.now(), null, amenity.name(),
+                    slot.startTime(), slot.endTime(), "Nombre", "Apellido", "residente@domu.app");
+            return activeByDate.putIfAbsent(reservation.reservationDate(), saved) == null
+                    ? Optional.of(saved)
+                    : Optional.empty();
+        }
+    }
+}
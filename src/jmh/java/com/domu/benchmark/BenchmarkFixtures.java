@@ -0,0 +1,56 @@
+package com.domu.benchmark;
+
+import com.domu.database.BuildingRepository;
+import com.domu.database.UserBuildingRepository;
+import com.domu.domain.core.User;
+import com.domu.service.BuildingAccessService;
+
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+
+/**
+ * Datos y dobles compartidos por los benchmarks. Los repositorios se reemplazan
+ * por subclases en memoria para medir solo la lógica de servicio.
+ */
+final class BenchmarkFixtures {
+
+    static final Long BUILDING_ID = 1L;
+
+    private BenchmarkFixtures() {
+    }
+
+    static User user(Long id, Long roleId) {
+        return new User(
+                id,
+                10L,
+                roleId,
+                "Nombre",
+                "Apellido",
+                "usuario" + id + "@domu.app",
+                "+56 9 1111 2222",
+                LocalDate.of(1990, 1, 1),
+                "hash",
+                "12.345.678-9",
+                true,
+                LocalDateTime.of(2024, 1, 1, 0, 0),
+                "ACTIVE");
+    }
+
+    /**
+     * Control de acceso que siempre resuelve al mismo edificio, sin caché ni base.
+     */
+    static BuildingAccessService sameBuildingAccess() {
+        return new BuildingAccessService((UserBuildingRepository) null, (BuildingRepository) null, Duration.ZERO, 0) {
+            @Override
+            public Long resolveBuildingId(User user, Long requestBuildingId) {
+                return requestBuildingId != null ? requestBuildingId : BUILDING_ID;
+            }
+
+            @Override
+            public boolean isSameBuilding(User user, Long buildingId) {
+                return BUILDING_ID.equals(buildingId);
+            }
+        };
+    }
+}
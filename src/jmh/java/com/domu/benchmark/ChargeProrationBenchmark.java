@@ -0,0 +1,99 @@
+package com.domu.benchmark;
+
+import com.domu.database.CommonExpenseRepository.UnitShare;
+import com.domu.service.ChargeProration;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Prorrateo de varias líneas de cargo: el motor en centavos enteros
+ * (ChargeProration) frente al cálculo anterior con BigDecimal y HALF_UP por
+ * unidad.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class ChargeProrationBenchmark {
+
+    @Param({"50", "500", "2000"})
+    public int units;
+
+    @Param({"30"})
+    public int chargeLines;
+
+    private List<UnitShare> shares;
+    private BigDecimal[] amounts;
+    private long[] amountsCents;
+
+    @Setup
+    public void setUp() {
+        shares = new ArrayList<>(units);
+        for (int i = 0; i < units; i++) {
+            BigDecimal weight = i % 25 == 0 ? null : BigDecimal.valueOf(4_000 + (i % 7) * 500L, 4);
+            shares.add(new UnitShare((long) i + 1, weight, i % 10 != 0));
+        }
+        amounts = new BigDecimal[chargeLines];
+        amountsCents = new long[chargeLines];
+        for (int i = 0; i < chargeLines; i++) {
+            amounts[i] = new BigDecimal("1234567.89").add(BigDecimal.valueOf(i * 137L, 2));
+            amountsCents[i] = ChargeProration.toCents(amounts[i]);
+        }
+    }
+
+    @Benchmark
+    public long integerCents() {
+        ChargeProration proration = ChargeProration.forUnits(shares);
+        long checksum = 0;
+        for (long amount : amountsCents) {
+            long[] distributed = proration.distribute(amount);
+            checksum += distributed[distributed.length - 1];
+        }
+        return checksum;
+    }
+
+    @Benchmark
+    public BigDecimal bigDecimal() {
+        BigDecimal checksum = BigDecimal.ZERO;
+        for (BigDecimal amount : amounts) {
+            List<BigDecimal> distributed = bigDecimalShares(amount);
+            checksum = checksum.add(distributed.get(distributed.size() - 1));
+        }
+        return checksum;
+    }
+
+    /**
+     * Ruta previa de CommonExpenseService.prorateCharge: recalcula el total de
+     * coeficientes por cargo y divide con HALF_UP por unidad.
+     */
+    private List<BigDecimal> bigDecimalShares(BigDecimal amount) {
+        BigDecimal totalWeight = shares.stream()
+                .map(unit -> unit.weight() != null && unit.weight().compareTo(BigDecimal.ZERO) > 0 ? unit.weight() : BigDecimal.ONE)
+                .reduce(BigDecimal.ZERO, BigDecimal::add);
+        List<BigDecimal> result = new ArrayList<>(shares.size());
+        BigDecimal remaining = amount;
+        for (int i = 0; i < shares.size(); i++) {
+            UnitShare unit = shares.get(i);
+            BigDecimal weight = unit.weight() != null && unit.weight().compareTo(BigDecimal.ZERO) > 0 ? unit.weight() : BigDecimal.ONE;
+            BigDecimal share = amount.multiply(weight).divide(totalWeight, 2, RoundingMode.HALF_UP);
+            if (i == shares.size() - 1) {
+                share = remaining;
+            }
+            remaining = remaining.subtract(share);
+            result.add(share);
+        }
+        return result;
+    }
+}
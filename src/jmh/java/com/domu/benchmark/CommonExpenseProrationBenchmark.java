@@ -0,0 +1,112 @@
+package com.domu.benchmark;
+
+import com.domu.database.CommonExpenseRepository;
+import com.domu.database.CommonExpenseRepository.PeriodWithCharges;
+import com.domu.database.CommonExpenseRepository.UnitShare;
+import com.domu.domain.finance.CommonCharge;
+import com.domu.domain.finance.CommonExpensePeriod;
+import com.domu.dto.CommonExpensePeriodResponse;
+import com.domu.dto.CreateCommonChargeRequest;
+import com.domu.dto.CreateCommonExpensePeriodRequest;
+import com.domu.service.CommonExpenseService;
+import com.domu.service.UnitShareCache;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+
+/**
+ * Generación de un período con prorrateo de cargos entre todas las unidades del
+ * edificio (CommonExpenseService.createPeriod).
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class CommonExpenseProrationBenchmark {
+
+    @Param({"50", "500"})
+    public int units;
+
+    @Param({"5"})
+    public int prorateableCharges;
+
+    private CommonExpenseService service;
+    private CreateCommonExpensePeriodRequest request;
+
+    @Setup
+    public void setUp() {
+        List<UnitShare> shares = new ArrayList<>(units);
+        for (int i = 0; i < units; i++) {
+            BigDecimal weight = BigDecimal.valueOf(40 + (i % 7) * 5L, 2);
+            shares.add(new UnitShare((long) i + 1, weight, i % 10 != 0));
+        }
+        InMemoryCommonExpenseRepository repository = new InMemoryCommonExpenseRepository(shares);
+        service = new CommonExpenseService(repository, BenchmarkFixtures.sameBuildingAccess(),
+                new UnitShareCache(repository, Duration.ofMinutes(5), 10));
+
+        List<CreateCommonChargeRequest> charges = new ArrayList<>();
+        for (int i = 0; i < prorateableCharges; i++) {
+            CreateCommonChargeRequest charge = new CreateCommonChargeRequest();
+            charge.setDescription("Gasto " + i);
+            charge.setAmount(new BigDecimal("1234567.89").add(BigDecimal.valueOf(i)));
+            charge.setType("OPERATIONAL");
+            charge.setProrateable(true);
+            charges.add(charge);
+        }
+        request = new CreateCommonExpensePeriodRequest();
+        request.setBuildingId(BenchmarkFixtures.BUILDING_ID);
+        request.setYear(2025);
+        request.setMonth(3);
+        request.setDueDate(LocalDate.of(2025, 3, 10));
+        request.setReserveAmount(new BigDecimal("250000.00"));
+        request.setCharges(charges);
+    }
+
+    @Benchmark
+    public CommonExpensePeriodResponse createPeriod() {
+        return service.createPeriod(request);
+    }
+
+    static final class InMemoryCommonExpenseRepository extends CommonExpenseRepository {
+
+        private final List<UnitShare> shares;
+
+        InMemoryCommonExpenseRepository(List<UnitShare> shares) {
+            super(null);
+            this.shares = shares;
+        }
+
+        @Override
+        public boolean periodExists(Long buildingId, Integer year, Integer month) {
+            return false;
+        }
+
+        @Override
+        public List<UnitShare> findUnitsForBuilding(Long buildingId) {
+            return shares;
+        }
+
+        @Override
+        public PeriodWithCharges insertPeriodWithCharges(CommonExpensePeriod period,
+                                                         Function<Long, List<CommonCharge>> chargesForPeriod) {
+            List<CommonCharge> charges = chargesForPeriod.apply(1L);
+            BigDecimal total = charges.stream().map(CommonCharge::amount).reduce(BigDecimal.ZERO, BigDecimal::add);
+            return new PeriodWithCharges(new CommonExpensePeriod(1L, period.buildingId(), period.year(),
+                    period.month(), period.generatedAt(), period.dueDate(), period.reserveAmount(), total,
+                    period.status()), charges);
+        }
+    }
+}
@@ -0,0 +1,85 @@
+package com.domu.benchmark;
+
+import com.domu.dto.HousingUnitResponse;
+import com.domu.dto.HousingUnitWithResidents;
+import com.domu.dto.HousingUnitWithResidents.ResidentSummary;
+import com.domu.dto.VisitListResponse;
+import com.domu.dto.VisitResponse;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Serialización JSON de las respuestas más grandes, con el mismo ObjectMapper
+ * que usa el servidor.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class JsonSerializationBenchmark {
+
+    @Param({"100"})
+    public int size;
+
+    private ObjectMapper objectMapper;
+    private List<HousingUnitWithResidents> units;
+    private VisitListResponse visits;
+
+    @Setup
+    public void setUp() {
+        objectMapper = new ObjectMapper()
+                .registerModule(new JavaTimeModule())
+                .disable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS);
+        LocalDateTime now = LocalDateTime.of(2025, 3, 1, 12, 0);
+
+        units = new ArrayList<>(size);
+        for (long i = 1; i <= size; i++) {
+            HousingUnitResponse unit = new HousingUnitResponse(i, BenchmarkFixtures.BUILDING_ID, String.valueOf(100 + i),
+                    "A", String.valueOf(i / 10), new BigDecimal("1.2345"), new BigDecimal("65.50"), "ACTIVE", 1L,
+                    "Admin Edificio", now, now, 2);
+            List<ResidentSummary> residents = List.of(
+                    new ResidentSummary(i * 10, "Ana", "Pérez", "ana" + i + "@domu.app", "+56 9 1111 2222",
+                            "12.345.678-9"),
+                    new ResidentSummary(i * 10 + 1, "Luis", "Soto", "luis" + i + "@domu.app", "+56 9 3333 4444",
+                            "9.876.543-2"));
+            units.add(new HousingUnitWithResidents(unit, residents));
+        }
+
+        List<VisitResponse> upcoming = new ArrayList<>(size);
+        List<VisitResponse> past = new ArrayList<>(size);
+        for (long i = 1; i <= size; i++) {
+            upcoming.add(new VisitResponse(i, i, "Visita " + i, "11.111.111-1", "GUEST", 10L, now.plusHours(i),
+                    now.plusHours(i + 4), "PENDING", now, null, null));
+            past.add(new VisitResponse(size + i, size + i, "Visita " + i, "22.222.222-2", "DELIVERY", 10L,
+                    now.minusDays(i), now.minusDays(i).plusHours(2), "CHECKED_IN", now.minusDays(i),
+                    now.minusDays(i).plusMinutes(15), null));
+        }
+        visits = new VisitListResponse(upcoming, past, null);
+    }
+
+    @Benchmark
+    public byte[] housingUnitsWithResidents() throws JsonProcessingException {
+        return objectMapper.writeValueAsBytes(units);
+    }
+
+    @Benchmark
+    public byte[] visitList() throws JsonProcessingException {
+        return objectMapper.writeValueAsBytes(visits);
+    }
+}
@@ -0,0 +1,37 @@
+package com.domu.benchmark;
+
+import com.auth0.jwt.interfaces.DecodedJWT;
+import com.domu.security.JwtProvider;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Verificación del token que hace AuthenticationHandler en cada request.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class JwtVerifyBenchmark {
+
+    private JwtProvider jwtProvider;
+    private String token;
+
+    @Setup
+    public void setUp() {
+        jwtProvider = new JwtProvider("benchmark-secret-benchmark-secret", "domu-backend", 60L);
+        token = jwtProvider.generateToken(BenchmarkFixtures.user(2L, 2L));
+    }
+
+    @Benchmark
+    public DecodedJWT verify() {
+        return jwtProvider.verify(token);
+    }
+}
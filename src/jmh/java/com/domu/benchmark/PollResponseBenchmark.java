@@ -0,0 +1,106 @@
+package com.domu.benchmark;
+
+import com.domu.database.PollRepository;
+import com.domu.database.PollRepository.PollOptionRow;
+import com.domu.database.PollRepository.PollRow;
+import com.domu.database.PollRepository.PollVoteRow;
+import com.domu.domain.core.User;
+import com.domu.dto.PollListResponse;
+import com.domu.service.PollService;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Armado de respuestas de votaciones (PollService.toResponse) a través de
+ * PollService.list, con opciones y votos ya cargados en memoria.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class PollResponseBenchmark {
+
+    @Param({"20", "200"})
+    public int polls;
+
+    @Param({"4"})
+    public int optionsPerPoll;
+
+    private PollService service;
+    private User user;
+
+    @Setup
+    public void setUp() {
+        LocalDateTime now = LocalDateTime.now();
+        List<PollRow> rows = new ArrayList<>();
+        Map<Long, List<PollOptionRow>> options = new HashMap<>();
+        Map<Long, PollVoteRow> votes = new HashMap<>();
+        long optionId = 1;
+        for (long pollId = 1; pollId <= polls; pollId++) {
+            boolean open = pollId % 3 != 0;
+            rows.add(new PollRow(pollId, BenchmarkFixtures.BUILDING_ID, 1L, "Votación " + pollId, "Descripción",
+                    open ? now.plusDays(7) : now.minusDays(1), open ? "OPEN" : "CLOSED", now.minusDays(pollId),
+                    open ? null : now.minusDays(1)));
+            List<PollOptionRow> pollOptions = new ArrayList<>();
+            for (int i = 0; i < optionsPerPoll; i++) {
+                pollOptions.add(new PollOptionRow(optionId++, pollId, "Opción " + i, (int) ((pollId * 7 + i * 13) % 50)));
+            }
+            options.put(pollId, pollOptions);
+            if (pollId % 2 == 0) {
+                votes.put(pollId, new PollVoteRow(pollId, pollId, pollOptions.get(0).id(), 2L, now.minusHours(1)));
+            }
+        }
+        service = new PollService(new InMemoryPollRepository(rows, options, votes),
+                BenchmarkFixtures.sameBuildingAccess());
+        user = BenchmarkFixtures.user(2L, 2L);
+    }
+
+    @Benchmark
+    public PollListResponse list() {
+        return service.list(user, null);
+    }
+
+    static final class InMemoryPollRepository extends PollRepository {
+
+        private final List<PollRow> polls;
+        private final Map<Long, List<PollOptionRow>> options;
+        private final Map<Long, PollVoteRow> votes;
+
+        InMemoryPollRepository(List<PollRow> polls, Map<Long, List<PollOptionRow>> options,
+                Map<Long, PollVoteRow> votes) {
+            super(null);
+            this.polls = polls;
+            this.options = options;
+            this.votes = votes;
+        }
+
+        @Override
+        public List<PollRow> findByBuilding(Long buildingId, String status, LocalDateTime now) {
+            return polls;
+        }
+
+        @Override
+        public Map<Long, List<PollOptionRow>> findOptionsByPolls(Collection<Long> pollIds) {
+            return options;
+        }
+
+        @Override
+        public Map<Long, PollVoteRow> findUserVotes(Collection<Long> pollIds, Long userId) {
+            return votes;
+        }
+    }
+}
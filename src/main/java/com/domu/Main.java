@@ -2,29 +2,56 @@ package com.domu;
 
 import com.domu.config.AppConfig;
 import com.domu.config.DependencyInjectionModule;
+import com.domu.service.ChargeBalanceReconciler;
+import com.domu.service.DelinquencyRefreshJob;
+import com.domu.service.PeriodSummaryService;
+import com.domu.service.PollExpirySweeper;
+import com.domu.service.ScheduledJob;
+import com.domu.service.VisitorSearchBackfillJob;
 import com.domu.web.WebServer;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.util.List;
+
 public final class Main {
 
     private static final Logger LOGGER = LoggerFactory.getLogger(Main.class);
     private static final Integer DEFAULT_PORT = 8080;
+    private static final String REBUILD_PERIOD_SUMMARIES = "rebuild-period-summaries";
 
     private Main() {
     }
 
     public static void main(final String[] args) {
+        if (args.length > 0 && REBUILD_PERIOD_SUMMARIES.equals(args[0])) {
+            rebuildPeriodSummaries(args);
+            return;
+        }
         Integer port = resolvePort();
         var injector = DependencyInjectionModule.getInstance();
         WebServer server = injector.getInstance(WebServer.class);
+        List<ScheduledJob> jobs = List.of(
+                injector.getInstance(PollExpirySweeper.class),
+                injector.getInstance(ChargeBalanceReconciler.class),
+                injector.getInstance(DelinquencyRefreshJob.class),
+                injector.getInstance(VisitorSearchBackfillJob.class));
 
         Runtime.getRuntime().addShutdownHook(new Thread(server::stop));
+        Runtime.getRuntime().addShutdownHook(new Thread(() -> jobs.forEach(ScheduledJob::stop)));
 
         server.start(port);
+        jobs.forEach(ScheduledJob::start);
         LOGGER.info("domu-backend listening on http://localhost:{}", server.getPort());
     }
 
+    private static void rebuildPeriodSummaries(final String[] args) {
+        Long buildingId = args.length > 1 ? Long.parseLong(args[1]) : null;
+        PeriodSummaryService service = DependencyInjectionModule.getInstance().getInstance(PeriodSummaryService.class);
+        int periods = service.rebuild(buildingId);
+        LOGGER.info("Rebuilt {} period summaries{}", periods, buildingId != null ? " for building " + buildingId : "");
+    }
+
     private static Integer resolvePort() {
         String systemPort = System.getProperty("javalin.port");
         if (systemPort != null && !systemPort.isBlank()) {
@@ -0,0 +1,130 @@
+package com.domu.cache;
+
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Optional;
+import java.util.function.Function;
+import java.util.function.LongSupplier;
+import java.util.function.UnaryOperator;
+
+/**
+ * Caché en memoria acotada (LRU) con expiración por tiempo.
+ * Los valores nulos devueltos por el loader no se almacenan.
+ */
+public final class TtlCache<K, V> {
+
+    private final long ttlNanos;
+    private final int maxEntries;
+    private final LongSupplier ticker;
+    private final LinkedHashMap<K, Entry<V>> entries;
+    private long generation = 0L;
+
+    public TtlCache(Duration ttl, int maxEntries) {
+        this(ttl, maxEntries, System::nanoTime);
+    }
+
+    TtlCache(Duration ttl, int maxEntries, LongSupplier ticker) {
+        this.ttlNanos = ttl != null ? ttl.toNanos() : 0L;
+        this.maxEntries = Math.max(0, maxEntries);
+        this.ticker = ticker;
+        this.entries = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<K, Entry<V>> eldest) {
+                return size() > TtlCache.this.maxEntries;
+            }
+        };
+    }
+
+    public boolean isEnabled() {
+        return ttlNanos > 0 && maxEntries > 0;
+    }
+
+    public synchronized Optional<V> getIfPresent(K key) {
+        Entry<V> entry = entries.get(key);
+        if (entry == null) {
+            return Optional.empty();
+        }
+        if (entry.expiresAt() - ticker.getAsLong() <= 0) {
+            entries.remove(key);
+            return Optional.empty();
+        }
+        return Optional.of(entry.value());
+    }
+
+    /**
+     * Devuelve el valor cacheado o lo carga con el loader. La carga se hace fuera
+     * del lock; si hubo una invalidación mientras se cargaba, el resultado se
+     * devuelve pero no se almacena para no reintroducir datos obsoletos.
+     */
+    public V get(K key, Function<K, V> loader) {
+        if (!isEnabled()) {
+            return loader.apply(key);
+        }
+        long observedGeneration;
+        synchronized (this) {
+            Optional<V> cached = getIfPresent(key);
+            if (cached.isPresent()) {
+                return cached.get();
+            }
+            observedGeneration = generation;
+        }
+        V loaded = loader.apply(key);
+        if (loaded != null) {
+            synchronized (this) {
+                if (observedGeneration == generation) {
+                    entries.put(key, new Entry<>(loaded, ticker.getAsLong() + ttlNanos));
+                }
+            }
+        }
+        return loaded;
+    }
+
+    public synchronized void put(K key, V value) {
+        if (!isEnabled() || value == null) {
+            return;
+        }
+        entries.put(key, new Entry<>(value, ticker.getAsLong() + ttlNanos));
+    }
+
+    /**
+     * Reemplaza bajo el lock el valor cacheado por {@code update(valor)} sin
+     * renovar su expiración; si no hay valor vigente no hace nada, y si update
+     * devuelve null la entrada se elimina. Igual que invalidate, descarta las
+     * cargas en curso, que podrían no incluir el cambio.
+     */
+    public synchronized void update(K key, UnaryOperator<V> update) {
+        generation++;
+        Entry<V> entry = entries.get(key);
+        if (entry == null) {
+            return;
+        }
+        if (entry.expiresAt() - ticker.getAsLong() <= 0) {
+            entries.remove(key);
+            return;
+        }
+        V updated = update.apply(entry.value());
+        if (updated == null) {
+            entries.remove(key);
+        } else {
+            entries.put(key, new Entry<>(updated, entry.expiresAt()));
+        }
+    }
+
+    public synchronized void invalidate(K key) {
+        generation++;
+        entries.remove(key);
+    }
+
+    public synchronized void invalidateAll() {
+        generation++;
+        entries.clear();
+    }
+
+    public synchronized int size() {
+        return entries.size();
+    }
+
+    private record Entry<V>(V value, long expiresAt) {
+    }
+}
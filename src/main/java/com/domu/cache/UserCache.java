@@ -0,0 +1,44 @@
+package com.domu.cache;
+
+import com.domu.config.AppConfig;
+import com.domu.domain.core.User;
+import com.google.inject.Inject;
+
+import java.time.Duration;
+import java.util.Optional;
+import java.util.function.Function;
+
+/**
+ * Caché de usuarios autenticados por id. Evita consultar la tabla users en cada
+ * request autenticado; se invalida explícitamente cuando el usuario cambia.
+ */
+public class UserCache {
+
+    private final TtlCache<Long, User> cache;
+
+    @Inject
+    public UserCache(AppConfig config) {
+        this(Duration.ofSeconds(config.userCacheTtlSeconds()), config.userCacheMaxEntries());
+    }
+
+    public UserCache(Duration ttl, int maxEntries) {
+        this.cache = new TtlCache<>(ttl, maxEntries);
+    }
+
+    public Optional<User> get(Long userId, Function<Long, Optional<User>> loader) {
+        if (userId == null) {
+            return Optional.empty();
+        }
+        return Optional.ofNullable(cache.get(userId, id -> loader.apply(id).orElse(null)));
+    }
+
+    public void invalidate(Long userId) {
+        if (userId != null) {
+            cache.invalidate(userId);
+        }
+    }
+
+    public void invalidateAll() {
+        cache.invalidateAll();
+    }
+}
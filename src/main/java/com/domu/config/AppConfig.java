@@ -7,6 +7,7 @@ import io.javalin.json.JsonMapper;
 import org.jetbrains.annotations.NotNull;
 
 import java.lang.reflect.Type;
+import java.util.Map;
 
 public record AppConfig(
         String jdbcUrl,
@@ -24,11 +25,39 @@ public record AppConfig(
         String mailPassword,
         String mailFrom,
         String approvalBaseUrl,
-        String approvalsRecipient
+        String approvalsRecipient,
+        Long userCacheTtlSeconds,
+        Integer userCacheMaxEntries,
+        Long accessCacheTtlSeconds,
+        Boolean serverVirtualThreads,
+        Integer serverMaxConcurrentRequests,
+        Long serverAdmissionTimeoutMillis,
+        DatabasePool dbPool,
+        Long pollExpirySweepIntervalSeconds,
+        Long chargeReconciliationIntervalSeconds,
+        Long delinquencyRefreshIntervalSeconds,
+        Long visitorSearchBackfillIntervalSeconds,
+        Integer bulkPeriodParallelism
 ) {
 
     public static final Integer DEFAULT_PORT = 7000;
 
+    /**
+     * Configuración del pool HikariCP y propiedades del driver MySQL.
+     * Los tiempos se expresan en milisegundos; leakDetectionThresholdMillis = 0
+     * desactiva la detección de fugas.
+     */
+    public record DatabasePool(
+            Integer maximumPoolSize,
+            Integer minimumIdle,
+            Long connectionTimeoutMillis,
+            Long idleTimeoutMillis,
+            Long maxLifetimeMillis,
+            Long leakDetectionThresholdMillis,
+            Map<String, String> dataSourceProperties
+    ) {
+    }
+
     public static class CustomJsonMapper implements JsonMapper {
         private final ObjectMapper objectMapper;
 
@@ -1,27 +1,47 @@
 package com.domu.config;
 
+import com.domu.cache.UserCache;
 import com.domu.database.BuildingRepository;
 import com.domu.database.CommonExpenseRepository;
 import com.domu.database.DataSourceFactory;
+import com.domu.database.DatabaseLock;
+import com.domu.database.DelinquencyRepository;
+import com.domu.database.PoolMetrics;
 import com.domu.database.UserRepository;
 import com.domu.database.UserBuildingRepository;
 import com.domu.database.VisitRepository;
 import com.domu.database.VisitContactRepository;
+import com.domu.database.VisitorSearchKeyRepository;
 import com.domu.database.IncidentRepository;
 import com.domu.database.PollRepository;
 import com.domu.database.AmenityRepository;
 import com.domu.database.HousingUnitRepository;
+import com.domu.database.JobWatermarkRepository;
+import com.domu.database.PeriodSummaryRepository;
 import com.domu.security.AuthenticationHandler;
 import com.domu.security.BCryptPasswordHasher;
 import com.domu.security.JwtProvider;
 import com.domu.security.PasswordHasher;
+import com.domu.service.BuildingAccessService;
 import com.domu.service.BuildingService;
+import com.domu.service.ChargeBalanceReconciler;
+import com.domu.service.DelinquencyRefreshJob;
+import com.domu.service.DelinquencyService;
+import com.domu.service.FinanceExportService;
 import com.domu.service.CommonExpenseService;
 import com.domu.service.CommunityRegistrationStorageService;
 import com.domu.service.VisitService;
+import com.domu.service.VisitCheckInIndex;
+import com.domu.service.VisitContactIndexCache;
 import com.domu.service.VisitContactService;
+import com.domu.service.VisitorSearchBackfillJob;
 import com.domu.service.IncidentService;
+import com.domu.service.PaymentImportService;
+import com.domu.service.PeriodGenerationService;
+import com.domu.service.PeriodSummaryService;
+import com.domu.service.PollExpirySweeper;
 import com.domu.service.PollService;
+import com.domu.service.UnitShareCache;
 import com.domu.service.AmenityService;
 import com.domu.service.HousingUnitService;
 import com.domu.service.UserService;
@@ -39,6 +59,8 @@ import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
 
 import java.io.IOException;
 import java.io.InputStream;
+import java.util.LinkedHashMap;
+import java.util.Map;
 import java.util.Properties;
 import javax.sql.DataSource;
 
@@ -58,25 +80,44 @@ public class DependencyInjectionModule extends AbstractModule {
         bind(WebServer.class).in(Scopes.SINGLETON);
         bind(UserService.class).in(Scopes.SINGLETON);
         bind(CommonExpenseService.class).in(Scopes.SINGLETON);
+        bind(PeriodGenerationService.class).in(Scopes.SINGLETON);
         bind(BuildingService.class).in(Scopes.SINGLETON);
         bind(CommunityRegistrationStorageService.class).in(Scopes.SINGLETON);
         bind(VisitService.class).in(Scopes.SINGLETON);
+        bind(VisitCheckInIndex.class).in(Scopes.SINGLETON);
         bind(VisitContactService.class).in(Scopes.SINGLETON);
         bind(IncidentService.class).in(Scopes.SINGLETON);
         bind(PollService.class).in(Scopes.SINGLETON);
         bind(AmenityService.class).in(Scopes.SINGLETON);
         bind(HousingUnitService.class).in(Scopes.SINGLETON);
+        bind(BuildingAccessService.class).in(Scopes.SINGLETON);
+        bind(UnitShareCache.class).in(Scopes.SINGLETON);
+        bind(VisitContactIndexCache.class).in(Scopes.SINGLETON);
+        bind(PollExpirySweeper.class).in(Scopes.SINGLETON);
+        bind(ChargeBalanceReconciler.class).in(Scopes.SINGLETON);
+        bind(DelinquencyRefreshJob.class).in(Scopes.SINGLETON);
+        bind(VisitorSearchBackfillJob.class).in(Scopes.SINGLETON);
+        bind(DelinquencyService.class).in(Scopes.SINGLETON);
+        bind(FinanceExportService.class).in(Scopes.SINGLETON);
+        bind(PeriodSummaryService.class).in(Scopes.SINGLETON);
+        bind(PaymentImportService.class).in(Scopes.SINGLETON);
+        bind(DatabaseLock.class).in(Scopes.SINGLETON);
         bind(UserRepository.class).in(Scopes.SINGLETON);
         bind(CommonExpenseRepository.class).in(Scopes.SINGLETON);
+        bind(DelinquencyRepository.class).in(Scopes.SINGLETON);
+        bind(JobWatermarkRepository.class).in(Scopes.SINGLETON);
+        bind(PeriodSummaryRepository.class).in(Scopes.SINGLETON);
         bind(BuildingRepository.class).in(Scopes.SINGLETON);
         bind(UserBuildingRepository.class).in(Scopes.SINGLETON);
         bind(VisitRepository.class).in(Scopes.SINGLETON);
         bind(VisitContactRepository.class).in(Scopes.SINGLETON);
+        bind(VisitorSearchKeyRepository.class).in(Scopes.SINGLETON);
         bind(IncidentRepository.class).in(Scopes.SINGLETON);
         bind(PollRepository.class).in(Scopes.SINGLETON);
         bind(AmenityRepository.class).in(Scopes.SINGLETON);
         bind(HousingUnitRepository.class).in(Scopes.SINGLETON);
         bind(AuthenticationHandler.class).in(Scopes.SINGLETON);
+        bind(UserCache.class).in(Scopes.SINGLETON);
         bind(PasswordHasher.class).to(BCryptPasswordHasher.class).in(Scopes.SINGLETON);
     }
 
@@ -118,13 +159,68 @@ public class DependencyInjectionModule extends AbstractModule {
                 resolve(properties, "mail.password", "MAIL_PASSWORD", ""),
                 resolve(properties, "mail.from", "MAIL_FROM", "no-reply@domu.app"),
                 resolve(properties, "approval.baseUrl", "APPROVAL_BASE_URL", "https://domu.app"),
-                resolve(properties, "approval.recipient", "APPROVALS_RECIPIENT", ""));
+                resolve(properties, "approval.recipient", "APPROVALS_RECIPIENT", ""),
+                parseLong(resolve(properties, "cache.user.ttlSeconds", "USER_CACHE_TTL_SECONDS",
+                        String.valueOf(DEFAULT_USER_CACHE_TTL_SECONDS)), DEFAULT_USER_CACHE_TTL_SECONDS),
+                parseInteger(resolve(properties, "cache.user.maxEntries", "USER_CACHE_MAX_ENTRIES",
+                        String.valueOf(DEFAULT_USER_CACHE_MAX_ENTRIES)), DEFAULT_USER_CACHE_MAX_ENTRIES),
+                parseLong(resolve(properties, "cache.access.ttlSeconds", "ACCESS_CACHE_TTL_SECONDS",
+                        String.valueOf(DEFAULT_ACCESS_CACHE_TTL_SECONDS)), DEFAULT_ACCESS_CACHE_TTL_SECONDS),
+                Boolean.parseBoolean(resolve(properties, "server.virtualThreads", "SERVER_VIRTUAL_THREADS", "false")),
+                parseInteger(resolve(properties, "server.maxConcurrentRequests", "SERVER_MAX_CONCURRENT_REQUESTS", "0"),
+                        0),
+                parseLong(resolve(properties, "server.admissionTimeoutMillis", "SERVER_ADMISSION_TIMEOUT_MILLIS",
+                        String.valueOf(DEFAULT_ADMISSION_TIMEOUT_MILLIS)), DEFAULT_ADMISSION_TIMEOUT_MILLIS),
+                databasePool(properties),
+                parseLong(resolve(properties, "jobs.pollExpiry.intervalSeconds", "POLL_EXPIRY_SWEEP_INTERVAL_SECONDS",
+                        String.valueOf(DEFAULT_POLL_EXPIRY_SWEEP_INTERVAL_SECONDS)),
+                        DEFAULT_POLL_EXPIRY_SWEEP_INTERVAL_SECONDS),
+                parseLong(resolve(properties, "jobs.chargeReconciliation.intervalSeconds",
+                        "CHARGE_RECONCILIATION_INTERVAL_SECONDS",
+                        String.valueOf(DEFAULT_CHARGE_RECONCILIATION_INTERVAL_SECONDS)),
+                        DEFAULT_CHARGE_RECONCILIATION_INTERVAL_SECONDS),
+                parseLong(resolve(properties, "jobs.delinquency.intervalSeconds",
+                        "DELINQUENCY_REFRESH_INTERVAL_SECONDS",
+                        String.valueOf(DEFAULT_DELINQUENCY_REFRESH_INTERVAL_SECONDS)),
+                        DEFAULT_DELINQUENCY_REFRESH_INTERVAL_SECONDS),
+                parseLong(resolve(properties, "jobs.visitorSearchBackfill.intervalSeconds",
+                        "VISITOR_SEARCH_BACKFILL_INTERVAL_SECONDS",
+                        String.valueOf(DEFAULT_VISITOR_SEARCH_BACKFILL_INTERVAL_SECONDS)),
+                        DEFAULT_VISITOR_SEARCH_BACKFILL_INTERVAL_SECONDS),
+                parseInteger(resolve(properties, "finance.bulkPeriods.parallelism", "BULK_PERIOD_PARALLELISM",
+                        String.valueOf(DEFAULT_BULK_PERIOD_PARALLELISM)), DEFAULT_BULK_PERIOD_PARALLELISM));
+    }
+
+    private static AppConfig.DatabasePool databasePool(Properties properties) {
+        Map<String, String> dataSourceProperties = new LinkedHashMap<>(DEFAULT_DATASOURCE_PROPERTIES);
+        dataSourceProperties.putAll(parseKeyValues(
+                resolve(properties, "db.pool.dataSourceProperties", "DB_POOL_DATASOURCE_PROPERTIES", "")));
+        return new AppConfig.DatabasePool(
+                parseInteger(resolve(properties, "db.pool.maximumPoolSize", "DB_POOL_MAX_SIZE",
+                        String.valueOf(DEFAULT_POOL_MAX_SIZE)), DEFAULT_POOL_MAX_SIZE),
+                parseInteger(resolve(properties, "db.pool.minimumIdle", "DB_POOL_MIN_IDLE",
+                        String.valueOf(DEFAULT_POOL_MIN_IDLE)), DEFAULT_POOL_MIN_IDLE),
+                parseLong(resolve(properties, "db.pool.connectionTimeoutMillis", "DB_POOL_CONNECTION_TIMEOUT_MILLIS",
+                        String.valueOf(DEFAULT_POOL_CONNECTION_TIMEOUT_MILLIS)), DEFAULT_POOL_CONNECTION_TIMEOUT_MILLIS),
+                parseLong(resolve(properties, "db.pool.idleTimeoutMillis", "DB_POOL_IDLE_TIMEOUT_MILLIS",
+                        String.valueOf(DEFAULT_POOL_IDLE_TIMEOUT_MILLIS)), DEFAULT_POOL_IDLE_TIMEOUT_MILLIS),
+                parseLong(resolve(properties, "db.pool.maxLifetimeMillis", "DB_POOL_MAX_LIFETIME_MILLIS",
+                        String.valueOf(DEFAULT_POOL_MAX_LIFETIME_MILLIS)), DEFAULT_POOL_MAX_LIFETIME_MILLIS),
+                parseLong(resolve(properties, "db.pool.leakDetectionThresholdMillis",
+                        "DB_POOL_LEAK_DETECTION_THRESHOLD_MILLIS", "0"), 0L),
+                Map.copyOf(dataSourceProperties));
     }
 
     @Provides
     @Singleton
-    HikariDataSource dataSource(final AppConfig config) {
-        return DataSourceFactory.create(config);
+    PoolMetrics poolMetrics() {
+        return new PoolMetrics();
+    }
+
+    @Provides
+    @Singleton
+    HikariDataSource dataSource(final AppConfig config, final PoolMetrics poolMetrics) {
+        return DataSourceFactory.create(config, poolMetrics);
     }
 
     @Provides
@@ -161,6 +257,31 @@ public class DependencyInjectionModule extends AbstractModule {
     private static final String DEFAULT_JWT_SECRET = "change-this-secret";
     private static final String DEFAULT_JWT_ISSUER = "domu-backend";
     private static final Long DEFAULT_JWT_EXPIRATION_MINUTES = 60L;
+    private static final Long DEFAULT_USER_CACHE_TTL_SECONDS = 60L;
+    private static final Integer DEFAULT_USER_CACHE_MAX_ENTRIES = 10_000;
+    private static final Long DEFAULT_ACCESS_CACHE_TTL_SECONDS = 300L;
+    private static final Long DEFAULT_ADMISSION_TIMEOUT_MILLIS = 30_000L;
+    private static final Integer DEFAULT_POOL_MAX_SIZE = 10;
+    private static final Integer DEFAULT_POOL_MIN_IDLE = 2;
+    private static final Long DEFAULT_POOL_CONNECTION_TIMEOUT_MILLIS = 30_000L;
+    private static final Long DEFAULT_POOL_IDLE_TIMEOUT_MILLIS = 600_000L;
+    private static final Long DEFAULT_POOL_MAX_LIFETIME_MILLIS = 1_800_000L;
+    private static final Long DEFAULT_POLL_EXPIRY_SWEEP_INTERVAL_SECONDS = 60L;
+    private static final Long DEFAULT_CHARGE_RECONCILIATION_INTERVAL_SECONDS = 3_600L;
+    private static final Long DEFAULT_DELINQUENCY_REFRESH_INTERVAL_SECONDS = 900L;
+    private static final Long DEFAULT_VISITOR_SEARCH_BACKFILL_INTERVAL_SECONDS = 3600L;
+    private static final Integer DEFAULT_BULK_PERIOD_PARALLELISM = 4;
+    private static final Map<String, String> DEFAULT_DATASOURCE_PROPERTIES = Map.ofEntries(
+            Map.entry("cachePrepStmts", "true"),
+            Map.entry("prepStmtCacheSize", "250"),
+            Map.entry("prepStmtCacheSqlLimit", "2048"),
+            Map.entry("useServerPrepStmts", "true"),
+            Map.entry("rewriteBatchedStatements", "true"),
+            Map.entry("useLocalSessionState", "true"),
+            Map.entry("cacheResultSetMetadata", "true"),
+            Map.entry("cacheServerConfiguration", "true"),
+            Map.entry("elideSetAutoCommits", "true"),
+            Map.entry("maintainTimeStats", "false"));
 
     private static Properties loadProperties() {
         Properties properties = new Properties();
@@ -221,6 +342,29 @@ public class DependencyInjectionModule extends AbstractModule {
         }
     }
 
+    /**
+     * Interpreta una lista "clave=valor" separada por comas, por ejemplo
+     * "rewriteBatchedStatements=true,useLocalSessionState=true".
+     */
+    private static Map<String, String> parseKeyValues(String rawValue) {
+        Map<String, String> values = new LinkedHashMap<>();
+        if (rawValue == null || rawValue.isBlank()) {
+            return values;
+        }
+        for (String pair : rawValue.split(",")) {
+            int separator = pair.indexOf('=');
+            if (separator <= 0) {
+                continue;
+            }
+            String key = pair.substring(0, separator).trim();
+            String value = pair.substring(separator + 1).trim();
+            if (!key.isEmpty()) {
+                values.put(key, value);
+            }
+        }
+        return values;
+    }
+
     private static Integer parseInteger(String rawValue, Integer defaultValue) {
         if (rawValue == null || rawValue.isBlank()) {
             return defaultValue;
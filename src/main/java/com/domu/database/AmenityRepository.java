@@ -8,6 +8,7 @@ import java.sql.Date;
 import java.sql.PreparedStatement;
 import java.sql.ResultSet;
 import java.sql.SQLException;
+import java.sql.SQLIntegrityConstraintViolationException;
 import java.sql.Statement;
 import java.sql.Time;
 import java.sql.Timestamp;
@@ -15,11 +16,17 @@ import java.time.LocalDate;
 import java.time.LocalDateTime;
 import java.time.LocalTime;
 import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 
 public class AmenityRepository {
 
+    private static final int MYSQL_DUPLICATE_KEY = 1062;
+
     private final DataSource dataSource;
 
     @Inject
@@ -218,6 +225,40 @@ public class AmenityRepository {
         }
     }
 
+    /**
+     * Carga en una sola consulta los bloques horarios de varias áreas comunes,
+     * agrupados por amenity_id. Las áreas sin bloques no aparecen en el mapa.
+     */
+    public Map<Long, List<TimeSlotRow>> findTimeSlotsByAmenities(Collection<Long> amenityIds) {
+        if (amenityIds == null || amenityIds.isEmpty()) {
+            return Map.of();
+        }
+        String placeholders = String.join(", ", Collections.nCopies(amenityIds.size(), "?"));
+        String sql = """
+                SELECT id, amenity_id, day_of_week, start_time, end_time, active, created_at
+                FROM amenity_time_slots
+                WHERE amenity_id IN (%s)
+                ORDER BY amenity_id ASC, day_of_week ASC, start_time ASC
+                """.formatted(placeholders);
+        try (Connection connection = dataSource.getConnection();
+                PreparedStatement statement = connection.prepareStatement(sql)) {
+            int index = 1;
+            for (Long amenityId : amenityIds) {
+                statement.setLong(index++, amenityId);
+            }
+            try (ResultSet rs = statement.executeQuery()) {
+                Map<Long, List<TimeSlotRow>> slotsByAmenity = new HashMap<>();
+                while (rs.next()) {
+                    TimeSlotRow slot = mapTimeSlot(rs);
+                    slotsByAmenity.computeIfAbsent(slot.amenityId(), id -> new ArrayList<>()).add(slot);
+                }
+                return slotsByAmenity;
+            }
+        } catch (SQLException e) {
+            throw new RepositoryException("Error obteniendo bloques horarios", e);
+        }
+    }
+
     public List<TimeSlotRow> findActiveTimeSlotsByAmenityAndDay(Long amenityId, int dayOfWeek) {
         String sql = """
                 SELECT id, amenity_id, day_of_week, start_time, end_time, active, created_at
@@ -263,7 +304,12 @@ public class AmenityRepository {
 
     // ==================== RESERVATIONS ====================
 
-    public ReservationRow insertReservation(ReservationRow reservation) {
+    /**
+     * Inserta la reserva confiando en uq_reservation_active_slot para detectar el
+     * choque: devuelve vacío si ya hay una reserva confirmada para el mismo bloque
+     * y fecha, en lugar de consultar antes y arriesgar una carrera.
+     */
+    public Optional<ReservationRow> tryInsertReservation(ReservationRow reservation) {
         String sql = """
                 INSERT INTO amenity_reservations (amenity_id, user_id, time_slot_id, reservation_date, status, notes)
                 VALUES (?, ?, ?, ?, ?, ?)
@@ -280,15 +326,18 @@ public class AmenityRepository {
             try (ResultSet keys = statement.getGeneratedKeys()) {
                 if (keys.next()) {
                     Long id = keys.getLong(1);
-                    return findReservationById(id).orElseThrow(() -> new RepositoryException("No se pudo recuperar la reserva creada"));
+                    return Optional.of(findReservationById(id)
+                            .orElseThrow(() -> new RepositoryException("No se pudo recuperar la reserva creada")));
                 }
             }
             throw new RepositoryException("No se pudo obtener el id de la reserva");
-        } catch (SQLException e) {
-            if (e.getMessage() != null && e.getMessage().contains("Duplicate")) {
-                throw new RepositoryException("Ya existe una reserva para ese horario y fecha");
+        } catch (SQLIntegrityConstraintViolationException e) {
+            if (e.getErrorCode() == MYSQL_DUPLICATE_KEY) {
+                return Optional.empty();
             }
             throw new RepositoryException("Error creando reserva", e);
+        } catch (SQLException e) {
+            throw new RepositoryException("Error creando reserva", e);
         }
     }
 
@@ -415,23 +464,32 @@ public class AmenityRepository {
         }
     }
 
-    public boolean isSlotReserved(Long timeSlotId, LocalDate date) {
+    /**
+     * Bloques confirmados de un área común entre dos fechas (inclusive). Solo trae
+     * bloque y fecha, lo necesario para armar el calendario de disponibilidad.
+     */
+    public List<ReservedSlotRow> findReservedSlotsByAmenityAndRange(Long amenityId, LocalDate from, LocalDate to) {
         String sql = """
-                SELECT COUNT(*) FROM amenity_reservations
-                WHERE time_slot_id = ? AND reservation_date = ? AND status = 'CONFIRMED'
+                SELECT time_slot_id, reservation_date
+                FROM amenity_reservations
+                WHERE amenity_id = ? AND reservation_date BETWEEN ? AND ? AND status = 'CONFIRMED'
                 """;
         try (Connection connection = dataSource.getConnection();
                 PreparedStatement statement = connection.prepareStatement(sql)) {
-            statement.setLong(1, timeSlotId);
-            statement.setDate(2, Date.valueOf(date));
+            statement.setLong(1, amenityId);
+            statement.setDate(2, Date.valueOf(from));
+            statement.setDate(3, Date.valueOf(to));
             try (ResultSet rs = statement.executeQuery()) {
-                if (rs.next()) {
-                    return rs.getInt(1) > 0;
+                List<ReservedSlotRow> rows = new ArrayList<>();
+                while (rs.next()) {
+                    rows.add(new ReservedSlotRow(
+                            rs.getLong("time_slot_id"),
+                            rs.getDate("reservation_date").toLocalDate()));
                 }
-                return false;
+                return rows;
             }
         } catch (SQLException e) {
-            throw new RepositoryException("Error verificando disponibilidad", e);
+            throw new RepositoryException("Error obteniendo reservas por rango de fechas", e);
         }
     }
 
@@ -527,4 +585,9 @@ public class AmenityRepository {
             String userLastName,
             String userEmail) {
     }
+
+    public record ReservedSlotRow(
+            Long timeSlotId,
+            LocalDate reservationDate) {
+    }
 }
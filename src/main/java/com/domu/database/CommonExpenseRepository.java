@@ -2,6 +2,8 @@ package com.domu.database;
 
 import com.domu.domain.finance.CommonCharge;
 import com.domu.domain.finance.CommonExpensePeriod;
+import com.domu.database.PaymentImportPlan.OpenCharge;
+import com.domu.database.PaymentImportPlan.PlannedPayment;
 import com.domu.domain.finance.CommonPayment;
 import com.google.inject.Inject;
 
@@ -12,14 +14,29 @@ import java.sql.Date;
 import java.sql.PreparedStatement;
 import java.sql.ResultSet;
 import java.sql.SQLException;
+import java.sql.SQLIntegrityConstraintViolationException;
 import java.sql.Statement;
 import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayDeque;
 import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
 import java.util.Optional;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.function.Consumer;
+import java.util.function.Function;
 
 public class CommonExpenseRepository {
 
+    private static final int MYSQL_DUPLICATE_KEY = 1062;
+
     private final DataSource dataSource;
 
     @Inject
@@ -66,14 +83,7 @@ public class CommonExpenseRepository {
         String sql = "INSERT INTO common_expense_periods (building_id, year, month, generated_at, due_date, reserve_amount, total_amount, status) VALUES (?, ?, ?, ?, ?, ?, ?, ?)";
         try (Connection connection = dataSource.getConnection();
              PreparedStatement statement = connection.prepareStatement(sql, Statement.RETURN_GENERATED_KEYS)) {
-            statement.setLong(1, period.buildingId());
-            statement.setInt(2, period.year());
-            statement.setInt(3, period.month());
-            statement.setDate(4, Date.valueOf(period.generatedAt()));
-            statement.setDate(5, Date.valueOf(period.dueDate()));
-            statement.setBigDecimal(6, period.reserveAmount());
-            statement.setBigDecimal(7, period.totalAmount());
-            statement.setString(8, period.status());
+            bindPeriod(statement, period);
             statement.executeUpdate();
             try (ResultSet keys = statement.getGeneratedKeys()) {
                 if (keys.next()) {
@@ -110,14 +120,104 @@ public class CommonExpenseRepository {
         }
     }
 
+    /**
+     * Inserta los cargos y actualiza el resumen de sus períodos en una sola
+     * transacción.
+     */
     public List<CommonCharge> insertCharges(List<CommonCharge> charges) {
+        if (charges == null || charges.isEmpty()) {
+            return List.of();
+        }
+        try (Connection connection = dataSource.getConnection()) {
+            connection.setAutoCommit(false);
+            try {
+                List<CommonCharge> saved = insertCharges(connection, charges);
+                Map<Long, List<CommonCharge>> byPeriod = new LinkedHashMap<>();
+                for (CommonCharge charge : saved) {
+                    byPeriod.computeIfAbsent(charge.periodId(), id -> new ArrayList<>()).add(charge);
+                }
+                for (Map.Entry<Long, List<CommonCharge>> entry : byPeriod.entrySet()) {
+                    PeriodSummaryUpdater.applyCharges(connection, entry.getKey(), entry.getValue());
+                }
+                connection.commit();
+                return saved;
+            } catch (SQLException | RuntimeException ex) {
+                connection.rollback();
+                throw ex;
+            } finally {
+                connection.setAutoCommit(true);
+            }
+        } catch (SQLException e) {
+            throw new RepositoryException("Error guardando cargos de gastos comunes", e);
+        }
+    }
+
+    /**
+     * Crea el período, sus cargos y los totales en una sola transacción. Los
+     * cargos se construyen con el id del período recién insertado; si la
+     * construcción falla, no queda un período vacío.
+     */
+    public PeriodWithCharges insertPeriodWithCharges(CommonExpensePeriod period,
+                                                     Function<Long, List<CommonCharge>> chargesForPeriod) {
+        String insertPeriodSql = "INSERT INTO common_expense_periods (building_id, year, month, generated_at, due_date, reserve_amount, total_amount, status) VALUES (?, ?, ?, ?, ?, ?, ?, ?)";
+        String updateTotalsSql = "UPDATE common_expense_periods SET total_amount = ?, reserve_amount = ? WHERE id = ?";
+        try (Connection connection = dataSource.getConnection()) {
+            connection.setAutoCommit(false);
+            try {
+                Long periodId;
+                try (PreparedStatement statement = connection.prepareStatement(insertPeriodSql, Statement.RETURN_GENERATED_KEYS)) {
+                    bindPeriod(statement, period);
+                    statement.executeUpdate();
+                    try (ResultSet keys = statement.getGeneratedKeys()) {
+                        if (!keys.next()) {
+                            throw new RepositoryException("No se pudo obtener el ID generado para el período");
+                        }
+                        periodId = keys.getLong(1);
+                    }
+                }
+
+                List<CommonCharge> saved = insertCharges(connection, chargesForPeriod.apply(periodId));
+                PeriodSummaryUpdater.applyCharges(connection, periodId, saved);
+                BigDecimal total = saved.stream()
+                        .map(CommonCharge::amount)
+                        .reduce(BigDecimal.ZERO, BigDecimal::add);
+                try (PreparedStatement statement = connection.prepareStatement(updateTotalsSql)) {
+                    statement.setBigDecimal(1, total);
+                    statement.setBigDecimal(2, period.reserveAmount());
+                    statement.setLong(3, periodId);
+                    statement.executeUpdate();
+                }
+                connection.commit();
+                CommonExpensePeriod persisted = new CommonExpensePeriod(
+                        periodId,
+                        period.buildingId(),
+                        period.year(),
+                        period.month(),
+                        period.generatedAt(),
+                        period.dueDate(),
+                        period.reserveAmount(),
+                        total,
+                        period.status()
+                );
+                return new PeriodWithCharges(persisted, saved);
+            } catch (SQLException | RuntimeException ex) {
+                connection.rollback();
+                throw ex;
+            } finally {
+                connection.setAutoCommit(true);
+            }
+        } catch (SQLException e) {
+            throw new RepositoryException("Error creando período de gasto común", e);
+        }
+    }
+
+    private List<CommonCharge> insertCharges(Connection connection, List<CommonCharge> charges) throws SQLException {
         if (charges == null || charges.isEmpty()) {
             return List.of();
         }
         String sql = "INSERT INTO common_charges (period_id, unit_id, description, amount, type, prorateable, payer_type, receipt_text) VALUES (?, ?, ?, ?, ?, ?, ?, ?)";
         List<CommonCharge> persisted = new ArrayList<>();
-        try (Connection connection = dataSource.getConnection();
-             PreparedStatement statement = connection.prepareStatement(sql, Statement.RETURN_GENERATED_KEYS)) {
+        try (PreparedStatement statement = connection.prepareStatement(sql, Statement.RETURN_GENERATED_KEYS)) {
             for (CommonCharge charge : charges) {
                 statement.setLong(1, charge.periodId());
                 if (charge.unitId() != null) {
@@ -153,10 +253,8 @@ public class CommonExpenseRepository {
                     index++;
                 }
             }
-            return persisted;
-        } catch (SQLException e) {
-            throw new RepositoryException("Error guardando cargos de gastos comunes", e);
         }
+        return persisted;
     }
 
     public List<UnitShare> findUnitsForBuilding(Long buildingId) {
@@ -188,15 +286,12 @@ public class CommonExpenseRepository {
     public Optional<ChargeBalanceRow> findChargeBalance(Long chargeId) {
         String sql = """
                 SELECT c.id AS charge_id, c.period_id, c.unit_id, c.description, c.amount, c.type, c.prorateable,
-                       c.payer_type, c.receipt_text,
+                       c.payer_type, c.receipt_text IS NOT NULL AS has_receipt,
                        p.year, p.month, p.due_date, p.status,
-                       COALESCE(SUM(pay.amount), 0) AS paid
+                       c.paid_amount AS paid
                 FROM common_charges c
                 JOIN common_expense_periods p ON p.id = c.period_id
-                LEFT JOIN common_payments pay ON pay.charge_id = c.id
                 WHERE c.id = ?
-                GROUP BY c.id, c.period_id, c.unit_id, c.description, c.amount, c.type, c.prorateable,
-                         c.payer_type, c.receipt_text, p.year, p.month, p.due_date, p.status
                 """;
         try (Connection connection = dataSource.getConnection();
              PreparedStatement statement = connection.prepareStatement(sql)) {
@@ -215,15 +310,12 @@ public class CommonExpenseRepository {
     public List<ChargeBalanceRow> findChargesForUnit(Long unitId) {
         String sql = """
                 SELECT c.id AS charge_id, c.period_id, c.unit_id, c.description, c.amount, c.type, c.prorateable,
-                       c.payer_type, c.receipt_text,
+                       c.payer_type, c.receipt_text IS NOT NULL AS has_receipt,
                        p.year, p.month, p.due_date, p.status,
-                       COALESCE(SUM(pay.amount), 0) AS paid
+                       c.paid_amount AS paid
                 FROM common_charges c
                 JOIN common_expense_periods p ON p.id = c.period_id
-                LEFT JOIN common_payments pay ON pay.charge_id = c.id
                 WHERE c.unit_id = ?
-                GROUP BY c.id, c.period_id, c.unit_id, c.description, c.amount, c.type, c.prorateable,
-                         c.payer_type, c.receipt_text, p.year, p.month, p.due_date, p.status
                 ORDER BY p.year DESC, p.month DESC, c.id DESC
                 """;
         List<ChargeBalanceRow> rows = new ArrayList<>();
@@ -241,47 +333,588 @@ public class CommonExpenseRepository {
         }
     }
 
-    public CommonPayment insertPayment(CommonPayment payment) {
-        String sql = "INSERT INTO common_payments (unit_id, charge_id, user_id, issued_at, amount, payment_method, reference, receipt_text, status) VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?)";
+    /**
+     * Metadatos del comprobante de un cargo. Solo consulta si receipt_text es
+     * nulo, así que no lee el MEDIUMTEXT.
+     */
+    public Optional<ChargeReceiptInfo> findChargeReceiptInfo(Long chargeId) {
+        String sql = """
+                SELECT c.id, c.unit_id, p.building_id, c.payer_type, c.receipt_text IS NOT NULL AS has_receipt,
+                       c.updated_at
+                FROM common_charges c
+                JOIN common_expense_periods p ON p.id = c.period_id
+                WHERE c.id = ?
+                """;
         try (Connection connection = dataSource.getConnection();
-             PreparedStatement statement = connection.prepareStatement(sql, Statement.RETURN_GENERATED_KEYS)) {
-            statement.setLong(1, payment.unitId());
-            statement.setLong(2, payment.chargeId());
-            if (payment.userId() != null) {
-                statement.setLong(3, payment.userId());
-            } else {
-                statement.setNull(3, java.sql.Types.BIGINT);
+             PreparedStatement statement = connection.prepareStatement(sql)) {
+            statement.setLong(1, chargeId);
+            try (ResultSet rs = statement.executeQuery()) {
+                if (!rs.next()) {
+                    return Optional.empty();
+                }
+                return Optional.of(new ChargeReceiptInfo(
+                        rs.getLong("id"),
+                        rs.getObject("unit_id", Long.class),
+                        rs.getLong("building_id"),
+                        rs.getString("payer_type"),
+                        rs.getBoolean("has_receipt"),
+                        rs.getTimestamp("updated_at").toLocalDateTime()));
             }
-            statement.setDate(4, Date.valueOf(payment.issuedAt()));
-            statement.setBigDecimal(5, payment.amount());
-            statement.setString(6, payment.paymentMethod());
-            statement.setString(7, payment.reference());
-            statement.setString(8, payment.receiptText());
-            statement.setString(9, payment.status());
-            statement.executeUpdate();
-            try (ResultSet keys = statement.getGeneratedKeys()) {
-                if (keys.next()) {
-                    Long id = keys.getLong(1);
-                    return new CommonPayment(
-                            id,
-                            payment.unitId(),
-                            payment.chargeId(),
-                            payment.userId(),
-                            payment.issuedAt(),
-                            payment.amount(),
-                            payment.paymentMethod(),
-                            payment.reference(),
-                            payment.status(),
-                            payment.receiptText()
-                    );
+        } catch (SQLException e) {
+            throw new RepositoryException("Error obteniendo comprobante del cargo", e);
+        }
+    }
+
+    public Optional<String> findChargeReceiptText(Long chargeId) {
+        String sql = "SELECT receipt_text FROM common_charges WHERE id = ?";
+        try (Connection connection = dataSource.getConnection();
+             PreparedStatement statement = connection.prepareStatement(sql)) {
+            statement.setLong(1, chargeId);
+            try (ResultSet rs = statement.executeQuery()) {
+                return rs.next() ? Optional.ofNullable(rs.getString(1)) : Optional.empty();
+            }
+        } catch (SQLException e) {
+            throw new RepositoryException("Error obteniendo comprobante del cargo", e);
+        }
+    }
+
+    /**
+     * Registra un pago en una sola transacción: bloquea el cargo con
+     * SELECT ... FOR UPDATE, resuelve reintentos por clave de idempotencia,
+     * valida el saldo pendiente, inserta el pago y actualiza paid_amount. Dos
+     * pagos concurrentes sobre el mismo cargo se serializan en el lock de la fila.
+     */
+    public PaymentResult recordPayment(CommonPayment payment, String idempotencyKey) {
+        String lockChargeSql = "SELECT period_id, unit_id, amount, paid_amount FROM common_charges WHERE id = ? FOR UPDATE";
+        String insertSql = """
+                INSERT INTO common_payments (unit_id, charge_id, user_id, issued_at, amount, payment_method, reference,
+                                             receipt_text, status, idempotency_key, balance_after)
+                VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?)
+                """;
+        String updateBalanceSql = "UPDATE common_charges SET paid_amount = paid_amount + ? WHERE id = ?";
+        try (Connection connection = dataSource.getConnection()) {
+            connection.setAutoCommit(false);
+            try {
+                Long periodId;
+                Long chargeUnitId;
+                BigDecimal amount;
+                BigDecimal paid;
+                try (PreparedStatement lock = connection.prepareStatement(lockChargeSql)) {
+                    lock.setLong(1, payment.chargeId());
+                    try (ResultSet rs = lock.executeQuery()) {
+                        if (!rs.next()) {
+                            connection.rollback();
+                            return PaymentResult.of(PaymentOutcome.CHARGE_NOT_FOUND);
+                        }
+                        periodId = rs.getLong("period_id");
+                        chargeUnitId = rs.getObject("unit_id", Long.class);
+                        amount = rs.getBigDecimal("amount");
+                        paid = rs.getBigDecimal("paid_amount");
+                    }
+                }
+
+                if (idempotencyKey != null) {
+                    Optional<StoredPayment> existing = findByIdempotencyKey(connection, payment.userId(), idempotencyKey);
+                    if (existing.isPresent()) {
+                        connection.commit();
+                        return replay(existing.get(), payment);
+                    }
+                }
+
+                BigDecimal pending = amount.subtract(paid);
+                if (pending.compareTo(BigDecimal.ZERO) <= 0) {
+                    connection.rollback();
+                    return PaymentResult.of(PaymentOutcome.ALREADY_PAID);
                 }
+                if (payment.amount().compareTo(pending) > 0) {
+                    connection.rollback();
+                    return PaymentResult.of(PaymentOutcome.EXCEEDS_BALANCE);
+                }
+                BigDecimal balanceAfter = pending.subtract(payment.amount());
+
+                Long paymentId;
+                try (PreparedStatement insert = connection.prepareStatement(insertSql, Statement.RETURN_GENERATED_KEYS)) {
+                    insert.setLong(1, payment.unitId());
+                    insert.setLong(2, payment.chargeId());
+                    if (payment.userId() != null) {
+                        insert.setLong(3, payment.userId());
+                    } else {
+                        insert.setNull(3, java.sql.Types.BIGINT);
+                    }
+                    insert.setDate(4, Date.valueOf(payment.issuedAt()));
+                    insert.setBigDecimal(5, payment.amount());
+                    insert.setString(6, payment.paymentMethod());
+                    insert.setString(7, payment.reference());
+                    insert.setString(8, payment.receiptText());
+                    insert.setString(9, payment.status());
+                    insert.setString(10, idempotencyKey);
+                    insert.setBigDecimal(11, balanceAfter);
+                    insert.executeUpdate();
+                    try (ResultSet keys = insert.getGeneratedKeys()) {
+                        if (!keys.next()) {
+                            connection.rollback();
+                            throw new RepositoryException("No se pudo obtener el ID generado para el pago");
+                        }
+                        paymentId = keys.getLong(1);
+                    }
+                }
+                try (PreparedStatement update = connection.prepareStatement(updateBalanceSql)) {
+                    update.setBigDecimal(1, payment.amount());
+                    update.setLong(2, payment.chargeId());
+                    update.executeUpdate();
+                }
+                PeriodSummaryUpdater.applyPayment(connection, periodId, chargeUnitId, payment.amount());
+                connection.commit();
+                return new PaymentResult(PaymentOutcome.RECORDED, withId(payment, paymentId), balanceAfter);
+            } catch (SQLIntegrityConstraintViolationException ex) {
+                connection.rollback();
+                if (ex.getErrorCode() != MYSQL_DUPLICATE_KEY || idempotencyKey == null) {
+                    throw ex;
+                }
+                // La misma clave se usó en paralelo contra otro cargo: se devuelve lo ya registrado
+                StoredPayment existing = findByIdempotencyKey(connection, payment.userId(), idempotencyKey)
+                        .orElseThrow(() -> ex);
+                return replay(existing, payment);
+            } catch (SQLException | RuntimeException ex) {
+                connection.rollback();
+                throw ex;
+            } finally {
+                connection.setAutoCommit(true);
             }
-            throw new RepositoryException("No se pudo obtener el ID generado para el pago");
         } catch (SQLException e) {
             throw new RepositoryException("Error guardando pago de gasto común", e);
         }
     }
 
+    /**
+     * Registra un bloque de pagos importados desde un archivo del banco en una
+     * sola transacción. Las unidades, los cargos abiertos y las referencias ya
+     * registradas se resuelven con una consulta cada una para todo el bloque: los
+     * cargos quedan bloqueados con FOR UPDATE y las referencias se leen después
+     * con FOR SHARE, para no decidir sobre la instantánea de la primera lectura.
+     * Cada línea se imputa a los cargos abiertos de su unidad del más antiguo al
+     * más reciente y todos los pagos se insertan en un único batch, que con
+     * rewriteBatchedStatements viaja como un INSERT multi-fila. Las líneas que no
+     * se pueden imputar vuelven con su motivo sin afectar al resto del bloque.
+     */
+    public List<PaymentImportOutcome> importPayments(Long buildingId, Long userId, String paymentMethod,
+            List<PaymentImportLine> lines) {
+        if (lines.isEmpty()) {
+            return List.of();
+        }
+        try (Connection connection = dataSource.getConnection()) {
+            connection.setAutoCommit(false);
+            try {
+                Map<String, List<Long>> unitsByNumber = findUnitsByNumber(connection, buildingId, lines);
+                List<Long> unitIds = unitsByNumber.values().stream().flatMap(List::stream).distinct().toList();
+                // Primero los locks de los cargos: una importación concurrente del mismo
+                // archivo espera aquí y, al seguir, la lectura con bloqueo de referencias ve
+                // los pagos que la otra ya confirmó
+                Map<Long, ArrayDeque<OpenCharge>> openCharges = lockOpenCharges(connection, buildingId, unitIds);
+                Set<String> references = findExistingReferences(connection, unitIds, lines);
+
+                PaymentImportPlan plan = PaymentImportPlan.build(lines, unitsByNumber, references, openCharges,
+                        userId, paymentMethod);
+                insertPlannedPayments(connection, plan);
+                connection.commit();
+                return plan.outcomes();
+            } catch (SQLException | RuntimeException ex) {
+                connection.rollback();
+                throw ex;
+            } finally {
+                connection.setAutoCommit(true);
+            }
+        } catch (SQLException e) {
+            throw new RepositoryException("Error importando pagos de gasto común", e);
+        }
+    }
+
+    private Map<String, List<Long>> findUnitsByNumber(Connection connection, Long buildingId,
+            List<PaymentImportLine> lines) throws SQLException {
+        List<String> numbers = lines.stream()
+                .map(PaymentImportLine::unitNumber)
+                .map(String::trim)
+                .distinct()
+                .toList();
+        String sql = "SELECT id, number FROM housing_units WHERE building_id = ? AND number IN ("
+                + placeholders(numbers.size()) + ")";
+        Map<String, List<Long>> units = new HashMap<>();
+        try (PreparedStatement statement = connection.prepareStatement(sql)) {
+            statement.setLong(1, buildingId);
+            for (int i = 0; i < numbers.size(); i++) {
+                statement.setString(i + 2, numbers.get(i));
+            }
+            try (ResultSet rs = statement.executeQuery()) {
+                while (rs.next()) {
+                    units.computeIfAbsent(PaymentImportPlan.normalizeUnitNumber(rs.getString("number")),
+                            key -> new ArrayList<>(1))
+                            .add(rs.getLong("id"));
+                }
+            }
+        }
+        return units;
+    }
+
+    private Set<String> findExistingReferences(Connection connection, List<Long> unitIds,
+            List<PaymentImportLine> lines) throws SQLException {
+        Set<String> existing = new HashSet<>();
+        List<String> references = lines.stream()
+                .map(PaymentImportLine::reference)
+                .filter(Objects::nonNull)
+                .distinct()
+                .toList();
+        if (unitIds.isEmpty() || references.isEmpty()) {
+            return existing;
+        }
+        String sql = "SELECT unit_id, reference FROM common_payments WHERE unit_id IN (" + placeholders(unitIds.size())
+                + ") AND reference IN (" + placeholders(references.size()) + ") FOR SHARE";
+        try (PreparedStatement statement = connection.prepareStatement(sql)) {
+            int index = 1;
+            for (Long unitId : unitIds) {
+                statement.setLong(index++, unitId);
+            }
+            for (String reference : references) {
+                statement.setString(index++, reference);
+            }
+            try (ResultSet rs = statement.executeQuery()) {
+                while (rs.next()) {
+                    existing.add(PaymentImportPlan.referenceKey(rs.getLong("unit_id"), rs.getString("reference")));
+                }
+            }
+        }
+        return existing;
+    }
+
+    private Map<Long, ArrayDeque<OpenCharge>> lockOpenCharges(Connection connection, Long buildingId,
+            List<Long> unitIds) throws SQLException {
+        Map<Long, ArrayDeque<OpenCharge>> charges = new HashMap<>();
+        if (unitIds.isEmpty()) {
+            return charges;
+        }
+        String sql = """
+                SELECT c.id, c.period_id, c.unit_id, c.amount - c.paid_amount AS pending
+                FROM common_charges c
+                JOIN common_expense_periods p ON p.id = c.period_id
+                WHERE p.building_id = ? AND c.paid_amount < c.amount AND c.unit_id IN (%s)
+                ORDER BY c.unit_id, p.due_date, c.id
+                FOR UPDATE OF c
+                """.formatted(placeholders(unitIds.size()));
+        try (PreparedStatement statement = connection.prepareStatement(sql)) {
+            statement.setLong(1, buildingId);
+            int index = 2;
+            for (Long unitId : unitIds) {
+                statement.setLong(index++, unitId);
+            }
+            try (ResultSet rs = statement.executeQuery()) {
+                while (rs.next()) {
+                    charges.computeIfAbsent(rs.getLong("unit_id"), key -> new ArrayDeque<>())
+                            .add(new OpenCharge(rs.getLong("id"), rs.getLong("period_id"), rs.getBigDecimal("pending")));
+                }
+            }
+        }
+        return charges;
+    }
+
+    private void insertPlannedPayments(Connection connection, PaymentImportPlan plan) throws SQLException {
+        List<PlannedPayment> all = plan.payments();
+        if (all.isEmpty()) {
+            return;
+        }
+        String insertSql = """
+                INSERT INTO common_payments (unit_id, charge_id, user_id, issued_at, amount, payment_method, reference,
+                                             status, balance_after)
+                VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?)
+                """;
+        Map<Long, BigDecimal> paidByCharge = new TreeMap<>();
+        Map<Long, Map<Long, BigDecimal>> paidByPeriodAndUnit = new HashMap<>();
+        try (PreparedStatement insert = connection.prepareStatement(insertSql, Statement.RETURN_GENERATED_KEYS)) {
+            for (PlannedPayment plannedPayment : all) {
+                CommonPayment payment = plannedPayment.payment();
+                insert.setLong(1, payment.unitId());
+                insert.setLong(2, payment.chargeId());
+                if (payment.userId() != null) {
+                    insert.setLong(3, payment.userId());
+                } else {
+                    insert.setNull(3, java.sql.Types.BIGINT);
+                }
+                insert.setDate(4, Date.valueOf(payment.issuedAt()));
+                insert.setBigDecimal(5, payment.amount());
+                insert.setString(6, payment.paymentMethod());
+                insert.setString(7, payment.reference());
+                insert.setString(8, payment.status());
+                insert.setBigDecimal(9, plannedPayment.balanceAfter());
+                insert.addBatch();
+                paidByCharge.merge(payment.chargeId(), payment.amount(), BigDecimal::add);
+                paidByPeriodAndUnit.computeIfAbsent(plannedPayment.periodId(), key -> new HashMap<>())
+                        .merge(payment.unitId(), payment.amount(), BigDecimal::add);
+            }
+            insert.executeBatch();
+            List<Long> generatedIds = new ArrayList<>(all.size());
+            try (ResultSet keys = insert.getGeneratedKeys()) {
+                while (keys.next()) {
+                    generatedIds.add(keys.getLong(1));
+                }
+            }
+            plan.assignIds(generatedIds.iterator());
+        }
+        try (PreparedStatement update = connection.prepareStatement(
+                "UPDATE common_charges SET paid_amount = paid_amount + ? WHERE id = ?")) {
+            for (Map.Entry<Long, BigDecimal> entry : paidByCharge.entrySet()) {
+                update.setBigDecimal(1, entry.getValue());
+                update.setLong(2, entry.getKey());
+                update.addBatch();
+            }
+            update.executeBatch();
+        }
+        PeriodSummaryUpdater.applyPayments(connection, paidByPeriodAndUnit);
+    }
+
+    private static String placeholders(int count) {
+        return String.join(", ", Collections.nCopies(count, "?"));
+    }
+
+    private Optional<StoredPayment> findByIdempotencyKey(Connection connection, Long userId, String idempotencyKey)
+            throws SQLException {
+        String sql = """
+                SELECT id, unit_id, charge_id, user_id, issued_at, amount, payment_method, reference, status,
+                       receipt_text, balance_after
+                FROM common_payments
+                WHERE user_id = ? AND idempotency_key = ?
+                FOR UPDATE
+                """;
+        try (PreparedStatement statement = connection.prepareStatement(sql)) {
+            statement.setLong(1, userId);
+            statement.setString(2, idempotencyKey);
+            try (ResultSet rs = statement.executeQuery()) {
+                if (!rs.next()) {
+                    return Optional.empty();
+                }
+                CommonPayment payment = new CommonPayment(
+                        rs.getLong("id"),
+                        rs.getLong("unit_id"),
+                        rs.getLong("charge_id"),
+                        (Long) rs.getObject("user_id"),
+                        rs.getDate("issued_at").toLocalDate(),
+                        rs.getBigDecimal("amount"),
+                        rs.getString("payment_method"),
+                        rs.getString("reference"),
+                        rs.getString("status"),
+                        rs.getString("receipt_text")
+                );
+                return Optional.of(new StoredPayment(payment, rs.getBigDecimal("balance_after")));
+            }
+        }
+    }
+
+    /**
+     * Devuelve el pago ya registrado con la clave solo si la solicitud es la
+     * misma: otro cargo, otra unidad u otro monto con la misma clave es un error
+     * del cliente, no un reintento.
+     */
+    private PaymentResult replay(StoredPayment existing, CommonPayment request) {
+        CommonPayment stored = existing.payment();
+        if (!stored.chargeId().equals(request.chargeId())
+                || !Objects.equals(stored.unitId(), request.unitId())
+                || stored.amount().compareTo(request.amount()) != 0) {
+            return PaymentResult.of(PaymentOutcome.KEY_REUSED);
+        }
+        return new PaymentResult(PaymentOutcome.REPLAYED, existing.payment(), existing.balanceAfter());
+    }
+
+    private CommonPayment withId(CommonPayment payment, Long id) {
+        return new CommonPayment(
+                id,
+                payment.unitId(),
+                payment.chargeId(),
+                payment.userId(),
+                payment.issuedAt(),
+                payment.amount(),
+                payment.paymentMethod(),
+                payment.reference(),
+                payment.status(),
+                payment.receiptText()
+        );
+    }
+
+    /**
+     * Cargos cuyo paid_amount no coincide con la suma de sus pagos.
+     */
+    public List<ChargeBalanceMismatch> findChargeBalanceMismatches() {
+        String sql = """
+                SELECT c.id, c.paid_amount, COALESCE(SUM(pay.amount), 0) AS actual_paid
+                FROM common_charges c
+                LEFT JOIN common_payments pay ON pay.charge_id = c.id
+                GROUP BY c.id, c.paid_amount
+                HAVING c.paid_amount <> COALESCE(SUM(pay.amount), 0)
+                """;
+        List<ChargeBalanceMismatch> mismatches = new ArrayList<>();
+        try (Connection connection = dataSource.getConnection();
+             PreparedStatement statement = connection.prepareStatement(sql);
+             ResultSet rs = statement.executeQuery()) {
+            while (rs.next()) {
+                mismatches.add(new ChargeBalanceMismatch(
+                        rs.getLong("id"),
+                        rs.getBigDecimal("paid_amount"),
+                        rs.getBigDecimal("actual_paid")));
+            }
+            return mismatches;
+        } catch (SQLException e) {
+            throw new RepositoryException("Error conciliando saldos de cargos", e);
+        }
+    }
+
+    /**
+     * Recalcula paid_amount desde common_payments y lleva la diferencia a
+     * period_unit_balances y period_summaries en la misma transacción, con el
+     * cargo bloqueado como en recordPayment.
+     */
+    public void recomputePaidAmount(Long chargeId) {
+        String lockChargeSql = "SELECT period_id, unit_id, paid_amount FROM common_charges WHERE id = ? FOR UPDATE";
+        String sumSql = "SELECT COALESCE(SUM(amount), 0) FROM common_payments WHERE charge_id = ?";
+        String updateSql = "UPDATE common_charges SET paid_amount = ? WHERE id = ?";
+        try (Connection connection = dataSource.getConnection()) {
+            connection.setAutoCommit(false);
+            try {
+                Long periodId;
+                Long unitId;
+                BigDecimal oldPaid;
+                try (PreparedStatement lock = connection.prepareStatement(lockChargeSql)) {
+                    lock.setLong(1, chargeId);
+                    try (ResultSet rs = lock.executeQuery()) {
+                        if (!rs.next()) {
+                            connection.rollback();
+                            return;
+                        }
+                        periodId = rs.getLong("period_id");
+                        unitId = rs.getObject("unit_id", Long.class);
+                        oldPaid = rs.getBigDecimal("paid_amount");
+                    }
+                }
+                BigDecimal newPaid;
+                try (PreparedStatement sum = connection.prepareStatement(sumSql)) {
+                    sum.setLong(1, chargeId);
+                    try (ResultSet rs = sum.executeQuery()) {
+                        rs.next();
+                        newPaid = rs.getBigDecimal(1);
+                    }
+                }
+                BigDecimal difference = newPaid.subtract(oldPaid);
+                if (difference.signum() == 0) {
+                    connection.commit();
+                    return;
+                }
+                try (PreparedStatement update = connection.prepareStatement(updateSql)) {
+                    update.setBigDecimal(1, newPaid);
+                    update.setLong(2, chargeId);
+                    update.executeUpdate();
+                }
+                PeriodSummaryUpdater.applyPayment(connection, periodId, unitId, difference);
+                connection.commit();
+            } catch (SQLException | RuntimeException ex) {
+                connection.rollback();
+                throw ex;
+            } finally {
+                connection.setAutoCommit(true);
+            }
+        } catch (SQLException e) {
+            throw new RepositoryException("Error recalculando saldo del cargo", e);
+        }
+    }
+
+    /**
+     * Recorre los cargos del período con un cursor de solo avance y entrega cada
+     * fila a {@code sink} sin acumularlas. Con fetchSize Integer.MIN_VALUE el
+     * driver de MySQL hace streaming fila a fila; la conexión queda ocupada hasta
+     * terminar de leer, así que el sink no debe hacer otras consultas.
+     */
+    public void streamChargesForPeriod(Long periodId, Consumer<ChargeExportRow> sink) {
+        String sql = """
+                SELECT c.id, c.unit_id, hu.number, hu.tower, c.description, c.type, c.payer_type,
+                       c.amount, c.paid_amount, c.balance
+                FROM common_charges c
+                LEFT JOIN housing_units hu ON hu.id = c.unit_id
+                WHERE c.period_id = ?
+                ORDER BY c.id
+                """;
+        try (Connection connection = dataSource.getConnection();
+             PreparedStatement statement = prepareStreaming(connection, sql)) {
+            statement.setLong(1, periodId);
+            try (ResultSet rs = statement.executeQuery()) {
+                while (rs.next()) {
+                    sink.accept(new ChargeExportRow(
+                            rs.getLong(1),
+                            rs.getObject(2, Long.class),
+                            rs.getString(3),
+                            rs.getString(4),
+                            rs.getString(5),
+                            rs.getString(6),
+                            rs.getString(7),
+                            rs.getBigDecimal(8),
+                            rs.getBigDecimal(9),
+                            rs.getBigDecimal(10)));
+                }
+            }
+        } catch (SQLException e) {
+            throw new RepositoryException("Error exportando cargos del período", e);
+        }
+    }
+
+    /**
+     * Igual que {@link #streamChargesForPeriod}, para los pagos de los cargos del
+     * período.
+     */
+    public void streamPaymentsForPeriod(Long periodId, Consumer<PaymentExportRow> sink) {
+        String sql = """
+                SELECT p.id, p.charge_id, p.unit_id, hu.number, p.user_id, p.issued_at, p.amount,
+                       p.payment_method, p.reference, p.status
+                FROM common_payments p
+                JOIN common_charges c ON c.id = p.charge_id
+                JOIN housing_units hu ON hu.id = p.unit_id
+                WHERE c.period_id = ?
+                ORDER BY p.id
+                """;
+        try (Connection connection = dataSource.getConnection();
+             PreparedStatement statement = prepareStreaming(connection, sql)) {
+            statement.setLong(1, periodId);
+            try (ResultSet rs = statement.executeQuery()) {
+                while (rs.next()) {
+                    Date issuedAt = rs.getDate(6);
+                    sink.accept(new PaymentExportRow(
+                            rs.getLong(1),
+                            rs.getLong(2),
+                            rs.getLong(3),
+                            rs.getString(4),
+                            rs.getObject(5, Long.class),
+                            issuedAt != null ? issuedAt.toLocalDate() : null,
+                            rs.getBigDecimal(7),
+                            rs.getString(8),
+                            rs.getString(9),
+                            rs.getString(10)));
+                }
+            }
+        } catch (SQLException e) {
+            throw new RepositoryException("Error exportando pagos del período", e);
+        }
+    }
+
+    private static PreparedStatement prepareStreaming(Connection connection, String sql) throws SQLException {
+        PreparedStatement statement = connection.prepareStatement(sql, ResultSet.TYPE_FORWARD_ONLY,
+                ResultSet.CONCUR_READ_ONLY);
+        statement.setFetchSize(Integer.MIN_VALUE);
+        return statement;
+    }
+
+    private void bindPeriod(PreparedStatement statement, CommonExpensePeriod period) throws SQLException {
+        statement.setLong(1, period.buildingId());
+        statement.setInt(2, period.year());
+        statement.setInt(3, period.month());
+        statement.setDate(4, Date.valueOf(period.generatedAt()));
+        statement.setDate(5, Date.valueOf(period.dueDate()));
+        statement.setBigDecimal(6, period.reserveAmount());
+        statement.setBigDecimal(7, period.totalAmount());
+        statement.setString(8, period.status());
+    }
+
     private CommonExpensePeriod mapPeriod(ResultSet rs) throws SQLException {
         return new CommonExpensePeriod(
                 rs.getLong("id"),
@@ -306,14 +939,15 @@ public class CommonExpenseRepository {
                 rs.getString("type"),
                 rs.getBoolean("prorateable"),
                 rs.getString("payer_type"),
-                rs.getString("receipt_text")
+                null
         );
         Integer year = (Integer) rs.getObject("year");
         Integer month = (Integer) rs.getObject("month");
         LocalDate dueDate = rs.getDate("due_date").toLocalDate();
         String status = rs.getString("status");
         BigDecimal paid = rs.getBigDecimal("paid");
-        return new ChargeBalanceRow(charge, year, month, dueDate, status, paid);
+        boolean hasReceipt = rs.getBoolean("has_receipt");
+        return new ChargeBalanceRow(charge, year, month, dueDate, status, paid, hasReceipt);
     }
 
     public record UnitShare(Long unitId, BigDecimal weight, boolean hasUser) {
@@ -325,8 +959,104 @@ public class CommonExpenseRepository {
             Integer month,
             LocalDate dueDate,
             String periodStatus,
-            BigDecimal paidAmount
+            BigDecimal paidAmount,
+            boolean hasReceipt
     ) {
     }
-}
 
+    /**
+     * Datos del cargo necesarios para autorizar y validar la caché del
+     * comprobante, sin leer receipt_text.
+     */
+    public record ChargeReceiptInfo(
+            Long chargeId,
+            Long unitId,
+            Long buildingId,
+            String payerType,
+            boolean hasReceipt,
+            LocalDateTime updatedAt
+    ) {
+    }
+
+    public record ChargeExportRow(
+            Long chargeId,
+            Long unitId,
+            String unitNumber,
+            String tower,
+            String description,
+            String type,
+            String payerType,
+            BigDecimal amount,
+            BigDecimal paidAmount,
+            BigDecimal balance
+    ) {
+    }
+
+    public record PaymentExportRow(
+            Long paymentId,
+            Long chargeId,
+            Long unitId,
+            String unitNumber,
+            Long userId,
+            LocalDate issuedAt,
+            BigDecimal amount,
+            String paymentMethod,
+            String reference,
+            String status
+    ) {
+    }
+
+    public record ChargeBalanceMismatch(Long chargeId, BigDecimal recordedPaid, BigDecimal actualPaid) {
+    }
+
+    public record PeriodWithCharges(CommonExpensePeriod period, List<CommonCharge> charges) {
+    }
+
+    public enum PaymentOutcome {
+        RECORDED,
+        REPLAYED,
+        CHARGE_NOT_FOUND,
+        ALREADY_PAID,
+        EXCEEDS_BALANCE,
+        KEY_REUSED
+    }
+
+    public record PaymentResult(PaymentOutcome outcome, CommonPayment payment, BigDecimal pending) {
+        static PaymentResult of(PaymentOutcome outcome) {
+            return new PaymentResult(outcome, null, null);
+        }
+    }
+
+    private record StoredPayment(CommonPayment payment, BigDecimal balanceAfter) {
+    }
+
+    public record PaymentImportLine(
+            int lineNumber,
+            String unitNumber,
+            BigDecimal amount,
+            String reference,
+            LocalDate issuedAt
+    ) {
+    }
+
+    public enum PaymentImportStatus {
+        RECORDED,
+        UNIT_NOT_FOUND,
+        AMBIGUOUS_UNIT,
+        DUPLICATE_REFERENCE,
+        NO_OPEN_CHARGES,
+        EXCEEDS_BALANCE
+    }
+
+    /**
+     * Resultado de una línea importada; una línea puede generar varios pagos si
+     * cubre más de un cargo abierto.
+     */
+    public record PaymentImportOutcome(
+            int lineNumber,
+            PaymentImportStatus status,
+            Long unitId,
+            List<CommonPayment> payments
+    ) {
+    }
+}
@@ -9,19 +9,24 @@ public final class DataSourceFactory {
     private DataSourceFactory() {
     }
 
-    public static HikariDataSource create(AppConfig config) {
+    public static HikariDataSource create(AppConfig config, PoolMetrics poolMetrics) {
+        AppConfig.DatabasePool pool = config.dbPool();
         HikariConfig hikariConfig = new HikariConfig();
         hikariConfig.setJdbcUrl(config.jdbcUrl());
         hikariConfig.setUsername(config.dbUser());
         hikariConfig.setPassword(config.dbPassword());
         hikariConfig.setDriverClassName("com.mysql.cj.jdbc.Driver");
-        hikariConfig.setMaximumPoolSize(10);
-        hikariConfig.setMinimumIdle(2);
+        hikariConfig.setMaximumPoolSize(pool.maximumPoolSize());
+        hikariConfig.setMinimumIdle(Math.min(pool.minimumIdle(), pool.maximumPoolSize()));
+        hikariConfig.setConnectionTimeout(pool.connectionTimeoutMillis());
+        hikariConfig.setIdleTimeout(pool.idleTimeoutMillis());
+        hikariConfig.setMaxLifetime(pool.maxLifetimeMillis());
+        hikariConfig.setLeakDetectionThreshold(pool.leakDetectionThresholdMillis());
         hikariConfig.setPoolName("domu-hikari-pool");
-        hikariConfig.addDataSourceProperty("cachePrepStmts", "true");
-        hikariConfig.addDataSourceProperty("prepStmtCacheSize", "250");
-        hikariConfig.addDataSourceProperty("prepStmtCacheSqlLimit", "2048");
-        hikariConfig.addDataSourceProperty("useServerPrepStmts", "true");
+        pool.dataSourceProperties().forEach(hikariConfig::addDataSourceProperty);
+        if (poolMetrics != null) {
+            hikariConfig.setMetricsTrackerFactory(poolMetrics);
+        }
 
         return new HikariDataSource(hikariConfig);
     }
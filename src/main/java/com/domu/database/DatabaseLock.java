@@ -0,0 +1,61 @@
+package com.domu.database;
+
+import com.google.inject.Inject;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+
+/**
+ * Lock con nombre a nivel de base de datos (GET_LOCK de MySQL). Permite que las
+ * tareas programadas corran en una sola instancia cuando hay varios nodos
+ * apuntando a la misma base.
+ */
+public class DatabaseLock {
+
+    private final DataSource dataSource;
+
+    @Inject
+    public DatabaseLock(DataSource dataSource) {
+        this.dataSource = dataSource;
+    }
+
+    /**
+     * Ejecuta la tarea si el lock está libre. No espera: si otra instancia lo
+     * tiene, devuelve false sin ejecutar nada. El lock se mantiene en la sesión
+     * de una conexión dedicada mientras dura la tarea.
+     */
+    public boolean runExclusively(String name, Runnable task) {
+        try (Connection connection = dataSource.getConnection()) {
+            if (!acquire(connection, name)) {
+                return false;
+            }
+            try {
+                task.run();
+                return true;
+            } finally {
+                release(connection, name);
+            }
+        } catch (SQLException e) {
+            throw new RepositoryException("Error obteniendo el lock " + name, e);
+        }
+    }
+
+    private boolean acquire(Connection connection, String name) throws SQLException {
+        try (PreparedStatement statement = connection.prepareStatement("SELECT GET_LOCK(?, 0)")) {
+            statement.setString(1, name);
+            try (ResultSet rs = statement.executeQuery()) {
+                return rs.next() && rs.getInt(1) == 1;
+            }
+        }
+    }
+
+    private void release(Connection connection, String name) throws SQLException {
+        try (PreparedStatement statement = connection.prepareStatement("SELECT RELEASE_LOCK(?)")) {
+            statement.setString(1, name);
+            statement.executeQuery().close();
+        }
+    }
+}
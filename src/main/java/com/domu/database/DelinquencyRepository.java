@@ -0,0 +1,222 @@
+package com.domu.database;
+
+import com.domu.domain.finance.DelinquencyRecord;
+import com.google.inject.Inject;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.Date;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+
+public class DelinquencyRepository {
+
+    private final DataSource dataSource;
+
+    @Inject
+    public DelinquencyRepository(DataSource dataSource) {
+        this.dataSource = dataSource;
+    }
+
+    /**
+     * Períodos cuya morosidad hay que recalcular: los que tienen cargos
+     * modificados desde {@code since}, los que vencieron entre
+     * {@code lastRunDate} y hoy y, si {@code includeOverdue}, los que ya tenían
+     * unidades morosas (para envejecer days_delinquent). Con {@code since} nulo
+     * devuelve todos los períodos.
+     */
+    public List<Long> findPeriodsToRefresh(LocalDateTime since, LocalDate today, boolean includeOverdue) {
+        if (since == null) {
+            return queryIds("SELECT id FROM common_expense_periods ORDER BY id", List.of());
+        }
+        StringBuilder sql = new StringBuilder("""
+                SELECT DISTINCT period_id FROM common_charges WHERE updated_at >= ?
+                UNION
+                SELECT id FROM common_expense_periods WHERE due_date >= ? AND due_date < ?
+                """);
+        List<Object> params = new ArrayList<>(List.of(
+                Timestamp.valueOf(since), Date.valueOf(since.toLocalDate()), Date.valueOf(today)));
+        if (includeOverdue) {
+            sql.append("UNION\nSELECT DISTINCT period_id FROM delinquency_records WHERE status = 'OVERDUE'\n");
+        }
+        return queryIds(sql.toString(), params);
+    }
+
+    /**
+     * Recalcula saldo, días de atraso y estado por unidad para los períodos dados
+     * con un solo INSERT ... SELECT agrupado, y actualiza las filas existentes.
+     */
+    public int refreshPeriods(Collection<Long> periodIds, LocalDate today) {
+        if (periodIds == null || periodIds.isEmpty()) {
+            return 0;
+        }
+        String sql = """
+                INSERT INTO delinquency_records (unit_id, period_id, balance, days_delinquent, status)
+                SELECT c.unit_id, c.period_id, SUM(c.balance),
+                       CASE WHEN SUM(c.balance) > 0 AND p.due_date < ? THEN DATEDIFF(?, p.due_date) ELSE 0 END,
+                       CASE WHEN SUM(c.balance) <= 0 THEN 'PAID'
+                            WHEN p.due_date < ? THEN 'OVERDUE'
+                            ELSE 'PENDING' END
+                FROM common_charges c
+                JOIN common_expense_periods p ON p.id = c.period_id
+                WHERE c.period_id IN (%s) AND c.unit_id IS NOT NULL
+                GROUP BY c.unit_id, c.period_id, p.due_date
+                ON DUPLICATE KEY UPDATE
+                    balance = VALUES(balance),
+                    days_delinquent = VALUES(days_delinquent),
+                    status = VALUES(status)
+                """.formatted(placeholders(periodIds.size()));
+        try (Connection connection = dataSource.getConnection();
+                PreparedStatement statement = connection.prepareStatement(sql)) {
+            Date todayParam = Date.valueOf(today);
+            statement.setDate(1, todayParam);
+            statement.setDate(2, todayParam);
+            statement.setDate(3, todayParam);
+            int index = 4;
+            for (Long periodId : periodIds) {
+                statement.setLong(index++, periodId);
+            }
+            return statement.executeUpdate();
+        } catch (SQLException e) {
+            throw new RepositoryException("Error recalculando morosidad", e);
+        }
+    }
+
+    /**
+     * Página de morosidad del edificio leída desde delinquency_records. Sin
+     * estado se listan las unidades con saldo pendiente (PENDING y OVERDUE).
+     */
+    public DelinquencyPage findByBuilding(Long buildingId, String status, DelinquencySort sort, boolean ascending,
+            int limit, int offset) {
+        String statusFilter = status != null ? "d.status = ?" : "d.status IN ('PENDING', 'OVERDUE')";
+        String from = """
+                FROM delinquency_records d
+                JOIN common_expense_periods p ON p.id = d.period_id
+                JOIN housing_units hu ON hu.id = d.unit_id
+                WHERE p.building_id = ? AND %s
+                """.formatted(statusFilter);
+        String direction = ascending ? "ASC" : "DESC";
+        String pageSql = """
+                SELECT d.id, d.unit_id, d.period_id, d.balance, d.days_delinquent, d.status, d.updated_at,
+                       hu.number, hu.tower, p.year, p.month, p.due_date
+                %s
+                ORDER BY %s %s, d.id %s
+                LIMIT ? OFFSET ?
+                """.formatted(from, sort.column(), direction, direction);
+        try (Connection connection = dataSource.getConnection()) {
+            long total;
+            try (PreparedStatement statement = connection.prepareStatement("SELECT COUNT(*) " + from)) {
+                bindFilter(statement, buildingId, status);
+                try (ResultSet rs = statement.executeQuery()) {
+                    rs.next();
+                    total = rs.getLong(1);
+                }
+            }
+            List<DelinquencyRow> rows = new ArrayList<>();
+            try (PreparedStatement statement = connection.prepareStatement(pageSql)) {
+                int index = bindFilter(statement, buildingId, status);
+                statement.setInt(index++, limit);
+                statement.setInt(index, offset);
+                try (ResultSet rs = statement.executeQuery()) {
+                    while (rs.next()) {
+                        rows.add(mapRow(rs));
+                    }
+                }
+            }
+            return new DelinquencyPage(rows, total);
+        } catch (SQLException e) {
+            throw new RepositoryException("Error listando morosidad", e);
+        }
+    }
+
+    private int bindFilter(PreparedStatement statement, Long buildingId, String status) throws SQLException {
+        int index = 1;
+        statement.setLong(index++, buildingId);
+        if (status != null) {
+            statement.setString(index++, status);
+        }
+        return index;
+    }
+
+    private List<Long> queryIds(String sql, List<Object> params) {
+        try (Connection connection = dataSource.getConnection();
+                PreparedStatement statement = connection.prepareStatement(sql)) {
+            for (int i = 0; i < params.size(); i++) {
+                statement.setObject(i + 1, params.get(i));
+            }
+            try (ResultSet rs = statement.executeQuery()) {
+                List<Long> ids = new ArrayList<>();
+                while (rs.next()) {
+                    ids.add(rs.getLong(1));
+                }
+                return ids;
+            }
+        } catch (SQLException e) {
+            throw new RepositoryException("Error obteniendo períodos a recalcular", e);
+        }
+    }
+
+    private DelinquencyRow mapRow(ResultSet rs) throws SQLException {
+        Timestamp updatedAt = rs.getTimestamp("updated_at");
+        DelinquencyRecord record = new DelinquencyRecord(
+                rs.getLong("id"),
+                rs.getLong("unit_id"),
+                rs.getLong("period_id"),
+                rs.getBigDecimal("balance"),
+                rs.getInt("days_delinquent"),
+                rs.getString("status"),
+                updatedAt != null ? updatedAt.toLocalDateTime() : null);
+        return new DelinquencyRow(
+                record,
+                rs.getString("number"),
+                rs.getString("tower"),
+                rs.getInt("year"),
+                rs.getInt("month"),
+                rs.getDate("due_date").toLocalDate());
+    }
+
+    private static String placeholders(int count) {
+        return String.join(", ", Collections.nCopies(count, "?"));
+    }
+
+    /**
+     * Columnas permitidas para ordenar el listado.
+     */
+    public enum DelinquencySort {
+        DAYS("d.days_delinquent"),
+        BALANCE("d.balance"),
+        DUE_DATE("p.due_date"),
+        UNIT("hu.number");
+
+        private final String column;
+
+        DelinquencySort(String column) {
+            this.column = column;
+        }
+
+        String column() {
+            return column;
+        }
+    }
+
+    public record DelinquencyRow(
+            DelinquencyRecord record,
+            String unitNumber,
+            String tower,
+            Integer year,
+            Integer month,
+            LocalDate dueDate
+    ) {
+    }
+
+    public record DelinquencyPage(List<DelinquencyRow> rows, long total) {
+    }
+}
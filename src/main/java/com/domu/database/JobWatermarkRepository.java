@@ -0,0 +1,66 @@
+package com.domu.database;
+
+import com.google.inject.Inject;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.Optional;
+
+/**
+ * Hasta dónde llegó cada job incremental (job_watermarks). Los instantes se
+ * toman del reloj de la base para compararlos con columnas TIMESTAMP sin
+ * depender del reloj de cada instancia.
+ */
+public class JobWatermarkRepository {
+
+    private final DataSource dataSource;
+
+    @Inject
+    public JobWatermarkRepository(DataSource dataSource) {
+        this.dataSource = dataSource;
+    }
+
+    public Optional<LocalDateTime> findProcessedUntil(String jobName) {
+        String sql = "SELECT processed_until FROM job_watermarks WHERE job_name = ?";
+        try (Connection connection = dataSource.getConnection();
+                PreparedStatement statement = connection.prepareStatement(sql)) {
+            statement.setString(1, jobName);
+            try (ResultSet rs = statement.executeQuery()) {
+                return rs.next() ? Optional.of(rs.getTimestamp(1).toLocalDateTime()) : Optional.empty();
+            }
+        } catch (SQLException e) {
+            throw new RepositoryException("Error obteniendo el avance del job " + jobName, e);
+        }
+    }
+
+    public void saveProcessedUntil(String jobName, LocalDateTime processedUntil) {
+        String sql = """
+                INSERT INTO job_watermarks (job_name, processed_until) VALUES (?, ?)
+                ON DUPLICATE KEY UPDATE processed_until = VALUES(processed_until)
+                """;
+        try (Connection connection = dataSource.getConnection();
+                PreparedStatement statement = connection.prepareStatement(sql)) {
+            statement.setString(1, jobName);
+            statement.setTimestamp(2, Timestamp.valueOf(processedUntil));
+            statement.executeUpdate();
+        } catch (SQLException e) {
+            throw new RepositoryException("Error guardando el avance del job " + jobName, e);
+        }
+    }
+
+    public LocalDateTime databaseNow() {
+        try (Connection connection = dataSource.getConnection();
+                PreparedStatement statement = connection.prepareStatement("SELECT CURRENT_TIMESTAMP");
+                ResultSet rs = statement.executeQuery()) {
+            rs.next();
+            return rs.getTimestamp(1).toLocalDateTime();
+        } catch (SQLException e) {
+            throw new RepositoryException("Error obteniendo la hora de la base de datos", e);
+        }
+    }
+}
@@ -0,0 +1,179 @@
+package com.domu.database;
+
+import com.domu.database.CommonExpenseRepository.PaymentImportLine;
+import com.domu.database.CommonExpenseRepository.PaymentImportOutcome;
+import com.domu.database.CommonExpenseRepository.PaymentImportStatus;
+import com.domu.domain.finance.CommonPayment;
+
+import java.math.BigDecimal;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Imputación de un bloque de pagos importados, sin tocar la base: con las
+ * unidades por número, las referencias ya registradas y los cargos abiertos que
+ * CommonExpenseRepository.importPayments leyó (y bloqueó), decide el estado de
+ * cada línea y los pagos a insertar. Después de insertarlos, assignIds reparte
+ * los IDs generados entre las líneas en el mismo orden del batch.
+ */
+final class PaymentImportPlan {
+
+    private final List<PaymentImportLine> lines;
+    private final PaymentImportStatus[] statuses;
+    private final Long[] lineUnits;
+    private final List<List<PlannedPayment>> planned;
+
+    private PaymentImportPlan(List<PaymentImportLine> lines) {
+        this.lines = lines;
+        this.statuses = new PaymentImportStatus[lines.size()];
+        this.lineUnits = new Long[lines.size()];
+        this.planned = new ArrayList<>(lines.size());
+    }
+
+    /**
+     * Recorre las líneas en orden. Una referencia ya registrada para la unidad, o
+     * repetida en una línea anterior del mismo archivo que sí se imputó, marca la
+     * línea como DUPLICATE_REFERENCE. {@code existingReferences} y
+     * {@code openCharges} se actualizan a medida que se imputan las líneas.
+     */
+    static PaymentImportPlan build(List<PaymentImportLine> lines, Map<String, List<Long>> unitsByNumber,
+            Set<String> existingReferences, Map<Long, ArrayDeque<OpenCharge>> openCharges, Long userId,
+            String paymentMethod) {
+        PaymentImportPlan plan = new PaymentImportPlan(lines);
+        for (int i = 0; i < lines.size(); i++) {
+            PaymentImportLine line = lines.get(i);
+            List<PlannedPayment> linePayments = new ArrayList<>(1);
+            plan.planned.add(linePayments);
+            List<Long> candidates = unitsByNumber.get(normalizeUnitNumber(line.unitNumber()));
+            if (candidates == null) {
+                plan.statuses[i] = PaymentImportStatus.UNIT_NOT_FOUND;
+                continue;
+            }
+            if (candidates.size() > 1) {
+                plan.statuses[i] = PaymentImportStatus.AMBIGUOUS_UNIT;
+                continue;
+            }
+            Long unitId = candidates.get(0);
+            plan.lineUnits[i] = unitId;
+            String referenceKey = line.reference() != null ? referenceKey(unitId, line.reference()) : null;
+            if (referenceKey != null && existingReferences.contains(referenceKey)) {
+                plan.statuses[i] = PaymentImportStatus.DUPLICATE_REFERENCE;
+                continue;
+            }
+            plan.statuses[i] = allocate(line, unitId, userId, paymentMethod,
+                    openCharges.getOrDefault(unitId, new ArrayDeque<>()), linePayments);
+            if (plan.statuses[i] == PaymentImportStatus.RECORDED && referenceKey != null) {
+                existingReferences.add(referenceKey);
+            }
+        }
+        return plan;
+    }
+
+    /**
+     * Imputa la línea a los cargos abiertos de la unidad, del más antiguo al más
+     * reciente. Si el monto supera el saldo total de la unidad no se imputa nada.
+     */
+    static PaymentImportStatus allocate(PaymentImportLine line, Long unitId, Long userId, String paymentMethod,
+            ArrayDeque<OpenCharge> charges, List<PlannedPayment> payments) {
+        if (charges.isEmpty()) {
+            return PaymentImportStatus.NO_OPEN_CHARGES;
+        }
+        BigDecimal totalPending = BigDecimal.ZERO;
+        for (OpenCharge charge : charges) {
+            totalPending = totalPending.add(charge.pending);
+        }
+        if (line.amount().compareTo(totalPending) > 0) {
+            return PaymentImportStatus.EXCEEDS_BALANCE;
+        }
+        BigDecimal remaining = line.amount();
+        while (remaining.signum() > 0) {
+            OpenCharge charge = charges.peek();
+            BigDecimal portion = remaining.min(charge.pending);
+            charge.pending = charge.pending.subtract(portion);
+            remaining = remaining.subtract(portion);
+            if (charge.pending.signum() == 0) {
+                charges.poll();
+            }
+            CommonPayment payment = new CommonPayment(null, unitId, charge.id, userId, line.issuedAt(), portion,
+                    paymentMethod, line.reference(), "CONFIRMED", null);
+            payments.add(new PlannedPayment(payment, charge.periodId, charge.pending));
+        }
+        return PaymentImportStatus.RECORDED;
+    }
+
+    /**
+     * Pagos a insertar, línea por línea y en el orden de imputación; es el orden
+     * en que se arma el batch.
+     */
+    List<PlannedPayment> payments() {
+        return planned.stream().flatMap(List::stream).toList();
+    }
+
+    /**
+     * Asigna los IDs generados por el batch, en el mismo orden que payments().
+     */
+    void assignIds(Iterator<Long> generatedIds) {
+        for (List<PlannedPayment> linePayments : planned) {
+            for (int i = 0; i < linePayments.size(); i++) {
+                if (!generatedIds.hasNext()) {
+                    throw new RepositoryException("No se pudieron obtener los IDs generados para los pagos");
+                }
+                PlannedPayment plannedPayment = linePayments.get(i);
+                linePayments.set(i, plannedPayment.withId(generatedIds.next()));
+            }
+        }
+    }
+
+    List<PaymentImportOutcome> outcomes() {
+        List<PaymentImportOutcome> outcomes = new ArrayList<>(lines.size());
+        for (int i = 0; i < lines.size(); i++) {
+            List<CommonPayment> payments = planned.get(i).stream().map(PlannedPayment::payment).toList();
+            outcomes.add(new PaymentImportOutcome(lines.get(i).lineNumber(), statuses[i], lineUnits[i], payments));
+        }
+        return outcomes;
+    }
+
+    static String normalizeUnitNumber(String number) {
+        return number.trim().toUpperCase(Locale.ROOT);
+    }
+
+    static String referenceKey(Long unitId, String reference) {
+        return unitId + "|" + reference;
+    }
+
+    record PlannedPayment(CommonPayment payment, Long periodId, BigDecimal balanceAfter) {
+
+        PlannedPayment withId(Long id) {
+            CommonPayment updated = new CommonPayment(id, payment.unitId(), payment.chargeId(), payment.userId(),
+                    payment.issuedAt(), payment.amount(), payment.paymentMethod(), payment.reference(),
+                    payment.status(), payment.receiptText());
+            return new PlannedPayment(updated, periodId, balanceAfter);
+        }
+    }
+
+    /**
+     * Cargo con saldo pendiente de una unidad; el saldo baja a medida que se
+     * imputan líneas del bloque.
+     */
+    static final class OpenCharge {
+
+        private final Long id;
+        private final Long periodId;
+        private BigDecimal pending;
+
+        OpenCharge(Long id, Long periodId, BigDecimal pending) {
+            this.id = id;
+            this.periodId = periodId;
+            this.pending = pending;
+        }
+
+        BigDecimal pending() {
+            return pending;
+        }
+    }
+}
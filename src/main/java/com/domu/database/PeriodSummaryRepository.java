@@ -0,0 +1,145 @@
+package com.domu.database;
+
+import com.google.inject.Inject;
+
+import javax.sql.DataSource;
+import java.math.BigDecimal;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Lectura y reconstrucción de period_summaries. Las actualizaciones
+ * incrementales las hace PeriodSummaryUpdater dentro de las transacciones de
+ * CommonExpenseRepository.
+ */
+public class PeriodSummaryRepository {
+
+    private final DataSource dataSource;
+
+    @Inject
+    public PeriodSummaryRepository(DataSource dataSource) {
+        this.dataSource = dataSource;
+    }
+
+    public List<PeriodSummaryRow> findByBuilding(Long buildingId) {
+        String sql = """
+                SELECT p.id, p.year, p.month, p.due_date, p.status, p.total_amount,
+                       COALESCE(s.charged_amount, 0) AS charged_amount,
+                       COALESCE(s.collected_amount, 0) AS collected_amount,
+                       COALESCE(s.units_paid, 0) AS units_paid,
+                       COALESCE(s.units_partial, 0) AS units_partial,
+                       COALESCE(s.units_pending, 0) AS units_pending
+                FROM common_expense_periods p
+                LEFT JOIN period_summaries s ON s.period_id = p.id
+                WHERE p.building_id = ?
+                ORDER BY p.year DESC, p.month DESC
+                """;
+        List<PeriodSummaryRow> rows = new ArrayList<>();
+        try (Connection connection = dataSource.getConnection();
+                PreparedStatement statement = connection.prepareStatement(sql)) {
+            statement.setLong(1, buildingId);
+            try (ResultSet rs = statement.executeQuery()) {
+                while (rs.next()) {
+                    rows.add(new PeriodSummaryRow(
+                            rs.getLong("id"),
+                            rs.getInt("year"),
+                            rs.getInt("month"),
+                            rs.getDate("due_date").toLocalDate(),
+                            rs.getString("status"),
+                            rs.getBigDecimal("total_amount"),
+                            rs.getBigDecimal("charged_amount"),
+                            rs.getBigDecimal("collected_amount"),
+                            rs.getInt("units_paid"),
+                            rs.getInt("units_partial"),
+                            rs.getInt("units_pending")));
+                }
+            }
+            return rows;
+        } catch (SQLException e) {
+            throw new RepositoryException("Error obteniendo resumen de períodos", e);
+        }
+    }
+
+    /**
+     * Regenera period_unit_balances y period_summaries desde common_charges para
+     * un edificio, o para todos si {@code buildingId} es nulo. Corre en una sola
+     * transacción; conviene ejecutarla con poco tráfico de pagos.
+     *
+     * @return cantidad de períodos reconstruidos
+     */
+    public int rebuild(Long buildingId) {
+        String scope = buildingId != null
+                ? "period_id IN (SELECT id FROM common_expense_periods WHERE building_id = ?)"
+                : "1 = 1";
+        String deleteBalancesSql = "DELETE FROM period_unit_balances WHERE " + scope;
+        String deleteSummariesSql = "DELETE FROM period_summaries WHERE " + scope;
+        String insertBalancesSql = """
+                INSERT INTO period_unit_balances (period_id, unit_id, charged_amount, paid_amount)
+                SELECT period_id, unit_id, SUM(amount), SUM(paid_amount)
+                FROM common_charges
+                WHERE unit_id IS NOT NULL AND %s
+                GROUP BY period_id, unit_id
+                """.formatted(scope);
+        String insertSummariesSql = """
+                INSERT INTO period_summaries (period_id, charged_amount, collected_amount, units_paid,
+                                              units_partial, units_pending)
+                SELECT p.id,
+                       COALESCE(SUM(b.charged_amount), 0),
+                       COALESCE(SUM(b.paid_amount), 0),
+                       COALESCE(SUM(b.charged_amount > 0 AND b.paid_amount >= b.charged_amount), 0),
+                       COALESCE(SUM(b.paid_amount > 0 AND b.paid_amount < b.charged_amount), 0),
+                       COALESCE(SUM(b.charged_amount > 0 AND b.paid_amount <= 0), 0)
+                FROM common_expense_periods p
+                LEFT JOIN period_unit_balances b ON b.period_id = p.id
+                WHERE %s
+                GROUP BY p.id
+                """.formatted(buildingId != null ? "p.building_id = ?" : "1 = 1");
+        try (Connection connection = dataSource.getConnection()) {
+            connection.setAutoCommit(false);
+            try {
+                execute(connection, deleteBalancesSql, buildingId);
+                execute(connection, deleteSummariesSql, buildingId);
+                execute(connection, insertBalancesSql, buildingId);
+                int periods = execute(connection, insertSummariesSql, buildingId);
+                connection.commit();
+                return periods;
+            } catch (SQLException | RuntimeException ex) {
+                connection.rollback();
+                throw ex;
+            } finally {
+                connection.setAutoCommit(true);
+            }
+        } catch (SQLException e) {
+            throw new RepositoryException("Error reconstruyendo resumen de períodos", e);
+        }
+    }
+
+    private int execute(Connection connection, String sql, Long buildingId) throws SQLException {
+        try (PreparedStatement statement = connection.prepareStatement(sql)) {
+            if (buildingId != null) {
+                statement.setLong(1, buildingId);
+            }
+            return statement.executeUpdate();
+        }
+    }
+
+    public record PeriodSummaryRow(
+            Long periodId,
+            Integer year,
+            Integer month,
+            LocalDate dueDate,
+            String status,
+            BigDecimal totalAmount,
+            BigDecimal chargedAmount,
+            BigDecimal collectedAmount,
+            Integer unitsPaid,
+            Integer unitsPartial,
+            Integer unitsPending
+    ) {
+    }
+}
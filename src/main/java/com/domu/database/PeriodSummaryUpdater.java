@@ -0,0 +1,260 @@
+package com.domu.database;
+
+import com.domu.domain.finance.CommonCharge;
+
+import java.math.BigDecimal;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Mantiene period_unit_balances y period_summaries dentro de la transacción que
+ * inserta cargos o pagos. Primero se actualiza la fila de la unidad (lo que la
+ * bloquea) y después el resumen del período, siempre en ese orden, así los
+ * pagos concurrentes se serializan por unidad y los conteos no se pisan. El
+ * estado anterior de la unidad se deduce restando el delta al valor ya
+ * actualizado.
+ */
+final class PeriodSummaryUpdater {
+
+    private static final String UPSERT_SUMMARY_SQL = """
+            INSERT INTO period_summaries (period_id, charged_amount, collected_amount, units_paid, units_partial,
+                                          units_pending)
+            VALUES (?, ?, ?, ?, ?, ?)
+            ON DUPLICATE KEY UPDATE
+                charged_amount = charged_amount + VALUES(charged_amount),
+                collected_amount = collected_amount + VALUES(collected_amount),
+                units_paid = units_paid + VALUES(units_paid),
+                units_partial = units_partial + VALUES(units_partial),
+                units_pending = units_pending + VALUES(units_pending)
+            """;
+
+    private PeriodSummaryUpdater() {
+    }
+
+    static void applyCharges(Connection connection, Long periodId, List<CommonCharge> charges) throws SQLException {
+        Map<Long, BigDecimal> chargedByUnit = new LinkedHashMap<>();
+        BigDecimal charged = BigDecimal.ZERO;
+        for (CommonCharge charge : charges) {
+            if (charge.unitId() != null) {
+                chargedByUnit.merge(charge.unitId(), charge.amount(), BigDecimal::add);
+                charged = charged.add(charge.amount());
+            }
+        }
+        if (chargedByUnit.isEmpty()) {
+            return;
+        }
+        String upsertUnitSql = """
+                INSERT INTO period_unit_balances (period_id, unit_id, charged_amount, paid_amount)
+                VALUES (?, ?, ?, 0)
+                ON DUPLICATE KEY UPDATE charged_amount = charged_amount + VALUES(charged_amount)
+                """;
+        try (PreparedStatement statement = connection.prepareStatement(upsertUnitSql)) {
+            for (Map.Entry<Long, BigDecimal> entry : chargedByUnit.entrySet()) {
+                statement.setLong(1, periodId);
+                statement.setLong(2, entry.getKey());
+                statement.setBigDecimal(3, entry.getValue());
+                statement.addBatch();
+            }
+            statement.executeBatch();
+        }
+
+        StatusDelta delta = new StatusDelta();
+        String selectSql = "SELECT unit_id, charged_amount, paid_amount FROM period_unit_balances "
+                + "WHERE period_id = ? AND unit_id IN (" + placeholders(chargedByUnit.size()) + ")";
+        try (PreparedStatement statement = connection.prepareStatement(selectSql)) {
+            statement.setLong(1, periodId);
+            int index = 2;
+            for (Long unitId : chargedByUnit.keySet()) {
+                statement.setLong(index++, unitId);
+            }
+            try (ResultSet rs = statement.executeQuery()) {
+                while (rs.next()) {
+                    BigDecimal newCharged = rs.getBigDecimal("charged_amount");
+                    BigDecimal paid = rs.getBigDecimal("paid_amount");
+                    BigDecimal oldCharged = newCharged.subtract(chargedByUnit.get(rs.getLong("unit_id")));
+                    delta.move(UnitStatus.of(oldCharged, paid), UnitStatus.of(newCharged, paid));
+                }
+            }
+        }
+        upsertSummary(connection, periodId, charged, BigDecimal.ZERO, delta);
+    }
+
+    static void applyPayment(Connection connection, Long periodId, Long unitId, BigDecimal amount)
+            throws SQLException {
+        StatusDelta delta = new StatusDelta();
+        if (unitId != null) {
+            String updateUnitSql = """
+                    UPDATE period_unit_balances SET paid_amount = paid_amount + ?
+                    WHERE period_id = ? AND unit_id = ?
+                    """;
+            int updated;
+            try (PreparedStatement statement = connection.prepareStatement(updateUnitSql)) {
+                statement.setBigDecimal(1, amount);
+                statement.setLong(2, periodId);
+                statement.setLong(3, unitId);
+                updated = statement.executeUpdate();
+            }
+            if (updated > 0) {
+                String selectSql = "SELECT charged_amount, paid_amount FROM period_unit_balances "
+                        + "WHERE period_id = ? AND unit_id = ?";
+                try (PreparedStatement statement = connection.prepareStatement(selectSql)) {
+                    statement.setLong(1, periodId);
+                    statement.setLong(2, unitId);
+                    try (ResultSet rs = statement.executeQuery()) {
+                        if (rs.next()) {
+                            BigDecimal charged = rs.getBigDecimal("charged_amount");
+                            BigDecimal newPaid = rs.getBigDecimal("paid_amount");
+                            delta.move(UnitStatus.of(charged, newPaid.subtract(amount)), UnitStatus.of(charged, newPaid));
+                        }
+                    }
+                }
+            }
+        }
+        upsertSummary(connection, periodId, BigDecimal.ZERO, amount, delta);
+    }
+
+    /**
+     * Variante por lotes de applyPayment para la importación de pagos: recibe lo
+     * pagado por período y unidad, actualiza todas las filas de unidad en un solo
+     * batch y luego cada resumen. Los períodos y unidades se recorren en orden de
+     * ID para que dos importaciones concurrentes tomen los locks en el mismo
+     * orden.
+     */
+    static void applyPayments(Connection connection, Map<Long, Map<Long, BigDecimal>> paidByPeriodAndUnit)
+            throws SQLException {
+        if (paidByPeriodAndUnit.isEmpty()) {
+            return;
+        }
+        Map<Long, Map<Long, BigDecimal>> ordered = new TreeMap<>();
+        paidByPeriodAndUnit.forEach((periodId, byUnit) -> ordered.put(periodId, new TreeMap<>(byUnit)));
+
+        String updateUnitSql = """
+                UPDATE period_unit_balances SET paid_amount = paid_amount + ?
+                WHERE period_id = ? AND unit_id = ?
+                """;
+        try (PreparedStatement statement = connection.prepareStatement(updateUnitSql)) {
+            for (Map.Entry<Long, Map<Long, BigDecimal>> period : ordered.entrySet()) {
+                for (Map.Entry<Long, BigDecimal> unit : period.getValue().entrySet()) {
+                    statement.setBigDecimal(1, unit.getValue());
+                    statement.setLong(2, period.getKey());
+                    statement.setLong(3, unit.getKey());
+                    statement.addBatch();
+                }
+            }
+            statement.executeBatch();
+        }
+
+        for (Map.Entry<Long, Map<Long, BigDecimal>> period : ordered.entrySet()) {
+            Map<Long, BigDecimal> paidByUnit = period.getValue();
+            BigDecimal collected = BigDecimal.ZERO;
+            for (BigDecimal amount : paidByUnit.values()) {
+                collected = collected.add(amount);
+            }
+            StatusDelta delta = new StatusDelta();
+            String selectSql = "SELECT unit_id, charged_amount, paid_amount FROM period_unit_balances "
+                    + "WHERE period_id = ? AND unit_id IN (" + placeholders(paidByUnit.size()) + ")";
+            try (PreparedStatement statement = connection.prepareStatement(selectSql)) {
+                statement.setLong(1, period.getKey());
+                int index = 2;
+                for (Long unitId : paidByUnit.keySet()) {
+                    statement.setLong(index++, unitId);
+                }
+                try (ResultSet rs = statement.executeQuery()) {
+                    while (rs.next()) {
+                        BigDecimal charged = rs.getBigDecimal("charged_amount");
+                        BigDecimal newPaid = rs.getBigDecimal("paid_amount");
+                        BigDecimal oldPaid = newPaid.subtract(paidByUnit.get(rs.getLong("unit_id")));
+                        delta.move(UnitStatus.of(charged, oldPaid), UnitStatus.of(charged, newPaid));
+                    }
+                }
+            }
+            upsertSummary(connection, period.getKey(), BigDecimal.ZERO, collected, delta);
+        }
+    }
+
+    private static void upsertSummary(Connection connection, Long periodId, BigDecimal charged, BigDecimal collected,
+            StatusDelta delta) throws SQLException {
+        try (PreparedStatement statement = connection.prepareStatement(UPSERT_SUMMARY_SQL)) {
+            statement.setLong(1, periodId);
+            statement.setBigDecimal(2, charged);
+            statement.setBigDecimal(3, collected);
+            statement.setInt(4, delta.paid);
+            statement.setInt(5, delta.partial);
+            statement.setInt(6, delta.pending);
+            statement.executeUpdate();
+        }
+    }
+
+    private static String placeholders(int count) {
+        return String.join(", ", Collections.nCopies(count, "?"));
+    }
+
+    /**
+     * Estado de una unidad en el período; mismas reglas que la reconstrucción en
+     * PeriodSummaryRepository.
+     */
+    enum UnitStatus {
+        NONE, PENDING, PARTIAL, PAID;
+
+        static UnitStatus of(BigDecimal charged, BigDecimal paid) {
+            if (charged.signum() > 0 && paid.compareTo(charged) >= 0) {
+                return PAID;
+            }
+            if (paid.signum() > 0 && paid.compareTo(charged) < 0) {
+                return PARTIAL;
+            }
+            if (charged.signum() > 0 && paid.signum() <= 0) {
+                return PENDING;
+            }
+            return NONE;
+        }
+    }
+
+    /**
+     * Cambio acumulado en los conteos de unidades por estado que se suma al
+     * resumen del período.
+     */
+    static final class StatusDelta {
+
+        private int paid;
+        private int partial;
+        private int pending;
+
+        int paid() {
+            return paid;
+        }
+
+        int partial() {
+            return partial;
+        }
+
+        int pending() {
+            return pending;
+        }
+
+        void move(UnitStatus from, UnitStatus to) {
+            if (from == to) {
+                return;
+            }
+            add(from, -1);
+            add(to, 1);
+        }
+
+        private void add(UnitStatus status, int amount) {
+            switch (status) {
+                case PAID -> paid += amount;
+                case PARTIAL -> partial += amount;
+                case PENDING -> pending += amount;
+                case NONE -> {
+                }
+            }
+        }
+    }
+}
@@ -11,7 +11,11 @@ import java.sql.Statement;
 import java.sql.Timestamp;
 import java.time.LocalDateTime;
 import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 
 public class PollRepository {
@@ -82,39 +86,29 @@ public class PollRepository {
         }
     }
 
-    public List<PollRow> findByBuilding(Long buildingId) {
+    /**
+     * Votaciones del edificio filtradas por estado efectivo: OPEN son las
+     * abiertas que aún no vencen y CLOSED incluye las vencidas que el barrido
+     * todavía no cierra. Con status null se devuelven todas.
+     */
+    public List<PollRow> findByBuilding(Long buildingId, String status, LocalDateTime now) {
+        String statusFilter = switch (status == null ? "" : status) {
+            case "OPEN" -> " AND status = 'OPEN' AND closes_at > ?";
+            case "CLOSED" -> " AND (status <> 'OPEN' OR closes_at <= ?)";
+            default -> "";
+        };
         String sql = """
                 SELECT id, building_id, created_by, title, description, closes_at, status, created_at, closed_at
                 FROM polls
-                WHERE building_id = ?
+                WHERE building_id = ?%s
                 ORDER BY created_at DESC
-                """;
+                """.formatted(statusFilter);
         try (Connection connection = dataSource.getConnection();
                 PreparedStatement statement = connection.prepareStatement(sql)) {
             statement.setLong(1, buildingId);
-            try (ResultSet rs = statement.executeQuery()) {
-                List<PollRow> rows = new ArrayList<>();
-                while (rs.next()) {
-                    rows.add(mapPoll(rs));
-                }
-                return rows;
+            if (!statusFilter.isEmpty()) {
+                statement.setTimestamp(2, Timestamp.valueOf(now));
             }
-        } catch (SQLException e) {
-            throw new RepositoryException("Error obteniendo votaciones", e);
-        }
-    }
-
-    public List<PollRow> findByBuildingAndStatus(Long buildingId, String status) {
-        String sql = """
-                SELECT id, building_id, created_by, title, description, closes_at, status, created_at, closed_at
-                FROM polls
-                WHERE building_id = ? AND status = ?
-                ORDER BY created_at DESC
-                """;
-        try (Connection connection = dataSource.getConnection();
-                PreparedStatement statement = connection.prepareStatement(sql)) {
-            statement.setLong(1, buildingId);
-            statement.setString(2, status);
             try (ResultSet rs = statement.executeQuery()) {
                 List<PollRow> rows = new ArrayList<>();
                 while (rs.next()) {
@@ -123,28 +117,26 @@ public class PollRepository {
                 return rows;
             }
         } catch (SQLException e) {
-            throw new RepositoryException("Error obteniendo votaciones por estado", e);
+            throw new RepositoryException("Error obteniendo votaciones", e);
         }
     }
 
-    public List<PollRow> findExpiredOpenPolls(LocalDateTime limit) {
+    /**
+     * Cierra en un solo UPDATE todas las votaciones abiertas cuyo closes_at ya
+     * pasó. closed_at queda igual a closes_at, que es cuando realmente venció.
+     */
+    public int closeExpiredPolls(LocalDateTime now) {
         String sql = """
-                SELECT id, building_id, created_by, title, description, closes_at, status, created_at, closed_at
-                FROM polls
+                UPDATE polls
+                SET status = 'CLOSED', closed_at = closes_at
                 WHERE status = 'OPEN' AND closes_at <= ?
                 """;
         try (Connection connection = dataSource.getConnection();
                 PreparedStatement statement = connection.prepareStatement(sql)) {
-            statement.setTimestamp(1, Timestamp.valueOf(limit));
-            try (ResultSet rs = statement.executeQuery()) {
-                List<PollRow> rows = new ArrayList<>();
-                while (rs.next()) {
-                    rows.add(mapPoll(rs));
-                }
-                return rows;
-            }
+            statement.setTimestamp(1, Timestamp.valueOf(now));
+            return statement.executeUpdate();
         } catch (SQLException e) {
-            throw new RepositoryException("Error obteniendo votaciones vencidas", e);
+            throw new RepositoryException("Error cerrando votaciones vencidas", e);
         }
     }
 
@@ -190,6 +182,65 @@ public class PollRepository {
         }
     }
 
+    /**
+     * Opciones de varias votaciones en una sola consulta, agrupadas por poll_id.
+     */
+    public Map<Long, List<PollOptionRow>> findOptionsByPolls(Collection<Long> pollIds) {
+        if (pollIds == null || pollIds.isEmpty()) {
+            return Map.of();
+        }
+        String sql = """
+                SELECT id, poll_id, label, votes
+                FROM poll_options
+                WHERE poll_id IN (%s)
+                ORDER BY poll_id ASC, id ASC
+                """.formatted(placeholders(pollIds.size()));
+        try (Connection connection = dataSource.getConnection();
+                PreparedStatement statement = connection.prepareStatement(sql)) {
+            bindIds(statement, 1, pollIds);
+            try (ResultSet rs = statement.executeQuery()) {
+                Map<Long, List<PollOptionRow>> optionsByPoll = new HashMap<>();
+                while (rs.next()) {
+                    PollOptionRow option = mapOption(rs);
+                    optionsByPoll.computeIfAbsent(option.pollId(), id -> new ArrayList<>()).add(option);
+                }
+                return optionsByPoll;
+            }
+        } catch (SQLException e) {
+            throw new RepositoryException("Error obteniendo opciones de votación", e);
+        }
+    }
+
+    /**
+     * Votos del usuario en varias votaciones en una sola consulta, indexados por
+     * poll_id.
+     */
+    public Map<Long, PollVoteRow> findUserVotes(Collection<Long> pollIds, Long userId) {
+        if (pollIds == null || pollIds.isEmpty()) {
+            return Map.of();
+        }
+        String sql = """
+                SELECT id, poll_id, option_id, user_id, voted_at
+                FROM poll_votes
+                WHERE user_id = ? AND poll_id IN (%s)
+                """.formatted(placeholders(pollIds.size()));
+        try (Connection connection = dataSource.getConnection();
+                PreparedStatement statement = connection.prepareStatement(sql)) {
+            statement.setLong(1, userId);
+            bindIds(statement, 2, pollIds);
+            try (ResultSet rs = statement.executeQuery()) {
+                Map<Long, PollVoteRow> votesByPoll = new HashMap<>();
+                while (rs.next()) {
+                    PollVoteRow vote = mapVote(rs);
+                    votesByPoll.put(vote.pollId(), vote);
+                }
+                return votesByPoll;
+            }
+        } catch (SQLException e) {
+            throw new RepositoryException("Error verificando votos del usuario", e);
+        }
+    }
+
     public Optional<PollVoteRow> findUserVote(Long pollId, Long userId) {
         String sql = """
                 SELECT id, poll_id, option_id, user_id, voted_at
@@ -281,6 +332,18 @@ public class PollRepository {
         }
     }
 
+    private static String placeholders(int count) {
+        return String.join(", ", Collections.nCopies(count, "?"));
+    }
+
+    private static void bindIds(PreparedStatement statement, int firstIndex, Collection<Long> ids)
+            throws SQLException {
+        int index = firstIndex;
+        for (Long id : ids) {
+            statement.setLong(index++, id);
+        }
+    }
+
     private PollRow mapPoll(ResultSet rs) throws SQLException {
         Timestamp closedAtRaw = rs.getTimestamp("closed_at");
         return new PollRow(
@@ -0,0 +1,86 @@
+package com.domu.database;
+
+import com.zaxxer.hikari.HikariDataSource;
+import com.zaxxer.hikari.HikariPoolMXBean;
+import com.zaxxer.hikari.metrics.IMetricsTracker;
+import com.zaxxer.hikari.metrics.MetricsTrackerFactory;
+import com.zaxxer.hikari.metrics.PoolStats;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Registra los tiempos de obtención y uso de conexiones que reporta HikariCP y
+ * los combina con el estado actual del pool para exponerlos como métricas.
+ */
+public class PoolMetrics implements MetricsTrackerFactory, IMetricsTracker {
+
+    private final LongAdder acquiredCount = new LongAdder();
+    private final LongAdder acquiredNanos = new LongAdder();
+    private final AtomicLong maxAcquiredNanos = new AtomicLong();
+    private final LongAdder usageCount = new LongAdder();
+    private final LongAdder usageMillis = new LongAdder();
+    private final LongAdder timeouts = new LongAdder();
+
+    @Override
+    public IMetricsTracker create(String poolName, PoolStats poolStats) {
+        return this;
+    }
+
+    @Override
+    public void recordConnectionAcquiredNanos(long elapsedAcquiredNanos) {
+        acquiredCount.increment();
+        acquiredNanos.add(elapsedAcquiredNanos);
+        maxAcquiredNanos.accumulateAndGet(elapsedAcquiredNanos, Math::max);
+    }
+
+    @Override
+    public void recordConnectionUsageMillis(long elapsedBorrowedMillis) {
+        usageCount.increment();
+        usageMillis.add(elapsedBorrowedMillis);
+    }
+
+    @Override
+    public void recordConnectionTimeout() {
+        timeouts.increment();
+    }
+
+    public Snapshot snapshot(HikariDataSource dataSource) {
+        HikariPoolMXBean pool = dataSource.getHikariPoolMXBean();
+        long acquired = acquiredCount.sum();
+        long used = usageCount.sum();
+        return new Snapshot(
+                dataSource.getPoolName(),
+                dataSource.getMaximumPoolSize(),
+                dataSource.getMinimumIdle(),
+                pool != null ? pool.getTotalConnections() : 0,
+                pool != null ? pool.getActiveConnections() : 0,
+                pool != null ? pool.getIdleConnections() : 0,
+                pool != null ? pool.getThreadsAwaitingConnection() : 0,
+                acquired,
+                acquired > 0 ? nanosToMillis(acquiredNanos.sum()) / acquired : 0.0,
+                nanosToMillis(maxAcquiredNanos.get()),
+                used > 0 ? (double) usageMillis.sum() / used : 0.0,
+                timeouts.sum());
+    }
+
+    private static double nanosToMillis(long nanos) {
+        return nanos / (double) TimeUnit.MILLISECONDS.toNanos(1);
+    }
+
+    public record Snapshot(
+            String poolName,
+            int maximumPoolSize,
+            int minimumIdle,
+            int totalConnections,
+            int activeConnections,
+            int idleConnections,
+            int pendingThreads,
+            long acquiredConnections,
+            double averageAcquireMillis,
+            double maxAcquireMillis,
+            double averageUsageMillis,
+            long connectionTimeouts) {
+    }
+}
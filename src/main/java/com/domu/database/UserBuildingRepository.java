@@ -48,6 +48,29 @@ public class UserBuildingRepository {
         }
     }
 
+    public List<Long> findBuildingIdsForUser(Long userId) {
+        String sql = """
+                SELECT b.id
+                FROM user_buildings ub
+                JOIN buildings b ON b.id = ub.building_id
+                WHERE ub.user_id = ?
+                ORDER BY b.name
+                """;
+        List<Long> buildingIds = new ArrayList<>();
+        try (Connection connection = dataSource.getConnection();
+                PreparedStatement statement = connection.prepareStatement(sql)) {
+            statement.setLong(1, userId);
+            try (ResultSet rs = statement.executeQuery()) {
+                while (rs.next()) {
+                    buildingIds.add(rs.getLong("id"));
+                }
+            }
+            return buildingIds;
+        } catch (SQLException e) {
+            throw new RepositoryException("Error obteniendo edificios del usuario", e);
+        }
+    }
+
     public void addUserToBuilding(Long userId, Long buildingId) {
         String sql = """
                 INSERT IGNORE INTO user_buildings (user_id, building_id)
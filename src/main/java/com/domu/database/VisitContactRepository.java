@@ -1,5 +1,6 @@
 package com.domu.database;
 
+import com.domu.domain.access.VisitorSearchKeys;
 import com.google.inject.Inject;
 
 import javax.sql.DataSource;
@@ -11,6 +12,7 @@ import java.sql.Statement;
 import java.sql.Timestamp;
 import java.time.LocalDateTime;
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
 import java.util.Optional;
 
@@ -25,12 +27,43 @@ public class VisitContactRepository {
 
     public ContactRow insert(ContactRow contact) {
         String sql = """
-                INSERT INTO visit_contacts (resident_user_id, visitor_name, visitor_document, unit_id, alias, created_at, updated_at)
-                VALUES (?, ?, ?, ?, ?, ?, ?)
+                INSERT INTO visit_contacts (resident_user_id, visitor_name, visitor_document, unit_id, alias, created_at, updated_at,
+                                            visitor_name_norm, visitor_document_norm)
+                VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?)
                 """;
         LocalDateTime now = contact.createdAt() != null ? contact.createdAt() : LocalDateTime.now();
-        try (Connection connection = dataSource.getConnection();
-             PreparedStatement statement = connection.prepareStatement(sql, Statement.RETURN_GENERATED_KEYS)) {
+        String nameKey = VisitorSearchKeys.nameKey(contact.visitorName());
+        try (Connection connection = dataSource.getConnection()) {
+            connection.setAutoCommit(false);
+            try {
+                Long id = insertRow(connection, sql, contact, now, nameKey);
+                VisitorSearchKeyRepository.insertTokens(connection, VisitorSearchKeyRepository.Table.CONTACTS, id,
+                        contact.residentUserId(), nameKey);
+                connection.commit();
+                return new ContactRow(
+                        id,
+                        contact.residentUserId(),
+                        contact.visitorName(),
+                        contact.visitorDocument(),
+                        contact.unitId(),
+                        contact.alias(),
+                        now,
+                        now
+                );
+            } catch (SQLException | RuntimeException ex) {
+                connection.rollback();
+                throw ex;
+            } finally {
+                connection.setAutoCommit(true);
+            }
+        } catch (SQLException e) {
+            throw new RepositoryException("Error guardando contacto de visita", e);
+        }
+    }
+
+    private Long insertRow(Connection connection, String sql, ContactRow contact, LocalDateTime now, String nameKey)
+            throws SQLException {
+        try (PreparedStatement statement = connection.prepareStatement(sql, Statement.RETURN_GENERATED_KEYS)) {
             statement.setLong(1, contact.residentUserId());
             statement.setString(2, contact.visitorName());
             if (contact.visitorDocument() != null && !contact.visitorDocument().isBlank()) {
@@ -50,25 +83,15 @@ public class VisitContactRepository {
             }
             statement.setTimestamp(6, Timestamp.valueOf(now));
             statement.setTimestamp(7, Timestamp.valueOf(now));
+            statement.setString(8, nameKey);
+            statement.setString(9, VisitorSearchKeys.documentKey(contact.visitorDocument()));
             statement.executeUpdate();
             try (ResultSet keys = statement.getGeneratedKeys()) {
                 if (keys.next()) {
-                    Long id = keys.getLong(1);
-                    return new ContactRow(
-                            id,
-                            contact.residentUserId(),
-                            contact.visitorName(),
-                            contact.visitorDocument(),
-                            contact.unitId(),
-                            contact.alias(),
-                            now,
-                            now
-                    );
+                    return keys.getLong(1);
                 }
             }
             throw new RepositoryException("No se pudo obtener el id del contacto");
-        } catch (SQLException e) {
-            throw new RepositoryException("Error guardando contacto de visita", e);
         }
     }
 
@@ -80,9 +103,16 @@ public class VisitContactRepository {
                 FROM visit_contacts
                 WHERE resident_user_id = ?
                 """);
-        boolean hasSearch = search != null && !search.isBlank();
+        // Cada palabra buscada debe ser el comienzo de alguna palabra del nombre
+        List<String> nameTokens = VisitorSearchKeys.searchTokens(search);
+        String documentKey = VisitorSearchKeys.documentKey(search);
+        boolean hasSearch = !nameTokens.isEmpty();
         if (hasSearch) {
-            sql.append(" AND (LOWER(visitor_name) LIKE ? OR REPLACE(REPLACE(REPLACE(LOWER(COALESCE(visitor_document, '')), '.', ''), '-', ''), ' ', '') LIKE ?) ");
+            sql.append(" AND (visitor_document_norm LIKE ? OR (")
+                    .append(String.join(" AND ", Collections.nCopies(nameTokens.size(), """
+                            id IN (SELECT contact_id FROM visit_contact_name_tokens
+                                   WHERE resident_user_id = ? AND token LIKE ?)""")))
+                    .append(")) ");
         }
         sql.append(" ORDER BY updated_at DESC, created_at DESC LIMIT ?");
 
@@ -92,12 +122,14 @@ public class VisitContactRepository {
             statement.setLong(1, residentUserId);
             Integer paramIndex = 2;
             if (hasSearch) {
-                String normalizedSearch = search.toLowerCase().trim();
-                String normalizedDoc = normalizedSearch.replace(".", "").replace("-", "").replace(" ", "");
-                statement.setString(paramIndex, "%" + normalizedSearch + "%");
-                paramIndex++;
-                statement.setString(paramIndex, "%" + normalizedDoc + "%");
+                statement.setString(paramIndex, VisitorSearchKeys.prefixPattern(documentKey));
                 paramIndex++;
+                for (String token : nameTokens) {
+                    statement.setLong(paramIndex, residentUserId);
+                    paramIndex++;
+                    statement.setString(paramIndex, VisitorSearchKeys.prefixPattern(token));
+                    paramIndex++;
+                }
             }
             Integer appliedLimit = (limit != null && limit > 0) ? limit : DEFAULT_LIMIT;
             statement.setInt(paramIndex, appliedLimit);
@@ -112,6 +144,34 @@ public class VisitContactRepository {
         }
     }
 
+    /**
+     * Contactos del residente del más reciente al más antiguo, sin filtro, para
+     * armar el índice de autocompletado en memoria.
+     */
+    public List<ContactRow> findAllForResident(Long residentUserId, int limit) {
+        String sql = """
+                SELECT id, resident_user_id, visitor_name, visitor_document, unit_id, alias, created_at, updated_at
+                FROM visit_contacts
+                WHERE resident_user_id = ?
+                ORDER BY updated_at DESC, created_at DESC, id DESC
+                LIMIT ?
+                """;
+        List<ContactRow> contacts = new ArrayList<>();
+        try (Connection connection = dataSource.getConnection();
+             PreparedStatement statement = connection.prepareStatement(sql)) {
+            statement.setLong(1, residentUserId);
+            statement.setInt(2, limit);
+            try (ResultSet rs = statement.executeQuery()) {
+                while (rs.next()) {
+                    contacts.add(map(rs));
+                }
+            }
+            return contacts;
+        } catch (SQLException e) {
+            throw new RepositoryException("Error obteniendo contactos de visita", e);
+        }
+    }
+
     public Optional<ContactRow> findById(Long contactId, Long residentUserId) {
         String sql = """
                 SELECT id, resident_user_id, visitor_name, visitor_document, unit_id, alias, created_at, updated_at
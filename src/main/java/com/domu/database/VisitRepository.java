@@ -1,5 +1,6 @@
 package com.domu.database;
 
+import com.domu.domain.access.VisitorSearchKeys;
 import com.google.inject.Inject;
 
 import javax.sql.DataSource;
@@ -11,11 +12,14 @@ import java.sql.Statement;
 import java.sql.Timestamp;
 import java.time.LocalDateTime;
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
 import java.util.Optional;
 
 public class VisitRepository {
 
+    private static final String CHECK_IN = "CHECK_IN";
+
     private final DataSource dataSource;
 
     @Inject
@@ -24,10 +28,41 @@ public class VisitRepository {
     }
 
     public VisitRow insertVisit(VisitRow visit) {
-        String sql = "INSERT INTO visits (visitor_name, visitor_document, visitor_type, company, created_at) VALUES (?, ?, ?, ?, ?)";
+        String sql = """
+                INSERT INTO visits (visitor_name, visitor_document, visitor_type, company, created_at,
+                                    visitor_name_norm, visitor_document_norm)
+                VALUES (?, ?, ?, ?, ?, ?, ?)
+                """;
         LocalDateTime createdAt = visit.createdAt() != null ? visit.createdAt() : LocalDateTime.now();
-        try (Connection connection = dataSource.getConnection();
-                PreparedStatement statement = connection.prepareStatement(sql, Statement.RETURN_GENERATED_KEYS)) {
+        String nameKey = VisitorSearchKeys.nameKey(visit.visitorName());
+        try (Connection connection = dataSource.getConnection()) {
+            connection.setAutoCommit(false);
+            try {
+                Long id = insertVisitRow(connection, sql, visit, createdAt, nameKey);
+                VisitorSearchKeyRepository.insertTokens(connection, VisitorSearchKeyRepository.Table.VISITS, id, null,
+                        nameKey);
+                connection.commit();
+                return new VisitRow(
+                        id,
+                        visit.visitorName(),
+                        visit.visitorDocument(),
+                        visit.visitorType(),
+                        visit.company(),
+                        createdAt);
+            } catch (SQLException | RuntimeException ex) {
+                connection.rollback();
+                throw ex;
+            } finally {
+                connection.setAutoCommit(true);
+            }
+        } catch (SQLException e) {
+            throw new RepositoryException("Error guardando visita", e);
+        }
+    }
+
+    private Long insertVisitRow(Connection connection, String sql, VisitRow visit, LocalDateTime createdAt,
+            String nameKey) throws SQLException {
+        try (PreparedStatement statement = connection.prepareStatement(sql, Statement.RETURN_GENERATED_KEYS)) {
             statement.setString(1, visit.visitorName());
             if (visit.visitorDocument() != null && !visit.visitorDocument().isBlank()) {
                 statement.setString(2, visit.visitorDocument());
@@ -41,30 +76,23 @@ public class VisitRepository {
                 statement.setNull(4, java.sql.Types.VARCHAR);
             }
             statement.setTimestamp(5, Timestamp.valueOf(createdAt));
+            statement.setString(6, nameKey);
+            statement.setString(7, VisitorSearchKeys.documentKey(visit.visitorDocument()));
             statement.executeUpdate();
             try (ResultSet keys = statement.getGeneratedKeys()) {
                 if (keys.next()) {
-                    Long id = keys.getLong(1);
-                    return new VisitRow(
-                            id,
-                            visit.visitorName(),
-                            visit.visitorDocument(),
-                            visit.visitorType(),
-                            visit.company(),
-                            createdAt);
+                    return keys.getLong(1);
                 }
             }
             throw new RepositoryException("No se pudo obtener el id de la visita");
-        } catch (SQLException e) {
-            throw new RepositoryException("Error guardando visita", e);
         }
     }
 
     public VisitAuthorizationRow insertAuthorization(VisitAuthorizationRow authorization) {
         String sql = """
                 INSERT INTO visit_authorizations
-                (visit_id, resident_user_id, unit_id, valid_from, valid_until, status, qr_hash, created_at)
-                VALUES (?, ?, ?, ?, ?, ?, ?, ?)
+                (visit_id, resident_user_id, unit_id, valid_from, valid_until, status, qr_hash, created_at, building_id)
+                VALUES (?, ?, ?, ?, ?, ?, ?, ?, (SELECT building_id FROM housing_units WHERE id = ?))
                 """;
         LocalDateTime createdAt = authorization.createdAt() != null ? authorization.createdAt() : LocalDateTime.now();
         String status = authorization.status() != null ? authorization.status() : "SCHEDULED";
@@ -82,6 +110,7 @@ public class VisitRepository {
                 statement.setNull(7, java.sql.Types.VARCHAR);
             }
             statement.setTimestamp(8, Timestamp.valueOf(createdAt));
+            statement.setLong(9, authorization.unitId());
             statement.executeUpdate();
             try (ResultSet keys = statement.getGeneratedKeys()) {
                 if (keys.next()) {
@@ -119,15 +148,129 @@ public class VisitRepository {
         }
     }
 
+    /**
+     * Autorizaciones con código QR del edificio vigentes en algún momento de
+     * [dayStart, dayEnd), para el índice de ingresos del día.
+     */
+    public List<VisitSummaryRow> findQrAuthorizationsForDay(Long buildingId, LocalDateTime dayStart,
+            LocalDateTime dayEnd) {
+        String sql = baseSummaryQuery() + """
+                WHERE va.building_id = ? AND va.valid_until >= ? AND va.valid_from < ?
+                  AND va.qr_hash IS NOT NULL
+                """;
+        try (Connection connection = dataSource.getConnection();
+                PreparedStatement statement = connection.prepareStatement(sql)) {
+            statement.setLong(1, buildingId);
+            statement.setTimestamp(2, Timestamp.valueOf(dayStart));
+            statement.setTimestamp(3, Timestamp.valueOf(dayEnd));
+            return readSummaries(statement);
+        } catch (SQLException e) {
+            throw new RepositoryException("Error obteniendo visitas del día", e);
+        }
+    }
+
+    public Optional<VisitSummaryRow> findAuthorizationByQrHash(Long buildingId, String qrHash) {
+        String sql = baseSummaryQuery() + " WHERE va.qr_hash = ? AND va.building_id = ?";
+        try (Connection connection = dataSource.getConnection();
+                PreparedStatement statement = connection.prepareStatement(sql)) {
+            statement.setString(1, qrHash);
+            statement.setLong(2, buildingId);
+            return readSummaries(statement).stream().findFirst();
+        } catch (SQLException e) {
+            throw new RepositoryException("Error buscando visita por código QR", e);
+        }
+    }
+
+    /**
+     * Ingreso por código QR: en una sola transacción marca la autorización como
+     * CHECKED_IN, solo si todavía no lo estaba y sigue vigente a recordedAt, e
+     * inserta el registro de acceso. Devuelve vacío si la autorización no se
+     * actualizó (ya tenía ingreso, venció o no existe), sin registrar nada.
+     */
+    public Optional<AccessLogRow> insertPendingCheckIn(AccessLogRow log) {
+        String checkInSql = """
+                UPDATE visit_authorizations
+                SET status = 'CHECKED_IN', checked_in_at = ?
+                WHERE id = ? AND status <> 'CHECKED_IN' AND valid_until >= ?
+                """;
+        LocalDateTime recordedAt = log.recordedAt() != null ? log.recordedAt() : LocalDateTime.now();
+        LocalDateTime createdAt = log.createdAt() != null ? log.createdAt() : recordedAt;
+        try (Connection connection = dataSource.getConnection()) {
+            connection.setAutoCommit(false);
+            try {
+                try (PreparedStatement update = connection.prepareStatement(checkInSql)) {
+                    update.setTimestamp(1, Timestamp.valueOf(recordedAt));
+                    update.setLong(2, log.authorizationId());
+                    update.setTimestamp(3, Timestamp.valueOf(recordedAt));
+                    if (update.executeUpdate() == 0) {
+                        connection.rollback();
+                        return Optional.empty();
+                    }
+                }
+                AccessLogRow saved = insertAccessLog(connection, log, recordedAt, createdAt);
+                connection.commit();
+                return Optional.of(saved);
+            } catch (SQLException | RuntimeException ex) {
+                connection.rollback();
+                throw ex;
+            } finally {
+                connection.setAutoCommit(true);
+            }
+        } catch (SQLException e) {
+            throw new RepositoryException("Error guardando registro de acceso de visita", e);
+        }
+    }
+
+    /**
+     * Inserta el registro de acceso. Un CHECK_IN con autorización además marca la
+     * autorización como CHECKED_IN y actualiza checked_in_at en la misma
+     * transacción; la autorización se actualiza primero para que dos ingresos
+     * simultáneos se serialicen en su fila.
+     */
     public AccessLogRow insertAccessLog(AccessLogRow log) {
+        String checkInSql = """
+                UPDATE visit_authorizations
+                SET status = 'CHECKED_IN',
+                    checked_in_at = GREATEST(COALESCE(checked_in_at, ?), ?)
+                WHERE id = ?
+                """;
+        LocalDateTime recordedAt = log.recordedAt() != null ? log.recordedAt() : LocalDateTime.now();
+        LocalDateTime createdAt = log.createdAt() != null ? log.createdAt() : recordedAt;
+        boolean checkIn = CHECK_IN.equals(log.outcome()) && log.authorizationId() != null;
+        try (Connection connection = dataSource.getConnection()) {
+            connection.setAutoCommit(false);
+            try {
+                if (checkIn) {
+                    try (PreparedStatement update = connection.prepareStatement(checkInSql)) {
+                        update.setTimestamp(1, Timestamp.valueOf(recordedAt));
+                        update.setTimestamp(2, Timestamp.valueOf(recordedAt));
+                        update.setLong(3, log.authorizationId());
+                        if (update.executeUpdate() == 0) {
+                            throw new RepositoryException("No se encontró la autorización para registrar el ingreso");
+                        }
+                    }
+                }
+                AccessLogRow saved = insertAccessLog(connection, log, recordedAt, createdAt);
+                connection.commit();
+                return saved;
+            } catch (SQLException | RuntimeException ex) {
+                connection.rollback();
+                throw ex;
+            } finally {
+                connection.setAutoCommit(true);
+            }
+        } catch (SQLException e) {
+            throw new RepositoryException("Error guardando registro de acceso de visita", e);
+        }
+    }
+
+    private AccessLogRow insertAccessLog(Connection connection, AccessLogRow log, LocalDateTime recordedAt,
+            LocalDateTime createdAt) throws SQLException {
         String sql = """
                 INSERT INTO visit_access_logs (visit_id, authorization_id, recorded_at, door, authorized_by_user_id, outcome, created_at)
                 VALUES (?, ?, ?, ?, ?, ?, ?)
                 """;
-        LocalDateTime recordedAt = log.recordedAt() != null ? log.recordedAt() : LocalDateTime.now();
-        LocalDateTime createdAt = log.createdAt() != null ? log.createdAt() : recordedAt;
-        try (Connection connection = dataSource.getConnection();
-                PreparedStatement statement = connection.prepareStatement(sql, Statement.RETURN_GENERATED_KEYS)) {
+        try (PreparedStatement statement = connection.prepareStatement(sql, Statement.RETURN_GENERATED_KEYS)) {
             statement.setLong(1, log.visitId());
             if (log.authorizationId() != null) {
                 statement.setLong(2, log.authorizationId());
@@ -163,8 +306,6 @@ public class VisitRepository {
                 }
             }
             throw new RepositoryException("No se pudo obtener el id del registro de acceso");
-        } catch (SQLException e) {
-            throw new RepositoryException("Error guardando registro de acceso de visita", e);
         }
     }
 
@@ -201,76 +342,106 @@ public class VisitRepository {
         }
     }
 
-    public List<VisitSummaryRow> findAuthorizationsForResident(Long residentUserId) {
-        String sql = baseSummaryQuery() + " WHERE va.resident_user_id = ? ORDER BY va.created_at DESC";
-        List<VisitSummaryRow> visits = new ArrayList<>();
+    /**
+     * Página de autorizaciones del residente, de la más reciente a la más antigua.
+     * {@code after} es la última fila de la página anterior (null para la
+     * primera); se leen hasta {@code limit} filas.
+     */
+    public List<VisitSummaryRow> findAuthorizationsForResident(Long residentUserId, VisitCursor after, int limit) {
+        String sql = baseSummaryQuery() + " WHERE va.resident_user_id = ?" + keysetPage(after);
         try (Connection connection = dataSource.getConnection();
                 PreparedStatement statement = connection.prepareStatement(sql)) {
             statement.setLong(1, residentUserId);
-            try (ResultSet rs = statement.executeQuery()) {
-                while (rs.next()) {
-                    visits.add(mapSummary(rs));
-                }
-            }
-            return visits;
+            bindKeysetPage(statement, 2, after, limit);
+            return readSummaries(statement);
         } catch (SQLException e) {
             throw new RepositoryException("Error obteniendo visitas del residente", e);
         }
     }
 
     /**
-     * Encuentra todas las visitas de un edificio específico.
-     * Hace JOIN con housing_units para filtrar por building_id.
+     * Página de visitas de un edificio, recorrida por el índice
+     * (building_id, created_at, id).
      */
-    public List<VisitSummaryRow> findAuthorizationsForBuilding(Long buildingId) {
-        String sql = baseSummaryQuery()
-                + " JOIN housing_units hu ON hu.id = va.unit_id WHERE hu.building_id = ? ORDER BY va.created_at DESC";
-        List<VisitSummaryRow> visits = new ArrayList<>();
+    public List<VisitSummaryRow> findAuthorizationsForBuilding(Long buildingId, VisitCursor after, int limit) {
+        String sql = baseSummaryQuery() + " WHERE va.building_id = ?" + keysetPage(after);
         try (Connection connection = dataSource.getConnection();
                 PreparedStatement statement = connection.prepareStatement(sql)) {
             statement.setLong(1, buildingId);
-            try (ResultSet rs = statement.executeQuery()) {
-                while (rs.next()) {
-                    visits.add(mapSummary(rs));
-                }
-            }
-            return visits;
+            bindKeysetPage(statement, 2, after, limit);
+            return readSummaries(statement);
         } catch (SQLException e) {
             throw new RepositoryException("Error obteniendo visitas del edificio", e);
         }
     }
 
-    public List<VisitSummaryRow> searchAuthorizationsForResident(Long residentUserId, String searchTerm) {
+    /**
+     * Página del historial del residente: visitas con ingreso o ya vencidas a
+     * {@code now}, opcionalmente filtradas por el comienzo del documento o por
+     * palabras del nombre: cada palabra buscada debe ser el comienzo de alguna
+     * palabra del nombre (claves de VisitorSearchKeys).
+     */
+    public List<VisitSummaryRow> searchAuthorizationsForResident(Long residentUserId, String searchTerm,
+            LocalDateTime now, VisitCursor after, int limit) {
         StringBuilder sql = new StringBuilder(baseSummaryQuery())
-                .append(" WHERE va.resident_user_id = ? ");
-        boolean hasSearch = searchTerm != null && !searchTerm.isBlank();
-        if (hasSearch) {
-            sql.append(
-                    "AND (LOWER(v.visitor_name) LIKE ? OR REPLACE(REPLACE(REPLACE(LOWER(COALESCE(v.visitor_document, '')), '.', ''), '-', ''), ' ', '') LIKE ?) ");
+                .append(" WHERE va.resident_user_id = ? AND (va.status = 'CHECKED_IN' OR va.valid_until < ?) ");
+        List<String> nameTokens = VisitorSearchKeys.searchTokens(searchTerm);
+        String documentKey = VisitorSearchKeys.documentKey(searchTerm);
+        if (!nameTokens.isEmpty()) {
+            sql.append("AND (v.visitor_document_norm LIKE ? OR (")
+                    .append(String.join(" AND ", Collections.nCopies(nameTokens.size(),
+                            "v.id IN (SELECT visit_id FROM visit_name_tokens WHERE token LIKE ?)")))
+                    .append(")) ");
         }
-        sql.append("ORDER BY va.created_at DESC");
+        sql.append(keysetPage(after));
 
-        List<VisitSummaryRow> visits = new ArrayList<>();
         try (Connection connection = dataSource.getConnection();
                 PreparedStatement statement = connection.prepareStatement(sql.toString())) {
-            statement.setLong(1, residentUserId);
-            if (hasSearch) {
-                String normalizedSearch = searchTerm.toLowerCase().trim();
-                String normalizedDocument = normalizedSearch.replace(".", "").replace("-", "").replace(" ", "");
-                statement.setString(2, "%" + normalizedSearch + "%");
-                statement.setString(3, "%" + normalizedDocument + "%");
-            }
-            try (ResultSet rs = statement.executeQuery()) {
-                while (rs.next()) {
-                    visits.add(mapSummary(rs));
+            int index = 1;
+            statement.setLong(index++, residentUserId);
+            statement.setTimestamp(index++, Timestamp.valueOf(now));
+            if (!nameTokens.isEmpty()) {
+                statement.setString(index++, VisitorSearchKeys.prefixPattern(documentKey));
+                for (String token : nameTokens) {
+                    statement.setString(index++, VisitorSearchKeys.prefixPattern(token));
                 }
             }
-            return visits;
+            bindKeysetPage(statement, index, after, limit);
+            return readSummaries(statement);
         } catch (SQLException e) {
             throw new RepositoryException("Error buscando visitas del residente", e);
         }
     }
 
+    private static String keysetPage(VisitCursor after) {
+        String page = " ORDER BY va.created_at DESC, va.id DESC LIMIT ?";
+        if (after == null) {
+            return page;
+        }
+        return " AND (va.created_at < ? OR (va.created_at = ? AND va.id < ?))" + page;
+    }
+
+    private static void bindKeysetPage(PreparedStatement statement, int index, VisitCursor after, int limit)
+            throws SQLException {
+        if (after != null) {
+            Timestamp createdAt = Timestamp.valueOf(after.createdAt());
+            statement.setTimestamp(index++, createdAt);
+            statement.setTimestamp(index++, createdAt);
+            statement.setLong(index++, after.id());
+        }
+        statement.setInt(index, limit);
+    }
+
+    private List<VisitSummaryRow> readSummaries(PreparedStatement statement) throws SQLException {
+        List<VisitSummaryRow> visits = new ArrayList<>();
+        try (ResultSet rs = statement.executeQuery()) {
+            while (rs.next()) {
+                visits.add(mapSummary(rs));
+            }
+        }
+        return visits;
+    }
+
     private String baseSummaryQuery() {
         return """
                 SELECT va.id AS authorization_id,
@@ -287,15 +458,9 @@ public class VisitRepository {
                        v.visitor_type,
                        v.company,
                        v.created_at AS visit_created_at,
-                       ci.check_in_at
+                       va.checked_in_at AS check_in_at
                 FROM visit_authorizations va
                 JOIN visits v ON v.id = va.visit_id
-                LEFT JOIN (
-                    SELECT authorization_id, MAX(recorded_at) AS check_in_at
-                    FROM visit_access_logs
-                    WHERE outcome = 'CHECK_IN'
-                    GROUP BY authorization_id
-                ) ci ON ci.authorization_id = va.id
                 """;
     }
 
@@ -316,7 +481,8 @@ public class VisitRepository {
                 validUntil,
                 rs.getString("status"),
                 rs.getTimestamp("authorization_created_at").toLocalDateTime(),
-                checkInAt);
+                checkInAt,
+                rs.getString("qr_hash"));
     }
 
     public record VisitRow(
@@ -351,6 +517,12 @@ public class VisitRepository {
             LocalDateTime createdAt) {
     }
 
+    /**
+     * Posición en los listados ordenados por (created_at, id) descendente.
+     */
+    public record VisitCursor(LocalDateTime createdAt, Long id) {
+    }
+
     public record VisitSummaryRow(
             Long authorizationId,
             Long visitId,
@@ -363,6 +535,12 @@ public class VisitRepository {
             LocalDateTime validUntil,
             String status,
             LocalDateTime createdAt,
-            LocalDateTime checkInAt) {
+            LocalDateTime checkInAt,
+            String qrHash) {
+
+        public VisitSummaryRow withStatus(String newStatus, LocalDateTime newCheckInAt) {
+            return new VisitSummaryRow(authorizationId, visitId, residentUserId, unitId, visitorName,
+                    visitorDocument, visitorType, validFrom, validUntil, newStatus, createdAt, newCheckInAt, qrHash);
+        }
     }
 }
@@ -0,0 +1,133 @@
+package com.domu.database;
+
+import com.domu.domain.access.VisitorSearchKeys;
+import com.google.inject.Inject;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.List;
+
+/**
+ * Completa visitor_name_norm, visitor_document_norm y las palabras del nombre
+ * (visit_name_tokens, visit_contact_name_tokens) en filas que no las tienen
+ * (anteriores a la migración 025 o insertadas por una versión previa). Las
+ * claves se calculan con VisitorSearchKeys, igual que al insertar.
+ */
+public class VisitorSearchKeyRepository {
+
+    public enum Table {
+        VISITS("visits", "NULL", "INSERT IGNORE INTO visit_name_tokens (visit_id, token) VALUES (?, ?)"),
+        CONTACTS("visit_contacts", "resident_user_id",
+                "INSERT IGNORE INTO visit_contact_name_tokens (contact_id, resident_user_id, token) VALUES (?, ?, ?)");
+
+        private final String sqlName;
+        private final String residentColumn;
+        private final String insertTokensSql;
+
+        Table(String sqlName, String residentColumn, String insertTokensSql) {
+            this.sqlName = sqlName;
+            this.residentColumn = residentColumn;
+            this.insertTokensSql = insertTokensSql;
+        }
+    }
+
+    private final DataSource dataSource;
+
+    @Inject
+    public VisitorSearchKeyRepository(DataSource dataSource) {
+        this.dataSource = dataSource;
+    }
+
+    /**
+     * Procesa hasta {@code limit} filas sin clave con id mayor a {@code afterId},
+     * en orden de id. Una fila cuyo nombre no deja clave (solo signos) sigue en
+     * NULL; por eso el avance es por id y no por "quedan filas en NULL".
+     */
+    public BackfillBatch fillMissingKeys(Table table, long afterId, int limit) {
+        String selectSql = "SELECT id, visitor_name, visitor_document, " + table.residentColumn
+                + " AS resident_user_id FROM " + table.sqlName
+                + " WHERE visitor_name_norm IS NULL AND id > ? ORDER BY id LIMIT ?";
+        String updateSql = "UPDATE " + table.sqlName
+                + " SET visitor_name_norm = ?, visitor_document_norm = ? WHERE id = ?";
+        try (Connection connection = dataSource.getConnection()) {
+            connection.setAutoCommit(false);
+            try {
+                int rows = 0;
+                int pending = 0;
+                int tokens = 0;
+                long lastId = afterId;
+                try (PreparedStatement select = connection.prepareStatement(selectSql);
+                        PreparedStatement update = connection.prepareStatement(updateSql);
+                        PreparedStatement insertTokens = connection.prepareStatement(table.insertTokensSql)) {
+                    select.setLong(1, afterId);
+                    select.setInt(2, limit);
+                    try (ResultSet rs = select.executeQuery()) {
+                        while (rs.next()) {
+                            rows++;
+                            lastId = rs.getLong("id");
+                            String nameKey = VisitorSearchKeys.nameKey(rs.getString("visitor_name"));
+                            if (nameKey == null) {
+                                continue;
+                            }
+                            update.setString(1, nameKey);
+                            update.setString(2, VisitorSearchKeys.documentKey(rs.getString("visitor_document")));
+                            update.setLong(3, lastId);
+                            update.addBatch();
+                            pending++;
+                            tokens += addTokens(insertTokens, table, lastId, rs.getLong("resident_user_id"), nameKey);
+                        }
+                    }
+                    if (pending > 0) {
+                        update.executeBatch();
+                    }
+                    if (tokens > 0) {
+                        insertTokens.executeBatch();
+                    }
+                }
+                connection.commit();
+                return new BackfillBatch(rows, pending, lastId);
+            } catch (SQLException | RuntimeException ex) {
+                connection.rollback();
+                throw ex;
+            } finally {
+                connection.setAutoCommit(true);
+            }
+        } catch (SQLException e) {
+            throw new RepositoryException("Error completando claves de búsqueda de visitantes", e);
+        }
+    }
+
+    /**
+     * Guarda las palabras del nombre de una visita o contacto recién insertado,
+     * en la conexión (y transacción) del insert.
+     */
+    static void insertTokens(Connection connection, Table table, long id, Long residentUserId, String nameKey)
+            throws SQLException {
+        try (PreparedStatement statement = connection.prepareStatement(table.insertTokensSql)) {
+            if (addTokens(statement, table, id, residentUserId, nameKey) > 0) {
+                statement.executeBatch();
+            }
+        }
+    }
+
+    private static int addTokens(PreparedStatement statement, Table table, long id, Long residentUserId,
+            String nameKey) throws SQLException {
+        List<String> tokens = VisitorSearchKeys.nameTokens(nameKey);
+        for (String token : tokens) {
+            int index = 1;
+            statement.setLong(index++, id);
+            if (table == Table.CONTACTS) {
+                statement.setLong(index++, residentUserId);
+            }
+            statement.setString(index, token);
+            statement.addBatch();
+        }
+        return tokens.size();
+    }
+
+    public record BackfillBatch(int rows, int updated, long lastId) {
+    }
+}
@@ -0,0 +1,130 @@
+package com.domu.domain.access;
+
+import java.text.Normalizer;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+
+/**
+ * Normalización única del RUT/documento y del nombre de los visitantes. El
+ * documento se guarda sin puntos ni espacios y en mayúsculas (12345678-K); las
+ * claves de búsqueda (visitor_document_norm, visitor_name_norm) dejan solo
+ * dígitos y letras, así "12.345.678-k", "12345678K" y "12345678-K" coinciden.
+ * Las claves se calculan igual al insertar, al rellenar filas antiguas y al
+ * buscar, por eso todas pasan por esta clase. Del nombre también se guardan sus
+ * palabras (nameTokens) para que el apellido o el segundo nombre encuentren al
+ * visitante igual que el primer nombre.
+ */
+public final class VisitorSearchKeys {
+
+    public static final int DOCUMENT_KEY_LENGTH = 20;
+    public static final int NAME_KEY_LENGTH = 150;
+    public static final int TOKEN_LENGTH = 40;
+    public static final int MAX_SEARCH_TOKENS = 4;
+
+    private VisitorSearchKeys() {
+    }
+
+    /**
+     * Formato en que se guarda el documento: sin puntos ni espacios y en
+     * mayúsculas, conservando el guion del dígito verificador. Devuelve null si
+     * queda vacío.
+     */
+    public static String document(String document) {
+        if (document == null) {
+            return null;
+        }
+        String cleaned = document.replace(".", "").replace(" ", "").toUpperCase(Locale.ROOT);
+        return cleaned.isEmpty() ? null : cleaned;
+    }
+
+    /**
+     * Clave de búsqueda del documento: solo dígitos y letras en mayúsculas.
+     * Devuelve null si no queda ninguno.
+     */
+    public static String documentKey(String document) {
+        if (document == null) {
+            return null;
+        }
+        StringBuilder key = new StringBuilder(Math.min(document.length(), DOCUMENT_KEY_LENGTH));
+        for (int i = 0; i < document.length() && key.length() < DOCUMENT_KEY_LENGTH; i++) {
+            char c = document.charAt(i);
+            if ((c >= '0' && c <= '9') || (c >= 'A' && c <= 'Z')) {
+                key.append(c);
+            } else if (c >= 'a' && c <= 'z') {
+                key.append((char) (c - 'a' + 'A'));
+            }
+        }
+        return key.isEmpty() ? null : key.toString();
+    }
+
+    /**
+     * Clave de búsqueda del nombre: minúsculas, sin tildes y con cualquier otro
+     * carácter reducido a un solo espacio. Como no quedan '%' ni '_', sirve
+     * directo como prefijo de LIKE. Devuelve null si queda vacía.
+     */
+    public static String nameKey(String name) {
+        if (name == null) {
+            return null;
+        }
+        String decomposed = Normalizer.normalize(name, Normalizer.Form.NFD);
+        StringBuilder key = new StringBuilder(Math.min(decomposed.length(), NAME_KEY_LENGTH));
+        boolean pendingSpace = false;
+        for (int i = 0; i < decomposed.length(); ) {
+            int codePoint = decomposed.codePointAt(i);
+            i += Character.charCount(codePoint);
+            if (Character.getType(codePoint) == Character.NON_SPACING_MARK) {
+                continue;
+            }
+            if (!Character.isLetterOrDigit(codePoint)) {
+                pendingSpace = !key.isEmpty();
+                continue;
+            }
+            int lower = Character.toLowerCase(codePoint);
+            int needed = (pendingSpace ? 1 : 0) + Character.charCount(lower);
+            if (key.length() + needed > NAME_KEY_LENGTH) {
+                break;
+            }
+            if (pendingSpace) {
+                key.append(' ');
+                pendingSpace = false;
+            }
+            key.appendCodePoint(lower);
+        }
+        return key.isEmpty() ? null : key.toString();
+    }
+
+    /**
+     * Palabras distintas de una clave de nombre, recortadas a TOKEN_LENGTH, en el
+     * orden en que aparecen. Una clave nula no tiene palabras.
+     */
+    public static List<String> nameTokens(String nameKey) {
+        if (nameKey == null) {
+            return List.of();
+        }
+        Set<String> tokens = new LinkedHashSet<>();
+        for (String word : nameKey.split(" ")) {
+            tokens.add(word.length() > TOKEN_LENGTH ? word.substring(0, TOKEN_LENGTH) : word);
+        }
+        return List.copyOf(tokens);
+    }
+
+    /**
+     * Palabras de un texto de búsqueda; cada una debe ser prefijo de alguna
+     * palabra del nombre. Se usan a lo más MAX_SEARCH_TOKENS.
+     */
+    public static List<String> searchTokens(String term) {
+        List<String> tokens = nameTokens(nameKey(term));
+        return tokens.size() > MAX_SEARCH_TOKENS ? tokens.subList(0, MAX_SEARCH_TOKENS) : tokens;
+    }
+
+    /**
+     * Patrón LIKE de prefijo para una clave ya normalizada. Una clave nula da un
+     * patrón que no coincide con ninguna fila (las claves vacías se guardan como
+     * NULL), así en un OR decide el otro criterio.
+     */
+    public static String prefixPattern(String key) {
+        return key != null ? key + "%" : "";
+    }
+}
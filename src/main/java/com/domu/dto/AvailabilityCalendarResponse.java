@@ -0,0 +1,22 @@
+package com.domu.dto;
+
+import com.domu.dto.AvailabilityResponse.SlotAvailability;
+
+import java.time.LocalDate;
+import java.util.List;
+
+public record AvailabilityCalendarResponse(
+        Long amenityId,
+        String amenityName,
+        LocalDate from,
+        LocalDate to,
+        List<DayAvailability> days) {
+
+    public record DayAvailability(
+            LocalDate date,
+            String dayName,
+            Integer totalSlots,
+            Integer availableSlots,
+            List<SlotAvailability> slots) {
+    }
+}
@@ -0,0 +1,22 @@
+package com.domu.dto;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.List;
+
+import lombok.Data;
+
+@Data
+public class BulkPeriodGenerationRequest {
+    private Integer year;
+    private Integer month;
+    private LocalDate dueDate;
+    private List<BuildingPeriod> buildings;
+
+    @Data
+    public static class BuildingPeriod {
+        private Long buildingId;
+        private BigDecimal reserveAmount;
+        private List<CreateCommonChargeRequest> charges;
+    }
+}
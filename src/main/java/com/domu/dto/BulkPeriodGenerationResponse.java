@@ -0,0 +1,30 @@
+package com.domu.dto;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.List;
+
+public record BulkPeriodGenerationResponse(
+        String runId,
+        String status,
+        Integer year,
+        Integer month,
+        Integer total,
+        Integer succeeded,
+        Integer skipped,
+        Integer failed,
+        Integer pending,
+        LocalDateTime startedAt,
+        LocalDateTime finishedAt,
+        List<BuildingProgress> buildings
+) {
+    public record BuildingProgress(
+            Long buildingId,
+            String status,
+            Long periodId,
+            Integer chargesCreated,
+            BigDecimal totalAmount,
+            String error
+    ) {
+    }
+}
@@ -0,0 +1,7 @@
+package com.domu.dto;
+
+public record ChargeReceiptResponse(
+        Long chargeId,
+        String receiptText
+) {
+}
@@ -10,5 +10,6 @@ public class CommonPaymentRequest {
     private String paymentMethod;
     private String reference;
     private String receiptText;
+    private String idempotencyKey;
 }
 
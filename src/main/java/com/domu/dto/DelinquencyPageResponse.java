@@ -0,0 +1,13 @@
+package com.domu.dto;
+
+import java.util.List;
+
+public record DelinquencyPageResponse(
+        List<DelinquencyResponse> items,
+        Integer page,
+        Integer size,
+        Long total,
+        String sort,
+        String direction
+) {
+}
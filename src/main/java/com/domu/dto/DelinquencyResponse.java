@@ -0,0 +1,20 @@
+package com.domu.dto;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+
+public record DelinquencyResponse(
+        Long unitId,
+        String unitNumber,
+        String tower,
+        Long periodId,
+        Integer year,
+        Integer month,
+        LocalDate dueDate,
+        BigDecimal balance,
+        Integer daysDelinquent,
+        String status,
+        LocalDateTime updatedAt
+) {
+}
@@ -0,0 +1,24 @@
+package com.domu.dto;
+
+import java.math.BigDecimal;
+import java.util.List;
+
+public record PaymentImportResponse(
+        Integer totalLines,
+        Integer recordedLines,
+        Integer rejectedLines,
+        BigDecimal recordedAmount,
+        List<LineResult> lines
+) {
+    public record LineResult(
+            Integer line,
+            String unitNumber,
+            BigDecimal amount,
+            String reference,
+            String status,
+            String message,
+            List<Long> paymentIds,
+            List<Long> chargeIds
+    ) {
+    }
+}
@@ -0,0 +1,19 @@
+package com.domu.dto;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+
+public record PeriodSummaryResponse(
+        Long periodId,
+        Integer year,
+        Integer month,
+        LocalDate dueDate,
+        String status,
+        BigDecimal totalAmount,
+        BigDecimal collectedAmount,
+        BigDecimal outstandingAmount,
+        Integer unitsPaid,
+        Integer unitsPartial,
+        Integer unitsPending
+) {
+}
@@ -0,0 +1,8 @@
+package com.domu.dto;
+
+import lombok.Data;
+
+@Data
+public class QrCheckInRequest {
+    private String qrCode;
+}
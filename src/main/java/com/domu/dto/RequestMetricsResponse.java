@@ -0,0 +1,9 @@
+package com.domu.dto;
+
+import com.domu.web.RequestAdmissionLimiter;
+
+public record RequestMetricsResponse(
+        boolean virtualThreads,
+        RequestAdmissionLimiter.Snapshot admission
+) {
+}
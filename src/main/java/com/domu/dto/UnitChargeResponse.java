@@ -16,7 +16,7 @@ public record UnitChargeResponse(
         String status,
         String type,
         String payerType,
-        String receiptText
+        Boolean hasReceipt
 ) {
 }
 
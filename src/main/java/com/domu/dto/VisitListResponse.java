@@ -4,7 +4,7 @@ import java.util.List;
 
 public record VisitListResponse(
         List<VisitResponse> upcoming,
-        List<VisitResponse> past
+        List<VisitResponse> past,
+        String nextCursor
 ) {
 }
-
@@ -0,0 +1,9 @@
+package com.domu.dto;
+
+import java.util.List;
+
+public record VisitPageResponse(
+        List<VisitResponse> items,
+        String nextCursor
+) {
+}
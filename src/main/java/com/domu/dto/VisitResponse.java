@@ -13,7 +13,8 @@ public record VisitResponse(
         LocalDateTime validUntil,
         String status,
         LocalDateTime createdAt,
-        LocalDateTime checkInAt
+        LocalDateTime checkInAt,
+        String qrCode
 ) {
 }
 
@@ -3,13 +3,14 @@ package com.domu.service;
 import com.domu.database.AmenityRepository;
 import com.domu.database.AmenityRepository.AmenityRow;
 import com.domu.database.AmenityRepository.ReservationRow;
+import com.domu.database.AmenityRepository.ReservedSlotRow;
 import com.domu.database.AmenityRepository.TimeSlotRow;
-import com.domu.database.BuildingRepository;
-import com.domu.database.UserBuildingRepository;
 import com.domu.domain.core.User;
 import com.domu.dto.AmenityListResponse;
 import com.domu.dto.AmenityRequest;
 import com.domu.dto.AmenityResponse;
+import com.domu.dto.AvailabilityCalendarResponse;
+import com.domu.dto.AvailabilityCalendarResponse.DayAvailability;
 import com.domu.dto.AvailabilityResponse;
 import com.domu.dto.AvailabilityResponse.SlotAvailability;
 import com.domu.dto.ReservationListResponse;
@@ -27,22 +28,30 @@ import java.time.DayOfWeek;
 import java.time.LocalDate;
 import java.time.LocalTime;
 import java.time.format.DateTimeParseException;
+import java.time.temporal.ChronoUnit;
 import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Objects;
+import java.util.Optional;
+import java.util.concurrent.locks.ReentrantLock;
 
 public class AmenityService {
 
+    private static final int RESERVATION_LOCK_STRIPES = 64;
+    static final int DEFAULT_CALENDAR_DAYS = 31;
+    static final int MAX_CALENDAR_DAYS = 62;
+
     private final AmenityRepository amenityRepository;
-    private final BuildingRepository buildingRepository;
-    private final UserBuildingRepository userBuildingRepository;
+    private final BuildingAccessService buildingAccessService;
+    private final StripedLocks reservationLocks = new StripedLocks(RESERVATION_LOCK_STRIPES);
 
     @Inject
-    public AmenityService(AmenityRepository amenityRepository, BuildingRepository buildingRepository,
-            UserBuildingRepository userBuildingRepository) {
+    public AmenityService(AmenityRepository amenityRepository, BuildingAccessService buildingAccessService) {
         this.amenityRepository = amenityRepository;
-        this.buildingRepository = buildingRepository;
-        this.userBuildingRepository = userBuildingRepository;
+        this.buildingAccessService = buildingAccessService;
     }
 
     // ==================== AMENITIES ====================
@@ -113,24 +122,14 @@ public class AmenityService {
         ensureAuthenticated(user);
         Long buildingId = resolveBuildingId(user, null);
         List<AmenityRow> amenities = amenityRepository.findAmenitiesByBuilding(buildingId);
-        List<AmenityResponse> responses = new ArrayList<>();
-        for (AmenityRow amenity : amenities) {
-            List<TimeSlotRow> slots = amenityRepository.findTimeSlotsByAmenity(amenity.id());
-            responses.add(toAmenityResponse(amenity, slots));
-        }
-        return new AmenityListResponse(responses);
+        return new AmenityListResponse(toAmenityResponses(amenities));
     }
 
     public AmenityListResponse listAllAmenities(User user) {
         ensureAdminOrConcierge(user);
         Long buildingId = resolveBuildingId(user, null);
         List<AmenityRow> amenities = amenityRepository.findAllAmenitiesByBuilding(buildingId);
-        List<AmenityResponse> responses = new ArrayList<>();
-        for (AmenityRow amenity : amenities) {
-            List<TimeSlotRow> slots = amenityRepository.findTimeSlotsByAmenity(amenity.id());
-            responses.add(toAmenityResponse(amenity, slots));
-        }
-        return new AmenityListResponse(responses);
+        return new AmenityListResponse(toAmenityResponses(amenities));
     }
 
     // ==================== TIME SLOTS ====================
@@ -216,22 +215,19 @@ public class AmenityService {
         // Obtener reservas existentes para esa fecha
         List<ReservationRow> reservations = amenityRepository.findReservationsByAmenityAndDate(amenityId, date);
 
+        Map<Long, ReservationRow> reservationBySlot = new HashMap<>();
+        for (ReservationRow reservation : reservations) {
+            reservationBySlot.putIfAbsent(reservation.timeSlotId(), reservation);
+        }
+
         // Construir respuesta de disponibilidad
         List<SlotAvailability> slotAvailabilities = new ArrayList<>();
         for (TimeSlotRow slot : slots) {
-            boolean isReserved = reservations.stream()
-                    .anyMatch(r -> Objects.equals(r.timeSlotId(), slot.id()));
-
-            String reservedBy = null;
-            if (isReserved) {
-                ReservationRow reservation = reservations.stream()
-                        .filter(r -> Objects.equals(r.timeSlotId(), slot.id()))
-                        .findFirst()
-                        .orElse(null);
-                if (reservation != null) {
-                    reservedBy = reservation.userFirstName() + " " + reservation.userLastName();
-                }
-            }
+            ReservationRow reservation = reservationBySlot.get(slot.id());
+            boolean isReserved = reservation != null;
+            String reservedBy = isReserved
+                    ? reservation.userFirstName() + " " + reservation.userLastName()
+                    : null;
 
             slotAvailabilities.add(new SlotAvailability(
                     slot.id(),
@@ -244,6 +240,84 @@ public class AmenityService {
         return new AvailabilityResponse(amenityId, amenity.name(), date, dayName, slotAvailabilities);
     }
 
+    /**
+     * Disponibilidad de un rango de fechas con dos consultas: los bloques activos
+     * del área común y las reservas confirmadas del rango. Cada día se representa
+     * con un BitSet de los índices de bloque reservados. A diferencia de
+     * getAvailability, reservedBy va siempre en null: la consulta del rango solo
+     * trae bloque y fecha (sin unir usuarios) y el calendario no expone quién
+     * reservó cada bloque de todo el mes; el detalle sigue en la vista por día.
+     */
+    public AvailabilityCalendarResponse getAvailabilityCalendar(User user, Long amenityId, String fromStr,
+            String toStr) {
+        ensureAuthenticated(user);
+        AmenityRow amenity = amenityRepository.findAmenityById(amenityId)
+                .orElseThrow(() -> new ValidationException("Área común no encontrada"));
+        ensureSameBuilding(user, amenity.buildingId());
+
+        LocalDate today = LocalDate.now();
+        LocalDate from = fromStr == null || fromStr.isBlank() ? today : parseDate(fromStr);
+        LocalDate to = toStr == null || toStr.isBlank() ? from.plusDays(DEFAULT_CALENDAR_DAYS - 1) : parseDate(toStr);
+        if (from.isBefore(today)) {
+            throw new ValidationException("No se puede consultar disponibilidad para fechas pasadas");
+        }
+        if (to.isBefore(from)) {
+            throw new ValidationException("La fecha final debe ser posterior a la inicial");
+        }
+        int dayCount = (int) ChronoUnit.DAYS.between(from, to) + 1;
+        if (dayCount > MAX_CALENDAR_DAYS) {
+            throw new ValidationException("El rango no puede superar " + MAX_CALENDAR_DAYS + " días");
+        }
+
+        // Índice global de cada bloque activo y los bloques agrupados por día de la semana
+        List<TimeSlotRow> slots = amenityRepository.findTimeSlotsByAmenity(amenityId).stream()
+                .filter(slot -> Boolean.TRUE.equals(slot.active()))
+                .toList();
+        Map<Long, Integer> slotIndex = new HashMap<>();
+        List<List<TimeSlotRow>> slotsByDay = new ArrayList<>();
+        for (int day = 0; day <= 7; day++) {
+            slotsByDay.add(new ArrayList<>());
+        }
+        for (TimeSlotRow slot : slots) {
+            slotIndex.put(slot.id(), slotIndex.size());
+            slotsByDay.get(slot.dayOfWeek()).add(slot);
+        }
+
+        BitSet[] reservedByDay = new BitSet[dayCount];
+        for (ReservedSlotRow reserved : amenityRepository.findReservedSlotsByAmenityAndRange(amenityId, from, to)) {
+            Integer index = slotIndex.get(reserved.timeSlotId());
+            if (index == null) {
+                continue;
+            }
+            int offset = (int) ChronoUnit.DAYS.between(from, reserved.reservationDate());
+            if (reservedByDay[offset] == null) {
+                reservedByDay[offset] = new BitSet(slots.size());
+            }
+            reservedByDay[offset].set(index);
+        }
+
+        List<DayAvailability> days = new ArrayList<>(dayCount);
+        for (int offset = 0; offset < dayCount; offset++) {
+            LocalDate date = from.plusDays(offset);
+            int dayOfWeek = date.getDayOfWeek().getValue();
+            BitSet reserved = reservedByDay[offset];
+            List<SlotAvailability> daySlots = new ArrayList<>();
+            int available = 0;
+            for (TimeSlotRow slot : slotsByDay.get(dayOfWeek)) {
+                boolean free = reserved == null || !reserved.get(slotIndex.get(slot.id()));
+                if (free) {
+                    available++;
+                }
+                // Sin reservedBy: ver el comentario del método
+                daySlots.add(new SlotAvailability(slot.id(), slot.startTime(), slot.endTime(), free, null));
+            }
+            days.add(new DayAvailability(date, TimeSlotResponse.getDayName(dayOfWeek), daySlots.size(), available,
+                    daySlots));
+        }
+
+        return new AvailabilityCalendarResponse(amenityId, amenity.name(), from, to, days);
+    }
+
     // ==================== RESERVATIONS ====================
 
     public ReservationResponse createReservation(User user, Long amenityId, ReservationRequest request) {
@@ -292,25 +366,31 @@ public class AmenityService {
             throw new ValidationException("El bloque horario no está disponible para ese día de la semana");
         }
 
-        // Verificar disponibilidad
-        if (amenityRepository.isSlotReserved(request.getTimeSlotId(), date)) {
-            throw new ValidationException("El bloque horario ya está reservado para esa fecha");
-        }
-
-        // Crear la reserva
-        ReservationRow saved = amenityRepository.insertReservation(new ReservationRow(
+        // Crear la reserva: la restricción única de reservas activas decide quién gana.
+        // El lock por bloque y fecha solo ordena a los competidores de esta instancia
+        // para que no lleguen todos a la vez a la base.
+        ReservationRow reservation = new ReservationRow(
                 null,
                 amenityId,
                 user.id(),
-                request.getTimeSlotId(),
+                slot.id(),
                 date,
                 "CONFIRMED",
                 request.getNotes(),
                 null,
                 null,
-                null, null, null, null, null, null));
+                null, null, null, null, null, null);
+        ReentrantLock lock = reservationLocks.lockFor(new SlotDate(slot.id(), date));
+        Optional<ReservationRow> saved;
+        lock.lock();
+        try {
+            saved = amenityRepository.tryInsertReservation(reservation);
+        } finally {
+            lock.unlock();
+        }
 
-        return toReservationResponse(saved);
+        return toReservationResponse(saved.orElseThrow(
+                () -> new ValidationException("El bloque horario ya está reservado para esa fecha")));
     }
 
     public ReservationResponse cancelReservation(User user, Long reservationId) {
@@ -389,31 +469,29 @@ public class AmenityService {
     }
 
     private Long resolveBuildingId(User user, Long requestBuildingId) {
-        if (requestBuildingId != null) {
-            return requestBuildingId;
-        }
-        if (user != null && user.unitId() != null) {
-            Long buildingId = buildingRepository.findBuildingIdByUnitId(user.unitId());
-            if (buildingId != null) {
-                return buildingId;
-            }
-        }
-        if (user != null) {
-            var buildings = userBuildingRepository.findBuildingsForUser(user.id());
-            if (buildings != null && !buildings.isEmpty()) {
-                return buildings.get(0).id();
-            }
-        }
-        throw new ValidationException("No se pudo determinar el edificio asociado");
+        return buildingAccessService.resolveBuildingId(user, requestBuildingId);
     }
 
     private void ensureSameBuilding(User user, Long buildingId) {
-        Long userBuilding = resolveBuildingId(user, null);
-        if (!Objects.equals(userBuilding, buildingId)) {
+        if (!buildingAccessService.isSameBuilding(user, buildingId)) {
             throw new UnauthorizedResponse("No tienes acceso a esta área común");
         }
     }
 
+    /**
+     * Arma las respuestas de un listado cargando los bloques horarios de todas
+     * las áreas en una sola consulta.
+     */
+    private List<AmenityResponse> toAmenityResponses(List<AmenityRow> amenities) {
+        Map<Long, List<TimeSlotRow>> slotsByAmenity = amenityRepository.findTimeSlotsByAmenities(
+                amenities.stream().map(AmenityRow::id).toList());
+        List<AmenityResponse> responses = new ArrayList<>(amenities.size());
+        for (AmenityRow amenity : amenities) {
+            responses.add(toAmenityResponse(amenity, slotsByAmenity.getOrDefault(amenity.id(), List.of())));
+        }
+        return responses;
+    }
+
     private AmenityResponse toAmenityResponse(AmenityRow amenity, List<TimeSlotRow> slots) {
         List<TimeSlotResponse> slotResponses = slots.stream()
                 .map(slot -> new TimeSlotResponse(
@@ -463,4 +541,15 @@ public class AmenityService {
                 reservation.createdAt(),
                 reservation.cancelledAt());
     }
+
+    private LocalDate parseDate(String value) {
+        try {
+            return LocalDate.parse(value);
+        } catch (Exception e) {
+            throw new ValidationException("Formato de fecha inválido. Use YYYY-MM-DD");
+        }
+    }
+
+    private record SlotDate(Long timeSlotId, LocalDate date) {
+    }
 }
@@ -0,0 +1,125 @@
+package com.domu.service;
+
+import com.domu.cache.TtlCache;
+import com.domu.config.AppConfig;
+import com.domu.database.BuildingRepository;
+import com.domu.database.UserBuildingRepository;
+import com.domu.domain.core.User;
+import com.google.inject.Inject;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Objects;
+import java.util.Optional;
+
+/**
+ * Control de acceso a edificios compartido por los servicios y el WebServer.
+ * Mantiene en memoria los edificios de cada usuario (user_buildings) y el
+ * edificio de cada unidad, para no repetir esas consultas en cada request.
+ */
+public class BuildingAccessService {
+
+    private final UserBuildingRepository userBuildingRepository;
+    private final BuildingRepository buildingRepository;
+    private final TtlCache<Long, List<Long>> buildingsByUser;
+    private final TtlCache<Long, Long> buildingByUnit;
+
+    @Inject
+    public BuildingAccessService(UserBuildingRepository userBuildingRepository,
+            BuildingRepository buildingRepository, AppConfig config) {
+        this(userBuildingRepository, buildingRepository,
+                Duration.ofSeconds(config.accessCacheTtlSeconds()), config.userCacheMaxEntries());
+    }
+
+    public BuildingAccessService(UserBuildingRepository userBuildingRepository,
+            BuildingRepository buildingRepository, Duration ttl, int maxEntries) {
+        this.userBuildingRepository = userBuildingRepository;
+        this.buildingRepository = buildingRepository;
+        this.buildingsByUser = new TtlCache<>(ttl, maxEntries);
+        this.buildingByUnit = new TtlCache<>(ttl, maxEntries);
+    }
+
+    /**
+     * Ids de los edificios vinculados al usuario vía user_buildings, ordenados
+     * por nombre de edificio.
+     */
+    public List<Long> buildingIdsForUser(Long userId) {
+        if (userId == null) {
+            return List.of();
+        }
+        return buildingsByUser.get(userId, id -> List.copyOf(userBuildingRepository.findBuildingIdsForUser(id)));
+    }
+
+    public Long buildingIdForUnit(Long unitId) {
+        if (unitId == null) {
+            return null;
+        }
+        return buildingByUnit.get(unitId, buildingRepository::findBuildingIdByUnitId);
+    }
+
+    /**
+     * Verifica si el usuario tiene acceso al edificio, ya sea por user_buildings o
+     * porque su unidad pertenece a ese edificio.
+     */
+    public boolean hasAccess(User user, Long buildingId) {
+        if (user == null || buildingId == null) {
+            return false;
+        }
+        if (user.unitId() != null && buildingId.equals(buildingIdForUnit(user.unitId()))) {
+            return true;
+        }
+        return isLinkedToBuilding(user.id(), buildingId);
+    }
+
+    /**
+     * Verifica la relación directa en user_buildings con la lista cacheada. Los
+     * vínculos que se crean o quitan en esta instancia invalidan la lista
+     * (invalidateUser); uno creado en otra instancia se ve al vencer el TTL.
+     */
+    public boolean isLinkedToBuilding(Long userId, Long buildingId) {
+        if (userId == null || buildingId == null) {
+            return false;
+        }
+        return buildingIdsForUser(userId).contains(buildingId);
+    }
+
+    /**
+     * Edificio por defecto del usuario: primero el de su unidad y luego el primero
+     * de sus edificios vinculados.
+     */
+    public Optional<Long> defaultBuildingId(User user) {
+        if (user == null) {
+            return Optional.empty();
+        }
+        Long unitBuildingId = buildingIdForUnit(user.unitId());
+        if (unitBuildingId != null) {
+            return Optional.of(unitBuildingId);
+        }
+        List<Long> buildings = buildingIdsForUser(user.id());
+        return buildings.isEmpty() ? Optional.empty() : Optional.of(buildings.get(0));
+    }
+
+    public Long resolveBuildingId(User user, Long requestBuildingId) {
+        if (requestBuildingId != null) {
+            return requestBuildingId;
+        }
+        return defaultBuildingId(user)
+                .orElseThrow(() -> new ValidationException("No se pudo determinar el edificio asociado"));
+    }
+
+    public boolean isSameBuilding(User user, Long buildingId) {
+        return Objects.equals(resolveBuildingId(user, null), buildingId);
+    }
+
+    public void invalidateUser(Long userId) {
+        if (userId != null) {
+            buildingsByUser.invalidate(userId);
+        }
+    }
+
+    public void invalidateUnit(Long unitId) {
+        if (unitId != null) {
+            buildingByUnit.invalidate(unitId);
+        }
+    }
+}
@@ -0,0 +1,41 @@
+package com.domu.service;
+
+import com.domu.config.AppConfig;
+import com.domu.database.CommonExpenseRepository;
+import com.domu.database.CommonExpenseRepository.ChargeBalanceMismatch;
+import com.domu.database.DatabaseLock;
+import com.google.inject.Inject;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.List;
+
+/**
+ * Compara common_charges.paid_amount con la suma real de common_payments y
+ * corrige los cargos que no cuadran, junto con period_unit_balances y
+ * period_summaries. En operación normal no debería encontrar diferencias:
+ * recordPayment e importPayments actualizan todo en la misma transacción.
+ */
+public class ChargeBalanceReconciler extends ScheduledJob {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(ChargeBalanceReconciler.class);
+
+    private final CommonExpenseRepository repository;
+
+    @Inject
+    public ChargeBalanceReconciler(CommonExpenseRepository repository, DatabaseLock databaseLock, AppConfig config) {
+        super("charge-balance-reconciler", databaseLock, config.chargeReconciliationIntervalSeconds());
+        this.repository = repository;
+    }
+
+    @Override
+    protected int execute() {
+        List<ChargeBalanceMismatch> mismatches = repository.findChargeBalanceMismatches();
+        for (ChargeBalanceMismatch mismatch : mismatches) {
+            LOGGER.warn("Charge {} paid_amount {} does not match payments {}; repairing",
+                    mismatch.chargeId(), mismatch.recordedPaid(), mismatch.actualPaid());
+            repository.recomputePaidAmount(mismatch.chargeId());
+        }
+        return mismatches.size();
+    }
+}
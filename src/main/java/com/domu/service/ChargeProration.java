@@ -0,0 +1,132 @@
+package com.domu.service;
+
+import com.domu.database.CommonExpenseRepository.UnitShare;
+
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.math.RoundingMode;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Prorrateo de montos entre unidades usando centavos enteros. Los coeficientes
+ * se convierten una sola vez a enteros con una escala común (un coeficiente
+ * nulo o no positivo vale 1, igual que antes) y cada monto se reparte por el
+ * método del mayor resto: cada unidad recibe el piso de su parte exacta y los
+ * centavos sobrantes van a las unidades con mayor resto, desempatando por
+ * orden. La suma de las partes siempre es exactamente el monto.
+ *
+ * <p>Cuando el redondeo HALF_UP por unidad ya cuadraba con el total, el
+ * resultado es idéntico al del cálculo anterior con BigDecimal; cuando no
+ * cuadraba, en lugar de cargar toda la diferencia a la última unidad se reparte
+ * de a un centavo.
+ */
+public final class ChargeProration {
+
+    private final long[] weights;
+    private final long totalWeight;
+
+    private ChargeProration(long[] weights, long totalWeight) {
+        this.weights = weights;
+        this.totalWeight = totalWeight;
+    }
+
+    public static ChargeProration forUnits(List<UnitShare> units) {
+        BigDecimal[] effective = new BigDecimal[units.size()];
+        int scale = 0;
+        for (int i = 0; i < effective.length; i++) {
+            BigDecimal weight = units.get(i).weight();
+            effective[i] = weight != null && weight.signum() > 0 ? weight : BigDecimal.ONE;
+            scale = Math.max(scale, effective[i].scale());
+        }
+        long[] weights = new long[effective.length];
+        long total = 0;
+        try {
+            for (int i = 0; i < effective.length; i++) {
+                weights[i] = effective[i].setScale(scale, RoundingMode.UNNECESSARY).unscaledValue().longValueExact();
+                total = Math.addExact(total, weights[i]);
+            }
+        } catch (ArithmeticException e) {
+            throw new ValidationException("Los coeficientes de prorrateo están fuera de rango");
+        }
+        if (total <= 0) {
+            throw new ValidationException("No hay coeficientes válidos para prorratear");
+        }
+        return new ChargeProration(weights, total);
+    }
+
+    public int size() {
+        return weights.length;
+    }
+
+    /**
+     * Reparte el monto (en centavos) entre las unidades, en el mismo orden en que
+     * se recibieron.
+     */
+    public long[] distribute(long amountCents) {
+        if (amountCents < 0) {
+            throw new IllegalArgumentException("amountCents must not be negative");
+        }
+        int size = weights.length;
+        long[] shares = new long[size];
+        long[] remainders = new long[size];
+        long quotient = amountCents / totalWeight;
+        long rest = amountCents % totalWeight;
+        long assigned = 0;
+        for (int i = 0; i < size; i++) {
+            long weight = weights[i];
+            long extra;
+            long remainder;
+            if (rest == 0 || weight <= Long.MAX_VALUE / rest) {
+                long product = rest * weight;
+                extra = product / totalWeight;
+                remainder = product % totalWeight;
+            } else {
+                BigInteger[] parts = BigInteger.valueOf(rest).multiply(BigInteger.valueOf(weight))
+                        .divideAndRemainder(BigInteger.valueOf(totalWeight));
+                extra = parts[0].longValueExact();
+                remainder = parts[1].longValueExact();
+            }
+            shares[i] = quotient * weight + extra;
+            remainders[i] = remainder;
+            assigned += shares[i];
+        }
+        long leftover = amountCents - assigned;
+        if (leftover > 0) {
+            awardLeftover(shares, remainders, (int) leftover);
+        }
+        return shares;
+    }
+
+    public static long toCents(BigDecimal amount) {
+        return amount.setScale(2, RoundingMode.HALF_UP).unscaledValue().longValueExact();
+    }
+
+    public static BigDecimal fromCents(long cents) {
+        return BigDecimal.valueOf(cents, 2);
+    }
+
+    /**
+     * Entrega un centavo a cada una de las {@code leftover} unidades con mayor
+     * resto. El umbral es el resto en la posición {@code leftover}; las unidades
+     * empatadas en el umbral se resuelven por orden.
+     */
+    private static void awardLeftover(long[] shares, long[] remainders, int leftover) {
+        long[] sorted = remainders.clone();
+        Arrays.sort(sorted);
+        long threshold = sorted[sorted.length - leftover];
+        int awarded = 0;
+        for (int i = 0; i < shares.length; i++) {
+            if (remainders[i] > threshold) {
+                shares[i]++;
+                awarded++;
+            }
+        }
+        for (int i = 0; i < shares.length && awarded < leftover; i++) {
+            if (remainders[i] == threshold) {
+                shares[i]++;
+                awarded++;
+            }
+        }
+    }
+}
@@ -6,6 +6,7 @@ import com.domu.domain.finance.CommonCharge;
 import com.domu.domain.finance.CommonExpensePeriod;
 import com.domu.domain.finance.CommonPayment;
 import com.domu.dto.AddCommonChargesRequest;
+import com.domu.dto.ChargeReceiptResponse;
 import com.domu.dto.CommonExpensePeriodResponse;
 import com.domu.dto.CommonPaymentRequest;
 import com.domu.dto.CommonPaymentResponse;
@@ -19,6 +20,7 @@ import io.javalin.http.UnauthorizedResponse;
 import java.math.BigDecimal;
 import java.math.RoundingMode;
 import java.time.LocalDate;
+import java.time.ZoneOffset;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Objects;
@@ -26,22 +28,27 @@ import java.util.Objects;
 public class CommonExpenseService {
 
     private final CommonExpenseRepository repository;
+    private final BuildingAccessService buildingAccessService;
+    private final UnitShareCache unitShareCache;
 
     @Inject
-    public CommonExpenseService(CommonExpenseRepository repository) {
+    public CommonExpenseService(CommonExpenseRepository repository, BuildingAccessService buildingAccessService,
+            UnitShareCache unitShareCache) {
         this.repository = repository;
+        this.buildingAccessService = buildingAccessService;
+        this.unitShareCache = unitShareCache;
     }
 
     public CommonExpensePeriodResponse createPeriod(CreateCommonExpensePeriodRequest request) {
         validatePeriodRequest(request);
-        List<CommonExpenseRepository.UnitShare> units = repository.findUnitsForBuilding(request.getBuildingId());
+        UnitShareSnapshot units = unitShareCache.forBuilding(request.getBuildingId());
         if (units.isEmpty()) {
             throw new ValidationException("El edificio no tiene unidades registradas para prorratear");
         }
 
         BigDecimal reserveAmount = normalizeAmount(request.getReserveAmount());
         LocalDate generatedAt = LocalDate.now();
-        CommonExpensePeriod period = repository.insertPeriod(new CommonExpensePeriod(
+        CommonExpenseRepository.PeriodWithCharges created = repository.insertPeriodWithCharges(new CommonExpensePeriod(
                 null,
                 request.getBuildingId(),
                 request.getYear(),
@@ -51,14 +58,8 @@ public class CommonExpenseService {
                 reserveAmount,
                 BigDecimal.ZERO,
                 "OPEN"
-        ));
-
-        List<CommonCharge> charges = buildChargesForPeriod(period.id(), request.getCharges(), reserveAmount, units);
-        List<CommonCharge> savedCharges = repository.insertCharges(charges);
-        BigDecimal total = savedCharges.stream()
-                .map(CommonCharge::amount)
-                .reduce(BigDecimal.ZERO, BigDecimal::add);
-        repository.updatePeriodTotals(period.id(), total, reserveAmount);
+        ), periodId -> buildChargesForPeriod(periodId, request.getCharges(), reserveAmount, units));
+        CommonExpensePeriod period = created.period();
 
         return new CommonExpensePeriodResponse(
                 period.id(),
@@ -67,9 +68,9 @@ public class CommonExpenseService {
                 period.month(),
                 period.dueDate(),
                 reserveAmount,
-                total,
+                period.totalAmount(),
                 period.status(),
-                savedCharges.size()
+                created.charges().size()
         );
     }
 
@@ -79,7 +80,7 @@ public class CommonExpenseService {
         }
         CommonExpensePeriod period = repository.findPeriodById(periodId)
                 .orElseThrow(() -> new ValidationException("Período no encontrado"));
-        List<CommonExpenseRepository.UnitShare> units = repository.findUnitsForBuilding(period.buildingId());
+        UnitShareSnapshot units = unitShareCache.forBuilding(period.buildingId());
         if (units.isEmpty()) {
             throw new ValidationException("El edificio no tiene unidades registradas para prorratear");
         }
@@ -116,6 +117,37 @@ public class CommonExpenseService {
                 .toList();
     }
 
+    /**
+     * Comprobante de un cargo, cargado solo cuando se pide. El ETag se arma con
+     * la última modificación del cargo, así que si coincide con
+     * {@code ifNoneMatch} no se lee receipt_text y el cuerpo vuelve nulo.
+     */
+    public ReceiptLookup getChargeReceipt(User user, Long chargeId, String ifNoneMatch) {
+        if (user == null) {
+            throw new UnauthorizedResponse("Debes iniciar sesión");
+        }
+        CommonExpenseRepository.ChargeReceiptInfo info = repository.findChargeReceiptInfo(chargeId)
+                .orElseThrow(() -> new ValidationException("Cargo no encontrado"));
+        boolean ownUnit = user.unitId() != null && Objects.equals(user.unitId(), info.unitId())
+                && !"CONSTRUCTION".equalsIgnoreCase(info.payerType());
+        boolean buildingAdmin = Objects.equals(user.roleId(), 1L)
+                && buildingAccessService.hasAccess(user, info.buildingId());
+        if (!ownUnit && !buildingAdmin) {
+            throw new UnauthorizedResponse("No puedes ver comprobantes de otra unidad");
+        }
+        if (!info.hasReceipt()) {
+            throw new ValidationException("El cargo no tiene comprobante");
+        }
+        String etag = "\"receipt-" + info.chargeId() + "-"
+                + info.updatedAt().toEpochSecond(ZoneOffset.UTC) + "\"";
+        if (etag.equals(ifNoneMatch)) {
+            return new ReceiptLookup(etag, null);
+        }
+        String receiptText = repository.findChargeReceiptText(chargeId)
+                .orElseThrow(() -> new ValidationException("El cargo no tiene comprobante"));
+        return new ReceiptLookup(etag, new ChargeReceiptResponse(info.chargeId(), receiptText));
+    }
+
     public CommonPaymentResponse payCharge(Long chargeId, User user, CommonPaymentRequest request) {
         if (request == null || request.getAmount() == null) {
             throw new ValidationException("El monto es obligatorio");
@@ -134,15 +166,7 @@ public class CommonExpenseService {
             }
         }
 
-        BigDecimal paid = balanceRow.paidAmount() != null ? balanceRow.paidAmount() : BigDecimal.ZERO;
-        BigDecimal pending = balanceRow.charge().amount().subtract(paid);
-        if (pending.compareTo(BigDecimal.ZERO) <= 0) {
-            throw new ValidationException("El cargo ya está pagado");
-        }
-        if (amount.compareTo(pending) > 0) {
-            throw new ValidationException("El monto excede el saldo pendiente");
-        }
-
+        // El saldo se valida dentro de la transacción del pago, con el cargo bloqueado
         CommonPayment payment = new CommonPayment(
                 null,
                 balanceRow.charge().unitId(),
@@ -155,9 +179,19 @@ public class CommonExpenseService {
                 "CONFIRMED",
                 request.getReceiptText()
         );
-        CommonPayment saved = repository.insertPayment(payment);
+        String idempotencyKey = normalizeIdempotencyKey(request.getIdempotencyKey());
+        CommonExpenseRepository.PaymentResult result = repository.recordPayment(payment, idempotencyKey);
+        switch (result.outcome()) {
+            case CHARGE_NOT_FOUND -> throw new ValidationException("Cargo no encontrado");
+            case ALREADY_PAID -> throw new ValidationException("El cargo ya está pagado");
+            case EXCEEDS_BALANCE -> throw new ValidationException("El monto excede el saldo pendiente");
+            case KEY_REUSED -> throw new ValidationException("La clave de idempotencia ya se usó para otro pago");
+            default -> {
+            }
+        }
+        CommonPayment saved = result.payment();
 
-        BigDecimal newPending = pending.subtract(saved.amount());
+        BigDecimal newPending = result.pending();
         CommonPaymentResponse.PaymentLine line = new CommonPaymentResponse.PaymentLine(
                 saved.amount(),
                 balanceRow.charge().description(),
@@ -172,7 +206,7 @@ public class CommonExpenseService {
             Long periodId,
             List<CreateCommonChargeRequest> chargeRequests,
             BigDecimal reserveAmount,
-            List<CommonExpenseRepository.UnitShare> units
+            UnitShareSnapshot units
     ) {
         List<CommonCharge> charges = new ArrayList<>();
         BigDecimal reserve = reserveAmount != null ? reserveAmount : BigDecimal.ZERO;
@@ -190,12 +224,13 @@ public class CommonExpenseService {
     private List<CommonCharge> expandCharge(
             Long periodId,
             CreateCommonChargeRequest request,
-            List<CommonExpenseRepository.UnitShare> units
+            UnitShareSnapshot units
     ) {
         validateChargeRequest(request);
         BigDecimal amount = normalizeAmount(request.getAmount());
         if (Boolean.TRUE.equals(request.getProrateable())) {
-            return prorateCharge(periodId, request.getDescription(), amount, request.getType(), true, request.getReceiptText(), units);
+            return prorateCharge(periodId, request.getDescription(), amount, request.getType(), true, request.getReceiptText(),
+                    units);
         }
 
         Long unitId = request.getUnitId();
@@ -203,11 +238,11 @@ public class CommonExpenseService {
             throw new ValidationException("unitId es obligatorio cuando el cargo no es prorrateable");
         }
 
-        CommonExpenseRepository.UnitShare unit = units.stream()
-                .filter(u -> u.unitId().equals(unitId))
-                .findFirst()
-                .orElseThrow(() -> new ValidationException("La unidad no pertenece al edificio del período"));
-        String payerType = unit.hasUser() ? "RESIDENT" : "CONSTRUCTION";
+        int index = units.indexOf(unitId);
+        if (index < 0) {
+            throw new ValidationException("La unidad no pertenece al edificio del período");
+        }
+        String payerType = units.occupied(index) ? "RESIDENT" : "CONSTRUCTION";
 
         return List.of(new CommonCharge(
                 null,
@@ -229,35 +264,21 @@ public class CommonExpenseService {
             String type,
             boolean prorateable,
             String receiptText,
-            List<CommonExpenseRepository.UnitShare> units
+            UnitShareSnapshot units
     ) {
-        List<CommonCharge> charges = new ArrayList<>();
-        BigDecimal totalWeight = units.stream()
-                .map(unit -> unit.weight() != null && unit.weight().compareTo(BigDecimal.ZERO) > 0 ? unit.weight() : BigDecimal.ONE)
-                .reduce(BigDecimal.ZERO, BigDecimal::add);
-        if (totalWeight.compareTo(BigDecimal.ZERO) <= 0) {
-            throw new ValidationException("No hay coeficientes válidos para prorratear");
-        }
-
-        BigDecimal remaining = amount;
-        for (Integer i = 0; i < units.size(); i++) {
-            CommonExpenseRepository.UnitShare unit = units.get(i);
-            BigDecimal weight = unit.weight() != null && unit.weight().compareTo(BigDecimal.ZERO) > 0 ? unit.weight() : BigDecimal.ONE;
-            BigDecimal share = amount.multiply(weight).divide(totalWeight, 2, RoundingMode.HALF_UP);
-            if (i.equals(units.size() - 1)) {
-                share = remaining;
-            }
-            remaining = remaining.subtract(share);
-            String payerType = unit.hasUser() ? "RESIDENT" : "CONSTRUCTION";
+        long[] shares = units.proration().distribute(ChargeProration.toCents(amount));
+        String trimmedDescription = description.trim();
+        List<CommonCharge> charges = new ArrayList<>(shares.length);
+        for (int i = 0; i < shares.length; i++) {
             charges.add(new CommonCharge(
                     null,
                     periodId,
-                    unit.unitId(),
-                    description.trim(),
-                    share,
+                    units.unitId(i),
+                    trimmedDescription,
+                    ChargeProration.fromCents(shares[i]),
                     type,
                     prorateable,
-                    payerType,
+                    units.occupied(i) ? "RESIDENT" : "CONSTRUCTION",
                     receiptText
             ));
         }
@@ -300,6 +321,17 @@ public class CommonExpenseService {
         }
     }
 
+    private String normalizeIdempotencyKey(String raw) {
+        if (raw == null || raw.isBlank()) {
+            return null;
+        }
+        String key = raw.trim();
+        if (key.length() > 64) {
+            throw new ValidationException("La clave de idempotencia no puede superar 64 caracteres");
+        }
+        return key;
+    }
+
     private BigDecimal normalizeAmount(BigDecimal raw) {
         if (raw == null) {
             return BigDecimal.ZERO.setScale(2, RoundingMode.HALF_UP);
@@ -327,8 +359,14 @@ public class CommonExpenseService {
                 status,
                 row.charge().type(),
                 row.charge().payerType(),
-                row.charge().receiptText()
+                row.hasReceipt()
         );
     }
-}
 
+    /**
+     * Resultado de {@link #getChargeReceipt}: {@code receipt} es nulo cuando el
+     * cliente ya tiene la versión vigente.
+     */
+    public record ReceiptLookup(String etag, ChargeReceiptResponse receipt) {
+    }
+}
@@ -0,0 +1,54 @@
+package com.domu.service;
+
+import com.domu.config.AppConfig;
+import com.domu.database.DatabaseLock;
+import com.domu.database.DelinquencyRepository;
+import com.domu.database.JobWatermarkRepository;
+import com.google.inject.Inject;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * Mantiene delinquency_records al día. Cada ejecución recalcula solo los
+ * períodos tocados desde la anterior, en lotes de períodos con un INSERT ...
+ * SELECT por lote, y guarda hasta qué instante quedó procesado. El instante se
+ * toma antes de leer, así que un cargo modificado durante la ejecución se vuelve
+ * a procesar en la siguiente.
+ */
+public class DelinquencyRefreshJob extends ScheduledJob {
+
+    static final String NAME = "delinquency-refresh";
+    private static final int PERIODS_PER_BATCH = 200;
+
+    private final DelinquencyRepository delinquencyRepository;
+    private final JobWatermarkRepository watermarkRepository;
+
+    @Inject
+    public DelinquencyRefreshJob(DelinquencyRepository delinquencyRepository,
+            JobWatermarkRepository watermarkRepository, DatabaseLock databaseLock, AppConfig config) {
+        super(NAME, databaseLock, config.delinquencyRefreshIntervalSeconds());
+        this.delinquencyRepository = delinquencyRepository;
+        this.watermarkRepository = watermarkRepository;
+    }
+
+    @Override
+    protected int execute() {
+        LocalDateTime startedAt = watermarkRepository.databaseNow();
+        LocalDate today = startedAt.toLocalDate();
+        Optional<LocalDateTime> processedUntil = watermarkRepository.findProcessedUntil(NAME);
+        boolean firstRunToday = processedUntil.map(since -> since.toLocalDate().isBefore(today)).orElse(true);
+
+        List<Long> periodIds = delinquencyRepository.findPeriodsToRefresh(
+                processedUntil.orElse(null), today, firstRunToday);
+        int affected = 0;
+        for (int from = 0; from < periodIds.size(); from += PERIODS_PER_BATCH) {
+            List<Long> batch = periodIds.subList(from, Math.min(from + PERIODS_PER_BATCH, periodIds.size()));
+            affected += delinquencyRepository.refreshPeriods(batch, today);
+        }
+        watermarkRepository.saveProcessedUntil(NAME, startedAt);
+        return affected;
+    }
+}
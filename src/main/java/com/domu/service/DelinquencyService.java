@@ -0,0 +1,93 @@
+package com.domu.service;
+
+import com.domu.database.DelinquencyRepository;
+import com.domu.database.DelinquencyRepository.DelinquencyPage;
+import com.domu.database.DelinquencyRepository.DelinquencyRow;
+import com.domu.database.DelinquencyRepository.DelinquencySort;
+import com.domu.domain.core.User;
+import com.domu.domain.finance.DelinquencyRecord;
+import com.domu.dto.DelinquencyPageResponse;
+import com.domu.dto.DelinquencyResponse;
+import com.google.inject.Inject;
+
+import io.javalin.http.UnauthorizedResponse;
+
+import java.util.Locale;
+import java.util.Objects;
+import java.util.Set;
+
+/**
+ * Consulta de morosidad precalculada por DelinquencyRefreshJob. No toca
+ * common_charges: lee solo delinquency_records.
+ */
+public class DelinquencyService {
+
+    private static final int DEFAULT_PAGE_SIZE = 50;
+    private static final int MAX_PAGE_SIZE = 200;
+    private static final Set<String> STATUSES = Set.of("PENDING", "OVERDUE", "PAID");
+
+    private final DelinquencyRepository repository;
+
+    @Inject
+    public DelinquencyService(DelinquencyRepository repository) {
+        this.repository = repository;
+    }
+
+    public DelinquencyPageResponse list(User user, Long buildingId, String status, String sort, String direction,
+            Integer page, Integer size) {
+        if (user == null || !Objects.equals(user.roleId(), 1L)) {
+            throw new UnauthorizedResponse("Solo administradores pueden ver la morosidad");
+        }
+        if (buildingId == null) {
+            throw new ValidationException("Debes seleccionar un edificio");
+        }
+        String normalizedStatus = null;
+        if (status != null && !status.isBlank()) {
+            normalizedStatus = status.trim().toUpperCase(Locale.ROOT);
+            if (!STATUSES.contains(normalizedStatus)) {
+                throw new ValidationException("status inválido");
+            }
+        }
+        DelinquencySort sortBy = parseSort(sort);
+        boolean ascending = direction != null && direction.equalsIgnoreCase("asc");
+        int pageNumber = page != null && page > 0 ? page : 1;
+        int pageSize = size != null && size > 0 ? Math.min(size, MAX_PAGE_SIZE) : DEFAULT_PAGE_SIZE;
+
+        DelinquencyPage result = repository.findByBuilding(buildingId, normalizedStatus, sortBy, ascending,
+                pageSize, (pageNumber - 1) * pageSize);
+        return new DelinquencyPageResponse(
+                result.rows().stream().map(this::toResponse).toList(),
+                pageNumber,
+                pageSize,
+                result.total(),
+                sortBy.name(),
+                ascending ? "ASC" : "DESC");
+    }
+
+    private DelinquencySort parseSort(String raw) {
+        if (raw == null || raw.isBlank()) {
+            return DelinquencySort.DAYS;
+        }
+        try {
+            return DelinquencySort.valueOf(raw.trim().toUpperCase(Locale.ROOT));
+        } catch (IllegalArgumentException e) {
+            throw new ValidationException("sort debe ser uno de DAYS, BALANCE, DUE_DATE o UNIT");
+        }
+    }
+
+    private DelinquencyResponse toResponse(DelinquencyRow row) {
+        DelinquencyRecord record = row.record();
+        return new DelinquencyResponse(
+                record.unitId(),
+                row.unitNumber(),
+                row.tower(),
+                record.periodId(),
+                row.year(),
+                row.month(),
+                row.dueDate(),
+                record.balance(),
+                record.daysDelinquent(),
+                record.status(),
+                record.updatedAt());
+    }
+}
@@ -0,0 +1,165 @@
+package com.domu.service;
+
+import com.fasterxml.jackson.core.JsonEncoding;
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.util.MinimalPrettyPrinter;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+
+/**
+ * Escribe filas de una exportación directamente sobre el stream de respuesta,
+ * en CSV o NDJSON, sin armar la exportación completa en memoria. Los valores se
+ * escriben en el orden de las columnas; los textos van siempre entre comillas
+ * en CSV, igual que la exportación de votaciones.
+ */
+abstract class ExportWriter implements AutoCloseable {
+
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    protected final List<String> columns;
+
+    private ExportWriter(List<String> columns) {
+        this.columns = columns;
+    }
+
+    static ExportWriter open(ExportFormat format, OutputStream out, JsonFactory jsonFactory, List<String> columns) {
+        try {
+            return switch (format) {
+                case CSV -> new Csv(out, columns);
+                case NDJSON -> new Ndjson(jsonFactory, out, columns);
+            };
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Escribe una fila. Los errores de escritura (p. ej. el cliente cortó la
+     * descarga) se propagan como UncheckedIOException para cortar el cursor.
+     */
+    final void row(Object... values) {
+        try {
+            writeRow(values);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    @Override
+    public final void close() {
+        try {
+            finish();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    protected abstract void writeRow(Object[] values) throws IOException;
+
+    protected abstract void finish() throws IOException;
+
+    enum ExportFormat {
+        CSV("text/csv; charset=UTF-8", "csv"),
+        NDJSON("application/x-ndjson; charset=UTF-8", "ndjson");
+
+        private final String contentType;
+        private final String extension;
+
+        ExportFormat(String contentType, String extension) {
+            this.contentType = contentType;
+            this.extension = extension;
+        }
+
+        String contentType() {
+            return contentType;
+        }
+
+        String extension() {
+            return extension;
+        }
+    }
+
+    private static final class Csv extends ExportWriter {
+
+        private final Writer writer;
+
+        private Csv(OutputStream out, List<String> columns) throws IOException {
+            super(columns);
+            this.writer = new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8), BUFFER_SIZE);
+            writer.write(String.join(",", columns));
+            writer.write('\n');
+        }
+
+        @Override
+        protected void writeRow(Object[] values) throws IOException {
+            for (int i = 0; i < values.length; i++) {
+                if (i > 0) {
+                    writer.write(',');
+                }
+                Object value = values[i];
+                if (value instanceof String text) {
+                    writer.write('"');
+                    writer.write(text.replace("\"", "\"\""));
+                    writer.write('"');
+                } else if (value instanceof BigDecimal decimal) {
+                    writer.write(decimal.toPlainString());
+                } else if (value != null) {
+                    writer.write(value.toString());
+                }
+            }
+            writer.write('\n');
+        }
+
+        @Override
+        protected void finish() throws IOException {
+            writer.flush();
+        }
+    }
+
+    private static final class Ndjson extends ExportWriter {
+
+        private final JsonGenerator generator;
+
+        private Ndjson(JsonFactory jsonFactory, OutputStream out, List<String> columns) throws IOException {
+            super(columns);
+            this.generator = jsonFactory.createGenerator(out, JsonEncoding.UTF8);
+            generator.disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+            // Sin separador entre valores raíz: cada fila termina con su propio salto de línea
+            generator.setPrettyPrinter(new MinimalPrettyPrinter(""));
+        }
+
+        @Override
+        protected void writeRow(Object[] values) throws IOException {
+            generator.writeStartObject();
+            for (int i = 0; i < values.length; i++) {
+                generator.writeFieldName(columns.get(i));
+                Object value = values[i];
+                if (value == null) {
+                    generator.writeNull();
+                } else if (value instanceof Long number) {
+                    generator.writeNumber(number);
+                } else if (value instanceof BigDecimal decimal) {
+                    generator.writeNumber(decimal);
+                } else {
+                    generator.writeString(value.toString());
+                }
+            }
+            generator.writeEndObject();
+            generator.writeRaw('\n');
+        }
+
+        @Override
+        protected void finish() throws IOException {
+            generator.close();
+        }
+    }
+}
@@ -0,0 +1,131 @@
+package com.domu.service;
+
+import com.domu.database.CommonExpenseRepository;
+import com.domu.domain.core.User;
+import com.domu.domain.finance.CommonExpensePeriod;
+import com.domu.service.ExportWriter.ExportFormat;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.google.inject.Inject;
+
+import io.javalin.http.UnauthorizedResponse;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.List;
+import java.util.Locale;
+import java.util.Objects;
+
+/**
+ * Exportación de cargos y pagos de un período completo. La validación y el
+ * control de acceso se hacen en {@link #prepare}, antes de escribir cabeceras;
+ * luego {@link PeriodExport#writeTo} recorre el cursor de la base y escribe
+ * cada fila directo en la respuesta, con memoria constante.
+ */
+public class FinanceExportService {
+
+    private static final List<String> CHARGE_COLUMNS = List.of(
+            "chargeId", "unitId", "unitNumber", "tower", "description", "type", "payerType",
+            "amount", "paidAmount", "balance");
+    private static final List<String> PAYMENT_COLUMNS = List.of(
+            "paymentId", "chargeId", "unitId", "unitNumber", "userId", "issuedAt", "amount",
+            "paymentMethod", "reference", "status");
+
+    private final CommonExpenseRepository repository;
+    private final BuildingAccessService buildingAccessService;
+    private final ObjectMapper objectMapper;
+
+    @Inject
+    public FinanceExportService(CommonExpenseRepository repository, BuildingAccessService buildingAccessService,
+            ObjectMapper objectMapper) {
+        this.repository = repository;
+        this.buildingAccessService = buildingAccessService;
+        this.objectMapper = objectMapper;
+    }
+
+    public PeriodExport prepare(User user, Long periodId, String dataset, String format) {
+        if (user == null) {
+            throw new UnauthorizedResponse("Debes iniciar sesión");
+        }
+        if (!Objects.equals(user.roleId(), 1L)) {
+            throw new UnauthorizedResponse("Solo administradores pueden exportar gastos comunes");
+        }
+        ExportFormat exportFormat = parseFormat(format);
+        String normalizedDataset = dataset != null ? dataset.trim().toLowerCase(Locale.ROOT) : "";
+        if (!normalizedDataset.equals("charges") && !normalizedDataset.equals("payments")) {
+            throw new ValidationException("La exportación debe ser charges o payments");
+        }
+        CommonExpensePeriod period = repository.findPeriodById(periodId)
+                .orElseThrow(() -> new ValidationException("Período no encontrado"));
+        if (!buildingAccessService.hasAccess(user, period.buildingId())) {
+            throw new UnauthorizedResponse("No tienes acceso a este edificio");
+        }
+        String fileName = "%s-%d-%d-%02d.%s".formatted(normalizedDataset, period.buildingId(), period.year(),
+                period.month(), exportFormat.extension());
+        return new PeriodExport(this, period.id(), normalizedDataset, exportFormat, fileName);
+    }
+
+    void writeCharges(Long periodId, ExportFormat format, OutputStream out) {
+        try (ExportWriter writer = ExportWriter.open(format, out, objectMapper.getFactory(), CHARGE_COLUMNS)) {
+            repository.streamChargesForPeriod(periodId, row -> writer.row(
+                    row.chargeId(), row.unitId(), row.unitNumber(), row.tower(), row.description(), row.type(),
+                    row.payerType(), row.amount(), row.paidAmount(), row.balance()));
+        }
+    }
+
+    void writePayments(Long periodId, ExportFormat format, OutputStream out) {
+        try (ExportWriter writer = ExportWriter.open(format, out, objectMapper.getFactory(), PAYMENT_COLUMNS)) {
+            repository.streamPaymentsForPeriod(periodId, row -> writer.row(
+                    row.paymentId(), row.chargeId(), row.unitId(), row.unitNumber(), row.userId(), row.issuedAt(),
+                    row.amount(), row.paymentMethod(), row.reference(), row.status()));
+        }
+    }
+
+    private ExportFormat parseFormat(String raw) {
+        if (raw == null || raw.isBlank()) {
+            return ExportFormat.CSV;
+        }
+        try {
+            return ExportFormat.valueOf(raw.trim().toUpperCase(Locale.ROOT));
+        } catch (IllegalArgumentException e) {
+            throw new ValidationException("format debe ser csv o ndjson");
+        }
+    }
+
+    /**
+     * Exportación ya autorizada, lista para escribirse sobre la respuesta.
+     */
+    public static final class PeriodExport {
+
+        private final FinanceExportService service;
+        private final Long periodId;
+        private final String dataset;
+        private final ExportFormat format;
+        private final String fileName;
+
+        private PeriodExport(FinanceExportService service, Long periodId, String dataset, ExportFormat format,
+                String fileName) {
+            this.service = service;
+            this.periodId = periodId;
+            this.dataset = dataset;
+            this.format = format;
+            this.fileName = fileName;
+        }
+
+        public String fileName() {
+            return fileName;
+        }
+
+        public String contentType() {
+            return format.contentType();
+        }
+
+        public void writeTo(OutputStream out) throws IOException {
+            if (dataset.equals("charges")) {
+                service.writeCharges(periodId, format, out);
+            } else {
+                service.writePayments(periodId, format, out);
+            }
+            out.flush();
+        }
+    }
+}
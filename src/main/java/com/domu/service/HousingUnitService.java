@@ -1,7 +1,7 @@
 package com.domu.service;
 
+import com.domu.cache.UserCache;
 import com.domu.database.HousingUnitRepository;
-import com.domu.database.UserBuildingRepository;
 import com.domu.database.UserRepository;
 import com.domu.domain.core.HousingUnit;
 import com.domu.domain.core.User;
@@ -17,17 +17,23 @@ public class HousingUnitService {
     private static final Long ADMIN_ROLE_ID = 1L;
 
     private final HousingUnitRepository housingUnitRepository;
-    private final UserBuildingRepository userBuildingRepository;
     private final UserRepository userRepository;
+    private final UserCache userCache;
+    private final BuildingAccessService buildingAccessService;
+    private final UnitShareCache unitShareCache;
 
     @Inject
     public HousingUnitService(
             HousingUnitRepository housingUnitRepository,
-            UserBuildingRepository userBuildingRepository,
-            UserRepository userRepository) {
+            UserRepository userRepository,
+            UserCache userCache,
+            BuildingAccessService buildingAccessService,
+            UnitShareCache unitShareCache) {
         this.housingUnitRepository = housingUnitRepository;
-        this.userBuildingRepository = userBuildingRepository;
         this.userRepository = userRepository;
+        this.userCache = userCache;
+        this.buildingAccessService = buildingAccessService;
+        this.unitShareCache = unitShareCache;
     }
 
     /**
@@ -57,6 +63,7 @@ public class HousingUnitService {
                 null);
 
         HousingUnit created = housingUnitRepository.insert(unit);
+        unitShareCache.invalidate(buildingId);
         return housingUnitRepository.findByIdWithDetails(created.id())
                 .orElseThrow(() -> new ValidationException("Error al obtener la unidad creada"));
     }
@@ -95,6 +102,7 @@ public class HousingUnitService {
                 existing.updatedAt());
 
         housingUnitRepository.update(updated);
+        unitShareCache.invalidate(existing.buildingId());
         return housingUnitRepository.findByIdWithDetails(unitId)
                 .orElseThrow(() -> new ValidationException("Error al obtener la unidad actualizada"));
     }
@@ -119,6 +127,8 @@ public class HousingUnitService {
         }
 
         housingUnitRepository.softDelete(unitId);
+        buildingAccessService.invalidateUnit(unitId);
+        unitShareCache.invalidate(existing.buildingId());
     }
 
     /**
@@ -169,7 +179,7 @@ public class HousingUnitService {
 
         // Validar que el residente tenga acceso al edificio (debe estar en
         // user_buildings)
-        if (!userBuildingRepository.userHasAccessToBuilding(residentUserId, unit.buildingId())) {
+        if (!buildingAccessService.isLinkedToBuilding(residentUserId, unit.buildingId())) {
             throw new ValidationException(
                     "El residente no tiene acceso a este edificio. " +
                             "Primero debe ser agregado al edificio antes de asignarlo a una unidad.");
@@ -180,6 +190,14 @@ public class HousingUnitService {
             userRepository.updateUnitId(residentUserId, unitId);
         } catch (Exception e) {
             throw new ValidationException("Error al asignar residente a la unidad: " + e.getMessage());
+        } finally {
+            userCache.invalidate(residentUserId);
+            buildingAccessService.invalidateUser(residentUserId);
+            // La ocupación cambia en la unidad nueva y, si el residente se mueve, en la anterior
+            unitShareCache.invalidate(unit.buildingId());
+            if (resident.unitId() != null) {
+                unitShareCache.invalidate(buildingAccessService.buildingIdForUnit(resident.unitId()));
+            }
         }
     }
 
@@ -204,6 +222,9 @@ public class HousingUnitService {
 
         // Desvincular (establecer unit_id a NULL)
         userRepository.updateUnitId(residentUserId, null);
+        userCache.invalidate(residentUserId);
+        buildingAccessService.invalidateUser(residentUserId);
+        unitShareCache.invalidate(unit.buildingId());
     }
 
     /**
@@ -219,7 +240,7 @@ public class HousingUnitService {
         }
 
         // Verificar que tiene acceso al edificio
-        if (!userBuildingRepository.userHasAccessToBuilding(userId, buildingId)) {
+        if (!buildingAccessService.isLinkedToBuilding(userId, buildingId)) {
             throw new ValidationException("No tienes acceso a este edificio");
         }
     }
@@ -0,0 +1,203 @@
+package com.domu.service;
+
+import com.domu.database.CommonExpenseRepository.PaymentImportLine;
+
+import java.io.BufferedReader;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Lee el archivo de pagos del banco línea a línea, sin cargarlo completo. Las
+ * columnas son unidad, monto, referencia y fecha; el separador (coma, punto y
+ * coma o tabulación) se detecta en la primera línea y una fila de encabezado
+ * opcional se descarta. Los montos usan punto o coma decimal con a lo sumo dos
+ * decimales, sin separador de miles.
+ */
+final class PaymentCsvReader implements Closeable {
+
+    private static final int MAX_REFERENCE_LENGTH = 255;
+    private static final List<DateTimeFormatter> DATE_FORMATS = List.of(
+            DateTimeFormatter.ISO_LOCAL_DATE,
+            DateTimeFormatter.ofPattern("dd-MM-yyyy"),
+            DateTimeFormatter.ofPattern("dd/MM/yyyy"));
+
+    private final BufferedReader reader;
+    private int lineNumber;
+    private char delimiter;
+
+    PaymentCsvReader(InputStream input) {
+        this.reader = new BufferedReader(new InputStreamReader(input, StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Siguiente línea con datos, o null al llegar al final del archivo.
+     */
+    ParsedLine next() throws IOException {
+        String raw;
+        while ((raw = reader.readLine()) != null) {
+            lineNumber++;
+            if (lineNumber == 1 && !raw.isEmpty() && raw.charAt(0) == '\uFEFF') {
+                raw = raw.substring(1);
+            }
+            if (raw.isBlank()) {
+                continue;
+            }
+            boolean first = delimiter == 0;
+            if (first) {
+                delimiter = detectDelimiter(raw);
+            }
+            ParsedLine parsed = parse(lineNumber, split(raw, delimiter));
+            if (first && parsed.error() != null && isHeader(raw)) {
+                continue;
+            }
+            return parsed;
+        }
+        return null;
+    }
+
+    @Override
+    public void close() throws IOException {
+        reader.close();
+    }
+
+    private static ParsedLine parse(int lineNumber, List<String> cells) {
+        String unitNumber = cell(cells, 0);
+        String rawAmount = cell(cells, 1);
+        String reference = cell(cells, 2);
+        String rawDate = cell(cells, 3);
+        if (unitNumber == null) {
+            return ParsedLine.invalid(lineNumber, null, null, reference, "Falta la unidad");
+        }
+        if (rawAmount == null) {
+            return ParsedLine.invalid(lineNumber, unitNumber, null, reference, "Falta el monto");
+        }
+        BigDecimal amount = parseAmount(rawAmount);
+        if (amount == null) {
+            return ParsedLine.invalid(lineNumber, unitNumber, null, reference, "Monto inválido: " + rawAmount);
+        }
+        if (amount.signum() <= 0) {
+            return ParsedLine.invalid(lineNumber, unitNumber, amount, reference, "El monto debe ser mayor a cero");
+        }
+        if (reference != null && reference.length() > MAX_REFERENCE_LENGTH) {
+            return ParsedLine.invalid(lineNumber, unitNumber, amount, null,
+                    "La referencia no puede superar " + MAX_REFERENCE_LENGTH + " caracteres");
+        }
+        if (rawDate == null) {
+            return ParsedLine.invalid(lineNumber, unitNumber, amount, reference, "Falta la fecha");
+        }
+        LocalDate issuedAt = parseDate(rawDate);
+        if (issuedAt == null) {
+            return ParsedLine.invalid(lineNumber, unitNumber, amount, reference, "Fecha inválida: " + rawDate);
+        }
+        return new ParsedLine(lineNumber, unitNumber, amount, reference, issuedAt, null);
+    }
+
+    private static BigDecimal parseAmount(String raw) {
+        String normalized = raw.replace("$", "").replace(" ", "");
+        if (normalized.indexOf(',') >= 0 && normalized.indexOf('.') < 0) {
+            normalized = normalized.replace(',', '.');
+        }
+        try {
+            BigDecimal amount = new BigDecimal(normalized);
+            // "150.000" es 150 mil en un archivo chileno, no 150: se rechaza en vez de adivinar
+            return amount.scale() > 2 ? null : amount.setScale(2);
+        } catch (NumberFormatException ex) {
+            return null;
+        }
+    }
+
+    private static LocalDate parseDate(String raw) {
+        for (DateTimeFormatter format : DATE_FORMATS) {
+            try {
+                return LocalDate.parse(raw, format);
+            } catch (DateTimeParseException ignored) {
+                // se prueba el siguiente formato
+            }
+        }
+        return null;
+    }
+
+    private static String cell(List<String> cells, int index) {
+        if (index >= cells.size()) {
+            return null;
+        }
+        String value = cells.get(index).trim();
+        return value.isEmpty() ? null : value;
+    }
+
+    private static boolean isHeader(String raw) {
+        return raw.chars().filter(Character::isLetter).count() > raw.chars().filter(Character::isDigit).count();
+    }
+
+    private static char detectDelimiter(String line) {
+        char best = ',';
+        long bestCount = line.chars().filter(c -> c == ',').count();
+        for (char candidate : new char[] {';', '\t'}) {
+            long count = line.chars().filter(c -> c == candidate).count();
+            if (count > bestCount) {
+                best = candidate;
+                bestCount = count;
+            }
+        }
+        return best;
+    }
+
+    /**
+     * Separa una línea respetando campos entre comillas dobles ("" escapa una
+     * comilla dentro del campo).
+     */
+    private static List<String> split(String line, char delimiter) {
+        List<String> cells = new ArrayList<>(4);
+        StringBuilder current = new StringBuilder();
+        boolean quoted = false;
+        for (int i = 0; i < line.length(); i++) {
+            char c = line.charAt(i);
+            if (quoted) {
+                if (c == '"' && i + 1 < line.length() && line.charAt(i + 1) == '"') {
+                    current.append('"');
+                    i++;
+                } else if (c == '"') {
+                    quoted = false;
+                } else {
+                    current.append(c);
+                }
+            } else if (c == '"') {
+                quoted = true;
+            } else if (c == delimiter) {
+                cells.add(current.toString());
+                current.setLength(0);
+            } else {
+                current.append(c);
+            }
+        }
+        cells.add(current.toString());
+        return cells;
+    }
+
+    record ParsedLine(
+            int lineNumber,
+            String unitNumber,
+            BigDecimal amount,
+            String reference,
+            LocalDate issuedAt,
+            String error
+    ) {
+        static ParsedLine invalid(int lineNumber, String unitNumber, BigDecimal amount, String reference,
+                String error) {
+            return new ParsedLine(lineNumber, unitNumber, amount, reference, null, error);
+        }
+
+        PaymentImportLine toImportLine() {
+            return new PaymentImportLine(lineNumber, unitNumber, amount, reference, issuedAt);
+        }
+    }
+}
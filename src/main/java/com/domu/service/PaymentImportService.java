@@ -0,0 +1,159 @@
+package com.domu.service;
+
+import com.domu.database.CommonExpenseRepository;
+import com.domu.database.CommonExpenseRepository.PaymentImportLine;
+import com.domu.database.CommonExpenseRepository.PaymentImportOutcome;
+import com.domu.database.RepositoryException;
+import com.domu.domain.core.User;
+import com.domu.domain.finance.CommonPayment;
+import com.domu.dto.PaymentImportResponse;
+import com.domu.dto.PaymentImportResponse.LineResult;
+import com.google.inject.Inject;
+
+import io.javalin.http.UnauthorizedResponse;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Objects;
+
+/**
+ * Importación de pagos desde el archivo de transferencias del banco. El archivo
+ * se lee en streaming y se procesa en bloques de {@value #CHUNK_SIZE} líneas;
+ * cada bloque es una transacción con unas pocas consultas por conjunto y un
+ * batch de inserción (ver CommonExpenseRepository.importPayments). Un bloque
+ * que falla se informa en sus líneas sin deshacer los anteriores, así que el
+ * reporte indica exactamente qué reintentar.
+ */
+public class PaymentImportService {
+
+    static final int CHUNK_SIZE = 500;
+    private static final String DEFAULT_PAYMENT_METHOD = "TRANSFER";
+    private static final int MAX_PAYMENT_METHOD_LENGTH = 50;
+    private static final Logger LOGGER = LoggerFactory.getLogger(PaymentImportService.class);
+
+    private final CommonExpenseRepository repository;
+
+    @Inject
+    public PaymentImportService(CommonExpenseRepository repository) {
+        this.repository = repository;
+    }
+
+    public PaymentImportResponse importCsv(User user, Long buildingId, String paymentMethod, InputStream content) {
+        if (user == null || !Objects.equals(user.roleId(), 1L)) {
+            throw new UnauthorizedResponse("Solo administradores pueden importar pagos");
+        }
+        if (buildingId == null) {
+            throw new ValidationException("Debes seleccionar un edificio");
+        }
+        if (content == null) {
+            throw new ValidationException("file es requerido");
+        }
+        String method = normalizePaymentMethod(paymentMethod);
+
+        List<LineResult> results = new ArrayList<>();
+        List<PaymentCsvReader.ParsedLine> chunk = new ArrayList<>(CHUNK_SIZE);
+        try (PaymentCsvReader reader = new PaymentCsvReader(content)) {
+            PaymentCsvReader.ParsedLine line;
+            while ((line = reader.next()) != null) {
+                chunk.add(line);
+                if (chunk.size() == CHUNK_SIZE) {
+                    importChunk(user, buildingId, method, chunk, results);
+                    chunk.clear();
+                }
+            }
+        } catch (IOException e) {
+            throw new ValidationException("No se pudo leer el archivo de pagos: " + e.getMessage());
+        }
+        if (!chunk.isEmpty()) {
+            importChunk(user, buildingId, method, chunk, results);
+        }
+        if (results.isEmpty()) {
+            throw new ValidationException("El archivo de pagos está vacío");
+        }
+
+        int recorded = 0;
+        BigDecimal recordedAmount = BigDecimal.ZERO;
+        for (LineResult result : results) {
+            if ("RECORDED".equals(result.status())) {
+                recorded++;
+                recordedAmount = recordedAmount.add(result.amount());
+            }
+        }
+        return new PaymentImportResponse(results.size(), recorded, results.size() - recorded, recordedAmount, results);
+    }
+
+    private void importChunk(User user, Long buildingId, String method, List<PaymentCsvReader.ParsedLine> chunk,
+            List<LineResult> results) {
+        List<PaymentImportLine> valid = new ArrayList<>(chunk.size());
+        for (PaymentCsvReader.ParsedLine line : chunk) {
+            if (line.error() == null) {
+                valid.add(line.toImportLine());
+            }
+        }
+        List<PaymentImportOutcome> outcomes;
+        String failure = null;
+        try {
+            outcomes = repository.importPayments(buildingId, user.id(), method, valid);
+        } catch (RepositoryException ex) {
+            LOGGER.warn("Payment import chunk for building {} failed at lines {}-{}", buildingId,
+                    chunk.get(0).lineNumber(), chunk.get(chunk.size() - 1).lineNumber(), ex);
+            outcomes = List.of();
+            failure = "No se pudo registrar el bloque de líneas " + chunk.get(0).lineNumber() + " a "
+                    + chunk.get(chunk.size() - 1).lineNumber() + "; vuelve a importarlas";
+        }
+
+        // Los resultados del repositorio vienen en el mismo orden que las líneas válidas
+        int next = 0;
+        for (PaymentCsvReader.ParsedLine line : chunk) {
+            if (line.error() != null) {
+                results.add(lineResult(line, "INVALID", line.error(), List.of()));
+            } else if (failure != null) {
+                results.add(lineResult(line, "FAILED", failure, List.of()));
+            } else {
+                PaymentImportOutcome outcome = outcomes.get(next++);
+                results.add(lineResult(line, outcome.status().name(), message(outcome), outcome.payments()));
+            }
+        }
+    }
+
+    private LineResult lineResult(PaymentCsvReader.ParsedLine line, String status, String message,
+            List<CommonPayment> payments) {
+        return new LineResult(
+                line.lineNumber(),
+                line.unitNumber(),
+                line.amount(),
+                line.reference(),
+                status,
+                message,
+                payments.stream().map(CommonPayment::id).toList(),
+                payments.stream().map(CommonPayment::chargeId).toList());
+    }
+
+    private String message(PaymentImportOutcome outcome) {
+        return switch (outcome.status()) {
+            case RECORDED -> null;
+            case UNIT_NOT_FOUND -> "La unidad no existe en el edificio";
+            case AMBIGUOUS_UNIT -> "Hay más de una unidad con ese número en el edificio";
+            case DUPLICATE_REFERENCE -> "La referencia ya está registrada para la unidad";
+            case NO_OPEN_CHARGES -> "La unidad no tiene cargos pendientes";
+            case EXCEEDS_BALANCE -> "El monto excede el saldo pendiente de la unidad";
+        };
+    }
+
+    private String normalizePaymentMethod(String paymentMethod) {
+        if (paymentMethod == null || paymentMethod.isBlank()) {
+            return DEFAULT_PAYMENT_METHOD;
+        }
+        String normalized = paymentMethod.trim().toUpperCase(Locale.ROOT);
+        if (normalized.length() > MAX_PAYMENT_METHOD_LENGTH) {
+            throw new ValidationException("paymentMethod no puede superar " + MAX_PAYMENT_METHOD_LENGTH + " caracteres");
+        }
+        return normalized;
+    }
+}
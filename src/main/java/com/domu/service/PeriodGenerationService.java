@@ -0,0 +1,295 @@
+package com.domu.service;
+
+import com.domu.cache.TtlCache;
+import com.domu.config.AppConfig;
+import com.domu.database.CommonExpenseRepository;
+import com.domu.domain.core.User;
+import com.domu.dto.BulkPeriodGenerationRequest;
+import com.domu.dto.BulkPeriodGenerationRequest.BuildingPeriod;
+import com.domu.dto.BulkPeriodGenerationResponse;
+import com.domu.dto.BulkPeriodGenerationResponse.BuildingProgress;
+import com.domu.dto.CommonExpensePeriodResponse;
+import com.domu.dto.CreateCommonExpensePeriodRequest;
+import com.google.inject.Inject;
+import io.javalin.http.UnauthorizedResponse;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Generación de períodos de gasto común para muchos edificios a la vez. Cada
+ * edificio se procesa en su propia transacción (CommonExpenseService.createPeriod)
+ * sobre un pool de hilos acotado; el avance queda disponible por runId y los
+ * edificios fallidos se pueden reintentar sin repetir los exitosos. Los edificios
+ * que ya tienen el período se omiten, por lo que reenviar la misma solicitud
+ * también retoma una corrida interrumpida.
+ *
+ * <p>Cada corrida pertenece al administrador que la inició y solo puede incluir
+ * edificios a los que tiene acceso. Las corridas en curso se guardan aparte de
+ * la caché acotada de corridas terminadas, para que el LRU no las descarte
+ * mientras todavía tienen edificios pendientes.
+ */
+public class PeriodGenerationService {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(PeriodGenerationService.class);
+    private static final int MAX_BUILDINGS_PER_RUN = 5_000;
+    private static final Duration RUN_RETENTION = Duration.ofHours(24);
+    private static final int MAX_RETAINED_RUNS = 100;
+
+    private final CommonExpenseService commonExpenseService;
+    private final CommonExpenseRepository repository;
+    private final BuildingAccessService buildingAccessService;
+    private final ExecutorService executor;
+    private final Map<String, Run> activeRuns = new ConcurrentHashMap<>();
+    private final TtlCache<String, Run> finishedRuns = new TtlCache<>(RUN_RETENTION, MAX_RETAINED_RUNS);
+
+    @Inject
+    public PeriodGenerationService(CommonExpenseService commonExpenseService, CommonExpenseRepository repository,
+            BuildingAccessService buildingAccessService, AppConfig config) {
+        this.commonExpenseService = commonExpenseService;
+        this.repository = repository;
+        this.buildingAccessService = buildingAccessService;
+        int parallelism = Math.max(1, Math.min(config.bulkPeriodParallelism(), config.dbPool().maximumPoolSize()));
+        AtomicInteger threadCount = new AtomicInteger();
+        ThreadPoolExecutor pool = new ThreadPoolExecutor(parallelism, parallelism, 60, TimeUnit.SECONDS,
+                new LinkedBlockingQueue<>(), runnable -> {
+                    Thread thread = new Thread(runnable, "period-generation-" + threadCount.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                });
+        pool.allowCoreThreadTimeOut(true);
+        this.executor = pool;
+    }
+
+    public BulkPeriodGenerationResponse start(User user, BulkPeriodGenerationRequest request) {
+        ensureAdmin(user);
+        validate(request);
+        for (BuildingPeriod building : request.getBuildings()) {
+            if (!buildingAccessService.hasAccess(user, building.getBuildingId())) {
+                throw new UnauthorizedResponse("No tienes acceso al edificio " + building.getBuildingId());
+            }
+        }
+        Run run = new Run(UUID.randomUUID().toString(), user.id(), request);
+        activeRuns.put(run.id, run);
+        LOGGER.info("Period generation run {} started for {} buildings ({}-{})", run.id,
+                run.buildings.size(), request.getYear(), request.getMonth());
+        run.buildings.keySet().forEach(buildingId -> submit(run, buildingId));
+        return run.snapshot();
+    }
+
+    public BulkPeriodGenerationResponse status(User user, String runId) {
+        ensureAdmin(user);
+        return findRun(user, runId).snapshot();
+    }
+
+    /**
+     * Vuelve a encolar solo los edificios que fallaron en la corrida.
+     */
+    public BulkPeriodGenerationResponse retryFailed(User user, String runId) {
+        ensureAdmin(user);
+        Run run = findRun(user, runId);
+        List<Long> failed = run.failedBuildingIds();
+        // Se marcan pendientes antes de volver a la lista de corridas en curso, así
+        // un edificio que termina en paralelo no la saca de ahí
+        failed.forEach(buildingId -> run.update(buildingId, Status.PENDING, null, null));
+        if (!failed.isEmpty()) {
+            activeRuns.put(run.id, run);
+        }
+        failed.forEach(buildingId -> executor.execute(() -> generate(run, buildingId)));
+        LOGGER.info("Period generation run {} retrying {} buildings", run.id, failed.size());
+        return run.snapshot();
+    }
+
+    private void submit(Run run, Long buildingId) {
+        run.update(buildingId, Status.PENDING, null, null);
+        executor.execute(() -> generate(run, buildingId));
+    }
+
+    private void generate(Run run, Long buildingId) {
+        try {
+            generateBuilding(run, buildingId);
+        } finally {
+            settle(run);
+        }
+    }
+
+    /**
+     * Una corrida sin edificios pendientes pasa a la caché de corridas terminadas.
+     */
+    private void settle(Run run) {
+        if (!run.isFinished()) {
+            return;
+        }
+        finishedRuns.put(run.id, run);
+        activeRuns.computeIfPresent(run.id, (id, current) -> current.isFinished() ? null : current);
+    }
+
+    private void generateBuilding(Run run, Long buildingId) {
+        run.update(buildingId, Status.RUNNING, null, null);
+        BulkPeriodGenerationRequest template = run.request;
+        try {
+            if (repository.periodExists(buildingId, template.getYear(), template.getMonth())) {
+                run.update(buildingId, Status.SKIPPED, null, "El período ya existe");
+                return;
+            }
+            BuildingPeriod building = run.buildings.get(buildingId);
+            CreateCommonExpensePeriodRequest request = new CreateCommonExpensePeriodRequest();
+            request.setBuildingId(buildingId);
+            request.setYear(template.getYear());
+            request.setMonth(template.getMonth());
+            request.setDueDate(template.getDueDate());
+            request.setReserveAmount(building.getReserveAmount());
+            request.setCharges(building.getCharges());
+            run.update(buildingId, Status.SUCCEEDED, commonExpenseService.createPeriod(request), null);
+        } catch (ValidationException e) {
+            run.update(buildingId, Status.FAILED, null, e.getMessage());
+        } catch (RuntimeException e) {
+            LOGGER.warn("Period generation run {} failed for building {}", run.id, buildingId, e);
+            run.update(buildingId, Status.FAILED, null, e.getMessage() != null ? e.getMessage() : e.toString());
+        }
+    }
+
+    private Run findRun(User user, String runId) {
+        Run run = activeRuns.get(runId);
+        if (run == null) {
+            run = finishedRuns.getIfPresent(runId)
+                    .orElseThrow(() -> new ValidationException("Corrida de generación no encontrada"));
+        }
+        if (!Objects.equals(run.ownerUserId, user.id())) {
+            throw new UnauthorizedResponse("No puedes ver corridas de generación de otro usuario");
+        }
+        return run;
+    }
+
+    private void validate(BulkPeriodGenerationRequest request) {
+        if (request == null) {
+            throw new ValidationException("El cuerpo de la solicitud es obligatorio");
+        }
+        if (request.getYear() == null || request.getYear() < 2000 || request.getYear() > 2100) {
+            throw new ValidationException("year inválido");
+        }
+        if (request.getMonth() == null || request.getMonth() < 1 || request.getMonth() > 12) {
+            throw new ValidationException("month inválido");
+        }
+        if (request.getDueDate() == null) {
+            throw new ValidationException("dueDate es obligatorio");
+        }
+        if (request.getBuildings() == null || request.getBuildings().isEmpty()) {
+            throw new ValidationException("Debes incluir al menos un edificio");
+        }
+        if (request.getBuildings().size() > MAX_BUILDINGS_PER_RUN) {
+            throw new ValidationException("No se pueden generar más de " + MAX_BUILDINGS_PER_RUN + " edificios por corrida");
+        }
+        Set<Long> seen = new HashSet<>();
+        for (BuildingPeriod building : request.getBuildings()) {
+            if (building == null || building.getBuildingId() == null) {
+                throw new ValidationException("buildingId es obligatorio en cada edificio");
+            }
+            if (!seen.add(building.getBuildingId())) {
+                throw new ValidationException("El edificio " + building.getBuildingId() + " está repetido");
+            }
+        }
+    }
+
+    private void ensureAdmin(User user) {
+        if (user == null) {
+            throw new UnauthorizedResponse("Debes iniciar sesión");
+        }
+        if (!Objects.equals(user.roleId(), 1L)) {
+            throw new UnauthorizedResponse("Solo administradores pueden generar períodos masivamente");
+        }
+    }
+
+    private enum Status {
+        PENDING, RUNNING, SUCCEEDED, SKIPPED, FAILED
+    }
+
+    private static final class Run {
+
+        private final String id;
+        private final Long ownerUserId;
+        private final BulkPeriodGenerationRequest request;
+        private final Map<Long, BuildingPeriod> buildings = new LinkedHashMap<>();
+        private final Map<Long, BuildingProgress> progress = new LinkedHashMap<>();
+        private final LocalDateTime startedAt = LocalDateTime.now();
+        private LocalDateTime finishedAt;
+
+        private Run(String id, Long ownerUserId, BulkPeriodGenerationRequest request) {
+            this.id = id;
+            this.ownerUserId = ownerUserId;
+            this.request = request;
+            for (BuildingPeriod building : request.getBuildings()) {
+                buildings.put(building.getBuildingId(), building);
+                progress.put(building.getBuildingId(),
+                        new BuildingProgress(building.getBuildingId(), Status.PENDING.name(), null, null, null, null));
+            }
+        }
+
+        private synchronized void update(Long buildingId, Status status, CommonExpensePeriodResponse period,
+                String error) {
+            progress.put(buildingId, new BuildingProgress(
+                    buildingId,
+                    status.name(),
+                    period != null ? period.periodId() : null,
+                    period != null ? period.chargesCreated() : null,
+                    period != null ? period.totalAmount() : null,
+                    error));
+            boolean done = progress.values().stream().noneMatch(Run::isActive);
+            finishedAt = done ? LocalDateTime.now() : null;
+        }
+
+        private synchronized boolean isFinished() {
+            return finishedAt != null;
+        }
+
+        private synchronized List<Long> failedBuildingIds() {
+            return progress.values().stream()
+                    .filter(p -> Status.FAILED.name().equals(p.status()))
+                    .map(BuildingProgress::buildingId)
+                    .toList();
+        }
+
+        private synchronized BulkPeriodGenerationResponse snapshot() {
+            Map<String, Integer> counts = new LinkedHashMap<>();
+            for (BuildingProgress p : progress.values()) {
+                counts.merge(p.status(), 1, Integer::sum);
+            }
+            int failed = counts.getOrDefault(Status.FAILED.name(), 0);
+            int pending = counts.getOrDefault(Status.PENDING.name(), 0) + counts.getOrDefault(Status.RUNNING.name(), 0);
+            String status = pending > 0 ? "RUNNING" : failed > 0 ? "COMPLETED_WITH_ERRORS" : "COMPLETED";
+            return new BulkPeriodGenerationResponse(
+                    id,
+                    status,
+                    request.getYear(),
+                    request.getMonth(),
+                    progress.size(),
+                    counts.getOrDefault(Status.SUCCEEDED.name(), 0),
+                    counts.getOrDefault(Status.SKIPPED.name(), 0),
+                    failed,
+                    pending,
+                    startedAt,
+                    finishedAt,
+                    new ArrayList<>(progress.values()));
+        }
+
+        private static boolean isActive(BuildingProgress progress) {
+            return Status.PENDING.name().equals(progress.status()) || Status.RUNNING.name().equals(progress.status());
+        }
+    }
+}
@@ -0,0 +1,66 @@
+package com.domu.service;
+
+import com.domu.database.PeriodSummaryRepository;
+import com.domu.database.PeriodSummaryRepository.PeriodSummaryRow;
+import com.domu.domain.core.User;
+import com.domu.dto.PeriodSummaryResponse;
+import com.google.inject.Inject;
+
+import io.javalin.http.UnauthorizedResponse;
+
+import java.util.List;
+import java.util.Objects;
+
+/**
+ * Recaudación por período de un edificio, leída de period_summaries sin
+ * recorrer cargos ni pagos.
+ */
+public class PeriodSummaryService {
+
+    private final PeriodSummaryRepository repository;
+    private final BuildingAccessService buildingAccessService;
+
+    @Inject
+    public PeriodSummaryService(PeriodSummaryRepository repository, BuildingAccessService buildingAccessService) {
+        this.repository = repository;
+        this.buildingAccessService = buildingAccessService;
+    }
+
+    public List<PeriodSummaryResponse> listForBuilding(User user, Long buildingId) {
+        if (user == null || !Objects.equals(user.roleId(), 1L)) {
+            throw new UnauthorizedResponse("Solo administradores pueden ver la recaudación");
+        }
+        if (buildingId == null) {
+            throw new ValidationException("Debes seleccionar un edificio");
+        }
+        if (!buildingAccessService.hasAccess(user, buildingId)) {
+            throw new UnauthorizedResponse("No tienes acceso a este edificio");
+        }
+        return repository.findByBuilding(buildingId).stream()
+                .map(this::toResponse)
+                .toList();
+    }
+
+    /**
+     * Reconstruye los resúmenes desde common_charges. Pensado para el comando
+     * rebuild-period-summaries y para reparar después de correcciones manuales.
+     */
+    public int rebuild(Long buildingId) {
+        return repository.rebuild(buildingId);
+    }
+
+    private PeriodSummaryResponse toResponse(PeriodSummaryRow row) {
+        return new PeriodSummaryResponse(
+                row.periodId(),
+                row.year(),
+                row.month(),
+                row.dueDate(),
+                row.status(),
+                row.totalAmount(),
+                row.collectedAmount(),
+                row.chargedAmount().subtract(row.collectedAmount()),
+                row.unitsPaid(),
+                row.unitsPartial(),
+                row.unitsPending());
+    }
+}
@@ -0,0 +1,29 @@
+package com.domu.service;
+
+import com.domu.config.AppConfig;
+import com.domu.database.DatabaseLock;
+import com.domu.database.PollRepository;
+import com.google.inject.Inject;
+
+import java.time.LocalDateTime;
+
+/**
+ * Cierra en segundo plano las votaciones cuyo closes_at ya pasó, con un único
+ * UPDATE por barrido. Las lecturas no dependen de este proceso: PollService
+ * deriva el estado desde closes_at, así que el barrido solo persiste el cierre.
+ */
+public class PollExpirySweeper extends ScheduledJob {
+
+    private final PollRepository pollRepository;
+
+    @Inject
+    public PollExpirySweeper(PollRepository pollRepository, DatabaseLock databaseLock, AppConfig config) {
+        super("poll-expiry-sweeper", databaseLock, config.pollExpirySweepIntervalSeconds());
+        this.pollRepository = pollRepository;
+    }
+
+    @Override
+    protected int execute() {
+        return pollRepository.closeExpiredPolls(LocalDateTime.now());
+    }
+}
@@ -1,11 +1,9 @@
 package com.domu.service;
 
-import com.domu.database.BuildingRepository;
 import com.domu.database.PollRepository;
 import com.domu.database.PollRepository.PollOptionRow;
 import com.domu.database.PollRepository.PollRow;
 import com.domu.database.PollRepository.PollVoteRow;
-import com.domu.database.UserBuildingRepository;
 import com.domu.domain.core.User;
 import com.domu.dto.CreatePollRequest;
 import com.domu.dto.PollListResponse;
@@ -21,6 +19,7 @@ import java.time.LocalDateTime;
 import java.util.ArrayList;
 import java.util.Comparator;
 import java.util.List;
+import java.util.Map;
 import java.util.Objects;
 import java.util.Optional;
 import java.util.stream.Collectors;
@@ -28,15 +27,12 @@ import java.util.stream.Collectors;
 public class PollService {
 
     private final PollRepository pollRepository;
-    private final BuildingRepository buildingRepository;
-    private final UserBuildingRepository userBuildingRepository;
+    private final BuildingAccessService buildingAccessService;
 
     @Inject
-    public PollService(PollRepository pollRepository, BuildingRepository buildingRepository,
-            UserBuildingRepository userBuildingRepository) {
+    public PollService(PollRepository pollRepository, BuildingAccessService buildingAccessService) {
         this.pollRepository = pollRepository;
-        this.buildingRepository = buildingRepository;
-        this.userBuildingRepository = userBuildingRepository;
+        this.buildingAccessService = buildingAccessService;
     }
 
     public PollResponse create(User user, CreatePollRequest request) {
@@ -72,20 +68,24 @@ public class PollService {
         ensureAuthenticated(user);
         Long buildingId = resolveBuildingId(user, null);
         String normalizedStatus = normalizeStatus(status);
-        refreshExpiredPolls();
+        LocalDateTime now = LocalDateTime.now();
 
-        List<PollRow> polls = normalizedStatus == null
-                ? pollRepository.findByBuilding(buildingId)
-                : pollRepository.findByBuildingAndStatus(buildingId, normalizedStatus);
+        // El estado se deriva de closes_at: una votación vencida que el barrido aún
+        // no cierra en la base ya figura como CLOSED.
+        List<PollRow> polls = pollRepository.findByBuilding(buildingId, normalizedStatus, now).stream()
+                .map(poll -> withEffectiveStatus(poll, now))
+                .toList();
 
         List<PollResponse> open = new ArrayList<>();
         List<PollResponse> closed = new ArrayList<>();
 
-        for (PollRow poll : polls) {
-            PollRow fresh = ensureFreshStatus(poll);
-            List<PollOptionRow> options = pollRepository.findOptions(fresh.id());
-            Optional<PollVoteRow> vote = pollRepository.findUserVote(fresh.id(), user.id());
-            PollResponse response = toResponse(fresh, options, vote.orElse(null));
+        List<Long> pollIds = polls.stream().map(PollRow::id).toList();
+        Map<Long, List<PollOptionRow>> optionsByPoll = pollRepository.findOptionsByPolls(pollIds);
+        Map<Long, PollVoteRow> votesByPoll = pollRepository.findUserVotes(pollIds, user.id());
+
+        for (PollRow fresh : polls) {
+            List<PollOptionRow> options = optionsByPoll.getOrDefault(fresh.id(), List.of());
+            PollResponse response = toResponse(fresh, options, votesByPoll.get(fresh.id()));
             if ("OPEN".equalsIgnoreCase(fresh.status())) {
                 open.add(response);
             } else {
@@ -106,7 +106,7 @@ public class PollService {
         PollRow poll = pollRepository.findById(pollId)
                 .orElseThrow(() -> new ValidationException("Votación no encontrada"));
         ensureSameBuilding(user, poll.buildingId());
-        PollRow fresh = ensureFreshStatus(poll);
+        PollRow fresh = withEffectiveStatus(poll, LocalDateTime.now());
         List<PollOptionRow> options = pollRepository.findOptions(fresh.id());
         Optional<PollVoteRow> vote = pollRepository.findUserVote(fresh.id(), user.id());
         return toResponse(fresh, options, vote.orElse(null));
@@ -120,31 +120,29 @@ public class PollService {
         PollRow poll = pollRepository.findById(pollId)
                 .orElseThrow(() -> new ValidationException("Votación no encontrada"));
         ensureSameBuilding(user, poll.buildingId());
-        PollRow current = ensureFreshStatus(poll);
 
-        if (!"OPEN".equalsIgnoreCase(current.status())) {
+        if (!"OPEN".equalsIgnoreCase(poll.status())) {
             throw new ValidationException("La votación está cerrada");
         }
-        if (current.closesAt().isBefore(LocalDateTime.now())) {
-            current = pollRepository.closePoll(current.id(), LocalDateTime.now());
+        if (isExpired(poll, LocalDateTime.now())) {
             throw new ValidationException("La votación ya expiró");
         }
 
-        Optional<PollVoteRow> existing = pollRepository.findUserVote(current.id(), user.id());
+        Optional<PollVoteRow> existing = pollRepository.findUserVote(poll.id(), user.id());
         if (existing.isPresent()) {
             throw new ValidationException("Ya registraste tu voto");
         }
 
-        List<PollOptionRow> options = pollRepository.findOptions(current.id());
+        List<PollOptionRow> options = pollRepository.findOptions(poll.id());
         PollOptionRow selected = options.stream()
                 .filter(opt -> Objects.equals(opt.id(), request.getOptionId()))
                 .findFirst()
                 .orElseThrow(() -> new ValidationException("Opción inválida"));
 
-        pollRepository.insertVote(current.id(), selected.id(), user.id(), LocalDateTime.now());
-        List<PollOptionRow> refreshedOptions = pollRepository.findOptions(current.id());
-        return toResponse(current, refreshedOptions,
-                new PollVoteRow(null, current.id(), selected.id(), user.id(), LocalDateTime.now()));
+        pollRepository.insertVote(poll.id(), selected.id(), user.id(), LocalDateTime.now());
+        List<PollOptionRow> refreshedOptions = pollRepository.findOptions(poll.id());
+        return toResponse(poll, refreshedOptions,
+                new PollVoteRow(null, poll.id(), selected.id(), user.id(), LocalDateTime.now()));
     }
 
     public PollResponse close(User user, Long pollId) {
@@ -162,7 +160,7 @@ public class PollService {
         PollRow poll = pollRepository.findById(pollId)
                 .orElseThrow(() -> new ValidationException("Votación no encontrada"));
         ensureSameBuilding(user, poll.buildingId());
-        PollRow fresh = ensureFreshStatus(poll);
+        PollRow fresh = withEffectiveStatus(poll, LocalDateTime.now());
         List<PollOptionRow> options = pollRepository.findOptions(fresh.id());
 
         StringBuilder sb = new StringBuilder();
@@ -180,18 +178,31 @@ public class PollService {
         return sb.toString();
     }
 
-    private void refreshExpiredPolls() {
-        List<PollRow> expired = pollRepository.findExpiredOpenPolls(LocalDateTime.now());
-        for (PollRow poll : expired) {
-            pollRepository.closePoll(poll.id(), LocalDateTime.now());
+    /**
+     * Estado visible de la votación sin escribir en la base: si sigue OPEN pero
+     * closes_at ya pasó, se presenta como CLOSED. PollExpirySweeper persiste el
+     * cierre en segundo plano.
+     */
+    private PollRow withEffectiveStatus(PollRow poll, LocalDateTime now) {
+        if (!isExpired(poll, now)) {
+            return poll;
         }
+        return new PollRow(
+                poll.id(),
+                poll.buildingId(),
+                poll.createdBy(),
+                poll.title(),
+                poll.description(),
+                poll.closesAt(),
+                "CLOSED",
+                poll.createdAt(),
+                poll.closesAt());
     }
 
-    private PollRow ensureFreshStatus(PollRow poll) {
-        if ("OPEN".equalsIgnoreCase(poll.status()) && poll.closesAt().isBefore(LocalDateTime.now())) {
-            return pollRepository.closePoll(poll.id(), LocalDateTime.now());
-        }
-        return poll;
+    private boolean isExpired(PollRow poll, LocalDateTime now) {
+        return "OPEN".equalsIgnoreCase(poll.status())
+                && poll.closesAt() != null
+                && !poll.closesAt().isAfter(now);
     }
 
     private PollResponse toResponse(PollRow poll, List<PollOptionRow> options, PollVoteRow vote) {
@@ -249,27 +260,11 @@ public class PollService {
     }
 
     private Long resolveBuildingId(User user, Long requestBuildingId) {
-        if (requestBuildingId != null) {
-            return requestBuildingId;
-        }
-        if (user != null && user.unitId() != null) {
-            Long buildingId = buildingRepository.findBuildingIdByUnitId(user.unitId());
-            if (buildingId != null) {
-                return buildingId;
-            }
-        }
-        if (user != null) {
-            var buildings = userBuildingRepository.findBuildingsForUser(user.id());
-            if (buildings != null && !buildings.isEmpty()) {
-                return buildings.get(0).id();
-            }
-        }
-        throw new ValidationException("No se pudo determinar el edificio asociado");
+        return buildingAccessService.resolveBuildingId(user, requestBuildingId);
     }
 
     private void ensureSameBuilding(User user, Long buildingId) {
-        Long userBuilding = resolveBuildingId(user, null);
-        if (!Objects.equals(userBuilding, buildingId)) {
+        if (!buildingAccessService.isSameBuilding(user, buildingId)) {
             throw new UnauthorizedResponse("No tienes acceso a esta votación");
         }
     }
@@ -0,0 +1,80 @@
+package com.domu.service;
+
+import com.domu.database.DatabaseLock;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Tarea periódica en un hilo propio. Cada ejecución toma un lock con nombre en
+ * la base de datos, de modo que con varias instancias solo una la corre a la vez.
+ */
+public abstract class ScheduledJob {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(ScheduledJob.class);
+
+    private final String name;
+    private final DatabaseLock databaseLock;
+    private final long intervalSeconds;
+    private ScheduledExecutorService executor;
+
+    protected ScheduledJob(String name, DatabaseLock databaseLock, long intervalSeconds) {
+        this.name = name;
+        this.databaseLock = databaseLock;
+        this.intervalSeconds = intervalSeconds;
+    }
+
+    /**
+     * Trabajo de una ejecución. Devuelve la cantidad de filas afectadas, solo
+     * para el log.
+     */
+    protected abstract int execute();
+
+    public synchronized void start() {
+        if (intervalSeconds <= 0) {
+            LOGGER.info("Job {} disabled", name);
+            return;
+        }
+        if (executor != null) {
+            return;
+        }
+        executor = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, name);
+            thread.setDaemon(true);
+            return thread;
+        });
+        executor.scheduleWithFixedDelay(this::runSafely, 0, intervalSeconds, TimeUnit.SECONDS);
+    }
+
+    public synchronized void stop() {
+        if (executor != null) {
+            executor.shutdownNow();
+            executor = null;
+        }
+    }
+
+    /**
+     * Ejecuta el trabajo si ninguna otra instancia lo está haciendo. Devuelve la
+     * cantidad de filas afectadas (0 si no se obtuvo el lock).
+     */
+    public int runOnce() {
+        AtomicInteger affected = new AtomicInteger();
+        databaseLock.runExclusively("domu." + name, () -> affected.set(execute()));
+        return affected.get();
+    }
+
+    private void runSafely() {
+        try {
+            int affected = runOnce();
+            if (affected > 0) {
+                LOGGER.info("Job {} affected {} rows", name, affected);
+            }
+        } catch (RuntimeException e) {
+            LOGGER.warn("Job {} failed", name, e);
+        }
+    }
+}
@@ -0,0 +1,35 @@
+package com.domu.service;
+
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Conjunto fijo de locks repartidos por hash de la clave. Serializa dentro del
+ * proceso las operaciones sobre una misma clave sin mantener un lock por cada
+ * clave existente; claves distintas pueden compartir franja.
+ */
+public final class StripedLocks {
+
+    private final ReentrantLock[] locks;
+    private final int mask;
+
+    public StripedLocks(int stripes) {
+        if (stripes <= 0) {
+            throw new IllegalArgumentException("stripes must be positive");
+        }
+        int size = 1;
+        while (size < stripes) {
+            size <<= 1;
+        }
+        this.locks = new ReentrantLock[size];
+        for (int i = 0; i < size; i++) {
+            locks[i] = new ReentrantLock();
+        }
+        this.mask = size - 1;
+    }
+
+    public ReentrantLock lockFor(Object key) {
+        int hash = key != null ? key.hashCode() : 0;
+        hash ^= (hash >>> 16);
+        return locks[hash & mask];
+    }
+}
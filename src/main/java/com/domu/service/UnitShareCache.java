@@ -0,0 +1,43 @@
+package com.domu.service;
+
+import com.domu.cache.TtlCache;
+import com.domu.config.AppConfig;
+import com.domu.database.CommonExpenseRepository;
+import com.google.inject.Inject;
+
+import java.time.Duration;
+
+/**
+ * Padrón de prorrateo por edificio en memoria, para que crear un período y
+ * agregar cargos no repitan la consulta de unidades con su subconsulta de
+ * residentes. HousingUnitService y UserService lo invalidan cuando cambian las
+ * unidades o sus residentes; el TTL (el mismo de BuildingAccessService) cubre
+ * los cambios hechos desde otra instancia.
+ */
+public class UnitShareCache {
+
+    private static final int MAX_BUILDINGS = 1_000;
+
+    private final CommonExpenseRepository repository;
+    private final TtlCache<Long, UnitShareSnapshot> snapshots;
+
+    @Inject
+    public UnitShareCache(CommonExpenseRepository repository, AppConfig config) {
+        this(repository, Duration.ofSeconds(config.accessCacheTtlSeconds()), MAX_BUILDINGS);
+    }
+
+    public UnitShareCache(CommonExpenseRepository repository, Duration ttl, int maxEntries) {
+        this.repository = repository;
+        this.snapshots = new TtlCache<>(ttl, maxEntries);
+    }
+
+    public UnitShareSnapshot forBuilding(Long buildingId) {
+        return snapshots.get(buildingId, id -> UnitShareSnapshot.of(repository.findUnitsForBuilding(id)));
+    }
+
+    public void invalidate(Long buildingId) {
+        if (buildingId != null) {
+            snapshots.invalidate(buildingId);
+        }
+    }
+}
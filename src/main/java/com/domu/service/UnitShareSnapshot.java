@@ -0,0 +1,72 @@
+package com.domu.service;
+
+import com.domu.database.CommonExpenseRepository.UnitShare;
+
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * Padrón de unidades de un edificio para prorratear: ids ordenados, si la unidad
+ * tiene residente activo y los coeficientes ya convertidos a enteros en un
+ * {@link ChargeProration}. Es inmutable y se comparte entre requests desde
+ * {@link UnitShareCache}.
+ */
+public final class UnitShareSnapshot {
+
+    private static final UnitShareSnapshot EMPTY = new UnitShareSnapshot(new long[0], new BitSet(), null);
+
+    private final long[] unitIds;
+    private final BitSet occupied;
+    private final ChargeProration proration;
+
+    private UnitShareSnapshot(long[] unitIds, BitSet occupied, ChargeProration proration) {
+        this.unitIds = unitIds;
+        this.occupied = occupied;
+        this.proration = proration;
+    }
+
+    public static UnitShareSnapshot of(List<UnitShare> units) {
+        if (units.isEmpty()) {
+            return EMPTY;
+        }
+        // El orden por id fija a qué unidad van los centavos sobrantes del prorrateo
+        List<UnitShare> sorted = units.stream().sorted(Comparator.comparing(UnitShare::unitId)).toList();
+        long[] unitIds = new long[sorted.size()];
+        BitSet occupied = new BitSet(sorted.size());
+        for (int i = 0; i < unitIds.length; i++) {
+            unitIds[i] = sorted.get(i).unitId();
+            occupied.set(i, sorted.get(i).hasUser());
+        }
+        return new UnitShareSnapshot(unitIds, occupied, ChargeProration.forUnits(sorted));
+    }
+
+    public boolean isEmpty() {
+        return unitIds.length == 0;
+    }
+
+    public int size() {
+        return unitIds.length;
+    }
+
+    public long unitId(int index) {
+        return unitIds[index];
+    }
+
+    public boolean occupied(int index) {
+        return occupied.get(index);
+    }
+
+    /**
+     * Posición de la unidad en el padrón, o -1 si no pertenece al edificio.
+     */
+    public int indexOf(long unitId) {
+        int index = Arrays.binarySearch(unitIds, unitId);
+        return index >= 0 ? index : -1;
+    }
+
+    public ChargeProration proration() {
+        return proration;
+    }
+}
@@ -1,5 +1,6 @@
 package com.domu.service;
 
+import com.domu.cache.UserCache;
 import com.domu.database.UserRepository;
 import com.domu.database.UserBuildingRepository;
 import com.domu.domain.core.User;
@@ -20,13 +21,20 @@ public class UserService {
     private final UserRepository userRepository;
     private final UserBuildingRepository userBuildingRepository;
     private final PasswordHasher passwordHasher;
+    private final UserCache userCache;
+    private final BuildingAccessService buildingAccessService;
+    private final UnitShareCache unitShareCache;
 
     @Inject
     public UserService(UserRepository userRepository, UserBuildingRepository userBuildingRepository,
-            PasswordHasher passwordHasher) {
+            PasswordHasher passwordHasher, UserCache userCache, BuildingAccessService buildingAccessService,
+            UnitShareCache unitShareCache) {
         this.userRepository = userRepository;
         this.userBuildingRepository = userBuildingRepository;
         this.passwordHasher = passwordHasher;
+        this.userCache = userCache;
+        this.buildingAccessService = buildingAccessService;
+        this.unitShareCache = unitShareCache;
     }
 
     public User registerUser(
@@ -64,7 +72,12 @@ public class UserService {
                 resident,
                 LocalDateTime.now(),
                 "ACTIVE");
-        return userRepository.save(user);
+        User saved = userRepository.save(user);
+        if (unitId != null) {
+            // Un residente activo nuevo cambia el pagador de los cargos de su unidad
+            unitShareCache.invalidate(buildingAccessService.buildingIdForUnit(unitId));
+        }
+        return saved;
     }
 
     public User createAdminForBuilding(String email, String phone, String documentNumber, String firstName,
@@ -94,6 +107,8 @@ public class UserService {
                 "ACTIVE");
         User saved = userRepository.save(user);
         userBuildingRepository.addUserToBuilding(saved.id(), buildingId);
+        userCache.invalidate(saved.id());
+        buildingAccessService.invalidateUser(saved.id());
         return saved;
     }
 
@@ -127,8 +142,10 @@ public class UserService {
         if (isBlank(documentNumber)) {
             throw new ValidationException("Debes ingresar un documento de identidad");
         }
-        return userRepository.updateProfile(user.id(), firstName.trim(), lastName.trim(), phone.trim(),
+        User updated = userRepository.updateProfile(user.id(), firstName.trim(), lastName.trim(), phone.trim(),
                 documentNumber.trim());
+        userCache.invalidate(user.id());
+        return updated;
     }
 
     public void changePassword(User user, String oldPassword, String newPassword) {
@@ -146,6 +163,7 @@ public class UserService {
         }
         String hash = passwordHasher.hash(newPassword);
         userRepository.updatePassword(user.id(), hash);
+        userCache.invalidate(user.id());
     }
 
     /**
@@ -172,14 +190,19 @@ public class UserService {
                 throw new ValidationException("El correo ya existe con otro rol; usa un correo de administrador.");
             }
             userBuildingRepository.addUserToBuilding(user.id(), buildingId);
+            userCache.invalidate(user.id());
+            buildingAccessService.invalidateUser(user.id());
             return user;
         }
         // Si no existe, se crea
         return createAdminForBuilding(email, phone, documentNumber, firstName, lastName, rawPassword, buildingId);
     }
 
+    /**
+     * Busca un usuario por id pasando por la caché de usuarios autenticados.
+     */
     public Optional<User> findById(Long id) {
-        return userRepository.findById(id);
+        return userCache.get(id, userRepository::findById);
     }
 
     private void validateRegistration(
@@ -0,0 +1,95 @@
+package com.domu.service;
+
+import com.domu.cache.TtlCache;
+import com.domu.config.AppConfig;
+import com.domu.database.VisitRepository;
+import com.domu.database.VisitRepository.VisitSummaryRow;
+import com.google.inject.Inject;
+
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Autorizaciones con código QR vigentes hoy, por edificio y por código, para
+ * que el ingreso en portería se valide sin consultar la base. Un edificio se
+ * carga con una sola consulta la primera vez que se escanea un código del día y
+ * se vuelve a cargar al cambiar el día o vencer el TTL (el de
+ * ACCESS_CACHE_TTL_SECONDS). Un código que no está en memoria (visita creada
+ * después de la carga o desde otra instancia) se busca en la base y se agrega.
+ * La base sigue siendo la que decide: el ingreso solo se registra si la
+ * autorización todavía no lo tenía.
+ */
+public class VisitCheckInIndex {
+
+    private static final int MAX_BUILDINGS = 1_000;
+
+    private final VisitRepository repository;
+    private final TtlCache<Long, BuildingDay> days;
+
+    @Inject
+    public VisitCheckInIndex(VisitRepository repository, AppConfig config) {
+        this(repository, Duration.ofSeconds(config.accessCacheTtlSeconds()), MAX_BUILDINGS);
+    }
+
+    public VisitCheckInIndex(VisitRepository repository, Duration ttl, int maxBuildings) {
+        this.repository = repository;
+        this.days = new TtlCache<>(ttl, maxBuildings);
+    }
+
+    Optional<VisitSummaryRow> find(Long buildingId, String qrHash, LocalDateTime now) {
+        BuildingDay day = forDay(buildingId, now.toLocalDate());
+        if (day != null) {
+            VisitSummaryRow cached = day.byQrHash().get(qrHash);
+            if (cached != null) {
+                return Optional.of(cached);
+            }
+        }
+        Optional<VisitSummaryRow> loaded = repository.findAuthorizationByQrHash(buildingId, qrHash);
+        if (day != null) {
+            loaded.ifPresent(day::put);
+        }
+        return loaded;
+    }
+
+    /**
+     * Reemplaza la autorización en el índice del edificio (por ejemplo, tras
+     * registrar su ingreso), si el edificio está cargado.
+     */
+    void update(Long buildingId, VisitSummaryRow row) {
+        days.getIfPresent(buildingId).ifPresent(day -> day.put(row));
+    }
+
+    private BuildingDay forDay(Long buildingId, LocalDate date) {
+        if (!days.isEnabled()) {
+            return null;
+        }
+        BuildingDay day = days.get(buildingId, id -> load(id, date));
+        if (!day.date().equals(date)) {
+            days.invalidate(buildingId);
+            day = days.get(buildingId, id -> load(id, date));
+        }
+        return day;
+    }
+
+    private BuildingDay load(Long buildingId, LocalDate date) {
+        BuildingDay day = new BuildingDay(date, new ConcurrentHashMap<>());
+        repository.findQrAuthorizationsForDay(buildingId, date.atStartOfDay(), date.plusDays(1).atStartOfDay())
+                .forEach(day::put);
+        return day;
+    }
+
+    private record BuildingDay(LocalDate date, Map<String, VisitSummaryRow> byQrHash) {
+
+        void put(VisitSummaryRow row) {
+            if (row.qrHash() == null || row.validUntil().isBefore(date.atStartOfDay())
+                    || !row.validFrom().isBefore(date.plusDays(1).atStartOfDay())) {
+                return;
+            }
+            byQrHash.put(row.qrHash(), row);
+        }
+    }
+}
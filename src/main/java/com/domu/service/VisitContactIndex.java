@@ -0,0 +1,168 @@
+package com.domu.service;
+
+import com.domu.database.VisitContactRepository.ContactRow;
+import com.domu.domain.access.VisitorSearchKeys;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * Índice de autocompletado de los contactos de un residente. Guarda los
+ * contactos del más reciente al más antiguo y dos arreglos ordenados de claves
+ * (VisitorSearchKeys): nombre y alias a partir de cada una de sus palabras
+ * ("jose munoz", "munoz"), y el documento. Las claves que empiezan con un
+ * prefijo quedan contiguas en el arreglo, así una búsqueda es una búsqueda
+ * binaria más un recorrido del rango. Es inmutable; las altas y bajas generan un índice nuevo.
+ */
+final class VisitContactIndex {
+
+    private static final VisitContactIndex TOO_LARGE = new VisitContactIndex(List.of(), false);
+
+    private final List<ContactRow> contacts;
+    private final boolean complete;
+    private final String[] nameKeys;
+    private final int[] nameOwners;
+    private final String[] documentKeys;
+    private final int[] documentOwners;
+
+    private VisitContactIndex(List<ContactRow> contacts, boolean complete) {
+        this.contacts = contacts;
+        this.complete = complete;
+        List<Key> names = new ArrayList<>();
+        List<Key> documents = new ArrayList<>();
+        for (int i = 0; i < contacts.size(); i++) {
+            ContactRow contact = contacts.get(i);
+            addWords(names, VisitorSearchKeys.nameKey(contact.visitorName()), i);
+            addWords(names, VisitorSearchKeys.nameKey(contact.alias()), i);
+            String documentKey = VisitorSearchKeys.documentKey(contact.visitorDocument());
+            if (documentKey != null) {
+                documents.add(new Key(documentKey, i));
+            }
+        }
+        Key[] sortedNames = sorted(names);
+        Key[] sortedDocuments = sorted(documents);
+        this.nameKeys = new String[sortedNames.length];
+        this.nameOwners = new int[sortedNames.length];
+        for (int i = 0; i < sortedNames.length; i++) {
+            nameKeys[i] = sortedNames[i].value();
+            nameOwners[i] = sortedNames[i].owner();
+        }
+        this.documentKeys = new String[sortedDocuments.length];
+        this.documentOwners = new int[sortedDocuments.length];
+        for (int i = 0; i < sortedDocuments.length; i++) {
+            documentKeys[i] = sortedDocuments[i].value();
+            documentOwners[i] = sortedDocuments[i].owner();
+        }
+    }
+
+    /**
+     * Índice con los contactos en orden de recencia, tal como los devuelve
+     * VisitContactRepository.findAllForResident.
+     */
+    static VisitContactIndex of(List<ContactRow> contacts) {
+        return new VisitContactIndex(List.copyOf(contacts), true);
+    }
+
+    /**
+     * Marca de un residente con más contactos de los que se indexan; sus
+     * búsquedas siguen yendo a la base.
+     */
+    static VisitContactIndex tooLarge() {
+        return TOO_LARGE;
+    }
+
+    boolean isComplete() {
+        return complete;
+    }
+
+    int size() {
+        return contacts.size();
+    }
+
+    /**
+     * Contactos cuyo nombre, alias o alguna de sus palabras empieza con la
+     * búsqueda, o cuyo documento empieza con ella, del más reciente al más
+     * antiguo. Sin búsqueda devuelve los más recientes.
+     */
+    List<ContactRow> search(String query, int limit) {
+        String nameKey = VisitorSearchKeys.nameKey(query);
+        String documentKey = VisitorSearchKeys.documentKey(query);
+        if (nameKey == null && documentKey == null) {
+            return contacts.subList(0, Math.min(limit, contacts.size()));
+        }
+        BitSet matches = new BitSet(contacts.size());
+        collectPrefix(nameKeys, nameOwners, nameKey, matches);
+        collectPrefix(documentKeys, documentOwners, documentKey, matches);
+        List<ContactRow> result = new ArrayList<>(Math.min(limit, matches.cardinality()));
+        for (int i = matches.nextSetBit(0); i >= 0 && result.size() < limit; i = matches.nextSetBit(i + 1)) {
+            result.add(contacts.get(i));
+        }
+        return result;
+    }
+
+    /**
+     * Índice con el contacto recién creado como el más reciente.
+     */
+    VisitContactIndex withContact(ContactRow contact) {
+        if (!complete) {
+            return this;
+        }
+        List<ContactRow> updated = new ArrayList<>(contacts.size() + 1);
+        updated.add(contact);
+        updated.addAll(contacts);
+        return new VisitContactIndex(List.copyOf(updated), true);
+    }
+
+    VisitContactIndex withoutContact(Long contactId) {
+        if (!complete) {
+            return this;
+        }
+        List<ContactRow> updated = contacts.stream()
+                .filter(contact -> !contact.id().equals(contactId))
+                .toList();
+        return updated.size() == contacts.size() ? this : new VisitContactIndex(updated, true);
+    }
+
+    private static void addWords(List<Key> keys, String key, int owner) {
+        if (key == null) {
+            return;
+        }
+        keys.add(new Key(key, owner));
+        int start = key.indexOf(' ') + 1;
+        while (start > 0) {
+            keys.add(new Key(key.substring(start), owner));
+            start = key.indexOf(' ', start) + 1;
+        }
+    }
+
+    private static Key[] sorted(List<Key> keys) {
+        Key[] array = keys.toArray(new Key[0]);
+        Arrays.sort(array, Comparator.comparing(Key::value));
+        return array;
+    }
+
+    private static void collectPrefix(String[] keys, int[] owners, String prefix, BitSet matches) {
+        if (prefix == null) {
+            return;
+        }
+        int low = 0;
+        int high = keys.length;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (keys[mid].compareTo(prefix) < 0) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        for (int i = low; i < keys.length && keys[i].startsWith(prefix); i++) {
+            matches.set(owners[i]);
+        }
+    }
+
+    private record Key(String value, int owner) {
+    }
+}
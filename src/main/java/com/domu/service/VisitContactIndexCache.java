@@ -0,0 +1,62 @@
+package com.domu.service;
+
+import com.domu.cache.TtlCache;
+import com.domu.config.AppConfig;
+import com.domu.database.VisitContactRepository;
+import com.domu.database.VisitContactRepository.ContactRow;
+import com.google.inject.Inject;
+
+import java.time.Duration;
+import java.util.List;
+
+/**
+ * Índices de autocompletado de contactos por residente. Se cargan la primera vez
+ * que el residente busca, se descartan por LRU y VisitContactService los
+ * actualiza al crear o eliminar un contacto, así las búsquedas siguientes no
+ * van a la base. El TTL (el de USER_CACHE_TTL_SECONDS) cubre los contactos
+ * creados desde otra instancia.
+ */
+public class VisitContactIndexCache {
+
+    static final int MAX_CONTACTS_PER_RESIDENT = 2_000;
+
+    private final VisitContactRepository repository;
+    private final TtlCache<Long, VisitContactIndex> indexes;
+
+    @Inject
+    public VisitContactIndexCache(VisitContactRepository repository, AppConfig config) {
+        this(repository, Duration.ofSeconds(config.userCacheTtlSeconds()), config.userCacheMaxEntries());
+    }
+
+    public VisitContactIndexCache(VisitContactRepository repository, Duration ttl, int maxResidents) {
+        this.repository = repository;
+        this.indexes = new TtlCache<>(ttl, maxResidents);
+    }
+
+    /**
+     * Índice del residente, o null si la caché está desactivada o el residente
+     * tiene más contactos de los que se indexan; en ese caso se busca en la base.
+     */
+    VisitContactIndex forResident(Long residentUserId) {
+        if (!indexes.isEnabled()) {
+            return null;
+        }
+        VisitContactIndex index = indexes.get(residentUserId, this::load);
+        return index.isComplete() ? index : null;
+    }
+
+    void added(Long residentUserId, ContactRow contact) {
+        indexes.update(residentUserId, index -> index.withContact(contact));
+    }
+
+    void removed(Long residentUserId, Long contactId) {
+        indexes.update(residentUserId, index -> index.withoutContact(contactId));
+    }
+
+    private VisitContactIndex load(Long residentUserId) {
+        List<ContactRow> contacts = repository.findAllForResident(residentUserId, MAX_CONTACTS_PER_RESIDENT + 1);
+        return contacts.size() > MAX_CONTACTS_PER_RESIDENT
+                ? VisitContactIndex.tooLarge()
+                : VisitContactIndex.of(contacts);
+    }
+}
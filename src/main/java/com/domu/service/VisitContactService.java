@@ -1,6 +1,7 @@
 package com.domu.service;
 
 import com.domu.database.VisitContactRepository;
+import com.domu.domain.access.VisitorSearchKeys;
 import com.domu.domain.core.User;
 import com.domu.dto.CreateVisitRequest;
 import com.domu.dto.VisitContactRequest;
@@ -19,14 +20,17 @@ public class VisitContactService {
 
     private final VisitContactRepository visitContactRepository;
     private final VisitService visitService;
+    private final VisitContactIndexCache contactIndexCache;
 
     @Inject
     public VisitContactService(
             VisitContactRepository visitContactRepository,
-            VisitService visitService
+            VisitService visitService,
+            VisitContactIndexCache contactIndexCache
     ) {
         this.visitContactRepository = visitContactRepository;
         this.visitService = visitService;
+        this.contactIndexCache = contactIndexCache;
     }
 
     public VisitContactResponse create(User user, VisitContactRequest request) {
@@ -35,7 +39,7 @@ public class VisitContactService {
             throw new ValidationException("visitorName es obligatorio");
         }
         String normalizedName = request.getVisitorName().trim();
-        String normalizedDocument = normalizeDocument(request.getVisitorDocument());
+        String normalizedDocument = VisitorSearchKeys.document(request.getVisitorDocument());
         Long unitId = request.getUnitId();
 
         VisitContactRepository.ContactRow saved = visitContactRepository.insert(new VisitContactRepository.ContactRow(
@@ -48,14 +52,18 @@ public class VisitContactService {
                 LocalDateTime.now(),
                 LocalDateTime.now()
         ));
+        contactIndexCache.added(user.id(), saved);
         return toResponse(saved);
     }
 
     public List<VisitContactResponse> list(User user, String search, Integer limit) {
         ensureUser(user);
         Integer resolvedLimit = (limit != null && limit > 0 && limit <= 50) ? limit : DEFAULT_LIMIT;
-        return visitContactRepository.list(user.id(), search, resolvedLimit)
-                .stream()
+        VisitContactIndex index = contactIndexCache.forResident(user.id());
+        List<VisitContactRepository.ContactRow> contacts = index != null
+                ? index.search(search, resolvedLimit)
+                : visitContactRepository.list(user.id(), search, resolvedLimit);
+        return contacts.stream()
                 .map(this::toResponse)
                 .collect(Collectors.toList());
     }
@@ -63,6 +71,7 @@ public class VisitContactService {
     public void delete(User user, Long contactId) {
         ensureUser(user);
         visitContactRepository.delete(contactId, user.id());
+        contactIndexCache.removed(user.id(), contactId);
     }
 
     public com.domu.dto.VisitResponse registerFromContact(User user, Long contactId, VisitFromContactRequest request) {
@@ -112,12 +121,5 @@ public class VisitContactService {
             throw new UnauthorizedResponse("Debes iniciar sesión para gestionar contactos de visita");
         }
     }
-
-    private String normalizeDocument(String document) {
-        if (document == null) {
-            return null;
-        }
-        return document.replace(".", "").replace(" ", "").toUpperCase();
-    }
 }
 
@@ -1,28 +1,43 @@
 package com.domu.service;
 
 import com.domu.database.VisitRepository;
+import com.domu.domain.access.VisitorSearchKeys;
 import com.domu.domain.core.User;
 import com.domu.dto.CreateVisitRequest;
 import com.domu.dto.VisitListResponse;
+import com.domu.dto.VisitPageResponse;
 import com.domu.dto.VisitResponse;
 import com.google.inject.Inject;
 
 import io.javalin.http.UnauthorizedResponse;
 
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.security.SecureRandom;
 import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
 import java.util.ArrayList;
+import java.util.Base64;
+import java.util.HexFormat;
 import java.util.List;
 
 public class VisitService {
 
     private static final Integer DEFAULT_VALID_MINUTES = 120;
     private static final Integer MAX_VALID_MINUTES = 24 * 60;
+    private static final int DEFAULT_PAGE_SIZE = 20;
+    private static final int MAX_PAGE_SIZE = 100;
+    private static final int QR_CODE_BYTES = 24;
+    private static final SecureRandom QR_RANDOM = new SecureRandom();
 
     private final VisitRepository visitRepository;
+    private final VisitCheckInIndex checkInIndex;
 
     @Inject
-    public VisitService(VisitRepository visitRepository) {
+    public VisitService(VisitRepository visitRepository, VisitCheckInIndex checkInIndex) {
         this.visitRepository = visitRepository;
+        this.checkInIndex = checkInIndex;
     }
 
     public VisitResponse createVisit(User user, CreateVisitRequest request) {
@@ -41,8 +56,9 @@ public class VisitService {
         }
 
         String normalizedName = request.getVisitorName().trim();
-        String normalizedDocument = normalizeDocument(request.getVisitorDocument());
+        String normalizedDocument = VisitorSearchKeys.document(request.getVisitorDocument());
         String visitorType = normalizeVisitorType(request.getVisitorType());
+        String qrCode = newQrCode();
 
         VisitRepository.VisitRow visit = visitRepository.insertVisit(new VisitRepository.VisitRow(
                 null,
@@ -61,7 +77,7 @@ public class VisitService {
                         validFrom,
                         validUntil,
                         "SCHEDULED",
-                        null,
+                        qrHash(qrCode),
                         now));
 
         VisitRepository.VisitSummaryRow summary = new VisitRepository.VisitSummaryRow(
@@ -76,37 +92,43 @@ public class VisitService {
                 validUntil,
                 authorization.status(),
                 authorization.createdAt(),
-                null);
+                null,
+                authorization.qrHash());
 
-        return toResponse(summary, deriveStatus(summary, now));
+        // El código solo viaja en esta respuesta; la base guarda su hash
+        return toResponse(summary, deriveStatus(summary, now), qrCode);
     }
 
     /**
-     * Lista visitas para el usuario.
+     * Lista visitas para el usuario, paginadas por cursor de la más reciente a la
+     * más antigua; cada página se separa en próximas y pasadas.
      * Si el usuario es admin/concierge y se proporciona buildingId, muestra todas
      * las visitas del edificio.
      */
-    public VisitListResponse getVisitsForUser(User user, Long buildingId) {
+    public VisitListResponse getVisitsForUser(User user, Long buildingId, String cursor, Integer limit) {
+        VisitRepository.VisitCursor after = decodeCursor(cursor);
+        int pageSize = resolvePageSize(limit);
         List<VisitRepository.VisitSummaryRow> rows;
         if (isResident(user)) {
             ensureResidentWithUnit(user);
-            rows = visitRepository.findAuthorizationsForResident(user.id());
+            rows = visitRepository.findAuthorizationsForResident(user.id(), after, pageSize + 1);
         } else if (isConcierge(user) || isAdmin(user)) {
             // Para conserjes/admins, si hay buildingId, mostrar todas las del edificio
             if (buildingId != null) {
-                rows = visitRepository.findAuthorizationsForBuilding(buildingId);
+                rows = visitRepository.findAuthorizationsForBuilding(buildingId, after, pageSize + 1);
             } else {
                 // Si no hay buildingId, mostrar las que ellos registraron
-                rows = visitRepository.findAuthorizationsForResident(user.id());
+                rows = visitRepository.findAuthorizationsForResident(user.id(), after, pageSize + 1);
             }
         } else {
             throw new UnauthorizedResponse("No tienes permiso para ver visitas");
         }
+        String nextCursor = nextCursor(rows, pageSize);
         LocalDateTime now = LocalDateTime.now();
         List<VisitResponse> upcoming = new ArrayList<>();
         List<VisitResponse> past = new ArrayList<>();
 
-        for (VisitRepository.VisitSummaryRow row : rows) {
+        for (VisitRepository.VisitSummaryRow row : page(rows, pageSize)) {
             String status = deriveStatus(row, now);
             VisitResponse response = toResponse(row, status);
             if ("SCHEDULED".equalsIgnoreCase(status)) {
@@ -115,28 +137,29 @@ public class VisitService {
                 past.add(response);
             }
         }
-        return new VisitListResponse(upcoming, past);
+        return new VisitListResponse(upcoming, past, nextCursor);
     }
 
-    public List<VisitResponse> getVisitHistory(User user, String search) {
-        List<VisitRepository.VisitSummaryRow> rows;
+    /**
+     * Historial (visitas con ingreso o vencidas), paginado por cursor. El filtro
+     * de estado se aplica en la consulta para que cada página venga completa.
+     */
+    public VisitPageResponse getVisitHistory(User user, String search, String cursor, Integer limit) {
+        VisitRepository.VisitCursor after = decodeCursor(cursor);
+        int pageSize = resolvePageSize(limit);
         if (isResident(user)) {
             ensureResidentWithUnit(user);
-            rows = visitRepository.searchAuthorizationsForResident(user.id(), search);
-        } else if (isConcierge(user) || isAdmin(user)) {
-            rows = visitRepository.searchAuthorizationsForResident(user.id(), search);
-        } else {
+        } else if (!isConcierge(user) && !isAdmin(user)) {
             throw new UnauthorizedResponse("No tienes permiso para ver visitas previas");
         }
         LocalDateTime now = LocalDateTime.now();
+        List<VisitRepository.VisitSummaryRow> rows = visitRepository.searchAuthorizationsForResident(
+                user.id(), search, now, after, pageSize + 1);
         List<VisitResponse> history = new ArrayList<>();
-        for (VisitRepository.VisitSummaryRow row : rows) {
-            String status = deriveStatus(row, now);
-            if (!"SCHEDULED".equalsIgnoreCase(status)) {
-                history.add(toResponse(row, status));
-            }
+        for (VisitRepository.VisitSummaryRow row : page(rows, pageSize)) {
+            history.add(toResponse(row, deriveStatus(row, now)));
         }
-        return history;
+        return new VisitPageResponse(history, nextCursor(rows, pageSize));
     }
 
     public VisitResponse registerCheckIn(Long authorizationId, User user) {
@@ -169,25 +192,102 @@ public class VisitService {
                 user.id(),
                 "CHECK_IN",
                 now));
-        visitRepository.updateAuthorizationStatus(existing.authorizationId(), "CHECKED_IN");
 
-        VisitRepository.VisitSummaryRow updated = new VisitRepository.VisitSummaryRow(
-                existing.authorizationId(),
+        return toResponse(existing.withStatus("CHECKED_IN", now), "CHECKED_IN");
+    }
+
+    /**
+     * Ingreso en portería con el código QR de la visita. La autorización se busca
+     * en el índice en memoria de las visitas del día del edificio y el registro
+     * de acceso y el cambio de estado se escriben en una sola transacción. Volver
+     * a escanear un código con ingreso responde lo mismo sin registrar de nuevo.
+     */
+    public VisitResponse checkInByQr(User user, Long buildingId, String qrCode) {
+        if (!isConcierge(user) && !isAdmin(user)) {
+            throw new UnauthorizedResponse("Solo conserjes y administradores pueden registrar ingresos por QR");
+        }
+        if (buildingId == null) {
+            throw new ValidationException("Debes seleccionar un edificio");
+        }
+        if (qrCode == null || qrCode.isBlank()) {
+            throw new ValidationException("qrCode es obligatorio");
+        }
+        String hash = qrHash(qrCode.trim());
+        LocalDateTime now = LocalDateTime.now();
+        VisitRepository.VisitSummaryRow existing = checkInIndex.find(buildingId, hash, now)
+                .orElseThrow(() -> new ValidationException("Código QR no válido para este edificio"));
+        if ("CHECKED_IN".equalsIgnoreCase(existing.status())) {
+            return toResponse(existing, "CHECKED_IN");
+        }
+        if (existing.validUntil().isBefore(now)) {
+            if (!"EXPIRED".equalsIgnoreCase(existing.status())) {
+                visitRepository.updateAuthorizationStatus(existing.authorizationId(), "EXPIRED");
+                checkInIndex.update(buildingId, existing.withStatus("EXPIRED", null));
+            }
+            throw new ValidationException("La visita ya expiró");
+        }
+
+        boolean recorded = visitRepository.insertPendingCheckIn(new VisitRepository.AccessLogRow(
+                null,
                 existing.visitId(),
-                existing.residentUserId(),
-                existing.unitId(),
-                existing.visitorName(),
-                existing.visitorDocument(),
-                existing.visitorType(),
-                existing.validFrom(),
-                existing.validUntil(),
-                "CHECKED_IN",
-                existing.createdAt(),
-                now);
+                existing.authorizationId(),
+                now,
+                "MAIN_DOOR",
+                user.id(),
+                "CHECK_IN",
+                now)).isPresent();
 
+        // Si no se registró, otra instancia ya marcó el ingreso: se toma el estado de la base
+        VisitRepository.VisitSummaryRow updated = recorded
+                ? existing.withStatus("CHECKED_IN", now)
+                : visitRepository.findAuthorizationByQrHash(buildingId, hash)
+                        .orElseThrow(() -> new ValidationException("Visita no encontrada"));
+        checkInIndex.update(buildingId, updated);
+        if (!"CHECKED_IN".equalsIgnoreCase(updated.status())) {
+            throw new ValidationException("La visita ya expiró");
+        }
         return toResponse(updated, "CHECKED_IN");
     }
 
+    private int resolvePageSize(Integer limit) {
+        if (limit == null || limit <= 0) {
+            return DEFAULT_PAGE_SIZE;
+        }
+        return Math.min(limit, MAX_PAGE_SIZE);
+    }
+
+    private List<VisitRepository.VisitSummaryRow> page(List<VisitRepository.VisitSummaryRow> rows, int pageSize) {
+        return rows.size() > pageSize ? rows.subList(0, pageSize) : rows;
+    }
+
+    /**
+     * Las consultas piden una fila de más: si llegó, hay otra página y el cursor
+     * apunta a la última fila de esta.
+     */
+    private String nextCursor(List<VisitRepository.VisitSummaryRow> rows, int pageSize) {
+        if (rows.size() <= pageSize) {
+            return null;
+        }
+        VisitRepository.VisitSummaryRow last = rows.get(pageSize - 1);
+        String raw = last.createdAt() + "|" + last.authorizationId();
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private VisitRepository.VisitCursor decodeCursor(String cursor) {
+        if (cursor == null || cursor.isBlank()) {
+            return null;
+        }
+        try {
+            String raw = new String(Base64.getUrlDecoder().decode(cursor.trim()), StandardCharsets.UTF_8);
+            int separator = raw.indexOf('|');
+            return new VisitRepository.VisitCursor(
+                    LocalDateTime.parse(raw.substring(0, separator)),
+                    Long.parseLong(raw.substring(separator + 1)));
+        } catch (IllegalArgumentException | DateTimeParseException | IndexOutOfBoundsException e) {
+            throw new ValidationException("cursor inválido");
+        }
+    }
+
     private void ensureResidentWithUnit(User user) {
         if (user == null) {
             throw new UnauthorizedResponse("Debes iniciar sesión para gestionar visitas");
@@ -240,11 +340,23 @@ public class VisitService {
         return validFrom.plusMinutes(minutes);
     }
 
-    private String normalizeDocument(String document) {
-        if (document == null) {
-            return null;
+    private static String newQrCode() {
+        byte[] bytes = new byte[QR_CODE_BYTES];
+        QR_RANDOM.nextBytes(bytes);
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(bytes);
+    }
+
+    /**
+     * SHA-256 en hexadecimal del código QR, que es lo que se guarda en qr_hash:
+     * quien lea la base o los listados no obtiene un código utilizable.
+     */
+    static String qrHash(String qrCode) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            return HexFormat.of().formatHex(digest.digest(qrCode.getBytes(StandardCharsets.UTF_8)));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 no disponible", e);
         }
-        return document.replace(".", "").replace(" ", "").toUpperCase();
     }
 
     private String normalizeVisitorType(String visitorType) {
@@ -265,6 +377,10 @@ public class VisitService {
     }
 
     private VisitResponse toResponse(VisitRepository.VisitSummaryRow row, String status) {
+        return toResponse(row, status, null);
+    }
+
+    private VisitResponse toResponse(VisitRepository.VisitSummaryRow row, String status, String qrCode) {
         return new VisitResponse(
                 row.authorizationId(),
                 row.visitId(),
@@ -276,6 +392,7 @@ public class VisitService {
                 row.validUntil(),
                 status,
                 row.createdAt(),
-                row.checkInAt());
+                row.checkInAt(),
+                qrCode);
     }
 }
@@ -0,0 +1,42 @@
+package com.domu.service;
+
+import com.domu.config.AppConfig;
+import com.domu.database.DatabaseLock;
+import com.domu.database.VisitorSearchKeyRepository;
+import com.domu.database.VisitorSearchKeyRepository.BackfillBatch;
+import com.google.inject.Inject;
+
+/**
+ * Rellena las claves normalizadas de búsqueda y las palabras del nombre de
+ * visitas y contactos cuyo visitor_name_norm quedó en NULL. Recorre cada tabla
+ * por id en lotes.
+ */
+public class VisitorSearchBackfillJob extends ScheduledJob {
+
+    static final String NAME = "visitor-search-backfill";
+    static final int BATCH_SIZE = 500;
+
+    private final VisitorSearchKeyRepository repository;
+
+    @Inject
+    public VisitorSearchBackfillJob(VisitorSearchKeyRepository repository, DatabaseLock databaseLock,
+            AppConfig config) {
+        super(NAME, databaseLock, config.visitorSearchBackfillIntervalSeconds());
+        this.repository = repository;
+    }
+
+    @Override
+    protected int execute() {
+        int updated = 0;
+        for (VisitorSearchKeyRepository.Table table : VisitorSearchKeyRepository.Table.values()) {
+            long afterId = 0;
+            BackfillBatch batch;
+            do {
+                batch = repository.fillMissingKeys(table, afterId, BATCH_SIZE);
+                updated += batch.updated();
+                afterId = batch.lastId();
+            } while (batch.rows() == BATCH_SIZE);
+        }
+        return updated;
+    }
+}
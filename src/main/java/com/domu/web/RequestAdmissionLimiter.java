@@ -0,0 +1,89 @@
+package com.domu.web;
+
+import io.javalin.http.Context;
+import io.javalin.http.ServiceUnavailableResponse;
+
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Limita cuántos requests se procesan a la vez. Con virtual threads Jetty no
+ * acota la concurrencia, así que los permisos se dimensionan según el pool de
+ * conexiones: el exceso espera barato en el semáforo en lugar de agotar el
+ * timeout de getConnection().
+ */
+public final class RequestAdmissionLimiter {
+
+    private static final String PERMIT_ATTRIBUTE = "requestAdmissionPermit";
+
+    private final Semaphore semaphore;
+    private final int maxConcurrent;
+    private final long timeoutMillis;
+    private final LongAdder admitted = new LongAdder();
+    private final LongAdder rejected = new LongAdder();
+    private final LongAdder totalWaitNanos = new LongAdder();
+    private final AtomicLong maxWaitNanos = new AtomicLong();
+
+    public RequestAdmissionLimiter(int maxConcurrent, long timeoutMillis) {
+        if (maxConcurrent <= 0) {
+            throw new IllegalArgumentException("maxConcurrent must be positive");
+        }
+        this.maxConcurrent = maxConcurrent;
+        this.timeoutMillis = Math.max(0L, timeoutMillis);
+        this.semaphore = new Semaphore(maxConcurrent, true);
+    }
+
+    public void acquire(Context ctx) {
+        long start = System.nanoTime();
+        boolean acquired;
+        try {
+            acquired = semaphore.tryAcquire(timeoutMillis, TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            acquired = false;
+        }
+        long waited = System.nanoTime() - start;
+        totalWaitNanos.add(waited);
+        maxWaitNanos.accumulateAndGet(waited, Math::max);
+        if (!acquired) {
+            rejected.increment();
+            throw new ServiceUnavailableResponse("Servidor ocupado, intenta nuevamente en unos segundos");
+        }
+        admitted.increment();
+        ctx.attribute(PERMIT_ATTRIBUTE, Boolean.TRUE);
+    }
+
+    public void release(Context ctx) {
+        if (Boolean.TRUE.equals(ctx.attribute(PERMIT_ATTRIBUTE))) {
+            ctx.attribute(PERMIT_ATTRIBUTE, Boolean.FALSE);
+            semaphore.release();
+        }
+    }
+
+    public Snapshot snapshot() {
+        long admittedCount = admitted.sum();
+        long rejectedCount = rejected.sum();
+        long attempts = admittedCount + rejectedCount;
+        double averageWaitMillis = attempts > 0 ? totalWaitNanos.sum() / 1_000_000.0 / attempts : 0.0;
+        return new Snapshot(
+                maxConcurrent,
+                maxConcurrent - semaphore.availablePermits(),
+                semaphore.getQueueLength(),
+                admittedCount,
+                rejectedCount,
+                averageWaitMillis,
+                maxWaitNanos.get() / 1_000_000.0);
+    }
+
+    public record Snapshot(
+            int maxConcurrent,
+            int inFlight,
+            int queueDepth,
+            long admitted,
+            long rejected,
+            double averageWaitMillis,
+            double maxWaitMillis) {
+    }
+}
@@ -1,5 +1,6 @@
 package com.domu.web;
 
+import com.domu.config.AppConfig;
 import com.domu.domain.BuildingRequest;
 import com.domu.domain.core.User;
 import com.domu.dto.ApproveBuildingRequest;
@@ -11,13 +12,16 @@ import com.domu.dto.CreateBuildingRequest;
 import com.domu.dto.ErrorResponse;
 import com.domu.dto.LoginRequest;
 import com.domu.dto.RegistrationRequest;
+import com.domu.dto.RequestMetricsResponse;
 import com.domu.dto.UserResponse;
 import com.domu.dto.AddCommonChargesRequest;
 import com.domu.dto.CommonPaymentRequest;
 import com.domu.dto.CreateCommonExpensePeriodRequest;
+import com.domu.dto.BulkPeriodGenerationRequest;
 import com.domu.dto.CreateVisitRequest;
 import com.domu.dto.VisitContactRequest;
 import com.domu.dto.VisitFromContactRequest;
+import com.domu.dto.QrCheckInRequest;
 import com.domu.dto.BuildingSummaryResponse;
 import com.domu.dto.IncidentRequest;
 import com.domu.dto.CommunityRegistrationDocument;
@@ -30,8 +34,14 @@ import com.domu.dto.AmenityRequest;
 import com.domu.dto.TimeSlotRequest;
 import com.domu.dto.ReservationRequest;
 import com.domu.service.AmenityService;
+import com.domu.service.BuildingAccessService;
 import com.domu.service.BuildingService;
 import com.domu.service.CommonExpenseService;
+import com.domu.service.DelinquencyService;
+import com.domu.service.FinanceExportService;
+import com.domu.service.PaymentImportService;
+import com.domu.service.PeriodGenerationService;
+import com.domu.service.PeriodSummaryService;
 import com.domu.service.VisitService;
 import com.domu.service.VisitContactService;
 import com.domu.service.IncidentService;
@@ -42,8 +52,8 @@ import com.domu.service.InvalidCredentialsException;
 import com.domu.service.UserAlreadyExistsException;
 import com.domu.service.UserService;
 import com.domu.service.ValidationException;
+import com.domu.database.PoolMetrics;
 import com.domu.database.UserBuildingRepository;
-import com.domu.database.BuildingRepository;
 import com.fasterxml.jackson.databind.ObjectMapper;
 
 import com.google.inject.Inject;
@@ -75,6 +85,11 @@ public final class WebServer {
     private final HikariDataSource dataSource;
     private final UserService userService;
     private final CommonExpenseService commonExpenseService;
+    private final PeriodGenerationService periodGenerationService;
+    private final DelinquencyService delinquencyService;
+    private final FinanceExportService financeExportService;
+    private final PeriodSummaryService periodSummaryService;
+    private final PaymentImportService paymentImportService;
     private final BuildingService buildingService;
     private final VisitService visitService;
     private final VisitContactService visitContactService;
@@ -86,9 +101,12 @@ public final class WebServer {
     private final JwtProvider jwtProvider;
     private final ObjectMapper objectMapper;
     private final UserBuildingRepository userBuildingRepository;
-    private final BuildingRepository buildingRepository;
+    private final BuildingAccessService buildingAccessService;
     private final EmailService emailService;
     private final com.domu.database.UserRepository userRepository;
+    private final AppConfig appConfig;
+    private final PoolMetrics poolMetrics;
+    private final RequestAdmissionLimiter admissionLimiter;
     private final Javalin app;
     private Integer port = -1;
 
@@ -97,6 +115,11 @@ public final class WebServer {
             final HikariDataSource dataSource,
             final UserService userService,
             final CommonExpenseService commonExpenseService,
+            final PeriodGenerationService periodGenerationService,
+            final DelinquencyService delinquencyService,
+            final FinanceExportService financeExportService,
+            final PeriodSummaryService periodSummaryService,
+            final PaymentImportService paymentImportService,
             final BuildingService buildingService,
             final VisitService visitService,
             final VisitContactService visitContactService,
@@ -108,12 +131,19 @@ public final class WebServer {
             final JwtProvider jwtProvider,
             final ObjectMapper objectMapper,
             final UserBuildingRepository userBuildingRepository,
-            final BuildingRepository buildingRepository,
+            final BuildingAccessService buildingAccessService,
             final EmailService emailService,
-            final com.domu.database.UserRepository userRepository) {
+            final com.domu.database.UserRepository userRepository,
+            final AppConfig appConfig,
+            final PoolMetrics poolMetrics) {
         this.dataSource = dataSource;
         this.userService = userService;
         this.commonExpenseService = commonExpenseService;
+        this.periodGenerationService = periodGenerationService;
+        this.delinquencyService = delinquencyService;
+        this.financeExportService = financeExportService;
+        this.periodSummaryService = periodSummaryService;
+        this.paymentImportService = paymentImportService;
         this.buildingService = buildingService;
         this.visitService = visitService;
         this.visitContactService = visitContactService;
@@ -125,9 +155,12 @@ public final class WebServer {
         this.jwtProvider = jwtProvider;
         this.objectMapper = objectMapper;
         this.userBuildingRepository = userBuildingRepository;
-        this.buildingRepository = buildingRepository;
+        this.buildingAccessService = buildingAccessService;
         this.emailService = emailService;
         this.userRepository = userRepository;
+        this.appConfig = appConfig;
+        this.poolMetrics = poolMetrics;
+        this.admissionLimiter = createAdmissionLimiter();
         this.app = createApp();
     }
 
@@ -157,15 +190,51 @@ public final class WebServer {
             config.http.defaultContentType = "application/json";
             config.http.prefer405over404 = true;
             config.showJavalinBanner = false;
+            config.useVirtualThreads = useVirtualThreads();
         });
 
         registerExceptionHandlers(javalin);
+        registerAdmissionLimiter(javalin);
         registerRoutes(javalin);
         javalin.get("/health", ctx -> ctx.result("OK"));
+        javalin.get("/metrics/requests", ctx -> ctx.json(new RequestMetricsResponse(
+                useVirtualThreads(),
+                admissionLimiter != null ? admissionLimiter.snapshot() : null)));
+        javalin.get("/metrics/pool", ctx -> ctx.json(poolMetrics.snapshot(dataSource)));
 
         return javalin;
     }
 
+    private boolean useVirtualThreads() {
+        return Boolean.TRUE.equals(appConfig.serverVirtualThreads());
+    }
+
+    /**
+     * Con virtual threads la concurrencia deja de estar acotada por el pool de
+     * Jetty, por lo que se limita según el pool de conexiones JDBC.
+     */
+    private RequestAdmissionLimiter createAdmissionLimiter() {
+        if (!useVirtualThreads()) {
+            return null;
+        }
+        Integer configured = appConfig.serverMaxConcurrentRequests();
+        int permits = configured != null && configured > 0 ? configured : dataSource.getMaximumPoolSize();
+        long timeoutMillis = appConfig.serverAdmissionTimeoutMillis() != null
+                ? appConfig.serverAdmissionTimeoutMillis()
+                : 30_000L;
+        LOGGER.info("Virtual threads habilitados; admitiendo {} requests concurrentes", permits);
+        return new RequestAdmissionLimiter(permits, timeoutMillis);
+    }
+
+    private void registerAdmissionLimiter(Javalin javalin) {
+        if (admissionLimiter == null) {
+            return;
+        }
+        // Se registra antes que la autenticación, que ya consulta la base de datos
+        javalin.before("/api/*", admissionLimiter::acquire);
+        javalin.after("/api/*", admissionLimiter::release);
+    }
+
     private void registerRoutes(Javalin javalin) {
         javalin.get("/aprobar-solicitud", ctx -> {
             String code = ctx.queryParam("code");
@@ -600,6 +669,18 @@ public final class WebServer {
             }
         });
 
+        // Períodos del edificio seleccionado con su recaudación precalculada
+        javalin.get("/api/finance/periods", ctx -> {
+            User user = ctx.attribute(AuthenticationHandler.USER_ATTRIBUTE);
+            Long selectedBuildingId = validateSelectedBuilding(ctx, user);
+            if (selectedBuildingId == null) {
+                ctx.status(HttpStatus.BAD_REQUEST);
+                ctx.json(ErrorResponse.of("Debes seleccionar un edificio", HttpStatus.BAD_REQUEST.getCode()));
+                return;
+            }
+            ctx.json(periodSummaryService.listForBuilding(user, selectedBuildingId));
+        });
+
         javalin.post("/api/finance/periods", ctx -> {
             CreateCommonExpensePeriodRequest request = validateCreatePeriod(
                     ctx.bodyValidator(CreateCommonExpensePeriodRequest.class));
@@ -607,6 +688,36 @@ public final class WebServer {
             ctx.json(commonExpenseService.createPeriod(request));
         });
 
+        javalin.post("/api/finance/periods/bulk", ctx -> {
+            User user = ctx.attribute(AuthenticationHandler.USER_ATTRIBUTE);
+            BulkPeriodGenerationRequest request = ctx.bodyAsClass(BulkPeriodGenerationRequest.class);
+            ctx.status(HttpStatus.ACCEPTED);
+            ctx.json(periodGenerationService.start(user, request));
+        });
+
+        javalin.get("/api/finance/periods/bulk/{runId}", ctx -> {
+            User user = ctx.attribute(AuthenticationHandler.USER_ATTRIBUTE);
+            ctx.json(periodGenerationService.status(user, ctx.pathParam("runId")));
+        });
+
+        javalin.post("/api/finance/periods/bulk/{runId}/retry", ctx -> {
+            User user = ctx.attribute(AuthenticationHandler.USER_ATTRIBUTE);
+            ctx.status(HttpStatus.ACCEPTED);
+            ctx.json(periodGenerationService.retryFailed(user, ctx.pathParam("runId")));
+        });
+
+        // Exportación completa del período (charges o payments) en CSV o NDJSON,
+        // escrita fila a fila desde el cursor de la base
+        javalin.get("/api/finance/periods/{periodId}/export/{dataset}", ctx -> {
+            User user = ctx.attribute(AuthenticationHandler.USER_ATTRIBUTE);
+            Long periodId = Long.parseLong(ctx.pathParam("periodId"));
+            FinanceExportService.PeriodExport export = financeExportService.prepare(
+                    user, periodId, ctx.pathParam("dataset"), ctx.queryParam("format"));
+            ctx.header("Content-Disposition", "attachment; filename=\"" + export.fileName() + "\"");
+            ctx.contentType(export.contentType());
+            export.writeTo(ctx.outputStream());
+        });
+
         javalin.post("/api/finance/periods/{periodId}/charges", ctx -> {
             Long periodId = Long.parseLong(ctx.pathParam("periodId"));
             AddCommonChargesRequest request = validateAddCharges(ctx.bodyValidator(AddCommonChargesRequest.class));
@@ -618,13 +729,76 @@ public final class WebServer {
             ctx.json(commonExpenseService.getChargesForUser(user));
         });
 
+        // Comprobante del cargo bajo demanda; los listados solo informan hasReceipt
+        javalin.get("/api/finance/charges/{chargeId}/receipt", ctx -> {
+            User user = ctx.attribute(AuthenticationHandler.USER_ATTRIBUTE);
+            Long chargeId = Long.parseLong(ctx.pathParam("chargeId"));
+            CommonExpenseService.ReceiptLookup lookup = commonExpenseService.getChargeReceipt(
+                    user, chargeId, ctx.header("If-None-Match"));
+            ctx.header("ETag", lookup.etag());
+            ctx.header("Cache-Control", "private, max-age=3600");
+            if (lookup.receipt() == null) {
+                ctx.status(HttpStatus.NOT_MODIFIED);
+                return;
+            }
+            ctx.json(lookup.receipt());
+        });
+
         javalin.post("/api/finance/charges/{chargeId}/pay", ctx -> {
             Long chargeId = Long.parseLong(ctx.pathParam("chargeId"));
             CommonPaymentRequest request = validatePayment(ctx.bodyValidator(CommonPaymentRequest.class));
+            String idempotencyKey = ctx.header("Idempotency-Key");
+            if (idempotencyKey != null && !idempotencyKey.isBlank()) {
+                request.setIdempotencyKey(idempotencyKey);
+            }
             User user = ctx.attribute(AuthenticationHandler.USER_ATTRIBUTE);
             ctx.json(commonExpenseService.payCharge(chargeId, user, request));
         });
 
+        // Importación de transferencias del banco: CSV (unidad, monto, referencia, fecha)
+        // como multipart en "file" o directo en el cuerpo; responde un reporte por línea
+        javalin.post("/api/finance/payments/import", ctx -> {
+            User user = ctx.attribute(AuthenticationHandler.USER_ATTRIBUTE);
+            Long selectedBuildingId = validateSelectedBuilding(ctx, user);
+            if (selectedBuildingId == null) {
+                ctx.status(HttpStatus.BAD_REQUEST);
+                ctx.json(ErrorResponse.of("Debes seleccionar un edificio", HttpStatus.BAD_REQUEST.getCode()));
+                return;
+            }
+            String paymentMethod = ctx.queryParam("paymentMethod");
+            if (ctx.isMultipartFormData()) {
+                UploadedFile uploaded = ctx.uploadedFile("file");
+                if (uploaded == null) {
+                    throw new ValidationException("file es requerido");
+                }
+                try (InputStream content = uploaded.content()) {
+                    ctx.json(paymentImportService.importCsv(user, selectedBuildingId, paymentMethod, content));
+                }
+            } else {
+                ctx.json(paymentImportService.importCsv(user, selectedBuildingId, paymentMethod,
+                        ctx.bodyInputStream()));
+            }
+        });
+
+        // Morosidad precalculada del edificio seleccionado, paginada y ordenable
+        javalin.get("/api/admin/delinquency", ctx -> {
+            User user = ctx.attribute(AuthenticationHandler.USER_ATTRIBUTE);
+            Long selectedBuildingId = validateSelectedBuilding(ctx, user);
+            if (selectedBuildingId == null) {
+                ctx.status(HttpStatus.BAD_REQUEST);
+                ctx.json(ErrorResponse.of("Debes seleccionar un edificio", HttpStatus.BAD_REQUEST.getCode()));
+                return;
+            }
+            ctx.json(delinquencyService.list(
+                    user,
+                    selectedBuildingId,
+                    ctx.queryParam("status"),
+                    ctx.queryParam("sort"),
+                    ctx.queryParam("direction"),
+                    parseInteger(ctx.queryParam("page"), "page"),
+                    parseInteger(ctx.queryParam("size"), "size")));
+        });
+
         javalin.post("/api/buildings/requests", ctx -> {
             CreateBuildingRequest request = parseCreateBuilding(ctx);
             CommunityRegistrationDocument document = extractRegistrationDocument(ctx);
@@ -651,13 +825,15 @@ public final class WebServer {
         javalin.get("/api/visits/my", ctx -> {
             User user = ctx.attribute(AuthenticationHandler.USER_ATTRIBUTE);
             Long selectedBuildingId = validateSelectedBuilding(ctx, user);
-            ctx.json(visitService.getVisitsForUser(user, selectedBuildingId));
+            ctx.json(visitService.getVisitsForUser(user, selectedBuildingId, ctx.queryParam("cursor"),
+                    parseInteger(ctx.queryParam("limit"), "limit")));
         });
 
         javalin.get("/api/visits/history", ctx -> {
             User user = ctx.attribute(AuthenticationHandler.USER_ATTRIBUTE);
             String search = ctx.queryParam("q");
-            ctx.json(visitService.getVisitHistory(user, search));
+            ctx.json(visitService.getVisitHistory(user, search, ctx.queryParam("cursor"),
+                    parseInteger(ctx.queryParam("limit"), "limit")));
         });
 
         javalin.post("/api/visit-contacts", ctx -> {
@@ -698,6 +874,15 @@ public final class WebServer {
             ctx.json(visitContactService.registerFromContact(user, contactId, request));
         });
 
+        javalin.post("/api/visits/check-in", ctx -> {
+            QrCheckInRequest request = ctx.bodyValidator(QrCheckInRequest.class)
+                    .check(req -> req.getQrCode() != null && !req.getQrCode().isBlank(), "qrCode es requerido")
+                    .get();
+            User user = ctx.attribute(AuthenticationHandler.USER_ATTRIBUTE);
+            Long selectedBuildingId = validateSelectedBuilding(ctx, user);
+            ctx.json(visitService.checkInByQr(user, selectedBuildingId, request.getQrCode()));
+        });
+
         javalin.post("/api/visits/{authorizationId}/check-in", ctx -> {
             Long authorizationId = Long.parseLong(ctx.pathParam("authorizationId"));
             User user = ctx.attribute(AuthenticationHandler.USER_ATTRIBUTE);
@@ -849,6 +1034,13 @@ public final class WebServer {
             ctx.json(amenityService.getAvailability(user, amenityId, date));
         });
 
+        javalin.get("/api/amenities/{amenityId}/availability/calendar", ctx -> {
+            User user = ctx.attribute(AuthenticationHandler.USER_ATTRIBUTE);
+            Long amenityId = Long.parseLong(ctx.pathParam("amenityId"));
+            ctx.json(amenityService.getAvailabilityCalendar(user, amenityId, ctx.queryParam("from"),
+                    ctx.queryParam("to")));
+        });
+
         javalin.post("/api/amenities/{amenityId}/reserve", ctx -> {
             User user = ctx.attribute(AuthenticationHandler.USER_ATTRIBUTE);
             Long amenityId = Long.parseLong(ctx.pathParam("amenityId"));
@@ -1219,7 +1411,7 @@ public final class WebServer {
 
     private Long resolveActiveBuildingId(User user, java.util.List<BuildingSummaryResponse> buildings) {
         if (user != null && user.unitId() != null) {
-            Long buildingId = buildingRepository.findBuildingIdByUnitId(user.unitId());
+            Long buildingId = buildingAccessService.buildingIdForUnit(user.unitId());
             if (buildingId != null) {
                 return buildingId;
             }
@@ -1251,23 +1443,13 @@ public final class WebServer {
             return null;
         }
 
-        // Verificar acceso directo por tabla user_buildings
-        boolean hasAccess = userBuildingRepository.userHasAccessToBuilding(user.id(), selectedBuildingId);
-        if (hasAccess) {
-            LOGGER.debug("Usuario {} tiene acceso al edificio {} vía user_buildings", user.id(), selectedBuildingId);
+        // Acceso directo (user_buildings) o indirecto (unidad del usuario), ambos
+        // resueltos desde la caché de BuildingAccessService
+        if (buildingAccessService.hasAccess(user, selectedBuildingId)) {
+            LOGGER.debug("Usuario {} tiene acceso al edificio {}", user.id(), selectedBuildingId);
             return selectedBuildingId;
         }
 
-        // Verificar acceso indirecto por unidad del usuario
-        if (user.unitId() != null) {
-            Long userBuildingId = buildingRepository.findBuildingIdByUnitId(user.unitId());
-            if (selectedBuildingId.equals(userBuildingId)) {
-                LOGGER.debug("Usuario {} tiene acceso al edificio {} vía unidad {}", user.id(), selectedBuildingId,
-                        user.unitId());
-                return selectedBuildingId;
-            }
-        }
-
         LOGGER.warn("Usuario {} NO tiene acceso al edificio {}. Header X-Building-Id: {}",
                 user.id(), selectedBuildingId, headerValue);
         return null;
@@ -0,0 +1,23 @@
+-- Unicidad de reservas solo para las activas (CONFIRMED)
+-- uq_reservation_slot_date incluía status, así que dos reservas canceladas del mismo
+-- bloque y fecha chocaban entre sí, y la restricción no expresaba "una reserva
+-- confirmada por bloque y fecha". Se reemplaza por una columna generada que solo
+-- tiene valor mientras la reserva está confirmada; los NULL no compiten en el índice único.
+
+-- Paso 1: Columna generada con el bloque horario de las reservas confirmadas
+ALTER TABLE amenity_reservations
+  ADD COLUMN active_time_slot_id BIGINT
+    GENERATED ALWAYS AS (IF(status = 'CONFIRMED', time_slot_id, NULL)) STORED
+    COMMENT 'time_slot_id mientras la reserva está confirmada; NULL en otro caso';
+
+-- Paso 2: Índice para la FK de time_slot_id y las consultas por bloque y fecha
+-- (debe existir antes de eliminar uq_reservation_slot_date, que cumplía ese rol)
+ALTER TABLE amenity_reservations
+  ADD KEY idx_reservations_slot_date (time_slot_id, reservation_date);
+
+-- Paso 3: Reemplazar la restricción anterior
+ALTER TABLE amenity_reservations
+  DROP INDEX uq_reservation_slot_date;
+
+ALTER TABLE amenity_reservations
+  ADD CONSTRAINT uq_reservation_active_slot UNIQUE (active_time_slot_id, reservation_date);
@@ -0,0 +1,4 @@
+-- Índice para consultar las reservas confirmadas de un área común en un rango de
+-- fechas (calendario de disponibilidad) sin leer las filas de la tabla.
+ALTER TABLE amenity_reservations
+  ADD KEY idx_reservations_amenity_date (amenity_id, reservation_date, status, time_slot_id);
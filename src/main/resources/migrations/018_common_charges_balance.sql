@@ -0,0 +1,20 @@
+-- Saldo materializado por cargo de gasto común
+-- paid_amount se actualiza en la misma transacción que inserta el pago, así las
+-- lecturas de saldo no necesitan sumar common_payments. balance se deriva de
+-- amount y paid_amount.
+
+-- Paso 1: Columnas de saldo
+ALTER TABLE common_charges
+  ADD COLUMN paid_amount DECIMAL(12, 2) NOT NULL DEFAULT 0 COMMENT 'Suma de common_payments del cargo';
+
+ALTER TABLE common_charges
+  ADD COLUMN balance DECIMAL(12, 2) GENERATED ALWAYS AS (amount - paid_amount) STORED COMMENT 'Saldo pendiente';
+
+-- Paso 2: Poblar paid_amount con los pagos existentes
+UPDATE common_charges c
+JOIN (
+    SELECT charge_id, SUM(amount) AS paid
+    FROM common_payments
+    GROUP BY charge_id
+) pay ON pay.charge_id = c.id
+SET c.paid_amount = pay.paid;
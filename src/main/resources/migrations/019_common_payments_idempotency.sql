@@ -0,0 +1,13 @@
+-- Pagos idempotentes de gastos comunes
+-- Un cliente que reintenta el mismo pago envía la misma clave (header Idempotency-Key);
+-- el pago ya registrado se devuelve en lugar de insertar otro. balance_after guarda
+-- el saldo que quedó tras el pago para responder igual en cada reintento.
+
+ALTER TABLE common_payments
+  ADD COLUMN idempotency_key VARCHAR(64) NULL COMMENT 'Clave enviada por el cliente para reintentos seguros';
+
+ALTER TABLE common_payments
+  ADD COLUMN balance_after DECIMAL(12, 2) NULL COMMENT 'Saldo del cargo después de este pago';
+
+ALTER TABLE common_payments
+  ADD CONSTRAINT uq_payment_idempotency UNIQUE (user_id, idempotency_key);
@@ -0,0 +1,21 @@
+-- Cálculo incremental de morosidad
+-- El job de morosidad solo recalcula los períodos cuyos cargos cambiaron desde
+-- su última ejecución (common_charges.updated_at), los que vencieron desde
+-- entonces y, una vez al día, los que ya estaban morosos para actualizar
+-- days_delinquent.
+
+-- Paso 1: Marca de modificación en los cargos (paid_amount la actualiza en cada pago)
+ALTER TABLE common_charges
+  ADD COLUMN updated_at TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP ON UPDATE CURRENT_TIMESTAMP;
+
+CREATE INDEX idx_charges_updated_period ON common_charges (updated_at, period_id);
+
+-- Paso 2: Avance de los jobs incrementales
+CREATE TABLE IF NOT EXISTS job_watermarks (
+    job_name VARCHAR(64) PRIMARY KEY,
+    processed_until TIMESTAMP NOT NULL
+) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4 COLLATE=utf8mb4_unicode_ci;
+
+-- Paso 3: Índices para el listado de morosidad y el refresco diario
+CREATE INDEX idx_delinquency_period ON delinquency_records (period_id, status);
+CREATE INDEX idx_delinquency_status_days ON delinquency_records (status, days_delinquent);
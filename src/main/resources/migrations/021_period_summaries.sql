@@ -0,0 +1,47 @@
+-- Resumen de recaudación por período
+-- period_unit_balances acumula lo cobrado y lo pagado por unidad en cada
+-- período y period_summaries los totales y conteos de unidades pagadas,
+-- parciales y pendientes. Ambas se actualizan en la misma transacción que
+-- inserta cargos o pagos; el comando rebuild-period-summaries las regenera
+-- desde common_charges.
+
+-- Paso 1: Saldos por unidad y período
+CREATE TABLE IF NOT EXISTS period_unit_balances (
+    period_id BIGINT NOT NULL,
+    unit_id BIGINT NOT NULL,
+    charged_amount DECIMAL(12, 2) NOT NULL DEFAULT 0,
+    paid_amount DECIMAL(12, 2) NOT NULL DEFAULT 0,
+    PRIMARY KEY (period_id, unit_id),
+    CONSTRAINT fk_period_unit_balance_period FOREIGN KEY (period_id) REFERENCES common_expense_periods (id),
+    CONSTRAINT fk_period_unit_balance_unit FOREIGN KEY (unit_id) REFERENCES housing_units (id)
+) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4 COLLATE=utf8mb4_unicode_ci;
+
+-- Paso 2: Totales por período
+CREATE TABLE IF NOT EXISTS period_summaries (
+    period_id BIGINT PRIMARY KEY,
+    charged_amount DECIMAL(14, 2) NOT NULL DEFAULT 0,
+    collected_amount DECIMAL(14, 2) NOT NULL DEFAULT 0,
+    units_paid INT NOT NULL DEFAULT 0,
+    units_partial INT NOT NULL DEFAULT 0,
+    units_pending INT NOT NULL DEFAULT 0,
+    updated_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP ON UPDATE CURRENT_TIMESTAMP,
+    CONSTRAINT fk_period_summary_period FOREIGN KEY (period_id) REFERENCES common_expense_periods (id)
+) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4 COLLATE=utf8mb4_unicode_ci;
+
+-- Paso 3: Poblar con los cargos existentes
+INSERT INTO period_unit_balances (period_id, unit_id, charged_amount, paid_amount)
+SELECT period_id, unit_id, SUM(amount), SUM(paid_amount)
+FROM common_charges
+WHERE unit_id IS NOT NULL
+GROUP BY period_id, unit_id;
+
+INSERT INTO period_summaries (period_id, charged_amount, collected_amount, units_paid, units_partial, units_pending)
+SELECT p.id,
+       COALESCE(SUM(b.charged_amount), 0),
+       COALESCE(SUM(b.paid_amount), 0),
+       COALESCE(SUM(b.charged_amount > 0 AND b.paid_amount >= b.charged_amount), 0),
+       COALESCE(SUM(b.paid_amount > 0 AND b.paid_amount < b.charged_amount), 0),
+       COALESCE(SUM(b.charged_amount > 0 AND b.paid_amount <= 0), 0)
+FROM common_expense_periods p
+LEFT JOIN period_unit_balances b ON b.period_id = p.id
+GROUP BY p.id;
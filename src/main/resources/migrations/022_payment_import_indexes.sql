@@ -0,0 +1,10 @@
+-- Índices para la importación masiva de pagos
+-- La importación resuelve las unidades por número dentro del edificio y
+-- detecta referencias ya registradas por unidad, ambas con una consulta IN por
+-- bloque de líneas.
+
+-- Paso 1: Unidades por edificio y número
+CREATE INDEX idx_housing_units_building_number ON housing_units (building_id, number);
+
+-- Paso 2: Referencias de pago por unidad
+CREATE INDEX idx_payments_unit_reference ON common_payments (unit_id, reference);
@@ -0,0 +1,18 @@
+-- Hora de ingreso materializada en la autorización de visita
+-- checked_in_at se escribe en la misma transacción que inserta el registro
+-- CHECK_IN en visit_access_logs, así los listados de visitas no necesitan
+-- agrupar toda la tabla de registros de acceso.
+
+-- Paso 1: Columna de ingreso
+ALTER TABLE visit_authorizations
+  ADD COLUMN checked_in_at DATETIME NULL COMMENT 'Último CHECK_IN registrado en visit_access_logs';
+
+-- Paso 2: Poblar checked_in_at con los ingresos existentes
+UPDATE visit_authorizations va
+JOIN (
+    SELECT authorization_id, MAX(recorded_at) AS check_in_at
+    FROM visit_access_logs
+    WHERE outcome = 'CHECK_IN' AND authorization_id IS NOT NULL
+    GROUP BY authorization_id
+) ci ON ci.authorization_id = va.id
+SET va.checked_in_at = ci.check_in_at;
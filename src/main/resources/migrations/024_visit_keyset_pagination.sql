@@ -0,0 +1,20 @@
+-- Paginación por cursor de visitas
+-- Los listados de visitas se recorren por (created_at, id) descendente. El
+-- edificio se copia en la autorización para que el listado del conserje use un
+-- único índice en vez de unir housing_units y ordenar todas las visitas del
+-- edificio.
+
+-- Paso 1: Edificio de la autorización
+ALTER TABLE visit_authorizations
+  ADD COLUMN building_id BIGINT NULL COMMENT 'Edificio de unit_id al crear la autorización';
+
+UPDATE visit_authorizations va
+JOIN housing_units hu ON hu.id = va.unit_id
+SET va.building_id = hu.building_id;
+
+-- Paso 2: Índices de los listados
+CREATE INDEX idx_visit_auth_building_created ON visit_authorizations (building_id, created_at, id);
+CREATE INDEX idx_visit_auth_resident_created ON visit_authorizations (resident_user_id, created_at, id);
+
+-- idx_visit_auth_resident queda cubierto por el índice compuesto
+DROP INDEX idx_visit_auth_resident ON visit_authorizations;
@@ -0,0 +1,26 @@
+-- Claves normalizadas para buscar visitantes
+-- La búsqueda por nombre o RUT aplicaba LOWER/REPLACE sobre cada fila, lo que
+-- impedía usar índices. Las claves se calculan en la aplicación
+-- (VisitorSearchKeys) al insertar; las filas existentes las completa el job
+-- visitor-search-backfill, que busca las que tienen visitor_name_norm en NULL.
+
+-- Paso 1: Columnas en visits
+ALTER TABLE visits
+  ADD COLUMN visitor_name_norm VARCHAR(150) NULL COMMENT 'Nombre en minúsculas, sin tildes ni signos',
+  ADD COLUMN visitor_document_norm VARCHAR(20) NULL COMMENT 'Documento solo con dígitos y letras en mayúsculas';
+
+CREATE INDEX idx_visits_name_norm ON visits (visitor_name_norm(40));
+CREATE INDEX idx_visits_document_norm ON visits (visitor_document_norm);
+
+-- Paso 2: Columnas en visit_contacts
+ALTER TABLE visit_contacts
+  ADD COLUMN visitor_name_norm VARCHAR(150) NULL COMMENT 'Nombre en minúsculas, sin tildes ni signos',
+  ADD COLUMN visitor_document_norm VARCHAR(20) NULL COMMENT 'Documento solo con dígitos y letras en mayúsculas';
+
+CREATE INDEX idx_visit_contacts_owner_name_norm ON visit_contacts (resident_user_id, visitor_name_norm(40));
+CREATE INDEX idx_visit_contacts_owner_document_norm ON visit_contacts (resident_user_id, visitor_document_norm);
+
+-- Las búsquedas ya no filtran por el documento crudo y resident_user_id queda
+-- cubierto por los índices compuestos
+DROP INDEX idx_visit_contacts_document ON visit_contacts;
+DROP INDEX idx_visit_contacts_owner ON visit_contacts;
@@ -0,0 +1,10 @@
+-- Ingreso de visitas por código QR
+-- Cada autorización nueva recibe un código aleatorio en qr_hash. El conserje lo
+-- escanea y el ingreso se busca por ese código dentro del edificio; las
+-- autorizaciones del día de cada edificio se cargan de una vez en memoria.
+
+-- Paso 1: Código único (las filas antiguas quedan en NULL, que no choca)
+CREATE UNIQUE INDEX uix_visit_auth_qr_hash ON visit_authorizations (qr_hash);
+
+-- Paso 2: Autorizaciones vigentes en el día por edificio
+CREATE INDEX idx_visit_auth_building_valid_until ON visit_authorizations (building_id, valid_until);
@@ -0,0 +1,51 @@
+-- Palabras del nombre de los visitantes para buscar por cualquiera de ellas
+-- Con visitor_name_norm LIKE 'clave%' solo coincidía la primera palabra, así que
+-- buscar por apellido no encontraba nada. Cada palabra de la clave normalizada
+-- (VisitorSearchKeys.nameTokens) se guarda como una fila y la búsqueda usa el
+-- prefijo sobre la palabra. Las filas se escriben en la misma transacción que la
+-- visita o el contacto y el job visitor-search-backfill las completa para las
+-- filas que aún no tienen clave.
+
+-- Paso 1: Palabras de visitas
+CREATE TABLE IF NOT EXISTS visit_name_tokens (
+    visit_id BIGINT NOT NULL,
+    token VARCHAR(40) NOT NULL,
+    PRIMARY KEY (token, visit_id),
+    KEY idx_visit_name_tokens_visit (visit_id),
+    CONSTRAINT fk_visit_name_tokens_visit FOREIGN KEY (visit_id) REFERENCES visits(id) ON DELETE CASCADE
+);
+
+-- Paso 2: Palabras de contactos, por residente
+CREATE TABLE IF NOT EXISTS visit_contact_name_tokens (
+    contact_id BIGINT NOT NULL,
+    resident_user_id BIGINT NOT NULL,
+    token VARCHAR(40) NOT NULL,
+    PRIMARY KEY (resident_user_id, token, contact_id),
+    KEY idx_visit_contact_name_tokens_contact (contact_id),
+    CONSTRAINT fk_visit_contact_name_tokens_contact FOREIGN KEY (contact_id) REFERENCES visit_contacts(id)
+        ON DELETE CASCADE
+);
+
+-- Paso 3: Palabras de las filas que ya tienen clave (la clave solo tiene letras,
+-- dígitos y espacios simples, así que se puede partir como arreglo JSON)
+INSERT IGNORE INTO visit_name_tokens (visit_id, token)
+SELECT v.id, LEFT(t.token, 40)
+FROM visits v,
+     JSON_TABLE(CONCAT('["', REPLACE(v.visitor_name_norm, ' ', '","'), '"]'), '$[*]'
+                COLUMNS (token VARCHAR(150) PATH '$')) t
+WHERE v.visitor_name_norm IS NOT NULL;
+
+INSERT IGNORE INTO visit_contact_name_tokens (contact_id, resident_user_id, token)
+SELECT c.id, c.resident_user_id, LEFT(t.token, 40)
+FROM visit_contacts c,
+     JSON_TABLE(CONCAT('["', REPLACE(c.visitor_name_norm, ' ', '","'), '"]'), '$[*]'
+                COLUMNS (token VARCHAR(150) PATH '$')) t
+WHERE c.visitor_name_norm IS NOT NULL;
+
+-- Paso 4: visitor_name_norm ya no se busca por prefijo; queda como marca de
+-- claves calculadas y basta un índice mínimo para que el backfill encuentre las
+-- filas en NULL
+DROP INDEX idx_visits_name_norm ON visits;
+DROP INDEX idx_visit_contacts_owner_name_norm ON visit_contacts;
+CREATE INDEX idx_visits_name_norm ON visits (visitor_name_norm(1));
+CREATE INDEX idx_visit_contacts_name_norm ON visit_contacts (visitor_name_norm(1));
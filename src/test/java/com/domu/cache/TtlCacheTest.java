@@ -0,0 +1,100 @@
+package com.domu.cache;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class TtlCacheTest {
+
+    private final AtomicLong now = new AtomicLong();
+    private final AtomicInteger loads = new AtomicInteger();
+
+    @Test
+    void itShouldServeCachedValuesUntilTheyExpire() {
+        TtlCache<Long, String> cache = new TtlCache<>(Duration.ofSeconds(10), 10, now::get);
+
+        assertThat(cache.get(1L, this::load)).isEqualTo("value-1");
+        assertThat(cache.get(1L, this::load)).isEqualTo("value-1");
+        assertThat(loads).hasValue(1);
+
+        now.addAndGet(Duration.ofSeconds(11).toNanos());
+
+        assertThat(cache.get(1L, this::load)).isEqualTo("value-1");
+        assertThat(loads).hasValue(2);
+    }
+
+    @Test
+    void itShouldEvictLeastRecentlyUsedEntries() {
+        TtlCache<Long, String> cache = new TtlCache<>(Duration.ofMinutes(1), 2, now::get);
+        cache.put(1L, "a");
+        cache.put(2L, "b");
+        cache.getIfPresent(1L);
+        cache.put(3L, "c");
+
+        assertThat(cache.getIfPresent(1L)).contains("a");
+        assertThat(cache.getIfPresent(2L)).isEmpty();
+        assertThat(cache.getIfPresent(3L)).contains("c");
+    }
+
+    @Test
+    void itShouldNotStoreValuesLoadedAcrossAnInvalidation() {
+        TtlCache<Long, String> cache = new TtlCache<>(Duration.ofMinutes(1), 10, now::get);
+
+        String loaded = cache.get(1L, key -> {
+            cache.invalidate(key);
+            return "stale";
+        });
+
+        assertThat(loaded).isEqualTo("stale");
+        assertThat(cache.getIfPresent(1L)).isEmpty();
+    }
+
+    @Test
+    void itShouldUpdateCachedValuesInPlaceWithoutExtendingTheirTtl() {
+        TtlCache<Long, String> cache = new TtlCache<>(Duration.ofSeconds(10), 10, now::get);
+        cache.put(1L, "a");
+        now.addAndGet(Duration.ofSeconds(6).toNanos());
+
+        cache.update(1L, value -> value + "b");
+        cache.update(2L, value -> value + "b");
+
+        assertThat(cache.getIfPresent(1L)).contains("ab");
+        assertThat(cache.getIfPresent(2L)).isEmpty();
+
+        now.addAndGet(Duration.ofSeconds(5).toNanos());
+
+        assertThat(cache.getIfPresent(1L)).isEmpty();
+    }
+
+    @Test
+    void itShouldNotStoreValuesLoadedAcrossAnUpdate() {
+        TtlCache<Long, String> cache = new TtlCache<>(Duration.ofMinutes(1), 10, now::get);
+
+        cache.get(1L, key -> {
+            cache.update(key, value -> value + "b");
+            return "stale";
+        });
+
+        assertThat(cache.getIfPresent(1L)).isEmpty();
+    }
+
+    @Test
+    void itShouldBypassStorageWhenDisabled() {
+        TtlCache<Long, String> cache = new TtlCache<>(Duration.ZERO, 10, now::get);
+
+        cache.get(1L, this::load);
+        cache.get(1L, this::load);
+
+        assertThat(loads).hasValue(2);
+        assertThat(cache.size()).isZero();
+    }
+
+    private String load(Long key) {
+        loads.incrementAndGet();
+        return "value-" + key;
+    }
+}
@@ -0,0 +1,106 @@
+package com.domu.database;
+
+import com.domu.database.CommonExpenseRepository.PaymentImportLine;
+import com.domu.database.CommonExpenseRepository.PaymentImportOutcome;
+import com.domu.database.CommonExpenseRepository.PaymentImportStatus;
+
+import org.junit.jupiter.api.Test;
+
+import javax.sql.DataSource;
+import java.math.BigDecimal;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * Una segunda importación del mismo archivo no debe volver a registrar sus
+ * referencias: importPayments bloquea los cargos antes de leer las referencias y
+ * las lee con FOR SHARE, así que ve los pagos que otra importación concurrente
+ * confirmó mientras esta esperaba los locks.
+ */
+class CommonExpenseRepositoryImportTest {
+
+    private static final Long BUILDING_ID = 1L;
+    private static final Long UNIT_ID = 10L;
+
+    private final List<String> statements = new ArrayList<>();
+    private final List<Map<String, Object>> recordedReferences = new ArrayList<>();
+
+    @Test
+    void referencesShouldBeReadWithALockAfterTheChargesAreLocked() throws SQLException {
+        recordedReferences.add(Map.of("unit_id", UNIT_ID, "reference", "TRX-1"));
+
+        List<PaymentImportOutcome> outcomes = repository().importPayments(BUILDING_ID, 9L, "TRANSFER", List.of(
+                new PaymentImportLine(1, "101", BigDecimal.valueOf(50), "TRX-1", LocalDate.of(2025, 4, 5)),
+                new PaymentImportLine(2, "101", BigDecimal.valueOf(50), "TRX-1", LocalDate.of(2025, 4, 5))));
+
+        assertThat(outcomes).extracting(PaymentImportOutcome::status).containsOnly(
+                PaymentImportStatus.DUPLICATE_REFERENCE);
+        int lockIndex = indexOf("FOR UPDATE OF c");
+        int referencesIndex = indexOf("FROM common_payments");
+        assertThat(lockIndex).isNotNegative().isLessThan(referencesIndex);
+        assertThat(statements.get(referencesIndex)).contains("FOR SHARE");
+        assertThat(statements).noneMatch(sql -> sql.contains("INSERT INTO common_payments"));
+    }
+
+    private int indexOf(String fragment) {
+        for (int i = 0; i < statements.size(); i++) {
+            if (statements.get(i).contains(fragment)) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    private CommonExpenseRepository repository() throws SQLException {
+        Connection connection = mock(Connection.class);
+        when(connection.prepareStatement(anyString())).thenAnswer(invocation -> statement(invocation.getArgument(0)));
+        DataSource dataSource = mock(DataSource.class);
+        when(dataSource.getConnection()).thenReturn(connection);
+        return new CommonExpenseRepository(dataSource);
+    }
+
+    private PreparedStatement statement(String sql) throws SQLException {
+        statements.add(sql);
+        List<Map<String, Object>> rows;
+        if (sql.contains("FROM housing_units")) {
+            rows = List.of(Map.of("id", UNIT_ID, "number", "101"));
+        } else if (sql.contains("FOR UPDATE OF c")) {
+            rows = List.of(Map.of("id", 100L, "period_id", 5L, "unit_id", UNIT_ID, "pending", BigDecimal.valueOf(500)));
+        } else if (sql.contains("FROM common_payments")) {
+            rows = recordedReferences;
+        } else {
+            rows = List.of();
+        }
+        PreparedStatement statement = mock(PreparedStatement.class);
+        when(statement.executeQuery()).thenAnswer(invocation -> resultSet(rows));
+        return statement;
+    }
+
+    private static ResultSet resultSet(List<Map<String, Object>> rows) throws SQLException {
+        Iterator<Map<String, Object>> iterator = rows.iterator();
+        AtomicReference<Map<String, Object>> current = new AtomicReference<>();
+        ResultSet rs = mock(ResultSet.class);
+        when(rs.next()).thenAnswer(invocation -> {
+            current.set(iterator.hasNext() ? iterator.next() : null);
+            return current.get() != null;
+        });
+        when(rs.getLong(anyString())).thenAnswer(invocation -> current.get().get(invocation.<String>getArgument(0)));
+        when(rs.getString(anyString())).thenAnswer(invocation -> current.get().get(invocation.<String>getArgument(0)));
+        when(rs.getBigDecimal(anyString()))
+                .thenAnswer(invocation -> current.get().get(invocation.<String>getArgument(0)));
+        return rs;
+    }
+}
@@ -0,0 +1,101 @@
+package com.domu.database;
+
+import com.domu.database.CommonExpenseRepository.PaymentOutcome;
+import com.domu.database.CommonExpenseRepository.PaymentResult;
+import com.domu.domain.finance.CommonPayment;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import javax.sql.DataSource;
+import java.math.BigDecimal;
+import java.sql.Connection;
+import java.sql.Date;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * Un reintento con la misma Idempotency-Key devuelve el pago ya registrado;
+ * la misma clave con otro cargo, otra unidad u otro monto se rechaza.
+ */
+class PaymentIdempotencyTest {
+
+    private static final String KEY = "pago-abril";
+    private static final Long USER_ID = 9L;
+    private static final LocalDate ISSUED_AT = LocalDate.of(2025, 4, 5);
+
+    private final List<String> statements = new ArrayList<>();
+    private CommonExpenseRepository repository;
+
+    @BeforeEach
+    void setUp() throws SQLException {
+        Connection connection = mock(Connection.class);
+        when(connection.prepareStatement(anyString())).thenAnswer(invocation -> statement(invocation.getArgument(0)));
+        when(connection.prepareStatement(anyString(), anyInt()))
+                .thenAnswer(invocation -> statement(invocation.getArgument(0)));
+        DataSource dataSource = mock(DataSource.class);
+        when(dataSource.getConnection()).thenReturn(connection);
+        repository = new CommonExpenseRepository(dataSource);
+    }
+
+    @Test
+    void theSameRequestShouldBeReplayed() {
+        PaymentResult result = repository.recordPayment(payment(10L, 100L, 40), KEY);
+
+        assertThat(result.outcome()).isEqualTo(PaymentOutcome.REPLAYED);
+        assertThat(result.payment().id()).isEqualTo(77L);
+        assertThat(result.pending()).isEqualByComparingTo(BigDecimal.valueOf(60));
+        assertThat(statements).noneMatch(sql -> sql.contains("INSERT INTO common_payments"));
+    }
+
+    @Test
+    void anotherAmountChargeOrUnitShouldReportTheKeyAsReused() {
+        assertThat(repository.recordPayment(payment(10L, 100L, 45), KEY).outcome())
+                .isEqualTo(PaymentOutcome.KEY_REUSED);
+        assertThat(repository.recordPayment(payment(10L, 101L, 40), KEY).outcome())
+                .isEqualTo(PaymentOutcome.KEY_REUSED);
+        assertThat(repository.recordPayment(payment(11L, 100L, 40), KEY).outcome())
+                .isEqualTo(PaymentOutcome.KEY_REUSED);
+        assertThat(statements).noneMatch(sql -> sql.contains("INSERT INTO common_payments"));
+    }
+
+    private static CommonPayment payment(Long unitId, Long chargeId, long amount) {
+        return new CommonPayment(null, unitId, chargeId, USER_ID, ISSUED_AT, BigDecimal.valueOf(amount), "CARD",
+                null, "CONFIRMED", null);
+    }
+
+    private PreparedStatement statement(String sql) throws SQLException {
+        statements.add(sql);
+        PreparedStatement statement = mock(PreparedStatement.class);
+        ResultSet rs = mock(ResultSet.class);
+        when(rs.next()).thenReturn(true, false);
+        if (sql.contains("FROM common_charges")) {
+            when(rs.getLong("period_id")).thenReturn(1L);
+            when(rs.getObject("unit_id", Long.class)).thenReturn(10L);
+            when(rs.getBigDecimal("amount")).thenReturn(BigDecimal.valueOf(100));
+            when(rs.getBigDecimal("paid_amount")).thenReturn(BigDecimal.valueOf(40));
+        } else if (sql.contains("idempotency_key = ?")) {
+            // Pago ya registrado con la clave: 40 al cargo 100 de la unidad 10
+            when(rs.getLong("id")).thenReturn(77L);
+            when(rs.getLong("unit_id")).thenReturn(10L);
+            when(rs.getLong("charge_id")).thenReturn(100L);
+            when(rs.getObject("user_id")).thenReturn(USER_ID);
+            when(rs.getDate("issued_at")).thenReturn(Date.valueOf(ISSUED_AT));
+            when(rs.getBigDecimal("amount")).thenReturn(BigDecimal.valueOf(40));
+            when(rs.getString("status")).thenReturn("CONFIRMED");
+            when(rs.getBigDecimal("balance_after")).thenReturn(BigDecimal.valueOf(60));
+        }
+        when(statement.executeQuery()).thenReturn(rs);
+        return statement;
+    }
+}
@@ -0,0 +1,183 @@
+package com.domu.database;
+
+import com.domu.database.CommonExpenseRepository.PaymentImportLine;
+import com.domu.database.CommonExpenseRepository.PaymentImportOutcome;
+import com.domu.database.CommonExpenseRepository.PaymentImportStatus;
+import com.domu.database.PaymentImportPlan.OpenCharge;
+import com.domu.database.PaymentImportPlan.PlannedPayment;
+import com.domu.domain.finance.CommonPayment;
+
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.ArrayDeque;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class PaymentImportPlanTest {
+
+    private static final Long USER_ID = 9L;
+    private static final LocalDate ISSUED_AT = LocalDate.of(2025, 4, 5);
+
+    private final Map<String, List<Long>> unitsByNumber = new HashMap<>(Map.of(
+            "101", List.of(1L),
+            "102", List.of(2L),
+            "A1", List.of(3L, 4L)));
+    private final Set<String> existingReferences = new HashSet<>();
+    private final Map<Long, ArrayDeque<OpenCharge>> openCharges = new HashMap<>();
+
+    @Test
+    void paymentsShouldCoverTheOldestChargesFirst() {
+        openCharges.put(1L, charges(new OpenCharge(10L, 100L, amount(100)), new OpenCharge(11L, 101L, amount(50))));
+
+        PaymentImportPlan plan = build(line(1, "101", 120, null));
+
+        assertThat(plan.outcomes()).singleElement()
+                .satisfies(outcome -> assertThat(outcome.status()).isEqualTo(PaymentImportStatus.RECORDED));
+        List<PlannedPayment> payments = plan.payments();
+        assertThat(payments).extracting(p -> p.payment().chargeId()).containsExactly(10L, 11L);
+        assertThat(payments).extracting(PlannedPayment::periodId).containsExactly(100L, 101L);
+        assertThat(payments.get(0).payment().amount()).isEqualByComparingTo(amount(100));
+        assertThat(payments.get(0).balanceAfter()).isEqualByComparingTo(amount(0));
+        assertThat(payments.get(1).payment().amount()).isEqualByComparingTo(amount(20));
+        assertThat(payments.get(1).balanceAfter()).isEqualByComparingTo(amount(30));
+        assertThat(openCharges.get(1L)).singleElement()
+                .satisfies(charge -> assertThat(charge.pending()).isEqualByComparingTo(amount(30)));
+    }
+
+    @Test
+    void aLineAboveThePendingBalanceShouldNotBeAllocated() {
+        openCharges.put(1L, charges(new OpenCharge(10L, 100L, amount(100)), new OpenCharge(11L, 101L, amount(50))));
+
+        PaymentImportPlan plan = build(
+                line(1, "101", 151, null),
+                line(2, "101", 120, null),
+                line(3, "101", 31, null),
+                line(4, "101", 30, null));
+
+        assertThat(plan.outcomes()).extracting(PaymentImportOutcome::status).containsExactly(
+                PaymentImportStatus.EXCEEDS_BALANCE,
+                PaymentImportStatus.RECORDED,
+                PaymentImportStatus.EXCEEDS_BALANCE,
+                PaymentImportStatus.RECORDED);
+        assertThat(plan.outcomes().get(0).payments()).isEmpty();
+        assertThat(plan.outcomes().get(2).payments()).isEmpty();
+        assertThat(openCharges.get(1L)).isEmpty();
+    }
+
+    @Test
+    void aReferenceShouldOnlyBeRecordedOncePerUnit() {
+        openCharges.put(1L, charges(new OpenCharge(10L, 100L, amount(500))));
+        openCharges.put(2L, charges(new OpenCharge(20L, 100L, amount(500))));
+        existingReferences.add(PaymentImportPlan.referenceKey(1L, "TRX-OLD"));
+
+        PaymentImportPlan plan = build(
+                line(1, "101", 900, "TRX-1"),
+                line(2, "101", 50, "TRX-1"),
+                line(3, "101", 50, "TRX-1"),
+                line(4, "101", 50, "TRX-OLD"),
+                line(5, "102", 50, "TRX-1"),
+                line(6, "101", 10, null),
+                line(7, "101", 10, null));
+
+        assertThat(plan.outcomes()).extracting(PaymentImportOutcome::status).containsExactly(
+                PaymentImportStatus.EXCEEDS_BALANCE,
+                PaymentImportStatus.RECORDED,
+                PaymentImportStatus.DUPLICATE_REFERENCE,
+                PaymentImportStatus.DUPLICATE_REFERENCE,
+                PaymentImportStatus.RECORDED,
+                PaymentImportStatus.RECORDED,
+                PaymentImportStatus.RECORDED);
+        assertThat(existingReferences).contains(
+                PaymentImportPlan.referenceKey(1L, "TRX-1"),
+                PaymentImportPlan.referenceKey(2L, "TRX-1"));
+    }
+
+    @Test
+    void aSecondImportOfTheSameFileShouldOnlyReportDuplicates() {
+        openCharges.put(1L, charges(new OpenCharge(10L, 100L, amount(500))));
+        PaymentImportPlan first = build(line(1, "101", 100, "TRX-1"), line(2, "101", 100, "TRX-2"));
+
+        // La segunda importación parte de las referencias que la primera registró y del saldo que dejó
+        PaymentImportPlan second = build(line(1, "101", 100, "TRX-1"), line(2, "101", 100, "TRX-2"));
+
+        assertThat(first.outcomes()).extracting(PaymentImportOutcome::status)
+                .containsOnly(PaymentImportStatus.RECORDED);
+        assertThat(second.outcomes()).extracting(PaymentImportOutcome::status)
+                .containsOnly(PaymentImportStatus.DUPLICATE_REFERENCE);
+        assertThat(second.payments()).isEmpty();
+        assertThat(openCharges.get(1L)).singleElement()
+                .satisfies(charge -> assertThat(charge.pending()).isEqualByComparingTo(amount(300)));
+    }
+
+    @Test
+    void linesThatCannotBeResolvedShouldReportWhy() {
+        PaymentImportPlan plan = build(
+                line(1, "999", 10, null),
+                line(2, " a1 ", 10, null),
+                line(3, "102", 10, null));
+
+        assertThat(plan.outcomes()).extracting(PaymentImportOutcome::status).containsExactly(
+                PaymentImportStatus.UNIT_NOT_FOUND,
+                PaymentImportStatus.AMBIGUOUS_UNIT,
+                PaymentImportStatus.NO_OPEN_CHARGES);
+        assertThat(plan.outcomes()).extracting(PaymentImportOutcome::unitId).containsExactly(null, null, 2L);
+        assertThat(plan.payments()).isEmpty();
+    }
+
+    @Test
+    void generatedIdsShouldBeMappedBackToTheirLines() {
+        openCharges.put(1L, charges(new OpenCharge(10L, 100L, amount(100)), new OpenCharge(11L, 101L, amount(50))));
+        openCharges.put(2L, charges(new OpenCharge(20L, 100L, amount(80))));
+
+        PaymentImportPlan plan = build(
+                line(1, "101", 120, "TRX-1"),
+                line(2, "999", 10, null),
+                line(3, "102", 80, "TRX-2"));
+        plan.assignIds(List.of(501L, 502L, 503L).iterator());
+
+        List<PaymentImportOutcome> outcomes = plan.outcomes();
+        assertThat(outcomes).extracting(PaymentImportOutcome::lineNumber).containsExactly(1, 2, 3);
+        assertThat(outcomes.get(0).payments()).extracting(CommonPayment::id).containsExactly(501L, 502L);
+        assertThat(outcomes.get(0).payments()).extracting(CommonPayment::chargeId).containsExactly(10L, 11L);
+        assertThat(outcomes.get(1).payments()).isEmpty();
+        assertThat(outcomes.get(2).payments()).extracting(CommonPayment::id).containsExactly(503L);
+        assertThat(outcomes.get(2).payments()).allSatisfy(payment -> {
+            assertThat(payment.reference()).isEqualTo("TRX-2");
+            assertThat(payment.userId()).isEqualTo(USER_ID);
+            assertThat(payment.issuedAt()).isEqualTo(ISSUED_AT);
+        });
+    }
+
+    @Test
+    void missingGeneratedIdsShouldFailTheBlock() {
+        openCharges.put(1L, charges(new OpenCharge(10L, 100L, amount(100)), new OpenCharge(11L, 101L, amount(50))));
+        PaymentImportPlan plan = build(line(1, "101", 120, null));
+
+        assertThrows(RepositoryException.class, () -> plan.assignIds(List.of(501L).iterator()));
+    }
+
+    private PaymentImportPlan build(PaymentImportLine... lines) {
+        return PaymentImportPlan.build(List.of(lines), unitsByNumber, existingReferences, openCharges, USER_ID,
+                "TRANSFER");
+    }
+
+    private static PaymentImportLine line(int lineNumber, String unitNumber, long amount, String reference) {
+        return new PaymentImportLine(lineNumber, unitNumber, amount(amount), reference, ISSUED_AT);
+    }
+
+    private static ArrayDeque<OpenCharge> charges(OpenCharge... charges) {
+        return new ArrayDeque<>(List.of(charges));
+    }
+
+    private static BigDecimal amount(long value) {
+        return BigDecimal.valueOf(value);
+    }
+}
@@ -0,0 +1,320 @@
+package com.domu.database;
+
+import com.domu.database.PeriodSummaryUpdater.StatusDelta;
+import com.domu.database.PeriodSummaryUpdater.UnitStatus;
+import com.domu.domain.finance.CommonCharge;
+
+import org.junit.jupiter.api.Test;
+
+import javax.sql.DataSource;
+import java.math.BigDecimal;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.TreeMap;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * Los conteos que PeriodSummaryUpdater suma cargo a cargo y pago a pago deben
+ * coincidir con los que PeriodSummaryRepository.rebuild calcula desde cero. La
+ * conexión es un doble en memoria de period_unit_balances y period_summaries;
+ * la reconstrucción se evalúa con las mismas condiciones que su SQL. La
+ * reparación de paid_amount de ChargeBalanceReconciler también debe llegar a
+ * esas tablas.
+ */
+class PeriodSummaryUpdaterTest {
+
+    private static final Long PERIOD_ID = 1L;
+
+    private final InMemoryPeriod period = new InMemoryPeriod();
+
+    @Test
+    void unitStatusShouldFollowChargedAndPaidAmounts() {
+        assertThat(UnitStatus.of(amount(0), amount(0))).isEqualTo(UnitStatus.NONE);
+        assertThat(UnitStatus.of(amount(100), amount(0))).isEqualTo(UnitStatus.PENDING);
+        assertThat(UnitStatus.of(amount(100), amount(40))).isEqualTo(UnitStatus.PARTIAL);
+        assertThat(UnitStatus.of(amount(100), amount(100))).isEqualTo(UnitStatus.PAID);
+        assertThat(UnitStatus.of(amount(100), amount(130))).isEqualTo(UnitStatus.PAID);
+        assertThat(UnitStatus.of(amount(150), amount(100))).isEqualTo(UnitStatus.PARTIAL);
+    }
+
+    @Test
+    void statusDeltaShouldMoveOneUnitBetweenCounts() {
+        StatusDelta delta = new StatusDelta();
+
+        delta.move(UnitStatus.NONE, UnitStatus.PENDING);
+        assertCounts(delta, 0, 0, 1);
+
+        delta.move(UnitStatus.PENDING, UnitStatus.PARTIAL);
+        assertCounts(delta, 0, 1, 0);
+
+        delta.move(UnitStatus.PARTIAL, UnitStatus.PAID);
+        assertCounts(delta, 1, 0, 0);
+
+        // Un cargo nuevo sobre una unidad pagada la devuelve a parcial.
+        delta.move(UnitStatus.PAID, UnitStatus.PARTIAL);
+        assertCounts(delta, 0, 1, 0);
+
+        delta.move(UnitStatus.PARTIAL, UnitStatus.PARTIAL);
+        assertCounts(delta, 0, 1, 0);
+    }
+
+    @Test
+    void aNewChargeShouldMoveAPaidUnitBackToPartial() throws SQLException {
+        PeriodSummaryUpdater.applyCharges(period.connection(), PERIOD_ID, List.of(charge(10L, 100), charge(11L, 80)));
+        assertThat(period.summaryCounts()).containsExactly(0, 0, 2);
+
+        PeriodSummaryUpdater.applyPayment(period.connection(), PERIOD_ID, 10L, amount(40));
+        assertThat(period.summaryCounts()).containsExactly(0, 1, 1);
+
+        PeriodSummaryUpdater.applyPayment(period.connection(), PERIOD_ID, 10L, amount(60));
+        assertThat(period.summaryCounts()).containsExactly(1, 0, 1);
+
+        PeriodSummaryUpdater.applyCharges(period.connection(), PERIOD_ID, List.of(charge(10L, 25)));
+        assertThat(period.summaryCounts()).containsExactly(0, 1, 1);
+
+        assertThat(period.summaryCounts()).isEqualTo(period.rebuiltCounts());
+        assertThat(period.chargedSummary()).isEqualByComparingTo(amount(205));
+        assertThat(period.collectedSummary()).isEqualByComparingTo(amount(100));
+    }
+
+    @Test
+    void aRepairedPaidAmountShouldReachTheSummary() throws SQLException {
+        PeriodSummaryUpdater.applyCharges(period.connection(), PERIOD_ID, List.of(charge(10L, 100), charge(11L, 80)));
+        AtomicReference<BigDecimal> chargePaid = new AtomicReference<>(amount(0));
+        Connection connection = mock(Connection.class);
+        when(connection.prepareStatement(anyString())).thenAnswer(invocation -> {
+            String sql = invocation.getArgument(0);
+            return sql.contains("common_charges") || sql.contains("common_payments")
+                    ? chargeStatement(sql, chargePaid, amount(100))
+                    : period.statement(sql);
+        });
+        DataSource dataSource = mock(DataSource.class);
+        when(dataSource.getConnection()).thenReturn(connection);
+
+        new CommonExpenseRepository(dataSource).recomputePaidAmount(500L);
+
+        assertThat(chargePaid.get()).isEqualByComparingTo(amount(100));
+        assertThat(period.summaryCounts()).containsExactly(1, 0, 1).isEqualTo(period.rebuiltCounts());
+        assertThat(period.collectedSummary()).isEqualByComparingTo(amount(100));
+    }
+
+    @Test
+    void incrementalCountsShouldMatchTheRebuild() throws SQLException {
+        Random random = new Random(20251018L);
+        for (int step = 0; step < 500; step++) {
+            int action = random.nextInt(3);
+            if (action == 0 || period.balances.isEmpty()) {
+                List<CommonCharge> charges = new ArrayList<>();
+                int count = 1 + random.nextInt(4);
+                for (int i = 0; i < count; i++) {
+                    charges.add(charge(1L + random.nextInt(12), 1 + random.nextInt(200)));
+                }
+                charges.add(new CommonCharge(null, PERIOD_ID, null, "Fondo de reserva", amount(50), "EXTRA",
+                        false, "OWNER", null));
+                PeriodSummaryUpdater.applyCharges(period.connection(), PERIOD_ID, charges);
+            } else if (action == 1) {
+                Long unitId = period.anyUnit(random);
+                PeriodSummaryUpdater.applyPayment(period.connection(), PERIOD_ID, unitId,
+                        amount(1 + random.nextInt(150)));
+            } else {
+                Map<Long, BigDecimal> paidByUnit = new HashMap<>();
+                int count = 1 + random.nextInt(3);
+                for (int i = 0; i < count; i++) {
+                    paidByUnit.merge(period.anyUnit(random), amount(1 + random.nextInt(150)), BigDecimal::add);
+                }
+                PeriodSummaryUpdater.applyPayments(period.connection(), Map.of(PERIOD_ID, paidByUnit));
+            }
+
+            assertThat(period.summaryCounts()).as("paso %d", step).isEqualTo(period.rebuiltCounts());
+        }
+        assertThat(period.chargedSummary()).isEqualByComparingTo(period.chargedBalances());
+        assertThat(period.collectedSummary()).isEqualByComparingTo(period.paidBalances());
+    }
+
+    /**
+     * El cargo 500 de la unidad 10, con paid_amount en {@code chargePaid} y pagos
+     * que suman {@code paymentsTotal}.
+     */
+    private static PreparedStatement chargeStatement(String sql, AtomicReference<BigDecimal> chargePaid,
+            BigDecimal paymentsTotal) throws SQLException {
+        PreparedStatement statement = mock(PreparedStatement.class);
+        ResultSet rs = mock(ResultSet.class);
+        when(rs.next()).thenReturn(true, false);
+        when(rs.getLong("period_id")).thenReturn(PERIOD_ID);
+        when(rs.getObject("unit_id", Long.class)).thenReturn(10L);
+        when(rs.getBigDecimal("paid_amount")).thenAnswer(invocation -> chargePaid.get());
+        when(rs.getBigDecimal(1)).thenReturn(paymentsTotal);
+        when(statement.executeQuery()).thenReturn(rs);
+        if (sql.startsWith("UPDATE common_charges")) {
+            doAnswer(invocation -> {
+                chargePaid.set(invocation.getArgument(1));
+                return null;
+            }).when(statement).setBigDecimal(anyInt(), any());
+        }
+        return statement;
+    }
+
+    private static void assertCounts(StatusDelta delta, int paid, int partial, int pending) {
+        assertThat(delta.paid()).isEqualTo(paid);
+        assertThat(delta.partial()).isEqualTo(partial);
+        assertThat(delta.pending()).isEqualTo(pending);
+    }
+
+    private static CommonCharge charge(Long unitId, long amount) {
+        return new CommonCharge(null, PERIOD_ID, unitId, "Gasto común", amount(amount), "ORDINARY", true,
+                "OWNER", null);
+    }
+
+    private static BigDecimal amount(long value) {
+        return BigDecimal.valueOf(value);
+    }
+
+    /**
+     * Un período con sus filas de period_unit_balances y su fila de
+     * period_summaries. Interpreta solo las sentencias que emite
+     * PeriodSummaryUpdater.
+     */
+    private static final class InMemoryPeriod {
+
+        private final Map<Long, BigDecimal[]> balances = new TreeMap<>();
+        private BigDecimal charged = BigDecimal.ZERO;
+        private BigDecimal collected = BigDecimal.ZERO;
+        private final int[] counts = new int[3];
+
+        Connection connection() throws SQLException {
+            Connection connection = mock(Connection.class);
+            when(connection.prepareStatement(anyString())).thenAnswer(invocation -> statement(invocation.getArgument(0)));
+            return connection;
+        }
+
+        Long anyUnit(Random random) {
+            List<Long> units = new ArrayList<>(balances.keySet());
+            return units.get(random.nextInt(units.size()));
+        }
+
+        List<Integer> summaryCounts() {
+            return List.of(counts[0], counts[1], counts[2]);
+        }
+
+        /**
+         * Mismas condiciones que el INSERT ... SELECT de PeriodSummaryRepository.rebuild.
+         */
+        List<Integer> rebuiltCounts() {
+            int paid = 0;
+            int partial = 0;
+            int pending = 0;
+            for (BigDecimal[] balance : balances.values()) {
+                BigDecimal unitCharged = balance[0];
+                BigDecimal unitPaid = balance[1];
+                if (unitCharged.signum() > 0 && unitPaid.compareTo(unitCharged) >= 0) {
+                    paid++;
+                }
+                if (unitPaid.signum() > 0 && unitPaid.compareTo(unitCharged) < 0) {
+                    partial++;
+                }
+                if (unitCharged.signum() > 0 && unitPaid.signum() <= 0) {
+                    pending++;
+                }
+            }
+            return List.of(paid, partial, pending);
+        }
+
+        BigDecimal chargedSummary() {
+            return charged;
+        }
+
+        BigDecimal collectedSummary() {
+            return collected;
+        }
+
+        BigDecimal chargedBalances() {
+            return balances.values().stream().map(balance -> balance[0]).reduce(BigDecimal.ZERO, BigDecimal::add);
+        }
+
+        BigDecimal paidBalances() {
+            return balances.values().stream().map(balance -> balance[1]).reduce(BigDecimal.ZERO, BigDecimal::add);
+        }
+
+        private PreparedStatement statement(String sql) throws SQLException {
+            PreparedStatement statement = mock(PreparedStatement.class);
+            Map<Integer, Object> params = new HashMap<>();
+            List<Map<Integer, Object>> batch = new ArrayList<>();
+            doAnswer(invocation -> params.put(invocation.getArgument(0), invocation.getArgument(1)))
+                    .when(statement).setLong(anyInt(), anyLong());
+            doAnswer(invocation -> params.put(invocation.getArgument(0), invocation.getArgument(1)))
+                    .when(statement).setInt(anyInt(), anyInt());
+            doAnswer(invocation -> params.put(invocation.getArgument(0), invocation.getArgument(1)))
+                    .when(statement).setBigDecimal(anyInt(), any());
+            doAnswer(invocation -> batch.add(new HashMap<>(params))).when(statement).addBatch();
+            when(statement.executeBatch()).thenAnswer(invocation -> batch.stream()
+                    .mapToInt(row -> execute(sql, row))
+                    .toArray());
+            when(statement.executeUpdate()).thenAnswer(invocation -> execute(sql, params));
+            when(statement.executeQuery()).thenAnswer(invocation -> select(params));
+            return statement;
+        }
+
+        private int execute(String sql, Map<Integer, Object> params) {
+            if (sql.contains("INSERT INTO period_unit_balances")) {
+                balances.merge((Long) params.get(2), new BigDecimal[] { (BigDecimal) params.get(3), BigDecimal.ZERO },
+                        (current, added) -> new BigDecimal[] { current[0].add(added[0]), current[1] });
+                return 1;
+            }
+            if (sql.contains("UPDATE period_unit_balances")) {
+                BigDecimal[] balance = balances.get((Long) params.get(3));
+                if (balance == null) {
+                    return 0;
+                }
+                balance[1] = balance[1].add((BigDecimal) params.get(1));
+                return 1;
+            }
+            if (sql.contains("INSERT INTO period_summaries")) {
+                charged = charged.add((BigDecimal) params.get(2));
+                collected = collected.add((BigDecimal) params.get(3));
+                counts[0] += (Integer) params.get(4);
+                counts[1] += (Integer) params.get(5);
+                counts[2] += (Integer) params.get(6);
+                return 1;
+            }
+            throw new IllegalStateException("Sentencia no esperada: " + sql);
+        }
+
+        private ResultSet select(Map<Integer, Object> params) throws SQLException {
+            List<Long> unitIds = new ArrayList<>();
+            for (int index = 2; params.containsKey(index); index++) {
+                unitIds.add((Long) params.get(index));
+            }
+            Iterator<Long> rows = unitIds.stream().filter(balances::containsKey).toList().iterator();
+            AtomicReference<Long> current = new AtomicReference<>();
+            ResultSet rs = mock(ResultSet.class);
+            when(rs.next()).thenAnswer(invocation -> {
+                if (!rows.hasNext()) {
+                    return false;
+                }
+                current.set(rows.next());
+                return true;
+            });
+            when(rs.getLong("unit_id")).thenAnswer(invocation -> current.get());
+            when(rs.getBigDecimal("charged_amount")).thenAnswer(invocation -> balances.get(current.get())[0]);
+            when(rs.getBigDecimal("paid_amount")).thenAnswer(invocation -> balances.get(current.get())[1]);
+            return rs;
+        }
+    }
+}
@@ -0,0 +1,68 @@
+package com.domu.domain.access;
+
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class VisitorSearchKeysTest {
+
+    @Test
+    void anyRutFormatShouldProduceTheSameDocumentKey() {
+        assertThat(VisitorSearchKeys.documentKey("12.345.678-k")).isEqualTo("12345678K");
+        assertThat(VisitorSearchKeys.documentKey("12345678-K")).isEqualTo("12345678K");
+        assertThat(VisitorSearchKeys.documentKey(" 12 345 678k ")).isEqualTo("12345678K");
+    }
+
+    @Test
+    void aPartialRutShouldBeAPrefixOfTheStoredKey() {
+        String stored = VisitorSearchKeys.documentKey(VisitorSearchKeys.document("12.345.678-9"));
+        String typed = VisitorSearchKeys.documentKey("12.345");
+
+        assertThat(stored).startsWith(typed);
+    }
+
+    @Test
+    void storedDocumentShouldKeepTheCheckDigitHyphen() {
+        assertThat(VisitorSearchKeys.document("12.345.678-k")).isEqualTo("12345678-K");
+        assertThat(VisitorSearchKeys.document(" . ")).isNull();
+        assertThat(VisitorSearchKeys.document(null)).isNull();
+    }
+
+    @Test
+    void nameKeyShouldIgnoreCaseAccentsAndPunctuation() {
+        assertThat(VisitorSearchKeys.nameKey("  José   Muñoz-Pérez ")).isEqualTo("jose munoz perez");
+        assertThat(VisitorSearchKeys.nameKey("JOSE MUNOZ")).isEqualTo("jose munoz");
+        assertThat(VisitorSearchKeys.nameKey("50%_off")).isEqualTo("50 off");
+        assertThat(VisitorSearchKeys.nameKey("...")).isNull();
+    }
+
+    @Test
+    void everyWordOfTheNameShouldBeAToken() {
+        assertThat(VisitorSearchKeys.nameTokens(VisitorSearchKeys.nameKey("José Muñoz-Pérez Muñoz")))
+                .containsExactly("jose", "munoz", "perez");
+        assertThat(VisitorSearchKeys.nameTokens(null)).isEmpty();
+        assertThat(VisitorSearchKeys.nameTokens("a".repeat(60))).containsExactly("a".repeat(VisitorSearchKeys.TOKEN_LENGTH));
+    }
+
+    @Test
+    void searchTokensShouldBeCappedAndNormalized() {
+        assertThat(VisitorSearchKeys.searchTokens("PÉREZ jo")).containsExactly("perez", "jo");
+        assertThat(VisitorSearchKeys.searchTokens("a b c d e f")).hasSize(VisitorSearchKeys.MAX_SEARCH_TOKENS);
+        assertThat(VisitorSearchKeys.searchTokens(" - ")).isEmpty();
+    }
+
+    @Test
+    void keysShouldFitTheirColumns() {
+        String longName = "a".repeat(100) + " " + "b".repeat(100);
+        String longDocument = "1".repeat(40);
+
+        assertThat(VisitorSearchKeys.nameKey(longName)).hasSize(VisitorSearchKeys.NAME_KEY_LENGTH);
+        assertThat(VisitorSearchKeys.documentKey(longDocument)).hasSize(VisitorSearchKeys.DOCUMENT_KEY_LENGTH);
+    }
+
+    @Test
+    void missingKeysShouldNeverMatch() {
+        assertThat(VisitorSearchKeys.prefixPattern("jose")).isEqualTo("jose%");
+        assertThat(VisitorSearchKeys.prefixPattern(null)).isEmpty();
+    }
+}
@@ -0,0 +1,147 @@
+package com.domu.service;
+
+import com.domu.database.AmenityRepository;
+import com.domu.database.AmenityRepository.AmenityRow;
+import com.domu.database.AmenityRepository.ReservedSlotRow;
+import com.domu.database.AmenityRepository.TimeSlotRow;
+import com.domu.domain.core.User;
+import com.domu.dto.AvailabilityCalendarResponse;
+import com.domu.dto.AvailabilityCalendarResponse.DayAvailability;
+import com.domu.dto.AvailabilityResponse.SlotAvailability;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.math.BigDecimal;
+import java.time.DayOfWeek;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.time.temporal.TemporalAdjusters;
+import java.util.List;
+import java.util.Optional;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class AmenityAvailabilityCalendarTest {
+
+    private static final Long AMENITY_ID = 7L;
+
+    @Mock
+    private AmenityRepository amenityRepository;
+
+    @Mock
+    private BuildingAccessService buildingAccessService;
+
+    private AmenityService amenityService;
+    private final User resident = new User(2L, 1L, 2L, "Nombre", "Apellido", "residente@test.com", null, null,
+            "hash", null, true, LocalDateTime.now(), "ACTIVE");
+    private final LocalDate monday = LocalDate.now().with(TemporalAdjusters.next(DayOfWeek.MONDAY));
+
+    @BeforeEach
+    void setUp() {
+        amenityService = new AmenityService(amenityRepository, buildingAccessService);
+        when(amenityRepository.findAmenityById(AMENITY_ID)).thenReturn(Optional.of(new AmenityRow(AMENITY_ID, 1L,
+                "Quincho", null, 20, BigDecimal.ZERO, null, null, "ACTIVE", LocalDateTime.now(), null)));
+        when(buildingAccessService.isSameBuilding(any(), anyLong())).thenReturn(true);
+    }
+
+    @Test
+    void reservationsShouldMarkOnlyTheirOwnDayAndSlot() {
+        LocalDate sunday = monday.plusDays(6);
+        LocalDate nextMonday = monday.plusDays(7);
+        when(amenityRepository.findTimeSlotsByAmenity(AMENITY_ID)).thenReturn(List.of(
+                slot(1L, 1, 8, true),
+                slot(2L, 1, 10, true),
+                slot(3L, 3, 8, true),
+                slot(4L, 1, 12, false),
+                slot(5L, 7, 18, true)));
+        when(amenityRepository.findReservedSlotsByAmenityAndRange(AMENITY_ID, monday, nextMonday)).thenReturn(List.of(
+                new ReservedSlotRow(1L, monday),
+                new ReservedSlotRow(5L, sunday),
+                new ReservedSlotRow(2L, nextMonday),
+                new ReservedSlotRow(4L, monday),
+                new ReservedSlotRow(99L, monday)));
+
+        AvailabilityCalendarResponse calendar = amenityService.getAvailabilityCalendar(resident, AMENITY_ID,
+                monday.toString(), nextMonday.toString());
+
+        List<DayAvailability> days = calendar.days();
+        assertThat(days).hasSize(8);
+        assertThat(days.get(0).date()).isEqualTo(monday);
+        assertThat(days.get(7).date()).isEqualTo(nextMonday);
+
+        assertDay(days.get(0), List.of(1L, 2L), List.of(false, true));
+        assertDay(days.get(1), List.of(), List.of());
+        assertDay(days.get(2), List.of(3L), List.of(true));
+        assertDay(days.get(6), List.of(5L), List.of(false));
+        assertDay(days.get(7), List.of(1L, 2L), List.of(true, false));
+        assertThat(days).flatExtracting(DayAvailability::slots).extracting(SlotAvailability::reservedBy)
+                .containsOnlyNulls();
+    }
+
+    @Test
+    void theRangeShouldBeLimitedToMaxCalendarDays() {
+        when(amenityRepository.findTimeSlotsByAmenity(AMENITY_ID)).thenReturn(List.of(slot(1L, 1, 8, true)));
+        LocalDate lastAllowed = monday.plusDays(AmenityService.MAX_CALENDAR_DAYS - 1);
+        when(amenityRepository.findReservedSlotsByAmenityAndRange(AMENITY_ID, monday, lastAllowed))
+                .thenReturn(List.of(new ReservedSlotRow(1L, lastAllowed.with(DayOfWeek.MONDAY))));
+
+        AvailabilityCalendarResponse calendar = amenityService.getAvailabilityCalendar(resident, AMENITY_ID,
+                monday.toString(), lastAllowed.toString());
+
+        assertThat(calendar.days()).hasSize(AmenityService.MAX_CALENDAR_DAYS);
+        assertThat(calendar.days().get(calendar.days().size() - 1).date()).isEqualTo(lastAllowed);
+        DayAvailability lastMonday = calendar.days().stream()
+                .filter(day -> day.date().equals(lastAllowed.with(DayOfWeek.MONDAY)))
+                .findFirst()
+                .orElseThrow();
+        assertThat(lastMonday.availableSlots()).isZero();
+
+        assertThrows(ValidationException.class, () -> amenityService.getAvailabilityCalendar(resident, AMENITY_ID,
+                monday.toString(), monday.plusDays(AmenityService.MAX_CALENDAR_DAYS).toString()));
+    }
+
+    @Test
+    void aSingleDayRangeAndADefaultRangeShouldBeAccepted() {
+        when(amenityRepository.findTimeSlotsByAmenity(AMENITY_ID)).thenReturn(List.of(slot(1L, 1, 8, true)));
+        when(amenityRepository.findReservedSlotsByAmenityAndRange(any(), any(), any())).thenReturn(List.of());
+
+        assertThat(amenityService.getAvailabilityCalendar(resident, AMENITY_ID, monday.toString(), monday.toString())
+                .days()).singleElement().satisfies(day -> assertThat(day.availableSlots()).isEqualTo(1));
+        assertThat(amenityService.getAvailabilityCalendar(resident, AMENITY_ID, monday.toString(), null).days())
+                .hasSize(AmenityService.DEFAULT_CALENDAR_DAYS);
+    }
+
+    @Test
+    void pastOrInvertedRangesShouldBeRejected() {
+        assertThrows(ValidationException.class, () -> amenityService.getAvailabilityCalendar(resident, AMENITY_ID,
+                LocalDate.now().minusDays(1).toString(), monday.toString()));
+        assertThrows(ValidationException.class, () -> amenityService.getAvailabilityCalendar(resident, AMENITY_ID,
+                monday.toString(), monday.minusDays(1).toString()));
+
+        verify(amenityRepository, never()).findReservedSlotsByAmenityAndRange(any(), any(), any());
+    }
+
+    private static void assertDay(DayAvailability day, List<Long> slotIds, List<Boolean> available) {
+        assertThat(day.slots()).extracting(SlotAvailability::slotId).containsExactlyElementsOf(slotIds);
+        assertThat(day.slots()).extracting(SlotAvailability::available).containsExactlyElementsOf(available);
+        assertThat(day.totalSlots()).isEqualTo(slotIds.size());
+        assertThat(day.availableSlots()).isEqualTo((int) available.stream().filter(Boolean::booleanValue).count());
+    }
+
+    private static TimeSlotRow slot(Long id, int dayOfWeek, int startHour, boolean active) {
+        return new TimeSlotRow(id, AMENITY_ID, dayOfWeek, LocalTime.of(startHour, 0), LocalTime.of(startHour + 2, 0),
+                active, LocalDateTime.now());
+    }
+}
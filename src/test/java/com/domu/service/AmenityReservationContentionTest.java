@@ -0,0 +1,233 @@
+package com.domu.service;
+
+import com.domu.database.AmenityRepository;
+import com.domu.database.AmenityRepository.AmenityRow;
+import com.domu.database.AmenityRepository.ReservationRow;
+import com.domu.database.AmenityRepository.TimeSlotRow;
+import com.domu.database.RepositoryException;
+import com.domu.domain.core.User;
+import com.domu.dto.ReservationRequest;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import javax.sql.DataSource;
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.Proxy;
+import java.math.BigDecimal;
+import java.sql.Connection;
+import java.sql.Date;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLIntegrityConstraintViolationException;
+import java.time.DayOfWeek;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.doReturn;
+import static org.mockito.Mockito.spy;
+import static org.mockito.Mockito.when;
+
+/**
+ * Dispara reservas concurrentes contra un mismo bloque y fecha pasando por el
+ * AmenityRepository real: la conexión es un doble en memoria que responde al
+ * INSERT como el índice único de reservas activas de MySQL, con latencia y con
+ * error 1062 para los perdedores. Así se prueba que ese error se traduce en un
+ * rechazo y no en una excepción del repositorio.
+ */
+@ExtendWith(MockitoExtension.class)
+class AmenityReservationContentionTest {
+
+    private static final int CONTENDERS = 32;
+    private static final int MYSQL_DUPLICATE_KEY = 1062;
+    private static final int MYSQL_FOREIGN_KEY = 1452;
+    private static final Long AMENITY_ID = 7L;
+    private static final Long SLOT_ID = 70L;
+
+    @Mock
+    private BuildingAccessService buildingAccessService;
+
+    private AmenityRepository amenityRepository;
+    private AmenityService amenityService;
+    private final Map<String, ReservationRow> activeReservations = new ConcurrentHashMap<>();
+    private final Map<Long, ReservationRow> reservationsById = new ConcurrentHashMap<>();
+    private final AtomicInteger insertAttempts = new AtomicInteger();
+    private final AtomicLong ids = new AtomicLong();
+    private volatile int forcedErrorCode;
+    private LocalDate saturday;
+
+    @BeforeEach
+    void setUp() {
+        saturday = LocalDate.now().plusWeeks(1).with(DayOfWeek.SATURDAY);
+        amenityRepository = spy(new AmenityRepository(proxy(DataSource.class, (method, args) ->
+                "getConnection".equals(method) ? connection() : null)));
+        doReturn(Optional.of(new AmenityRow(AMENITY_ID, 1L, "Quincho", null, 20, BigDecimal.ZERO, null, null,
+                "ACTIVE", LocalDateTime.now(), null))).when(amenityRepository).findAmenityById(AMENITY_ID);
+        doReturn(Optional.of(new TimeSlotRow(SLOT_ID, AMENITY_ID, saturday.getDayOfWeek().getValue(),
+                LocalTime.of(12, 0), LocalTime.of(16, 0), true, LocalDateTime.now())))
+                .when(amenityRepository).findTimeSlotById(SLOT_ID);
+        when(buildingAccessService.isSameBuilding(any(), anyLong())).thenReturn(true);
+        amenityService = new AmenityService(amenityRepository, buildingAccessService);
+    }
+
+    @Test
+    void itShouldConfirmExactlyOneReservationUnderContention() throws Exception {
+        doAnswer(invocation -> Optional.ofNullable(reservationsById.get(invocation.<Long>getArgument(0))))
+                .when(amenityRepository).findReservationById(anyLong());
+
+        ExecutorService executor = Executors.newFixedThreadPool(CONTENDERS);
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<Boolean>> results = new ArrayList<>();
+        for (int i = 0; i < CONTENDERS; i++) {
+            User resident = resident(100L + i);
+            results.add(executor.submit(() -> {
+                start.await();
+                try {
+                    amenityService.createReservation(resident, AMENITY_ID, request(saturday));
+                    return true;
+                } catch (ValidationException e) {
+                    return false;
+                }
+            }));
+        }
+        start.countDown();
+
+        int confirmed = 0;
+        for (Future<Boolean> result : results) {
+            if (result.get(30, TimeUnit.SECONDS)) {
+                confirmed++;
+            }
+        }
+        executor.shutdown();
+
+        assertThat(confirmed).isEqualTo(1);
+        assertThat(activeReservations).hasSize(1);
+        assertThat(insertAttempts).hasValue(CONTENDERS);
+    }
+
+    @Test
+    void otherConstraintViolationsShouldNotBeReportedAsATakenSlot() {
+        forcedErrorCode = MYSQL_FOREIGN_KEY;
+
+        assertThrows(RepositoryException.class,
+                () -> amenityService.createReservation(resident(100L), AMENITY_ID, request(saturday)));
+        assertThat(activeReservations).isEmpty();
+    }
+
+    /**
+     * Conexión que solo entiende el INSERT de tryInsertReservation.
+     */
+    private Connection connection() {
+        return proxy(Connection.class, (method, args) -> switch (method) {
+            case "prepareStatement" -> insertStatement();
+            case "close" -> null;
+            default -> throw new UnsupportedOperationException(method);
+        });
+    }
+
+    private PreparedStatement insertStatement() {
+        Map<Integer, Object> params = new HashMap<>();
+        AtomicLong generatedId = new AtomicLong();
+        return proxy(PreparedStatement.class, (method, args) -> switch (method) {
+            case "setLong", "setDate", "setString" -> params.put((Integer) args[0], args[1]);
+            case "executeUpdate" -> {
+                insertAttempts.incrementAndGet();
+                Thread.sleep(2);
+                if (forcedErrorCode != 0) {
+                    throw new SQLIntegrityConstraintViolationException("Cannot add or update a child row", "23000",
+                            forcedErrorCode);
+                }
+                LocalDate date = ((Date) params.get(4)).toLocalDate();
+                ReservationRow saved = new ReservationRow(ids.incrementAndGet(), (Long) params.get(1),
+                        (Long) params.get(2), (Long) params.get(3), date, (String) params.get(5),
+                        (String) params.get(6), LocalDateTime.now(), null, "Quincho", LocalTime.of(12, 0),
+                        LocalTime.of(16, 0), "Nombre", "Apellido", "residente@test.com");
+                if (activeReservations.putIfAbsent(saved.timeSlotId() + ":" + date, saved) != null) {
+                    throw new SQLIntegrityConstraintViolationException(
+                            "Duplicate entry for key 'uq_reservation_active_slot'", "23000", MYSQL_DUPLICATE_KEY);
+                }
+                reservationsById.put(saved.id(), saved);
+                generatedId.set(saved.id());
+                yield 1;
+            }
+            case "getGeneratedKeys" -> generatedKeys(generatedId.get());
+            case "close" -> null;
+            default -> throw new UnsupportedOperationException(method);
+        });
+    }
+
+    private ResultSet generatedKeys(long id) {
+        AtomicInteger reads = new AtomicInteger();
+        return proxy(ResultSet.class, (method, args) -> switch (method) {
+            case "next" -> reads.getAndIncrement() == 0;
+            case "getLong" -> id;
+            case "close" -> null;
+            default -> throw new UnsupportedOperationException(method);
+        });
+    }
+
+    @FunctionalInterface
+    private interface JdbcHandler {
+        Object handle(String method, Object[] args) throws Exception;
+    }
+
+    private static <T> T proxy(Class<T> type, JdbcHandler handler) {
+        InvocationHandler invocationHandler = (proxy, method, args) -> {
+            if (method.getDeclaringClass() == Object.class) {
+                return switch (method.getName()) {
+                    case "hashCode" -> System.identityHashCode(proxy);
+                    case "equals" -> proxy == args[0];
+                    default -> type.getSimpleName();
+                };
+            }
+            return handler.handle(method.getName(), args);
+        };
+        return type.cast(Proxy.newProxyInstance(type.getClassLoader(), new Class<?>[] { type }, invocationHandler));
+    }
+
+    private ReservationRequest request(LocalDate date) {
+        ReservationRequest request = new ReservationRequest();
+        request.setTimeSlotId(SLOT_ID);
+        request.setReservationDate(date.toString());
+        return request;
+    }
+
+    private User resident(Long id) {
+        return new User(
+                id,
+                1L,
+                2L,
+                "Nombre",
+                "Apellido",
+                "residente" + id + "@test.com",
+                "123456789",
+                LocalDate.now(),
+                "hash",
+                "DOC",
+                true,
+                LocalDateTime.now(),
+                "ACTIVE");
+    }
+}
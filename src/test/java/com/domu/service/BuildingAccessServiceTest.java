@@ -0,0 +1,57 @@
+package com.domu.service;
+
+import com.domu.database.BuildingRepository;
+import com.domu.database.UserBuildingRepository;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.time.Duration;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class BuildingAccessServiceTest {
+
+    @Mock
+    private UserBuildingRepository userBuildingRepository;
+
+    @Mock
+    private BuildingRepository buildingRepository;
+
+    private BuildingAccessService service;
+
+    @BeforeEach
+    void setUp() {
+        service = new BuildingAccessService(userBuildingRepository, buildingRepository, Duration.ofMinutes(5), 100);
+    }
+
+    @Test
+    void negativeAnswersShouldBeServedFromTheCache() {
+        when(userBuildingRepository.findBuildingIdsForUser(7L)).thenReturn(List.of(1L));
+
+        assertThat(service.isLinkedToBuilding(7L, 2L)).isFalse();
+        assertThat(service.isLinkedToBuilding(7L, 3L)).isFalse();
+        assertThat(service.isLinkedToBuilding(7L, 1L)).isTrue();
+
+        verify(userBuildingRepository, times(1)).findBuildingIdsForUser(7L);
+    }
+
+    @Test
+    void invalidatingTheUserShouldPickUpNewLinks() {
+        when(userBuildingRepository.findBuildingIdsForUser(7L)).thenReturn(List.of(1L), List.of(1L, 2L));
+
+        assertThat(service.isLinkedToBuilding(7L, 2L)).isFalse();
+        service.invalidateUser(7L);
+
+        assertThat(service.isLinkedToBuilding(7L, 2L)).isTrue();
+        verify(userBuildingRepository, times(2)).findBuildingIdsForUser(7L);
+    }
+}
@@ -0,0 +1,174 @@
+package com.domu.service;
+
+import com.domu.database.CommonExpenseRepository.UnitShare;
+
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+/**
+ * Propiedades del prorrateo en centavos, comparado contra el cálculo anterior
+ * con BigDecimal (HALF_UP por unidad y la diferencia a la última unidad) sobre
+ * edificios y montos aleatorios con semilla fija.
+ */
+class ChargeProrationTest {
+
+    private static final int TRIALS = 2_000;
+
+    @Test
+    void sharesShouldAlwaysAddUpToTheAmount() {
+        Random random = new Random(20251018L);
+        for (int trial = 0; trial < TRIALS; trial++) {
+            List<UnitShare> units = randomUnits(random);
+            long amountCents = randomAmountCents(random);
+
+            long[] shares = ChargeProration.forUnits(units).distribute(amountCents);
+
+            assertThat(shares).hasSize(units.size());
+            assertThat(Arrays.stream(shares).sum()).isEqualTo(amountCents);
+            assertThat(shares).allSatisfy(share -> assertThat(share).isNotNegative());
+        }
+    }
+
+    @Test
+    void sharesShouldBeWithinOneCentOfTheExactProportion() {
+        Random random = new Random(7L);
+        for (int trial = 0; trial < TRIALS; trial++) {
+            List<UnitShare> units = randomUnits(random);
+            long amountCents = randomAmountCents(random);
+
+            long[] shares = ChargeProration.forUnits(units).distribute(amountCents);
+            List<BigDecimal> exact = exactShares(amountCents, units);
+
+            for (int i = 0; i < shares.length; i++) {
+                BigDecimal difference = ChargeProration.fromCents(shares[i]).subtract(exact.get(i)).abs();
+                assertThat(difference).isLessThan(new BigDecimal("0.01"));
+            }
+        }
+    }
+
+    @Test
+    void itShouldMatchTheBigDecimalPathWheneverRoundingAlreadyBalanced() {
+        Random random = new Random(42L);
+        int balanced = 0;
+        for (int trial = 0; trial < TRIALS; trial++) {
+            List<UnitShare> units = randomUnits(random);
+            long amountCents = randomAmountCents(random);
+            BigDecimal amount = ChargeProration.fromCents(amountCents);
+
+            List<BigDecimal> legacy = legacyShares(amount, units);
+            if (!roundingBalanced(amount, units)) {
+                continue;
+            }
+            balanced++;
+            long[] shares = ChargeProration.forUnits(units).distribute(amountCents);
+            for (int i = 0; i < shares.length; i++) {
+                assertThat(ChargeProration.fromCents(shares[i])).isEqualTo(legacy.get(i));
+            }
+        }
+        assertThat(balanced).isGreaterThan(TRIALS / 10);
+    }
+
+    @Test
+    void itShouldSpreadRoundingInsteadOfLoadingTheLastUnit() {
+        List<UnitShare> units = List.of(
+                new UnitShare(1L, BigDecimal.ONE, true),
+                new UnitShare(2L, BigDecimal.ONE, true),
+                new UnitShare(3L, BigDecimal.ONE, true));
+
+        long[] shares = ChargeProration.forUnits(units).distribute(100);
+
+        assertThat(shares).containsExactly(34, 33, 33);
+    }
+
+    @Test
+    void missingOrNonPositiveWeightsShouldCountAsOne() {
+        List<UnitShare> units = List.of(
+                new UnitShare(1L, null, true),
+                new UnitShare(2L, BigDecimal.ZERO, false),
+                new UnitShare(3L, new BigDecimal("2.0000"), true));
+
+        long[] shares = ChargeProration.forUnits(units).distribute(4_000);
+
+        assertThat(shares).containsExactly(1_000, 1_000, 2_000);
+    }
+
+    @Test
+    void itShouldRejectNegativeAmounts() {
+        ChargeProration proration = ChargeProration.forUnits(List.of(new UnitShare(1L, BigDecimal.ONE, true)));
+
+        assertThrows(IllegalArgumentException.class, () -> proration.distribute(-1));
+    }
+
+    private List<UnitShare> randomUnits(Random random) {
+        int size = 1 + random.nextInt(random.nextBoolean() ? 12 : 600);
+        List<UnitShare> units = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            BigDecimal weight = switch (random.nextInt(10)) {
+                case 0 -> null;
+                case 1 -> BigDecimal.ZERO.setScale(4);
+                default -> BigDecimal.valueOf(1 + random.nextInt(250_000), 4);
+            };
+            units.add(new UnitShare((long) i + 1, weight, random.nextBoolean()));
+        }
+        return units;
+    }
+
+    private long randomAmountCents(Random random) {
+        return switch (random.nextInt(3)) {
+            case 0 -> random.nextInt(1_000);
+            case 1 -> 1 + random.nextInt(100_000_000);
+            default -> Math.floorMod(random.nextLong(), 100_000_000_000_000L);
+        };
+    }
+
+    private static BigDecimal effectiveWeight(UnitShare unit) {
+        return unit.weight() != null && unit.weight().signum() > 0 ? unit.weight() : BigDecimal.ONE;
+    }
+
+    private static BigDecimal totalWeight(List<UnitShare> units) {
+        return units.stream().map(ChargeProrationTest::effectiveWeight).reduce(BigDecimal.ZERO, BigDecimal::add);
+    }
+
+    private static List<BigDecimal> exactShares(long amountCents, List<UnitShare> units) {
+        BigDecimal amount = ChargeProration.fromCents(amountCents);
+        BigDecimal total = totalWeight(units);
+        return units.stream()
+                .map(unit -> amount.multiply(effectiveWeight(unit)).divide(total, 10, RoundingMode.HALF_UP))
+                .toList();
+    }
+
+    private static boolean roundingBalanced(BigDecimal amount, List<UnitShare> units) {
+        BigDecimal total = totalWeight(units);
+        BigDecimal rounded = units.stream()
+                .map(unit -> amount.multiply(effectiveWeight(unit)).divide(total, 2, RoundingMode.HALF_UP))
+                .reduce(BigDecimal.ZERO, BigDecimal::add);
+        return rounded.compareTo(amount) == 0;
+    }
+
+    /**
+     * Cálculo de CommonExpenseService previo al motor en centavos.
+     */
+    private static List<BigDecimal> legacyShares(BigDecimal amount, List<UnitShare> units) {
+        BigDecimal total = totalWeight(units);
+        List<BigDecimal> shares = new ArrayList<>(units.size());
+        BigDecimal remaining = amount;
+        for (int i = 0; i < units.size(); i++) {
+            BigDecimal share = amount.multiply(effectiveWeight(units.get(i))).divide(total, 2, RoundingMode.HALF_UP);
+            if (i == units.size() - 1) {
+                share = remaining;
+            }
+            remaining = remaining.subtract(share);
+            shares.add(share);
+        }
+        return shares;
+    }
+}
@@ -0,0 +1,93 @@
+package com.domu.service;
+
+import com.domu.config.AppConfig;
+import com.domu.database.DatabaseLock;
+import com.domu.database.DelinquencyRepository;
+import com.domu.database.JobWatermarkRepository;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Optional;
+import java.util.stream.LongStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class DelinquencyRefreshJobTest {
+
+    private static final LocalDateTime NOW = LocalDateTime.of(2025, 4, 15, 10, 30);
+
+    @Mock
+    private DelinquencyRepository delinquencyRepository;
+
+    @Mock
+    private JobWatermarkRepository watermarkRepository;
+
+    @Mock
+    private DatabaseLock databaseLock;
+
+    @Mock
+    private AppConfig config;
+
+    private DelinquencyRefreshJob job;
+
+    @BeforeEach
+    void setUp() {
+        when(config.delinquencyRefreshIntervalSeconds()).thenReturn(900L);
+        job = new DelinquencyRefreshJob(delinquencyRepository, watermarkRepository, databaseLock, config);
+        when(watermarkRepository.databaseNow()).thenReturn(NOW);
+    }
+
+    @Test
+    void itShouldOnlyRefreshPeriodsTouchedSinceTheLastRunOnTheSameDay() {
+        LocalDateTime lastRun = NOW.minusMinutes(15);
+        when(watermarkRepository.findProcessedUntil(DelinquencyRefreshJob.NAME)).thenReturn(Optional.of(lastRun));
+        when(delinquencyRepository.findPeriodsToRefresh(lastRun, NOW.toLocalDate(), false)).thenReturn(List.of(3L, 9L));
+        when(delinquencyRepository.refreshPeriods(List.of(3L, 9L), NOW.toLocalDate())).thenReturn(4);
+
+        int affected = job.execute();
+
+        assertThat(affected).isEqualTo(4);
+        verify(watermarkRepository).saveProcessedUntil(DelinquencyRefreshJob.NAME, NOW);
+    }
+
+    @Test
+    void itShouldAgeOverdueRecordsOnTheFirstRunOfTheDayInBatches() {
+        LocalDateTime yesterday = NOW.minusDays(1);
+        List<Long> periods = LongStream.rangeClosed(1, 450).boxed().toList();
+        when(watermarkRepository.findProcessedUntil(DelinquencyRefreshJob.NAME)).thenReturn(Optional.of(yesterday));
+        when(delinquencyRepository.findPeriodsToRefresh(yesterday, NOW.toLocalDate(), true)).thenReturn(periods);
+        when(delinquencyRepository.refreshPeriods(anyList(), eq(NOW.toLocalDate()))).thenReturn(1);
+
+        int affected = job.execute();
+
+        assertThat(affected).isEqualTo(3);
+        verify(delinquencyRepository, times(3)).refreshPeriods(anyList(), eq(NOW.toLocalDate()));
+    }
+
+    @Test
+    void itShouldNotAdvanceTheWatermarkWhenARefreshFails() {
+        when(watermarkRepository.findProcessedUntil(DelinquencyRefreshJob.NAME)).thenReturn(Optional.empty());
+        when(delinquencyRepository.findPeriodsToRefresh(null, NOW.toLocalDate(), true)).thenReturn(List.of(1L));
+        when(delinquencyRepository.refreshPeriods(anyList(), any())).thenThrow(new RuntimeException("boom"));
+
+        assertThrows(RuntimeException.class, () -> job.execute());
+
+        verify(watermarkRepository, never()).saveProcessedUntil(any(), any());
+    }
+}
@@ -0,0 +1,202 @@
+package com.domu.service;
+
+import com.domu.database.CommonExpenseRepository;
+import com.domu.domain.core.User;
+import com.domu.domain.finance.CommonExpensePeriod;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import javax.sql.DataSource;
+import java.io.OutputStream;
+import java.lang.reflect.Proxy;
+import java.math.BigDecimal;
+import java.sql.Connection;
+import java.sql.Date;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.Optional;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.doReturn;
+import static org.mockito.Mockito.spy;
+import static org.mockito.Mockito.when;
+
+/**
+ * Exporta un período de un millón de filas contra un DataSource de prueba que
+ * genera las filas a medida que se leen. Verifica que la consulta se abre como
+ * cursor de streaming de MySQL y que la respuesta empieza a escribirse mucho
+ * antes de terminar el cursor, es decir, sin acumular filas.
+ */
+@ExtendWith(MockitoExtension.class)
+class FinanceExportStreamingTest {
+
+    private static final int ROWS = 1_000_000;
+    private static final Long PERIOD_ID = 55L;
+
+    @Mock
+    private BuildingAccessService buildingAccessService;
+
+    private GeneratedCursor cursor;
+    private FinanceExportService service;
+
+    @BeforeEach
+    void setUp() {
+        cursor = new GeneratedCursor(ROWS);
+        CommonExpenseRepository repository = spy(new CommonExpenseRepository(cursor.dataSource()));
+        doReturn(Optional.of(new CommonExpensePeriod(PERIOD_ID, 3L, 2025, 4, LocalDate.of(2025, 4, 1),
+                LocalDate.of(2025, 4, 10), BigDecimal.ZERO, BigDecimal.TEN, "OPEN")))
+                .when(repository).findPeriodById(anyLong());
+        when(buildingAccessService.hasAccess(any(), anyLong())).thenReturn(true);
+        service = new FinanceExportService(repository, buildingAccessService, new ObjectMapper());
+    }
+
+    @Test
+    void itShouldStreamAMillionChargesAsCsv() throws Exception {
+        LineCountingStream out = new LineCountingStream(cursor);
+
+        FinanceExportService.PeriodExport export = service.prepare(admin(), PERIOD_ID, "charges", "csv");
+        export.writeTo(out);
+
+        assertThat(export.fileName()).isEqualTo("charges-3-2025-04.csv");
+        assertThat(out.lines).isEqualTo(ROWS + 1L);
+        assertThat(cursor.streamingRequested).isTrue();
+        assertThat(cursor.rowsReadAtFirstWrite).isLessThan(ROWS / 10);
+    }
+
+    @Test
+    void itShouldStreamAMillionPaymentsAsNdjson() throws Exception {
+        LineCountingStream out = new LineCountingStream(cursor);
+
+        FinanceExportService.PeriodExport export = service.prepare(admin(), PERIOD_ID, "payments", "ndjson");
+        export.writeTo(out);
+
+        assertThat(export.contentType()).startsWith("application/x-ndjson");
+        assertThat(out.lines).isEqualTo(ROWS);
+        assertThat(out.firstLine.toString()).startsWith("{\"paymentId\":1,\"chargeId\":");
+        assertThat(cursor.streamingRequested).isTrue();
+        assertThat(cursor.rowsReadAtFirstWrite).isLessThan(ROWS / 10);
+    }
+
+    private User admin() {
+        return new User(1L, null, 1L, "Admin", "Edificio", "admin@test.com", null, null, "hash", null, false,
+                LocalDateTime.now(), "ACTIVE");
+    }
+
+    /**
+     * Cuenta líneas sin guardar el contenido (salvo la primera) y registra
+     * cuántas filas había leído el cursor cuando llegó el primer byte.
+     */
+    private static final class LineCountingStream extends OutputStream {
+
+        private final GeneratedCursor cursor;
+        private final StringBuilder firstLine = new StringBuilder();
+        private long lines;
+
+        private LineCountingStream(GeneratedCursor cursor) {
+            this.cursor = cursor;
+        }
+
+        @Override
+        public void write(int b) {
+            write(new byte[] {(byte) b}, 0, 1);
+        }
+
+        @Override
+        public void write(byte[] bytes, int offset, int length) {
+            if (cursor.rowsReadAtFirstWrite < 0) {
+                cursor.rowsReadAtFirstWrite = cursor.current;
+            }
+            for (int i = offset; i < offset + length; i++) {
+                if (bytes[i] == '\n') {
+                    lines++;
+                } else if (lines == 0) {
+                    firstLine.append((char) bytes[i]);
+                }
+            }
+        }
+    }
+
+    /**
+     * DataSource mínimo cuyo ResultSet genera filas sintéticas en cada next().
+     */
+    private static final class GeneratedCursor {
+
+        private final int rows;
+        private int current;
+        private int rowsReadAtFirstWrite = -1;
+        private boolean streamingRequested;
+
+        private GeneratedCursor(int rows) {
+            this.rows = rows;
+        }
+
+        DataSource dataSource() {
+            return proxy(DataSource.class, (method, args) -> switch (method) {
+                case "getConnection" -> connection();
+                default -> null;
+            });
+        }
+
+        private Connection connection() {
+            return proxy(Connection.class, (method, args) -> switch (method) {
+                case "prepareStatement" -> {
+                    boolean forwardOnly = args.length == 3 && (int) args[1] == ResultSet.TYPE_FORWARD_ONLY
+                            && (int) args[2] == ResultSet.CONCUR_READ_ONLY;
+                    yield statement(forwardOnly);
+                }
+                default -> null;
+            });
+        }
+
+        private PreparedStatement statement(boolean forwardOnly) {
+            return proxy(PreparedStatement.class, (method, args) -> switch (method) {
+                case "setFetchSize" -> {
+                    streamingRequested = forwardOnly && (int) args[0] == Integer.MIN_VALUE;
+                    yield null;
+                }
+                case "executeQuery" -> resultSet();
+                default -> null;
+            });
+        }
+
+        private ResultSet resultSet() {
+            return proxy(ResultSet.class, (method, args) -> switch (method) {
+                case "next" -> ++current <= rows;
+                case "getLong" -> (long) current * (int) args[0];
+                case "getObject" -> (long) current;
+                case "getString" -> "valor " + args[0] + " fila " + current;
+                case "getBigDecimal" -> BigDecimal.valueOf(current % 100_000, 2);
+                case "getDate" -> Date.valueOf(LocalDate.of(2025, 4, 1 + current % 28));
+                default -> null;
+            });
+        }
+
+        @SuppressWarnings("unchecked")
+        private static <T> T proxy(Class<T> type, Handler handler) {
+            return (T) Proxy.newProxyInstance(type.getClassLoader(), new Class<?>[] {type},
+                    (instance, method, args) -> {
+                        Object result = handler.handle(method.getName(), args != null ? args : new Object[0]);
+                        if (result == null && method.getReturnType() == boolean.class) {
+                            return false;
+                        }
+                        if (result == null && method.getReturnType() == int.class) {
+                            return 0;
+                        }
+                        return result;
+                    });
+        }
+
+        private interface Handler {
+            Object handle(String method, Object[] args);
+        }
+    }
+}
@@ -0,0 +1,143 @@
+package com.domu.service;
+
+import com.domu.database.CommonExpenseRepository;
+import com.domu.database.CommonExpenseRepository.PaymentImportLine;
+import com.domu.database.CommonExpenseRepository.PaymentImportOutcome;
+import com.domu.database.CommonExpenseRepository.PaymentImportStatus;
+import com.domu.database.RepositoryException;
+import com.domu.domain.core.User;
+import com.domu.domain.finance.CommonPayment;
+import com.domu.dto.PaymentImportResponse;
+import com.domu.dto.PaymentImportResponse.LineResult;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.io.ByteArrayInputStream;
+import java.io.InputStream;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class PaymentImportServiceTest {
+
+    private static final Long BUILDING_ID = 3L;
+
+    @Mock
+    private CommonExpenseRepository repository;
+
+    private PaymentImportService service;
+    private List<Integer> chunkSizes;
+
+    @BeforeEach
+    void setUp() {
+        service = new PaymentImportService(repository);
+        chunkSizes = new ArrayList<>();
+    }
+
+    @Test
+    void itShouldImportTenThousandLinesInChunksAndReportEveryLine() {
+        recordEveryLine();
+        StringBuilder csv = new StringBuilder("unidad,monto,referencia,fecha\n");
+        for (int i = 1; i <= 10_000; i++) {
+            String amount = i % 1_000 == 0 ? "no-es-monto" : "1000.50";
+            csv.append("D-").append(i).append(',').append(amount).append(",TRF").append(i).append(",2025-04-05\n");
+        }
+
+        PaymentImportResponse response = service.importCsv(admin(), BUILDING_ID, null, stream(csv.toString()));
+
+        assertThat(chunkSizes).hasSize(10_000 / PaymentImportService.CHUNK_SIZE);
+        assertThat(chunkSizes).allSatisfy(size -> assertThat(size).isLessThanOrEqualTo(PaymentImportService.CHUNK_SIZE));
+        assertThat(response.totalLines()).isEqualTo(10_000);
+        assertThat(response.recordedLines()).isEqualTo(9_990);
+        assertThat(response.rejectedLines()).isEqualTo(10);
+        assertThat(response.recordedAmount()).isEqualByComparingTo(new BigDecimal("1000.50").multiply(BigDecimal.valueOf(9_990)));
+        assertThat(response.lines()).extracting(LineResult::line).isSorted();
+        LineResult invalid = response.lines().get(999);
+        assertThat(invalid.line()).isEqualTo(1_001);
+        assertThat(invalid.status()).isEqualTo("INVALID");
+        assertThat(response.lines().get(0).paymentIds()).containsExactly(2L);
+    }
+
+    @Test
+    void aFailedChunkShouldOnlyFailItsOwnLines() {
+        when(repository.importPayments(eq(BUILDING_ID), eq(1L), eq("TRANSFER"), anyList()))
+                .thenAnswer(invocation -> recorded(invocation.getArgument(3)))
+                .thenThrow(new RepositoryException("Error importando pagos de gasto común"));
+        StringBuilder csv = new StringBuilder();
+        for (int i = 1; i <= PaymentImportService.CHUNK_SIZE + 10; i++) {
+            csv.append("D-").append(i).append(",5000,TRF").append(i).append(",2025-04-05\n");
+        }
+
+        PaymentImportResponse response = service.importCsv(admin(), BUILDING_ID, null, stream(csv.toString()));
+
+        assertThat(response.recordedLines()).isEqualTo(PaymentImportService.CHUNK_SIZE);
+        assertThat(response.lines().subList(PaymentImportService.CHUNK_SIZE, response.lines().size()))
+                .allSatisfy(line -> assertThat(line.status()).isEqualTo("FAILED"));
+    }
+
+    @Test
+    void itShouldReadSemicolonFilesWithCommaDecimalsAndQuotedReferences() {
+        List<List<PaymentImportLine>> received = new ArrayList<>();
+        when(repository.importPayments(eq(BUILDING_ID), eq(1L), eq("DEPOSIT"), anyList()))
+                .thenAnswer(invocation -> {
+                    received.add(invocation.getArgument(3));
+                    return recorded(invocation.getArgument(3));
+                });
+        String csv = """
+                \uFEFFUnidad;Monto;Referencia;Fecha
+                101;125000,5;"Transf; depto 101";05/04/2025
+
+                102;150.000;Transf 102;05-04-2025
+                """;
+
+        PaymentImportResponse response = service.importCsv(admin(), BUILDING_ID, "deposit", stream(csv));
+
+        assertThat(received).hasSize(1);
+        PaymentImportLine line = received.get(0).get(0);
+        assertThat(line.lineNumber()).isEqualTo(2);
+        assertThat(line.unitNumber()).isEqualTo("101");
+        assertThat(line.amount()).isEqualByComparingTo("125000.50");
+        assertThat(line.reference()).isEqualTo("Transf; depto 101");
+        assertThat(line.issuedAt()).isEqualTo(LocalDate.of(2025, 4, 5));
+        assertThat(response.lines()).extracting(LineResult::status).containsExactly("RECORDED", "INVALID");
+    }
+
+    private void recordEveryLine() {
+        when(repository.importPayments(eq(BUILDING_ID), eq(1L), eq("TRANSFER"), anyList()))
+                .thenAnswer(invocation -> {
+                    List<PaymentImportLine> lines = invocation.getArgument(3);
+                    chunkSizes.add(lines.size());
+                    return recorded(lines);
+                });
+    }
+
+    private static List<PaymentImportOutcome> recorded(List<PaymentImportLine> lines) {
+        return lines.stream()
+                .map(line -> new PaymentImportOutcome(line.lineNumber(), PaymentImportStatus.RECORDED, 7L, List.of(
+                        new CommonPayment((long) line.lineNumber(), 7L, 70L, 1L, line.issuedAt(), line.amount(),
+                                "TRANSFER", line.reference(), "CONFIRMED", null))))
+                .toList();
+    }
+
+    private static InputStream stream(String content) {
+        return new ByteArrayInputStream(content.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private User admin() {
+        return new User(1L, null, 1L, "Admin", "Edificio", "admin@test.com", null, null, "hash", null, false,
+                LocalDateTime.now(), "ACTIVE");
+    }
+}
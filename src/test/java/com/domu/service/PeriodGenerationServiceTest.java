@@ -0,0 +1,151 @@
+package com.domu.service;
+
+import com.domu.config.AppConfig;
+import com.domu.database.CommonExpenseRepository;
+import com.domu.domain.core.User;
+import com.domu.dto.BulkPeriodGenerationRequest;
+import com.domu.dto.BulkPeriodGenerationRequest.BuildingPeriod;
+import com.domu.dto.BulkPeriodGenerationResponse;
+import io.javalin.http.UnauthorizedResponse;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.mockito.junit.jupiter.MockitoSettings;
+import org.mockito.quality.Strictness;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+@MockitoSettings(strictness = Strictness.LENIENT)
+class PeriodGenerationServiceTest {
+
+    @Mock
+    private CommonExpenseService commonExpenseService;
+
+    @Mock
+    private CommonExpenseRepository repository;
+
+    @Mock
+    private BuildingAccessService buildingAccessService;
+
+    @Mock
+    private AppConfig config;
+
+    private final CountDownLatch release = new CountDownLatch(1);
+    private PeriodGenerationService service;
+
+    @BeforeEach
+    void setUp() {
+        when(config.bulkPeriodParallelism()).thenReturn(1);
+        when(config.dbPool()).thenReturn(new AppConfig.DatabasePool(10, 1, 1_000L, 1_000L, 1_000L, 0L, Map.of()));
+        when(buildingAccessService.hasAccess(any(), anyLong())).thenReturn(true);
+        service = new PeriodGenerationService(commonExpenseService, repository, buildingAccessService, config);
+    }
+
+    @AfterEach
+    void tearDown() {
+        release.countDown();
+    }
+
+    @Test
+    void itShouldRejectTheWholeRunIfOneBuildingIsNotAccessible() {
+        User admin = admin(1L);
+        when(buildingAccessService.hasAccess(admin, 9L)).thenReturn(false);
+
+        assertThrows(UnauthorizedResponse.class, () -> service.start(admin, request(3L, 9L)));
+
+        verify(repository, never()).periodExists(anyLong(), anyInt(), anyInt());
+    }
+
+    @Test
+    void onlyTheAdminWhoStartedARunShouldSeeOrRetryIt() throws Exception {
+        blockGeneration();
+        BulkPeriodGenerationResponse started = service.start(admin(1L), request(3L));
+
+        assertThat(service.status(admin(1L), started.runId()).runId()).isEqualTo(started.runId());
+        assertThrows(UnauthorizedResponse.class, () -> service.status(admin(2L), started.runId()));
+        assertThrows(UnauthorizedResponse.class, () -> service.retryFailed(admin(2L), started.runId()));
+    }
+
+    @Test
+    void runsInFlightShouldNotBeEvictedByNewerRuns() throws Exception {
+        blockGeneration();
+        List<String> runIds = new ArrayList<>();
+        for (long i = 0; i < 150; i++) {
+            runIds.add(service.start(admin(1L), request(100L + i)).runId());
+        }
+
+        BulkPeriodGenerationResponse oldest = service.status(admin(1L), runIds.get(0));
+
+        assertThat(oldest.status()).isEqualTo("RUNNING");
+    }
+
+    @Test
+    void finishedRunsShouldStayAvailable() throws Exception {
+        when(repository.periodExists(anyLong(), anyInt(), anyInt())).thenReturn(true);
+        BulkPeriodGenerationResponse started = service.start(admin(1L), request(3L));
+
+        BulkPeriodGenerationResponse finished = awaitFinished(started.runId());
+
+        assertThat(finished.status()).isEqualTo("COMPLETED");
+        assertThat(finished.skipped()).isEqualTo(1);
+    }
+
+    private void blockGeneration() {
+        when(repository.periodExists(anyLong(), eq(2025), eq(4))).thenAnswer(invocation -> {
+            release.await(10, TimeUnit.SECONDS);
+            return true;
+        });
+    }
+
+    private BulkPeriodGenerationResponse awaitFinished(String runId) throws InterruptedException {
+        for (int attempt = 0; attempt < 200; attempt++) {
+            BulkPeriodGenerationResponse response = service.status(admin(1L), runId);
+            if (!"RUNNING".equals(response.status())) {
+                return response;
+            }
+            Thread.sleep(10);
+        }
+        throw new AssertionError("La corrida no terminó");
+    }
+
+    private static BulkPeriodGenerationRequest request(Long... buildingIds) {
+        BulkPeriodGenerationRequest request = new BulkPeriodGenerationRequest();
+        request.setYear(2025);
+        request.setMonth(4);
+        request.setDueDate(LocalDate.of(2025, 4, 10));
+        List<BuildingPeriod> buildings = new ArrayList<>();
+        for (Long buildingId : buildingIds) {
+            BuildingPeriod building = new BuildingPeriod();
+            building.setBuildingId(buildingId);
+            buildings.add(building);
+        }
+        request.setBuildings(buildings);
+        return request;
+    }
+
+    private static User admin(Long id) {
+        return new User(id, null, 1L, "Admin", "Edificio", "admin" + id + "@test.com", null, null, "hash", null, false,
+                LocalDateTime.now(), "ACTIVE");
+    }
+}
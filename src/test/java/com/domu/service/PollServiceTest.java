@@ -1,10 +1,10 @@
 package com.domu.service;
 
-import com.domu.database.BuildingRepository;
 import com.domu.database.PollRepository;
-import com.domu.database.UserBuildingRepository;
+import com.domu.database.PollRepository.PollRow;
 import com.domu.domain.core.User;
 import com.domu.dto.CreatePollRequest;
+import com.domu.dto.PollListResponse;
 
 import io.javalin.http.UnauthorizedResponse;
 
@@ -17,9 +17,16 @@ import org.mockito.junit.jupiter.MockitoExtension;
 import java.time.LocalDate;
 import java.time.LocalDateTime;
 import java.util.List;
+import java.util.Map;
 
+import static org.assertj.core.api.Assertions.assertThat;
 import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.ArgumentMatchers.isNull;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.verifyNoInteractions;
 import static org.mockito.Mockito.when;
 
@@ -30,16 +37,13 @@ class PollServiceTest {
     private PollRepository pollRepository;
 
     @Mock
-    private BuildingRepository buildingRepository;
-
-    @Mock
-    private UserBuildingRepository userBuildingRepository;
+    private BuildingAccessService buildingAccessService;
 
     private PollService pollService;
 
     @BeforeEach
     void setUp() {
-        pollService = new PollService(pollRepository, buildingRepository, userBuildingRepository);
+        pollService = new PollService(pollRepository, buildingAccessService);
     }
 
     @Test
@@ -61,6 +65,41 @@ class PollServiceTest {
         verifyNoInteractions(pollRepository);
     }
 
+    @Test
+    void listShouldReportExpiredPollsAsClosedWithoutWriting() {
+        User resident = sampleUser(2L);
+        LocalDateTime closesAt = LocalDateTime.now().minusMinutes(5);
+        PollRow expired = new PollRow(10L, 1L, 1L, "Pintura", null, closesAt, "OPEN",
+                closesAt.minusDays(1), null);
+        when(buildingAccessService.resolveBuildingId(resident, null)).thenReturn(1L);
+        when(pollRepository.findByBuilding(eq(1L), isNull(), any())).thenReturn(List.of(expired));
+        when(pollRepository.findOptionsByPolls(List.of(10L))).thenReturn(Map.of());
+        when(pollRepository.findUserVotes(List.of(10L), resident.id())).thenReturn(Map.of());
+
+        PollListResponse response = pollService.list(resident, null);
+
+        assertThat(response.open()).isEmpty();
+        assertThat(response.closed()).singleElement().satisfies(poll -> {
+            assertThat(poll.status()).isEqualTo("CLOSED");
+            assertThat(poll.closedAt()).isEqualTo(closesAt);
+        });
+        verify(pollRepository, never()).closePoll(anyLong(), any());
+    }
+
+    @Test
+    void listShouldFilterByStatusInTheQuery() {
+        User resident = sampleUser(2L);
+        when(buildingAccessService.resolveBuildingId(resident, null)).thenReturn(1L);
+        when(pollRepository.findByBuilding(eq(1L), eq("CLOSED"), any())).thenReturn(List.of());
+        when(pollRepository.findOptionsByPolls(List.of())).thenReturn(Map.of());
+        when(pollRepository.findUserVotes(List.of(), resident.id())).thenReturn(Map.of());
+
+        PollListResponse response = pollService.list(resident, " closed ");
+
+        assertThat(response.open()).isEmpty();
+        assertThat(response.closed()).isEmpty();
+    }
+
     private CreatePollRequest baseRequest() {
         CreatePollRequest request = new CreatePollRequest();
         request.setTitle("Nueva votación");
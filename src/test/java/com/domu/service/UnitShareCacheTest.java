@@ -0,0 +1,67 @@
+package com.domu.service;
+
+import com.domu.database.CommonExpenseRepository;
+import com.domu.database.CommonExpenseRepository.UnitShare;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class UnitShareCacheTest {
+
+    private static final Long BUILDING_ID = 3L;
+
+    @Mock
+    private CommonExpenseRepository repository;
+
+    private UnitShareCache cache;
+
+    @BeforeEach
+    void setUp() {
+        cache = new UnitShareCache(repository, Duration.ofMinutes(5), 10);
+    }
+
+    @Test
+    void repeatedLookupsShouldQueryTheBuildingOnce() {
+        when(repository.findUnitsForBuilding(BUILDING_ID)).thenReturn(List.of(
+                new UnitShare(12L, new BigDecimal("0.5000"), false),
+                new UnitShare(10L, new BigDecimal("0.5000"), true)));
+
+        UnitShareSnapshot first = cache.forBuilding(BUILDING_ID);
+        UnitShareSnapshot second = cache.forBuilding(BUILDING_ID);
+
+        assertThat(second).isSameAs(first);
+        verify(repository, times(1)).findUnitsForBuilding(BUILDING_ID);
+        assertThat(first.size()).isEqualTo(2);
+        assertThat(first.unitId(0)).isEqualTo(10L);
+        assertThat(first.occupied(first.indexOf(10L))).isTrue();
+        assertThat(first.occupied(first.indexOf(12L))).isFalse();
+        assertThat(first.indexOf(11L)).isEqualTo(-1);
+        assertThat(first.proration().distribute(101)).containsExactly(51, 50);
+    }
+
+    @Test
+    void invalidationShouldReloadTheSnapshot() {
+        when(repository.findUnitsForBuilding(BUILDING_ID))
+                .thenReturn(List.of(new UnitShare(10L, BigDecimal.ONE, false)))
+                .thenReturn(List.of(new UnitShare(10L, BigDecimal.ONE, true)));
+
+        assertThat(cache.forBuilding(BUILDING_ID).occupied(0)).isFalse();
+        cache.invalidate(BUILDING_ID);
+
+        assertThat(cache.forBuilding(BUILDING_ID).occupied(0)).isTrue();
+        verify(repository, times(2)).findUnitsForBuilding(BUILDING_ID);
+    }
+}
@@ -0,0 +1,94 @@
+package com.domu.service;
+
+import com.domu.database.VisitContactRepository;
+import com.domu.database.VisitContactRepository.ContactRow;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.LongStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class VisitContactIndexCacheTest {
+
+    private static final Long RESIDENT_ID = 7L;
+    private static final LocalDateTime NOW = LocalDateTime.of(2025, 4, 15, 10, 30);
+
+    @Mock
+    private VisitContactRepository repository;
+
+    private VisitContactIndexCache cache;
+
+    @BeforeEach
+    void setUp() {
+        cache = new VisitContactIndexCache(repository, Duration.ofMinutes(5), 100);
+    }
+
+    @Test
+    void itShouldLoadOnceAndMatchWordsAliasesAndRutPrefixes() {
+        when(repository.findAllForResident(eq(RESIDENT_ID), anyInt())).thenReturn(List.of(
+                contact(3L, "José Muñoz Pérez", "12345678-K", null),
+                contact(2L, "Ana Torres", "9876543-2", "Mamá"),
+                contact(1L, "Pedro Pérez", null, "Gasfíter")));
+
+        assertThat(ids(cache.forResident(RESIDENT_ID).search("per", 20))).containsExactly(3L, 1L);
+        assertThat(ids(cache.forResident(RESIDENT_ID).search("MUNOZ pe", 20))).containsExactly(3L);
+        assertThat(ids(cache.forResident(RESIDENT_ID).search("mama", 20))).containsExactly(2L);
+        assertThat(ids(cache.forResident(RESIDENT_ID).search("12.345", 20))).containsExactly(3L);
+        assertThat(ids(cache.forResident(RESIDENT_ID).search("gas", 20))).containsExactly(1L);
+        assertThat(ids(cache.forResident(RESIDENT_ID).search("", 2))).containsExactly(3L, 2L);
+        assertThat(cache.forResident(RESIDENT_ID).search("zz", 20)).isEmpty();
+
+        verify(repository, times(1)).findAllForResident(eq(RESIDENT_ID), anyInt());
+    }
+
+    @Test
+    void createdAndDeletedContactsShouldBeReflectedWithoutReloading() {
+        when(repository.findAllForResident(eq(RESIDENT_ID), anyInt())).thenReturn(List.of(
+                contact(1L, "Pedro Pérez", null, null)));
+        cache.forResident(RESIDENT_ID);
+
+        cache.added(RESIDENT_ID, contact(2L, "Paula Rojas", null, null));
+        assertThat(ids(cache.forResident(RESIDENT_ID).search("p", 20))).containsExactly(2L, 1L);
+
+        cache.removed(RESIDENT_ID, 1L);
+        assertThat(ids(cache.forResident(RESIDENT_ID).search("p", 20))).containsExactly(2L);
+
+        verify(repository, times(1)).findAllForResident(eq(RESIDENT_ID), anyInt());
+    }
+
+    @Test
+    void residentsWithTooManyContactsShouldFallBackToTheDatabase() {
+        List<ContactRow> contacts = new ArrayList<>();
+        LongStream.rangeClosed(1, VisitContactIndexCache.MAX_CONTACTS_PER_RESIDENT + 1)
+                .forEach(id -> contacts.add(contact(id, "Visita " + id, null, null)));
+        when(repository.findAllForResident(eq(RESIDENT_ID), anyInt())).thenReturn(contacts);
+
+        assertThat(cache.forResident(RESIDENT_ID)).isNull();
+        assertThat(cache.forResident(RESIDENT_ID)).isNull();
+
+        verify(repository, times(1)).findAllForResident(eq(RESIDENT_ID), anyInt());
+    }
+
+    private static ContactRow contact(Long id, String name, String document, String alias) {
+        return new ContactRow(id, RESIDENT_ID, name, document, null, alias, NOW, NOW);
+    }
+
+    private static List<Long> ids(List<ContactRow> contacts) {
+        return contacts.stream().map(ContactRow::id).toList();
+    }
+}
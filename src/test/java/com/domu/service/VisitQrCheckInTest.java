@@ -0,0 +1,185 @@
+package com.domu.service;
+
+import com.domu.database.VisitRepository;
+import com.domu.database.VisitRepository.AccessLogRow;
+import com.domu.database.VisitRepository.VisitAuthorizationRow;
+import com.domu.database.VisitRepository.VisitRow;
+import com.domu.database.VisitRepository.VisitSummaryRow;
+import com.domu.domain.core.User;
+import com.domu.dto.CreateVisitRequest;
+import com.domu.dto.VisitResponse;
+import io.javalin.http.UnauthorizedResponse;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Optional;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class VisitQrCheckInTest {
+
+    private static final Long BUILDING_ID = 3L;
+
+    @Mock
+    private VisitRepository repository;
+
+    private VisitService service;
+
+    @BeforeEach
+    void setUp() {
+        service = new VisitService(repository, new VisitCheckInIndex(repository, Duration.ofMinutes(5), 100));
+    }
+
+    @Test
+    void onlyTheHashShouldBeStoredAndTheCodeReturnedOnCreation() {
+        when(repository.insertVisit(any())).thenAnswer(invocation -> {
+            VisitRow visit = invocation.getArgument(0);
+            return new VisitRow(20L, visit.visitorName(), visit.visitorDocument(), visit.visitorType(),
+                    visit.company(), visit.createdAt());
+        });
+        ArgumentCaptor<VisitAuthorizationRow> stored = ArgumentCaptor.forClass(VisitAuthorizationRow.class);
+        when(repository.insertAuthorization(stored.capture())).thenAnswer(invocation -> {
+            VisitAuthorizationRow row = invocation.getArgument(0);
+            return new VisitAuthorizationRow(10L, row.visitId(), row.residentUserId(), row.unitId(), row.validFrom(),
+                    row.validUntil(), row.status(), row.qrHash(), row.createdAt());
+        });
+        CreateVisitRequest request = new CreateVisitRequest();
+        request.setVisitorName("Ana Torres");
+        request.setUnitId(5L);
+
+        VisitResponse created = service.createVisit(concierge(), request);
+
+        assertThat(created.qrCode()).isNotBlank();
+        assertThat(stored.getValue().qrHash())
+                .isEqualTo(VisitService.qrHash(created.qrCode()))
+                .isNotEqualTo(created.qrCode())
+                .hasSize(64);
+
+        when(repository.findQrAuthorizationsForDay(eq(BUILDING_ID), any(), any()))
+                .thenReturn(List.of(authorization(10L, created.qrCode(), "SCHEDULED")));
+        when(repository.insertPendingCheckIn(any())).thenAnswer(invocation -> Optional.of(invocation.getArgument(0)));
+
+        VisitResponse checkedIn = service.checkInByQr(concierge(), BUILDING_ID, created.qrCode());
+
+        assertThat(checkedIn.status()).isEqualTo("CHECKED_IN");
+        assertThat(checkedIn.qrCode()).isNull();
+    }
+
+    @Test
+    void theStoredHashShouldNotWorkAsACode() {
+        when(repository.findQrAuthorizationsForDay(eq(BUILDING_ID), any(), any()))
+                .thenReturn(List.of(authorization(10L, "qr-a", "SCHEDULED")));
+        when(repository.findAuthorizationByQrHash(eq(BUILDING_ID), anyString())).thenReturn(Optional.empty());
+
+        assertThrows(ValidationException.class,
+                () -> service.checkInByQr(concierge(), BUILDING_ID, VisitService.qrHash("qr-a")));
+    }
+
+    @Test
+    void scansShouldBeValidatedFromTheDayIndexAndWrittenOnce() {
+        when(repository.findQrAuthorizationsForDay(eq(BUILDING_ID), any(), any()))
+                .thenReturn(List.of(authorization(10L, "qr-a", "SCHEDULED"), authorization(11L, "qr-b", "SCHEDULED")));
+        when(repository.insertPendingCheckIn(any())).thenAnswer(invocation -> Optional.of(invocation.getArgument(0)));
+
+        VisitResponse first = service.checkInByQr(concierge(), BUILDING_ID, " qr-a ");
+        VisitResponse second = service.checkInByQr(concierge(), BUILDING_ID, "qr-b");
+        VisitResponse repeated = service.checkInByQr(concierge(), BUILDING_ID, "qr-a");
+
+        assertThat(first.status()).isEqualTo("CHECKED_IN");
+        assertThat(first.checkInAt()).isNotNull();
+        assertThat(second.authorizationId()).isEqualTo(11L);
+        assertThat(repeated.checkInAt()).isEqualTo(first.checkInAt());
+        verify(repository, times(1)).findQrAuthorizationsForDay(eq(BUILDING_ID), any(), any());
+        verify(repository, times(2)).insertPendingCheckIn(any(AccessLogRow.class));
+        verify(repository, never()).findAuthorizationByQrHash(any(), anyString());
+    }
+
+    @Test
+    void codesMissingFromTheIndexShouldBeLookedUpInTheDatabase() {
+        when(repository.findQrAuthorizationsForDay(eq(BUILDING_ID), any(), any())).thenReturn(List.of());
+        when(repository.findAuthorizationByQrHash(BUILDING_ID, VisitService.qrHash("qr-new")))
+                .thenReturn(Optional.of(authorization(12L, "qr-new", "SCHEDULED")));
+        when(repository.findAuthorizationByQrHash(BUILDING_ID, VisitService.qrHash("qr-other")))
+                .thenReturn(Optional.empty());
+        when(repository.insertPendingCheckIn(any())).thenAnswer(invocation -> Optional.of(invocation.getArgument(0)));
+
+        assertThat(service.checkInByQr(concierge(), BUILDING_ID, "qr-new").status()).isEqualTo("CHECKED_IN");
+        service.checkInByQr(concierge(), BUILDING_ID, "qr-new");
+        assertThrows(ValidationException.class, () -> service.checkInByQr(concierge(), BUILDING_ID, "qr-other"));
+
+        verify(repository, times(1)).findAuthorizationByQrHash(BUILDING_ID, VisitService.qrHash("qr-new"));
+        verify(repository, times(1)).insertPendingCheckIn(any(AccessLogRow.class));
+    }
+
+    @Test
+    void aCheckInRecordedElsewhereShouldBeReadBackInsteadOfDuplicated() {
+        when(repository.findQrAuthorizationsForDay(eq(BUILDING_ID), any(), any()))
+                .thenReturn(List.of(authorization(10L, "qr-a", "SCHEDULED")));
+        when(repository.insertPendingCheckIn(any())).thenReturn(Optional.empty());
+        VisitSummaryRow checkedIn = authorization(10L, "qr-a", "SCHEDULED")
+                .withStatus("CHECKED_IN", LocalDateTime.now().minusMinutes(2));
+        when(repository.findAuthorizationByQrHash(BUILDING_ID, VisitService.qrHash("qr-a")))
+                .thenReturn(Optional.of(checkedIn));
+
+        VisitResponse response = service.checkInByQr(concierge(), BUILDING_ID, "qr-a");
+
+        assertThat(response.status()).isEqualTo("CHECKED_IN");
+        assertThat(response.checkInAt()).isEqualTo(checkedIn.checkInAt());
+    }
+
+    @Test
+    void expiredCodesShouldBeRejected() {
+        VisitSummaryRow expired = new VisitSummaryRow(10L, 20L, 7L, 5L, "Ana Torres", null, "VISIT",
+                LocalDateTime.now().minusHours(3), LocalDateTime.now().minusMinutes(1), "SCHEDULED",
+                LocalDateTime.now().minusHours(3), null, VisitService.qrHash("qr-old"));
+        when(repository.findQrAuthorizationsForDay(eq(BUILDING_ID), any(), any())).thenReturn(List.of(expired));
+
+        assertThrows(ValidationException.class, () -> service.checkInByQr(concierge(), BUILDING_ID, "qr-old"));
+
+        verify(repository).updateAuthorizationStatus(10L, "EXPIRED");
+        verify(repository, never()).insertPendingCheckIn(any());
+    }
+
+    @Test
+    void residentsShouldNotUseTheFrontDeskCheckIn() {
+        User resident = new User(8L, 5L, 2L, "Ana", "Torres", "ana@test.com", null, null, "hash", null, true,
+                LocalDateTime.now(), "ACTIVE");
+
+        assertThrows(UnauthorizedResponse.class, () -> service.checkInByQr(resident, BUILDING_ID, "qr-a"));
+
+        verifyNoInteractions(repository);
+    }
+
+    /**
+     * Autorización como la guarda la base: con el hash del código, no el código.
+     */
+    private static VisitSummaryRow authorization(Long id, String qrCode, String status) {
+        LocalDateTime now = LocalDateTime.now();
+        return new VisitSummaryRow(id, id + 100, 7L, 5L, "Visita " + id, "12345678-K", "VISIT",
+                now.minusMinutes(30), now.plusHours(2), status, now.minusMinutes(30), null,
+                VisitService.qrHash(qrCode));
+    }
+
+    private static User concierge() {
+        return new User(2L, null, 3L, "Conserje", "Edificio", "conserje@test.com", null, null, "hash", null, false,
+                LocalDateTime.now(), "ACTIVE");
+    }
+}